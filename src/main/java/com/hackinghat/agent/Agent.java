@@ -3,11 +3,13 @@ package com.hackinghat.agent;
 
 import com.hackinghat.model.Instrument;
 import com.hackinghat.model.Level;
+import com.hackinghat.model.Price;
 import com.hackinghat.order.Order;
 import com.hackinghat.order.OrderState;
 import com.hackinghat.statistic.Statistic;
 import com.hackinghat.util.*;
 import com.hackinghat.util.component.AbstractComponent;
+import com.hackinghat.util.jfr.AgentWakeUpEvent;
 import com.hackinghat.util.mbean.MBeanAttribute;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -39,16 +41,25 @@ public abstract class Agent extends AbstractComponent implements Nameable, Ident
     protected int cancelCount;
     protected int amendCount;
     protected int fillCount;
-    private double initialCash;
+    // Cash is held in millionths, see Price
+    private long initialCash;
     private int initialShares;
     private ScheduledFuture<?> future;
     private boolean first;
-    private double cash;
+    private long cash;
     private int shares;
     private boolean overdrawn;
 
     public Agent(final Long id, final Instrument instrument, final RandomSource randomSource, final TimeMachine timeMachine, final String name, final EventDispatcher dispatcher, final boolean canBeOverdrawn) {
-        super(name);
+        this(id, instrument, randomSource, timeMachine, name, dispatcher, canBeOverdrawn, true);
+    }
+
+    /**
+     * An agent that isn't managed has no MBean and doesn't require the dispatcher itself, the {@link AgentGroup} it
+     * belongs to does both for all its agents
+     */
+    protected Agent(final Long id, final Instrument instrument, final RandomSource randomSource, final TimeMachine timeMachine, final String name, final EventDispatcher dispatcher, final boolean canBeOverdrawn, final boolean managed) {
+        super(name, managed);
         this.id = id;
         this.name = name;
         this.future = null;
@@ -59,7 +70,7 @@ public abstract class Agent extends AbstractComponent implements Nameable, Ident
         this.decimalFormatThread = new ThreadLocalFormat<>(DecimalFormat.class, "#,##0.##");
         this.timeMachine = timeMachine;
         this.instrument = instrument;
-        this.dispatcher = require(dispatcher);
+        this.dispatcher = managed ? require(dispatcher) : dispatcher;
         this.overdrawn = false;
         this.canBeOverdrawn = canBeOverdrawn;
         this.tooLateCount = 0;
@@ -82,7 +93,7 @@ public abstract class Agent extends AbstractComponent implements Nameable, Ident
 
     @MBeanAttribute(description = "Cash")
     public double getCash() {
-        return cash;
+        return Price.toDouble(cash);
     }
 
     @MBeanAttribute(description = "Shares")
@@ -122,21 +133,21 @@ public abstract class Agent extends AbstractComponent implements Nameable, Ident
 
     public Pair<Double, Integer> getBalance() {
         synchronized (sync) {
-            return Pair.instanceOf(cash, shares);
+            return Pair.instanceOf(Price.toDouble(cash), shares);
         }
     }
 
     public void setBalances(double cash, int shares) {
         synchronized (sync) {
-            this.initialCash = cash;
+            this.initialCash = Price.toFixed(cash);
             this.initialShares = shares;
-            this.cash = cash;
+            this.cash = this.initialCash;
             this.shares = shares;
         }
     }
 
     public double cashChange() {
-        return cash - initialCash;
+        return Price.toDouble(cash - initialCash);
     }
 
     public int sharesChange() {
@@ -150,16 +161,16 @@ public abstract class Agent extends AbstractComponent implements Nameable, Ident
             switch (order.getSide()) {
                 case BUY:
                     shares += quantity;
-                    cash -= price.getPrice() * quantity;
+                    cash -= Price.value(price.getFixedPrice(), quantity);
                     break;
                 case SELL:
                     shares -= quantity;
-                    cash += price.getPrice() * quantity;
+                    cash += Price.value(price.getFixedPrice(), quantity);
                     break;
             }
             if (canBeOverdrawn && (cash <= 0 && shares <= 0)) {
                 overdrawn = true;
-            } else if (initialCash / 4.0 > cash && initialShares / 4 > shares) {
+            } else if (initialCash / 4 > cash && initialShares / 4 > shares) {
                 LOG.info("Agent " + getName() + " is down to 25% stake (cash & shares)");
             }
         }
@@ -256,7 +267,7 @@ public abstract class Agent extends AbstractComponent implements Nameable, Ident
 
     public void schedule() {
         if (overdrawn) {
-            LOG.info(getName() + " is overdrawn and can no longer continue (cash=" + cash + " /shares= " + shares + ")");
+            LOG.info(getName() + " is overdrawn and can no longer continue (cash=" + Price.toDouble(cash) + " /shares= " + shares + ")");
         } else {
             long wakeupTime = wakeUp().toNanos();
             if (LOG.isTraceEnabled())
@@ -277,8 +288,12 @@ public abstract class Agent extends AbstractComponent implements Nameable, Ident
         try {
             if (!first) {
                 if (LOG.isTraceEnabled()) LOG.trace(getName() + ": START");
+                final AgentWakeUpEvent wakeUp = new AgentWakeUpEvent();
+                wakeUp.begin();
                 synchronized (sync) {
+                    final int before = newOrderCount + cancelCount + amendCount;
                     doActions();
+                    wakeUp.commit(getName(), 1, newOrderCount + cancelCount + amendCount - before);
                 }
                 if (LOG.isTraceEnabled()) LOG.trace(getName() + ": END");
             }
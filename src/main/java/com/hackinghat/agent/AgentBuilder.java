@@ -9,6 +9,7 @@ import com.hackinghat.util.TimeMachine;
 import java.time.Duration;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 
 import static com.hackinghat.agent.parameter.AgentParameterSet.P_INSPREAD;
 
@@ -20,6 +21,10 @@ import static com.hackinghat.agent.parameter.AgentParameterSet.P_INSPREAD;
  * are constant and provide an upper-bound on behaviour.   For example all agents that view the buy/sell preference as 50%
  * should result in a stable price around the starting reference price.  However, due to the microstructure effects (that
  * we're trying to understand) this price may well drift.
+ * <p>
+ * Each agent is given its own stream of the random source (see {@link RandomSource#split(long)}) for its position in the
+ * order the builder made it, rather than its id: ids are shared by every builder in the JVM so the same seed would otherwise
+ * give different streams depending on what else had been built first.
  */
 public class AgentBuilder {
     private final static AtomicLong AGENT_ID_GENERATOR = new AtomicLong(0L);
@@ -30,6 +35,7 @@ public class AgentBuilder {
     private final double sizeSigma;
     private final RandomSource randomSource;
     private final Instrument instrument;
+    private final AtomicLong streamIndex = new AtomicLong(0L);
 
     public AgentBuilder(final Instrument instrument, final RandomSource randomSource, final double defaultCash, final int defaultShares, final double alpha, final double sizeMean, final double sizeSigma) {
         this.defaultCash = defaultCash;
@@ -41,11 +47,19 @@ public class AgentBuilder {
         this.instrument = instrument;
     }
 
+    /**
+     * Without a builder the agents are given the streams 0 to n-1, in the order they are made
+     */
     public static ZeroIntelligenceAgent[] makeZeroIntelligenceAgents(final Instrument instrument, final RandomSource randomSource, final TimeMachine timeMachine, final AgentParameterSet agentParameterSet, final String nameStem, final int n, final Duration sleepT1, final Duration sleeptT2, final OrderBookSimulatorImpl simulator, final Consumer<ZeroIntelligenceAgent> fnSetBalances, final double pCancel, final double pMarket, double pBuy) {
+        return makeZeroIntelligenceAgents(instrument, randomSource, new AtomicLong(0L)::getAndIncrement, timeMachine, agentParameterSet, nameStem, n, sleepT1, sleeptT2, simulator, fnSetBalances, pCancel, pMarket, pBuy, true);
+    }
+
+    private static ZeroIntelligenceAgent[] makeZeroIntelligenceAgents(final Instrument instrument, final RandomSource randomSource, final LongSupplier nextStream, final TimeMachine timeMachine, final AgentParameterSet agentParameterSet, final String nameStem, final int n, final Duration sleepT1, final Duration sleeptT2, final OrderBookSimulatorImpl simulator, final Consumer<ZeroIntelligenceAgent> fnSetBalances, final double pCancel, final double pMarket, double pBuy, final boolean managed) {
         ZeroIntelligenceAgent[] agents = new ZeroIntelligenceAgent[n];
         for (int i = 0; i < n; ++i) {
-            agents[i] = new ZeroIntelligenceAgent(AGENT_ID_GENERATOR.getAndIncrement(), instrument, randomSource, timeMachine, sleepT1, sleeptT2, nameStem + " #" + i, simulator, pCancel, pMarket, pBuy,
-                    agentParameterSet.getParameter(P_INSPREAD));
+            final long id = AGENT_ID_GENERATOR.getAndIncrement();
+            agents[i] = new ZeroIntelligenceAgent(id, instrument, randomSource.split(nextStream.getAsLong()), timeMachine, sleepT1, sleeptT2, nameStem + " #" + i, simulator, pCancel, pMarket, pBuy,
+                    agentParameterSet.getParameter(P_INSPREAD), managed);
             fnSetBalances.accept(agents[i]);
         }
         return agents;
@@ -59,10 +73,36 @@ public class AgentBuilder {
     }
 
     public ZeroIntelligenceAgent[] makeZeroIntelligenceAgents(final TimeMachine timeMachine, final AgentParameterSet agentParameterSet, final String nameStem, final int n, final Duration sleepT1, final Duration sleepT2, final OrderBookSimulatorImpl simulator, final double pCancel, final double pMarket, final double pBuy) {
-        return makeZeroIntelligenceAgents(instrument, randomSource, timeMachine, agentParameterSet, nameStem, n, sleepT1, sleepT2, simulator, this::setFromDefault, pCancel, pMarket, pBuy);
+        return makeZeroIntelligenceAgents(instrument, randomSource, streamIndex::getAndIncrement, timeMachine, agentParameterSet, nameStem, n, sleepT1, sleepT2, simulator, this::setFromDefault, pCancel, pMarket, pBuy, true);
+    }
+
+    /**
+     * Makes agents as {@link #makeZeroIntelligenceAgents(TimeMachine, AgentParameterSet, String, int, Duration, Duration, OrderBookSimulatorImpl, double, double, double)}
+     * but without an MBean each, the group is the MBean for all of them
+     */
+    public AgentGroup<ZeroIntelligenceAgent> makeZeroIntelligenceAgentGroup(final TimeMachine timeMachine, final AgentParameterSet agentParameterSet, final String nameStem, final int n, final Duration sleepT1, final Duration sleepT2, final OrderBookSimulatorImpl simulator, final double pCancel, final double pMarket, final double pBuy) {
+        return new AgentGroup<>(nameStem, simulator.getEventDispatcher(), makeZeroIntelligenceAgents(instrument, randomSource, streamIndex::getAndIncrement, timeMachine, agentParameterSet, nameStem, n, sleepT1, sleepT2, simulator, this::setFromDefault, pCancel, pMarket, pBuy, false));
+    }
+
+    /**
+     * Makes a population of zero intelligence agents, every agent has the default balances and each draws its own
+     * parameters from the parameter set
+     */
+    public ZeroIntelligencePopulation makeZeroIntelligencePopulation(final TimeMachine timeMachine, final AgentParameterSet agentParameterSet, final String name, final int n, final Duration sleepT1, final Duration sleepT2, final Duration slice, final OrderBookSimulatorImpl simulator, final double pCancel, final double pMarket, final double pBuy) {
+        final double[] pInSpread = new double[n];
+        for (int i = 0; i < n; ++i)
+            pInSpread[i] = agentParameterSet.<Double>getParameter(P_INSPREAD);
+        final long id = AGENT_ID_GENERATOR.getAndIncrement();
+        final ZeroIntelligencePopulation population = new ZeroIntelligencePopulation(id, instrument, randomSource.split(streamIndex.getAndIncrement()), timeMachine, sleepT1, sleepT2, slice, name, simulator, pCancel, pMarket, pBuy, pInSpread);
+        population.setBalances(defaultCash, defaultShares);
+        population.setAlpha(alpha);
+        population.setSizeMean(sizeMean);
+        population.setSizeSigma(sizeSigma);
+        return population;
     }
 
     public ZeroIntelligenceMarketMaker makeMarketMaker(final TimeMachine timeMachine, final Duration sleepTime, final OrderBookSimulatorImpl simulator, final int nSpreadLevels, final int spreadTolerance, final int bidOrderSize, final int offerOrderSize, final boolean cancelIfTop) {
-        return new ZeroIntelligenceMarketMaker(AGENT_ID_GENERATOR.getAndIncrement(), instrument, randomSource, timeMachine, sleepTime, "MM", simulator, nSpreadLevels, spreadTolerance, bidOrderSize, offerOrderSize, cancelIfTop);
+        final long id = AGENT_ID_GENERATOR.getAndIncrement();
+        return new ZeroIntelligenceMarketMaker(id, instrument, randomSource.split(streamIndex.getAndIncrement()), timeMachine, sleepTime, "MM", simulator, nSpreadLevels, spreadTolerance, bidOrderSize, offerOrderSize, cancelIfTop);
     }
 }
@@ -0,0 +1,111 @@
+package com.hackinghat.agent;
+
+import com.hackinghat.util.EventDispatcher;
+import com.hackinghat.util.component.AbstractComponent;
+import com.hackinghat.util.mbean.MBeanAttribute;
+import com.hackinghat.util.mbean.MBeanType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Agents that aren't managed (see {@link Agent}) reported on together, so that a group of many agents is one MBean
+ * and one requirement of the dispatcher rather than one each.  Closing the group closes its agents.
+ *
+ * @param <A> the type of agent
+ */
+@MBeanType(description = "Agent group")
+public class AgentGroup<A extends Agent> extends AbstractComponent {
+    private static final Logger LOG = LogManager.getLogger(AgentGroup.class);
+
+    private final List<A> agents;
+
+    public AgentGroup(final String name, final EventDispatcher dispatcher, final A[] agents) {
+        super(name);
+        Objects.requireNonNull(agents);
+        this.agents = Collections.unmodifiableList(Arrays.asList(agents.clone()));
+        require(dispatcher);
+    }
+
+    public List<A> getAgents() {
+        return agents;
+    }
+
+    private int sumInt(final ToIntFunction<A> value) {
+        int total = 0;
+        for (final A agent : agents)
+            total += value.applyAsInt(agent);
+        return total;
+    }
+
+    private double sumDouble(final ToDoubleFunction<A> value) {
+        double total = 0.0;
+        for (final A agent : agents)
+            total += value.applyAsDouble(agent);
+        return total;
+    }
+
+    @MBeanAttribute(description = "Agents")
+    public int getAgentCount() {
+        return agents.size();
+    }
+
+    @MBeanAttribute(description = "Cash")
+    public double getCash() {
+        return sumDouble(Agent::getCash);
+    }
+
+    @MBeanAttribute(description = "Shares")
+    public int getShares() {
+        return sumInt(Agent::getShares);
+    }
+
+    @MBeanAttribute(description = "Too Late")
+    public int getTooLateCount() {
+        return sumInt(Agent::getTooLateCount);
+    }
+
+    @MBeanAttribute(description = "Rejected")
+    public int getRejectedCount() {
+        return sumInt(Agent::getRejectedCount);
+    }
+
+    @MBeanAttribute(description = "Filled")
+    public int getFillCount() {
+        return sumInt(Agent::getFillCount);
+    }
+
+    @MBeanAttribute(description = "New Count")
+    public int getNewOrderCount() {
+        return sumInt(Agent::getNewOrderCount);
+    }
+
+    @MBeanAttribute(description = "Cancelled")
+    public int getCancelCount() {
+        return sumInt(Agent::getCancelCount);
+    }
+
+    @MBeanAttribute(description = "Amended")
+    public int getAmendCount() {
+        return sumInt(Agent::getAmendCount);
+    }
+
+    @MBeanAttribute(description = "Outstanding orders")
+    public int getOutstandingOrderCount() {
+        return sumInt(Agent::getOutstandingOrderCount);
+    }
+
+    @Override
+    public void shutdown() {
+        LOG.debug("Closing " + agents.size() + " agents of " + getName());
+        for (final A agent : agents)
+            agent.close();
+        super.shutdown();
+    }
+}
@@ -34,8 +34,16 @@ public class ZeroIntelligenceAgent extends Agent {
     private double sizeSigma;
     private double sizeMean;
     private long clientId;
+
     public ZeroIntelligenceAgent(final Long id, final Instrument instrument, final RandomSource randomSource, final TimeMachine timeMachine, final Duration sleepT1, final Duration sleepT2, final String name, final OrderBookSimulatorImpl simulator, final double pCancel, final double pMarket, final double pBuy, final double pInSpread) {
-        super(id, instrument, randomSource, timeMachine, name, simulator.getEventDispatcher(), false);
+        this(id, instrument, randomSource, timeMachine, sleepT1, sleepT2, name, simulator, pCancel, pMarket, pBuy, pInSpread, true);
+    }
+
+    /**
+     * @param managed false if the agent belongs to an {@link AgentGroup}, see {@link Agent}
+     */
+    public ZeroIntelligenceAgent(final Long id, final Instrument instrument, final RandomSource randomSource, final TimeMachine timeMachine, final Duration sleepT1, final Duration sleepT2, final String name, final OrderBookSimulatorImpl simulator, final double pCancel, final double pMarket, final double pBuy, final double pInSpread, final boolean managed) {
+        super(id, instrument, randomSource, timeMachine, name, simulator.getEventDispatcher(), false, managed);
         this.pCancel = pCancel;
         this.pBuy = pBuy;
         this.pMarket = pMarket;
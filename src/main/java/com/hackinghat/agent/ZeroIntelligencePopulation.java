@@ -0,0 +1,628 @@
+package com.hackinghat.agent;
+
+import com.hackinghat.model.Instrument;
+import com.hackinghat.model.Level;
+import com.hackinghat.model.Price;
+import com.hackinghat.order.MarketState;
+import com.hackinghat.order.Order;
+import com.hackinghat.order.OrderSide;
+import com.hackinghat.order.OrderState;
+import com.hackinghat.orderbook.InvalidMarketStateException;
+import com.hackinghat.orderbook.Level1;
+import com.hackinghat.simulator.OrderBookSimulatorImpl;
+import com.hackinghat.util.Pair;
+import com.hackinghat.util.RandomSource;
+import com.hackinghat.util.TimeMachine;
+import com.hackinghat.util.jfr.AgentWakeUpEvent;
+import com.hackinghat.util.mbean.MBeanAttribute;
+import com.hackinghat.util.mbean.MBeanType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A population of zero intelligence agents that behave as {@link ZeroIntelligenceAgent}s do, but that is a single
+ * component (and a single MBean) with a single scheduled task however large the population is.
+ * <p>
+ * The state of the agents (cash, shares, parameters, the time they next wake up and their outstanding orders) is held
+ * in arrays indexed by agent.  The population wakes once per time slice and every agent that is due in that slice
+ * acts against the same snapshot of the touch, the orders of all of them are then sent to the order manager as a
+ * single batch.  Agents are found by a timing wheel of time slices, so agents that aren't due aren't visited.
+ * <p>
+ * Each order carries its agent and its outstanding order slot as its sender reference, see
+ * {@link Order#getSenderReference()}.  Outstanding orders are kept, oldest first, in a doubly linked list per agent.
+ */
+@MBeanType(description = "Zero Intelligence Agent population")
+public class ZeroIntelligencePopulation extends Agent {
+    private static final Logger LOG = LogManager.getLogger(ZeroIntelligencePopulation.class);
+    private static final int WHEEL_SIZE = 1024;
+    private static final int NONE = -1;
+    private static final int BLOCK = 4096;
+
+    private final double pCancel;
+    private final double pBuy;
+    private final double pMarket;
+    private final long sleepT1Millis;
+    private final long sleepT2Millis;
+    private final Duration slice;
+    private final long sliceNanos;
+    private final TimeMachine timeMachine;
+    private final OrderBookSimulatorImpl simulator;
+    private final Object lock;
+    private double alpha;
+    private double sizeSigma;
+    private double sizeMean;
+    private long clientId;
+
+    // Agent state, indexed by agent
+    private final double[] pInSpread;
+    private final long[] cash;
+    private final long[] initialCash;
+    private final int[] shares;
+    private final int[] initialShares;
+    private final long[] nextWakeNanos;
+    private final int[] wheelNext;
+    private final int[] firstSlot;
+    private final int[] lastSlot;
+
+    // The timing wheel, each bucket is the head of a list of agents (linked through wheelNext)
+    private final int[] bucketHead;
+    private long lastTick;
+    private boolean started;
+    private int[] due;
+
+    // Outstanding orders, indexed by slot
+    private Order[] slotOrder;
+    private int[] slotAgent;
+    private int[] slotNext;
+    private int[] slotPrev;
+    private int freeSlot;
+    private int outstanding;
+
+    // Random values drawn a block at a time, indexed by the agent's position in the block of due agents
+    private final double[] actionDraw;
+    private final double[] sideDraw;
+    private final double[] auctionSideDraw;
+    private final double[] inSpreadDraw;
+    private final double[] spreadTicksDraw;
+    private final double[] volumeDraw;
+    private final int[] outOfSpreadTicksDraw;
+    private final double[] wakeChoiceDraw;
+    private final double[] sleepDraw;
+
+    /**
+     * @param id           the id of the population
+     * @param instrument   the instrument the agents trade
+     * @param randomSource the source of randomness shared by the agents
+     * @param timeMachine  the time machine
+     * @param sleepT1      the mean of the first of the sleep times an agent chooses between
+     * @param sleepT2      the mean of the second of the sleep times an agent chooses between
+     * @param slice        how often the population wakes, agents due within a slice act together
+     * @param name         the name of the population
+     * @param simulator    the simulator
+     * @param pCancel      the probability an agent will cancel
+     * @param pMarket      the probability an agent will send a market order
+     * @param pBuy         the probability an agent will buy
+     * @param pInSpread    the probability of each agent that its limit order is within the spread, one per agent
+     */
+    public ZeroIntelligencePopulation(final Long id, final Instrument instrument, final RandomSource randomSource, final TimeMachine timeMachine, final Duration sleepT1, final Duration sleepT2, final Duration slice, final String name, final OrderBookSimulatorImpl simulator, final double pCancel, final double pMarket, final double pBuy, final double[] pInSpread) {
+        super(id, instrument, randomSource, timeMachine, name, simulator.getEventDispatcher(), false);
+        Objects.requireNonNull(pInSpread);
+        if (slice.isNegative() || slice.isZero())
+            throw new IllegalArgumentException("Time slice must be greater than zero");
+        this.pCancel = pCancel;
+        this.pBuy = pBuy;
+        this.pMarket = pMarket;
+        this.sleepT1Millis = sleepT1.toMillis();
+        this.sleepT2Millis = sleepT2.toMillis();
+        this.slice = slice;
+        this.sliceNanos = slice.toNanos();
+        this.timeMachine = timeMachine;
+        this.simulator = simulator;
+        this.lock = new Object();
+        this.clientId = 0;
+        final int n = pInSpread.length;
+        this.pInSpread = pInSpread.clone();
+        this.cash = new long[n];
+        this.initialCash = new long[n];
+        this.shares = new int[n];
+        this.initialShares = new int[n];
+        this.nextWakeNanos = new long[n];
+        this.wheelNext = new int[n];
+        this.firstSlot = new int[n];
+        this.lastSlot = new int[n];
+        Arrays.fill(firstSlot, NONE);
+        Arrays.fill(lastSlot, NONE);
+        this.bucketHead = new int[WHEEL_SIZE];
+        Arrays.fill(bucketHead, NONE);
+        this.due = new int[64];
+        this.slotOrder = new Order[0];
+        this.slotAgent = new int[0];
+        this.slotNext = new int[0];
+        this.slotPrev = new int[0];
+        this.freeSlot = NONE;
+        this.actionDraw = new double[BLOCK];
+        this.sideDraw = new double[BLOCK];
+        this.auctionSideDraw = new double[BLOCK];
+        this.inSpreadDraw = new double[BLOCK];
+        this.spreadTicksDraw = new double[BLOCK];
+        this.volumeDraw = new double[BLOCK];
+        this.outOfSpreadTicksDraw = new int[BLOCK];
+        this.wakeChoiceDraw = new double[BLOCK];
+        this.sleepDraw = new double[BLOCK];
+    }
+
+    @MBeanAttribute(description = "Agents")
+    public int getAgentCount() {
+        return pInSpread.length;
+    }
+
+    public void setAlpha(double alpha) {
+        this.alpha = alpha;
+    }
+
+    public void setSizeSigma(double sizeSigma) {
+        this.sizeSigma = sizeSigma;
+    }
+
+    public void setSizeMean(double sizeMean) {
+        this.sizeMean = sizeMean;
+    }
+
+    /**
+     * Sets the balances of every agent in the population
+     */
+    @Override
+    public void setBalances(final double cash, final int shares) {
+        synchronized (lock) {
+            for (int agent = 0; agent < getAgentCount(); ++agent)
+                setBalances(agent, cash, shares);
+        }
+    }
+
+    public void setBalances(final int agent, final double cash, final int shares) {
+        synchronized (lock) {
+            this.initialCash[agent] = this.cash[agent] = Price.toFixed(cash);
+            this.initialShares[agent] = this.shares[agent] = shares;
+        }
+    }
+
+    public Pair<Double, Integer> getBalance(final int agent) {
+        synchronized (lock) {
+            return Pair.instanceOf(Price.toDouble(cash[agent]), shares[agent]);
+        }
+    }
+
+    public int getOutstandingOrderCount(final int agent) {
+        synchronized (lock) {
+            int count = 0;
+            for (int slot = firstSlot[agent]; slot != NONE; slot = slotNext[slot])
+                count++;
+            return count;
+        }
+    }
+
+    /**
+     * @return the total cash of the population
+     */
+    @Override
+    @MBeanAttribute(description = "Cash")
+    public double getCash() {
+        synchronized (lock) {
+            long total = 0L;
+            for (final long c : cash)
+                total += c;
+            return Price.toDouble(total);
+        }
+    }
+
+    /**
+     * @return the total shares of the population
+     */
+    @Override
+    @MBeanAttribute(description = "Shares")
+    public int getShares() {
+        synchronized (lock) {
+            int total = 0;
+            for (final int s : shares)
+                total += s;
+            return total;
+        }
+    }
+
+    @Override
+    public Pair<Double, Integer> getBalance() {
+        return Pair.instanceOf(getCash(), getShares());
+    }
+
+    @Override
+    public double cashChange() {
+        synchronized (lock) {
+            long total = 0L;
+            for (int agent = 0; agent < getAgentCount(); ++agent)
+                total += cash[agent] - initialCash[agent];
+            return Price.toDouble(total);
+        }
+    }
+
+    @Override
+    public int sharesChange() {
+        synchronized (lock) {
+            int total = 0;
+            for (int agent = 0; agent < getAgentCount(); ++agent)
+                total += shares[agent] - initialShares[agent];
+            return total;
+        }
+    }
+
+    @Override
+    @MBeanAttribute(description = "Outstanding orders")
+    public int getOutstandingOrderCount() {
+        synchronized (lock) {
+            return outstanding;
+        }
+    }
+
+    private static int agentOf(final long reference) {
+        return (int) (reference >>> 32);
+    }
+
+    private static int slotOf(final long reference) {
+        return (int) reference;
+    }
+
+    /**
+     * @return the slot of the order, if it's still outstanding with the agent that sent it, otherwise NONE
+     */
+    private int outstandingSlot(final Order order) {
+        final int slot = slotOf(order.getSenderReference());
+        if (slot < 0 || slot >= slotOrder.length || slotAgent[slot] != agentOf(order.getSenderReference()))
+            return NONE;
+        final Order current = slotOrder[slot];
+        return current != null && current.equals(order) ? slot : NONE;
+    }
+
+    private int allocateSlot(final int agent, final Order order) {
+        if (freeSlot == NONE) {
+            final int from = slotOrder.length;
+            final int to = Math.max(64, from * 2);
+            slotOrder = Arrays.copyOf(slotOrder, to);
+            slotAgent = Arrays.copyOf(slotAgent, to);
+            slotNext = Arrays.copyOf(slotNext, to);
+            slotPrev = Arrays.copyOf(slotPrev, to);
+            for (int slot = to - 1; slot >= from; --slot) {
+                slotNext[slot] = freeSlot;
+                freeSlot = slot;
+            }
+        }
+        final int slot = freeSlot;
+        freeSlot = slotNext[slot];
+        slotOrder[slot] = order;
+        slotAgent[slot] = agent;
+        slotNext[slot] = NONE;
+        slotPrev[slot] = lastSlot[agent];
+        if (lastSlot[agent] == NONE)
+            firstSlot[agent] = slot;
+        else
+            slotNext[lastSlot[agent]] = slot;
+        lastSlot[agent] = slot;
+        outstanding++;
+        return slot;
+    }
+
+    private void releaseSlot(final int slot) {
+        final int agent = slotAgent[slot];
+        final int prev = slotPrev[slot];
+        final int next = slotNext[slot];
+        if (prev == NONE)
+            firstSlot[agent] = next;
+        else
+            slotNext[prev] = next;
+        if (next == NONE)
+            lastSlot[agent] = prev;
+        else
+            slotPrev[next] = prev;
+        slotOrder[slot] = null;
+        slotAgent[slot] = NONE;
+        slotNext[slot] = freeSlot;
+        freeSlot = slot;
+        outstanding--;
+    }
+
+    @Override
+    public void orderUpdate(final Order orderChanged) {
+        synchronized (lock) {
+            final int slot = outstandingSlot(orderChanged);
+            if (slot == NONE)
+                throw new IllegalArgumentException(getName() + " received orderUpdate request for unknown order: " + orderChanged);
+            if (OrderState.isTerminal(orderChanged.getState()))
+                releaseSlot(slot);
+            else
+                slotOrder[slot] = orderChanged;
+        }
+    }
+
+    @Override
+    public void tooLate(final Order order) {
+        synchronized (lock) {
+            tooLateCount++;
+            if (outstandingSlot(order) != NONE)
+                throw new IllegalArgumentException("Received too late notification on order that is still live");
+        }
+    }
+
+    @Override
+    public void rejected(final Order order, final String reason) {
+        synchronized (lock) {
+            rejectedCount++;
+            if (LOG.isTraceEnabled())
+                LOG.trace("Order rejected, because: '" + reason + "', " + order);
+            final int slot = outstandingSlot(order);
+            if (slot != NONE)
+                releaseSlot(slot);
+        }
+    }
+
+    /**
+     * The fill may arrive after the order has been released (i.e. when it's filled completely) so the agent is found
+     * from the reference alone
+     */
+    @Override
+    public void fill(final Order order, final int quantity, final Level price) {
+        synchronized (lock) {
+            fillCount++;
+            final int agent = agentOf(order.getSenderReference());
+            switch (order.getSide()) {
+                case BUY:
+                    shares[agent] += quantity;
+                    cash[agent] -= Price.value(price.getFixedPrice(), quantity);
+                    break;
+                case SELL:
+                    shares[agent] -= quantity;
+                    cash[agent] += Price.value(price.getFixedPrice(), quantity);
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public boolean hasOutstandingOrder(final Order order) {
+        synchronized (lock) {
+            return outstandingSlot(order) != NONE;
+        }
+    }
+
+    @Override
+    public Duration wakeUp() {
+        return slice;
+    }
+
+    private void drawWakeUps(final int count) {
+        randomSource.nextDoubles(wakeChoiceDraw, count);
+        randomSource.nextExponentials(sleepDraw, count, 1.0);
+    }
+
+    /**
+     * @param i the position of the agent in the block
+     * @return the time the agent sleeps for, from the block drawn by {@link #drawWakeUps(int)}
+     */
+    private long wakeUpNanos(final int i) {
+        final long lambda = (wakeChoiceDraw[i] < 0.5d) ? sleepT1Millis : sleepT2Millis;
+        return (long) (sleepDraw[i] * lambda) * 1_000_000L;
+    }
+
+    /**
+     * Draws everything the agents in a block might need to decide what to do, agents that don't need a value just
+     * leave it (drawing a block costs less than drawing the values each agent needs one by one)
+     */
+    private void drawDecisions(final int count) {
+        randomSource.nextDoubles(actionDraw, count);
+        randomSource.nextDoubles(sideDraw, count);
+        randomSource.nextDoubles(auctionSideDraw, count);
+        randomSource.nextDoubles(inSpreadDraw, count);
+        randomSource.nextDoubles(spreadTicksDraw, count);
+        randomSource.nextLogNormals(volumeDraw, count, sizeMean, sizeSigma);
+        randomSource.nextPowers(outOfSpreadTicksDraw, count, 1, alpha);
+        drawWakeUps(count);
+    }
+
+    private void schedule(final int agent, final long wakeNanos) {
+        nextWakeNanos[agent] = wakeNanos;
+        final int bucket = (int) (Math.floorDiv(wakeNanos, sliceNanos) & (WHEEL_SIZE - 1));
+        wheelNext[agent] = bucketHead[bucket];
+        bucketHead[bucket] = agent;
+    }
+
+    /**
+     * Collects the agents that are due and removes them from the wheel
+     *
+     * @return the number of agents due, they're at the start of {@link #due}
+     */
+    private int collectDue(final long nowNanos) {
+        final long tick = Math.floorDiv(nowNanos, sliceNanos);
+        // The last slice is visited again since agents may have been due later in it
+        final long from = Math.max(lastTick, tick - WHEEL_SIZE + 1);
+        lastTick = tick;
+        int count = 0;
+        for (long t = from; t <= tick; ++t) {
+            final int bucket = (int) (t & (WHEEL_SIZE - 1));
+            int agent = bucketHead[bucket];
+            bucketHead[bucket] = NONE;
+            while (agent != NONE) {
+                final int next = wheelNext[agent];
+                if (nextWakeNanos[agent] <= nowNanos) {
+                    if (count == due.length)
+                        due = Arrays.copyOf(due, count * 2);
+                    due[count++] = agent;
+                } else {
+                    // Due in a later turn of the wheel
+                    wheelNext[agent] = bucketHead[bucket];
+                    bucketHead[bucket] = agent;
+                }
+                agent = next;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    protected void doActions() {
+        final List<Order> batch = evaluate(TimeMachine.toEpochNanos(timeMachine.toSimulationTime()));
+        if (!batch.isEmpty())
+            simulator.add(batch.toArray(new Order[0]));
+    }
+
+    /**
+     * Every agent that is due by the time acts, and is scheduled to wake again
+     *
+     * @param nowNanos the simulation time, see {@link TimeMachine#toEpochNanos}
+     * @return the orders (new and cancelled) that the agents want to send
+     */
+    List<Order> evaluate(final long nowNanos) {
+        synchronized (lock) {
+            final List<Order> batch = new ArrayList<>();
+            if (!started) {
+                // The agents first wake at random through their first sleep
+                started = true;
+                lastTick = Math.floorDiv(nowNanos, sliceNanos);
+                for (int from = 0; from < getAgentCount(); from += BLOCK) {
+                    final int size = Math.min(BLOCK, getAgentCount() - from);
+                    drawWakeUps(size);
+                    for (int i = 0; i < size; ++i)
+                        schedule(from + i, nowNanos + wakeUpNanos(i));
+                }
+                return batch;
+            }
+            final AgentWakeUpEvent wakeUp = new AgentWakeUpEvent();
+            wakeUp.begin();
+            final int count = collectDue(nowNanos);
+            if (count == 0)
+                return batch;
+            final Level1 level1 = simulator.getLevel1();
+            final Level referencePrice = simulator.getReferencePrice();
+            final LocalDateTime simulationTime = timeMachine.toSimulationTime();
+            for (int from = 0; from < count; from += BLOCK) {
+                final int size = Math.min(BLOCK, count - from);
+                drawDecisions(size);
+                for (int i = 0; i < size; ++i) {
+                    final int agent = due[from + i];
+                    try {
+                        act(agent, i, level1, referencePrice, simulationTime, batch);
+                    } catch (final IllegalArgumentException | IllegalStateException ex) {
+                        // As for a single agent, an agent that can't act just waits until it's next due
+                        if (LOG.isTraceEnabled())
+                            LOG.trace(getName() + ": agent " + agent + " couldn't act: ", ex);
+                    }
+                    schedule(agent, nowNanos + wakeUpNanos(i));
+                }
+            }
+            wakeUp.commit(getName(), count, batch.size());
+            if (LOG.isTraceEnabled())
+                LOG.trace(getName() + ": " + count + " agents due, " + batch.size() + " orders");
+            return batch;
+        }
+    }
+
+    /**
+     * @param i the position of the agent in the block, i.e. of its random values
+     */
+    private void act(final int agent, final int i, final Level1 level1, final Level referencePrice, final LocalDateTime simulationTime, final List<Order> batch) {
+        final double sample = actionDraw[i];
+        if (sample <= pCancel) {
+            // The orders are in time-priority order so the oldest will be cancelled first
+            for (int slot = firstSlot[agent]; slot != NONE; slot = slotNext[slot]) {
+                final Order submitted = slotOrder[slot];
+                if (!OrderState.isPending(submitted.getState())) {
+                    submitted.cancel(simulationTime);
+                    batch.add(submitted);
+                    cancelCount++;
+                    break;
+                }
+            }
+            return;
+        }
+        final OrderSide side;
+        final Level level;
+        final int quantity;
+        String note = null;
+        if (sample <= pCancel + pMarket) {
+            side = side(sideDraw[i]);
+            level = Level.MARKET;
+            quantity = (int) Math.min((int) volumeDraw[i], level1.getInterest(OrderSide.getOther(side)).getQuantity());
+        } else {
+            quantity = (int) volumeDraw[i];
+            side = side(sideDraw[i]);
+            final Pair<Level, String> price;
+            if (MarketState.CONTINUOUS.equals(level1.getTouchState())) {
+                price = nextPrice(agent, i, side, level1);
+                if (price == null) {
+                    LOG.error("No calculated price (" + level1 + ") but market is in continuous trading");
+                    return;
+                }
+            } else {
+                if (referencePrice == null)
+                    throw new IllegalStateException("There is no apparent reference price, this seems wrong!");
+                // Don't use the existing side if we're in an auction (otherwise we'll never get an uncrossing price)
+                price = outOfSpreadPrice(MarketState.AUCTION.equals(level1.getMarketState()) ? side(auctionSideDraw[i]) : side, referencePrice, outOfSpreadTicksDraw[i]);
+            }
+            level = price.getFirst();
+            note = price.getSecond();
+        }
+        if (quantity <= 0)
+            return;
+        newOrderCount++;
+        if (!canAfford(agent, side, quantity, level1, referencePrice)) {
+            if (LOG.isTraceEnabled())
+                LOG.trace("Order fails affordability checks so discarding: agent " + agent + " " + side + " " + quantity);
+            return;
+        }
+        final Order order = new Order((level.isMarket() ? "A-" : "C-") + getName() + "-" + agent + "-" + clientId++, side, instrument, level, quantity, this, timeMachine, false);
+        order.setSenderReference(((long) agent << 32) | allocateSlot(agent, order));
+        order.init(timeMachine);
+        if (note != null)
+            order.addNote(note);
+        order.setReferencePrice(level1);
+        batch.add(order);
+    }
+
+    private OrderSide side(final double draw) {
+        return draw <= pBuy ? OrderSide.BUY : OrderSide.SELL;
+    }
+
+    private Pair<Level, String> outOfSpreadPrice(final OrderSide side, final Level level, final int ticks) {
+        return Pair.instanceOf(instrument.worsenOnBook(level, side, ticks), "OUT(" + ticks + ")");
+    }
+
+    private Pair<Level, String> nextPrice(final int agent, final int i, final OrderSide side, final Level1 level1) {
+        if (level1.getTouchState().hasSpread() && inSpreadDraw[i] < pInSpread[agent]) {
+            try {
+                final int ticks = (int) (spreadTicksDraw[i] * level1.ticksBetweenBidAndOffer());
+                return Pair.instanceOf(instrument.betterOnBook(level1.getPrice(side), side, ticks), "IN(" + ticks + ")");
+            } catch (final InvalidMarketStateException invalidState) {
+                LOG.debug("No market so can't calculate a limit order price");
+                return null;
+            }
+        } else {
+            return outOfSpreadPrice(side, level1.getPrice(side), outOfSpreadTicksDraw[i]);
+        }
+    }
+
+    private boolean canAfford(final int agent, final OrderSide side, final int quantity, final Level1 level1, final Level last) {
+        switch (side) {
+            case BUY:
+                final Level best = level1.getPrice(side);
+                final long estimate = best.isMarket() ? (last == null ? 0L : last.getFixedPrice()) : best.getFixedPrice();
+                return estimate != 0L && Price.value(estimate, quantity) < cash[agent];
+            case SELL:
+                return quantity < shares[agent];
+            default:
+                throw new IllegalArgumentException("Unrecognised order side: " + side);
+        }
+    }
+}
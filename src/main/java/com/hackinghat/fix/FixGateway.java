@@ -0,0 +1,363 @@
+package com.hackinghat.fix;
+
+import com.hackinghat.model.Instrument;
+import com.hackinghat.model.Level;
+import com.hackinghat.model.Price;
+import com.hackinghat.order.Order;
+import com.hackinghat.order.OrderSide;
+import com.hackinghat.orderbook.OrderManager;
+import com.hackinghat.util.EventDispatcher;
+import com.hackinghat.util.TimeMachine;
+import com.hackinghat.util.component.AbstractComponent;
+import com.hackinghat.util.mbean.MBeanAttribute;
+import com.hackinghat.util.mbean.MBeanType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import quickfix.*;
+import quickfix.field.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A FIX 4.4 acceptor that lets outside clients trade against an {@link OrderManager}.  Each session is given an agent
+ * of its own, NewOrderSingle, OrderCancelRequest and OrderCancelReplaceRequest become that agent's orders, cancels and
+ * replaces, and what the order manager then does to the orders comes back to the session as ExecutionReports (or
+ * OrderCancelRejects).
+ * <p>
+ * The order manager tells the agents about their orders on the matching thread, which mustn't wait on a socket, so the
+ * agents only queue a {@link FixReport} and the gateway's sender thread makes the messages and sends them.  The queue
+ * is unbounded because, unlike market data, an execution report can't be dropped.
+ * <p>
+ * Requests that are malformed (the wrong symbol, an unknown side or order type, a quantity that isn't a whole number)
+ * get a session level reject, ones that are well formed but can't be done are rejected by the agent with an
+ * ExecutionReport or OrderCancelReject.  A session's orders stay on the book when it logs out.
+ */
+@MBeanType(description = "FIX gateway")
+public class FixGateway extends AbstractComponent implements Application, Runnable {
+    private static final Logger LOG = LogManager.getLogger(FixGateway.class);
+    public final static Duration DEFAULT_LINGER = Duration.ofMillis(5L);
+    public final static int DEFAULT_MAX_BATCH = 1024;
+    private final static long STOP_TIMEOUT_MILLIS = 5000L;
+
+    private final SessionSettings settings;
+    private final OrderManager orderManager;
+    private final Instrument instrument;
+    private final TimeMachine timeMachine;
+    private final EventDispatcher dispatcher;
+    private final ConcurrentHashMap<SessionID, FixSessionAgent> agents;
+    private final LinkedBlockingQueue<FixReport> pending;
+    private final ArrayList<FixReport> batch;
+    private final long lingerNanos;
+    private final AtomicBoolean started;
+    private final AtomicBoolean terminate;
+    private final AtomicLong nextAgentId;
+    private final AtomicLong nextExecId;
+    private final AtomicLong received;
+    private final AtomicLong rejected;
+    private final AtomicLong reported;
+    private final AtomicLong sent;
+    private final AtomicLong failed;
+    private volatile Thread sender;
+    private Acceptor acceptor;
+
+    /**
+     * @param name         the component name
+     * @param settings     the acceptor's settings, see the QuickFIX/J documentation
+     * @param orderManager where the sessions' orders go
+     * @param instrument   the instrument the order manager trades
+     * @param timeMachine  the simulation time
+     * @param dispatcher   the dispatcher the sessions' agents use
+     */
+    public FixGateway(final String name, final SessionSettings settings, final OrderManager orderManager, final Instrument instrument, final TimeMachine timeMachine, final EventDispatcher dispatcher) {
+        super(name);
+        this.settings = Objects.requireNonNull(settings);
+        this.orderManager = Objects.requireNonNull(orderManager);
+        this.instrument = Objects.requireNonNull(instrument);
+        this.timeMachine = Objects.requireNonNull(timeMachine);
+        this.dispatcher = Objects.requireNonNull(dispatcher);
+        this.agents = new ConcurrentHashMap<>();
+        this.pending = new LinkedBlockingQueue<>();
+        this.batch = new ArrayList<>(DEFAULT_MAX_BATCH);
+        this.lingerNanos = DEFAULT_LINGER.toNanos();
+        this.started = new AtomicBoolean(false);
+        this.terminate = new AtomicBoolean(false);
+        this.nextAgentId = new AtomicLong();
+        this.nextExecId = new AtomicLong();
+        this.received = new AtomicLong();
+        this.rejected = new AtomicLong();
+        this.reported = new AtomicLong();
+        this.sent = new AtomicLong();
+        this.failed = new AtomicLong();
+    }
+
+    @MBeanAttribute(description = "Sessions")
+    public int getSessionCount() {
+        return agents.size();
+    }
+
+    @MBeanAttribute(description = "Requests received")
+    public long getReceived() {
+        return received.get();
+    }
+
+    @MBeanAttribute(description = "Requests rejected as malformed")
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    @MBeanAttribute(description = "Reports made")
+    public long getReported() {
+        return reported.get();
+    }
+
+    @MBeanAttribute(description = "Reports sent")
+    public long getSent() {
+        return sent.get();
+    }
+
+    @MBeanAttribute(description = "Reports that couldn't be sent")
+    public long getFailed() {
+        return failed.get();
+    }
+
+    @MBeanAttribute(description = "Reports waiting to be sent")
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Start accepting sessions
+     */
+    @Override
+    public void start() {
+        synchronized (agents) {
+            if (acceptor != null)
+                return;
+            try {
+                acceptor = new SocketAcceptor(this, new MemoryStoreFactory(), settings, new SLF4JLogFactory(settings), new DefaultMessageFactory());
+                acceptor.start();
+            } catch (final ConfigError configError) {
+                acceptor = null;
+                throw new IllegalStateException(getName() + " couldn't start the acceptor", configError);
+            }
+        }
+        if (started.compareAndSet(false, true)) {
+            sender = new Thread(this, getName() + "-sender");
+            sender.setDaemon(true);
+            sender.start();
+        }
+    }
+
+    /**
+     * Called by the sessions' agents
+     */
+    void submit(final Order order) {
+        orderManager.add(order);
+    }
+
+    /**
+     * Called by the sessions' agents, normally on the matching thread
+     */
+    void report(final FixReport report) {
+        pending.add(report);
+        reported.incrementAndGet();
+    }
+
+    /**
+     * @return the agent that trades for the session, or null if there is no such session
+     */
+    FixSessionAgent getAgent(final SessionID sessionID) {
+        return agents.get(sessionID);
+    }
+
+    @Override
+    public void onCreate(final SessionID sessionID) {
+        agents.computeIfAbsent(sessionID, id -> require(new FixSessionAgent(nextAgentId.getAndIncrement(),
+                getName() + "-" + id.getTargetCompID(), this, id, instrument, timeMachine, dispatcher)));
+    }
+
+    @Override
+    public void onLogon(final SessionID sessionID) {
+        LOG.info(getName() + " logon: " + sessionID);
+    }
+
+    @Override
+    public void onLogout(final SessionID sessionID) {
+        LOG.info(getName() + " logout: " + sessionID);
+    }
+
+    @Override
+    public void toAdmin(final Message message, final SessionID sessionID) {
+    }
+
+    @Override
+    public void toApp(final Message message, final SessionID sessionID) {
+    }
+
+    @Override
+    public void fromAdmin(final Message message, final SessionID sessionID) throws RejectLogon {
+        if (!FixVersions.BEGINSTRING_FIX44.equals(sessionID.getBeginString()))
+            throw new RejectLogon("Only " + FixVersions.BEGINSTRING_FIX44 + " is supported");
+    }
+
+    @Override
+    public void fromApp(final Message message, final SessionID sessionID) throws FieldNotFound, IncorrectTagValue, UnsupportedMessageType {
+        final FixSessionAgent agent = agents.get(sessionID);
+        if (agent == null)
+            throw new IllegalStateException(getName() + " has no agent for session: " + sessionID);
+        received.incrementAndGet();
+        try {
+            switch (message.getHeader().getString(MsgType.FIELD)) {
+                case MsgType.ORDER_SINGLE:
+                    checkSymbol(message);
+                    agent.newOrder(message.getString(ClOrdID.FIELD), side(message), level(message), quantity(message));
+                    break;
+                case MsgType.ORDER_CANCEL_REQUEST:
+                    checkSymbol(message);
+                    agent.cancel(message.getString(ClOrdID.FIELD), message.getString(OrigClOrdID.FIELD));
+                    break;
+                case MsgType.ORDER_CANCEL_REPLACE_REQUEST:
+                    checkSymbol(message);
+                    agent.replace(message.getString(ClOrdID.FIELD), message.getString(OrigClOrdID.FIELD), side(message), level(message), quantity(message));
+                    break;
+                default:
+                    throw new UnsupportedMessageType();
+            }
+        } catch (final FieldNotFound | IncorrectTagValue | UnsupportedMessageType ex) {
+            rejected.incrementAndGet();
+            throw ex;
+        }
+    }
+
+    private void checkSymbol(final Message message) throws FieldNotFound, IncorrectTagValue {
+        final String symbol = message.getString(Symbol.FIELD);
+        if (!instrument.getTicker().equals(symbol))
+            throw new IncorrectTagValue(Symbol.FIELD, symbol);
+    }
+
+    private static OrderSide side(final Message message) throws FieldNotFound, IncorrectTagValue {
+        final char side = message.getChar(Side.FIELD);
+        switch (side) {
+            case Side.BUY:
+                return OrderSide.BUY;
+            case Side.SELL:
+                return OrderSide.SELL;
+            default:
+                throw new IncorrectTagValue(Side.FIELD, Character.toString(side));
+        }
+    }
+
+    private static int quantity(final Message message) throws FieldNotFound, IncorrectTagValue {
+        final double quantity = message.getDouble(OrderQty.FIELD);
+        if (quantity <= 0.0 || quantity > Integer.MAX_VALUE || quantity != Math.rint(quantity))
+            throw new IncorrectTagValue(OrderQty.FIELD, message.getString(OrderQty.FIELD));
+        return (int) quantity;
+    }
+
+    /**
+     * Market orders take the market level, limit orders must be priced on a tick
+     */
+    private Level level(final Message message) throws FieldNotFound, IncorrectTagValue {
+        final char ordType = message.getChar(OrdType.FIELD);
+        switch (ordType) {
+            case OrdType.MARKET:
+                return instrument.getMarket();
+            case OrdType.LIMIT:
+                final double price = message.getDouble(quickfix.field.Price.FIELD);
+                final long fixedPrice = Price.toFixed(price);
+                if (price <= 0.0)
+                    throw new IncorrectTagValue(quickfix.field.Price.FIELD, message.getString(quickfix.field.Price.FIELD));
+                final Level level = instrument.getLevelForFixedPrice(fixedPrice);
+                if (level.getFixedPrice() != fixedPrice)
+                    throw new IncorrectTagValue(quickfix.field.Price.FIELD, message.getString(quickfix.field.Price.FIELD));
+                return level;
+            default:
+                throw new IncorrectTagValue(OrdType.FIELD, Character.toString(ordType));
+        }
+    }
+
+    /**
+     * Send everything that is waiting, normally only the sender thread does this
+     *
+     * @return the number of reports sent
+     */
+    int flush() {
+        int total = 0;
+        synchronized (batch) {
+            pending.drainTo(batch, DEFAULT_MAX_BATCH);
+            while (!batch.isEmpty()) {
+                for (final FixReport report : batch) {
+                    try {
+                        if (Session.sendToTarget(report.toMessage(Long.toString(nextExecId.incrementAndGet())), report.sessionID)) {
+                            sent.incrementAndGet();
+                            total++;
+                        } else {
+                            failed.incrementAndGet();
+                        }
+                    } catch (final SessionNotFound ex) {
+                        failed.incrementAndGet();
+                        LOG.error(getName() + " couldn't send report to: " + report.sessionID + ", reason: ", ex);
+                    }
+                }
+                batch.clear();
+                pending.drainTo(batch, DEFAULT_MAX_BATCH);
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!terminate.get()) {
+                final FixReport first = pending.poll(lingerNanos, TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    synchronized (batch) {
+                        batch.add(first);
+                    }
+                    flush();
+                }
+            }
+        } catch (final InterruptedException iex) {
+            if (LOG.isTraceEnabled())
+                LOG.trace(getName() + " interrupted, sending pending reports and exiting", iex);
+        } catch (final Throwable t) {
+            LOG.error(getName() + " sender failed: ", t);
+        } finally {
+            flush();
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!terminate.compareAndSet(false, true))
+            return;
+        final Thread current = sender;
+        if (current != null) {
+            try {
+                current.join(STOP_TIMEOUT_MILLIS);
+            } catch (final InterruptedException iex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (agents) {
+            if (acceptor != null) {
+                acceptor.stop(true);
+                acceptor = null;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+        super.close();
+    }
+}
@@ -0,0 +1,103 @@
+package com.hackinghat.fix;
+
+import com.hackinghat.order.Order;
+import com.hackinghat.order.OrderState;
+
+/**
+ * A FIX session's view of one of its orders: the latest version of the order the exchange has told the session's
+ * agent about, the ClOrdID the order is currently known by and any cancel or replace the session is waiting on.
+ */
+class FixOrder {
+    private final long reference;
+    private Order latest;
+    private String clOrdID;
+    private OrderState pending;
+    private String pendingClOrdID;
+    private boolean acknowledged;
+    private int reportedFilled;
+    private double notional;
+
+    FixOrder(final long reference, final String clOrdID, final Order order) {
+        this.reference = reference;
+        this.clOrdID = clOrdID;
+        this.latest = order;
+    }
+
+    long getReference() {
+        return reference;
+    }
+
+    Order getLatest() {
+        return latest;
+    }
+
+    void setLatest(final Order latest) {
+        this.latest = latest;
+    }
+
+    String getClOrdID() {
+        return clOrdID;
+    }
+
+    /**
+     * @return the order id the session is told, it's the exchange's id once the order manager has given it one
+     */
+    String getOrderID() {
+        return latest.getId() == null ? clOrdID : Long.toString(latest.getId());
+    }
+
+    OrderState getPending() {
+        return pending;
+    }
+
+    String getPendingClOrdID() {
+        return pendingClOrdID;
+    }
+
+    /**
+     * @param pending        {@link OrderState#PENDING_CANCEL} or {@link OrderState#PENDING_REPLACE}
+     * @param pendingClOrdID the ClOrdID of the request
+     */
+    void request(final OrderState pending, final String pendingClOrdID) {
+        this.pending = pending;
+        this.pendingClOrdID = pendingClOrdID;
+    }
+
+    /**
+     * The pending request has been done, the order is known by the request's ClOrdID from now on
+     */
+    void accepted() {
+        clOrdID = pendingClOrdID;
+        clearRequest();
+    }
+
+    void clearRequest() {
+        pending = null;
+        pendingClOrdID = null;
+    }
+
+    boolean isAcknowledged() {
+        return acknowledged;
+    }
+
+    void acknowledge() {
+        acknowledged = true;
+    }
+
+    int getReportedFilled() {
+        return reportedFilled;
+    }
+
+    /**
+     * @return the average price of the fills so far
+     */
+    double fill(final int filledQuantity, final int quantity, final double price) {
+        reportedFilled = filledQuantity;
+        notional += quantity * price;
+        return filledQuantity == 0 ? 0.0 : notional / filledQuantity;
+    }
+
+    double getAveragePrice() {
+        return reportedFilled == 0 ? 0.0 : notional / reportedFilled;
+    }
+}
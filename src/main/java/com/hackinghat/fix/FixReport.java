@@ -0,0 +1,104 @@
+package com.hackinghat.fix;
+
+import quickfix.Message;
+import quickfix.SessionID;
+import quickfix.field.*;
+import quickfix.fix44.ExecutionReport;
+import quickfix.fix44.OrderCancelReject;
+
+/**
+ * What a FIX session is to be told about one of its orders.  Reports are made on the matching thread (or the
+ * session's thread for rejections) and are only turned into FIX messages by the gateway's sender, so that making one
+ * is cheap and the matching thread never touches a session.
+ */
+class FixReport {
+    static final char CANCEL_REJECT = 0;
+
+    final SessionID sessionID;
+    final char execType;
+    final String clOrdID;
+    final String origClOrdID;
+    final String orderID;
+    final char side;
+    final String symbol;
+    final char ordStatus;
+    final int orderQty;
+    final int lastQty;
+    final double lastPx;
+    final int cumQty;
+    final int leavesQty;
+    final double avgPx;
+    final String text;
+    final char cxlRejResponseTo;
+
+    private FixReport(final SessionID sessionID, final char execType, final String clOrdID, final String origClOrdID, final String orderID,
+                      final char side, final String symbol, final char ordStatus, final int orderQty, final int lastQty,
+                      final double lastPx, final int cumQty, final int leavesQty, final double avgPx, final String text,
+                      final char cxlRejResponseTo) {
+        this.sessionID = sessionID;
+        this.execType = execType;
+        this.clOrdID = clOrdID;
+        this.origClOrdID = origClOrdID;
+        this.orderID = orderID;
+        this.side = side;
+        this.symbol = symbol;
+        this.ordStatus = ordStatus;
+        this.orderQty = orderQty;
+        this.lastQty = lastQty;
+        this.lastPx = lastPx;
+        this.cumQty = cumQty;
+        this.leavesQty = leavesQty;
+        this.avgPx = avgPx;
+        this.text = text;
+        this.cxlRejResponseTo = cxlRejResponseTo;
+    }
+
+    /**
+     * @param execType  the {@link ExecType}, i.e. what happened
+     * @param ordStatus the {@link OrdStatus} of the order afterwards
+     */
+    static FixReport execution(final SessionID sessionID, final char execType, final String clOrdID, final String origClOrdID,
+                               final String orderID, final char side, final String symbol, final char ordStatus, final int orderQty,
+                               final int lastQty, final double lastPx, final int cumQty, final int leavesQty, final double avgPx,
+                               final String text) {
+        return new FixReport(sessionID, execType, clOrdID, origClOrdID, orderID, side, symbol, ordStatus, orderQty, lastQty, lastPx,
+                cumQty, leavesQty, avgPx, text, (char) 0);
+    }
+
+    /**
+     * @param cxlRejResponseTo the {@link CxlRejResponseTo}, i.e. whether a cancel or a replace was rejected
+     */
+    static FixReport cancelReject(final SessionID sessionID, final String clOrdID, final String origClOrdID, final String orderID,
+                                  final char ordStatus, final char cxlRejResponseTo, final String text) {
+        return new FixReport(sessionID, CANCEL_REJECT, clOrdID, origClOrdID, orderID, (char) 0, null, ordStatus, 0, 0, 0.0, 0,
+                0, 0.0, text, cxlRejResponseTo);
+    }
+
+    /**
+     * @param execID the id of the execution, unique to the gateway
+     * @return the FIX 4.4 message
+     */
+    Message toMessage(final String execID) {
+        if (execType == CANCEL_REJECT) {
+            final OrderCancelReject reject = new OrderCancelReject(new OrderID(orderID), new ClOrdID(clOrdID), new OrigClOrdID(origClOrdID),
+                    new OrdStatus(ordStatus), new CxlRejResponseTo(cxlRejResponseTo));
+            if (text != null)
+                reject.set(new Text(text));
+            return reject;
+        }
+        final ExecutionReport report = new ExecutionReport(new OrderID(orderID), new ExecID(execID), new ExecType(execType),
+                new OrdStatus(ordStatus), new Side(side), new LeavesQty(leavesQty), new CumQty(cumQty), new AvgPx(avgPx));
+        report.set(new ClOrdID(clOrdID));
+        if (origClOrdID != null)
+            report.set(new OrigClOrdID(origClOrdID));
+        report.set(new Symbol(symbol));
+        report.set(new OrderQty(orderQty));
+        if (lastQty > 0) {
+            report.set(new LastQty(lastQty));
+            report.set(new LastPx(lastPx));
+        }
+        if (text != null)
+            report.set(new Text(text));
+        return report;
+    }
+}
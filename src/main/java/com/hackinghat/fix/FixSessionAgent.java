@@ -0,0 +1,296 @@
+package com.hackinghat.fix;
+
+import com.hackinghat.agent.Agent;
+import com.hackinghat.model.Instrument;
+import com.hackinghat.model.Level;
+import com.hackinghat.model.Price;
+import com.hackinghat.order.Order;
+import com.hackinghat.order.OrderSide;
+import com.hackinghat.order.OrderState;
+import com.hackinghat.util.EventDispatcher;
+import com.hackinghat.util.TimeMachine;
+import com.hackinghat.util.mbean.MBeanAttribute;
+import com.hackinghat.util.mbean.MBeanType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import quickfix.SessionID;
+import quickfix.field.CxlRejResponseTo;
+import quickfix.field.ExecType;
+import quickfix.field.OrdStatus;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The agent that trades for one FIX session.  The session's requests become orders of this agent and the exchange's
+ * updates to them, which arrive on the matching thread, become {@link FixReport}s that the gateway sends later.
+ * <p>
+ * The agent never wakes of its own accord, it only acts when its counterparty sends it something.
+ */
+@MBeanType(description = "FIX session agent")
+class FixSessionAgent extends Agent {
+    private static final Logger LOG = LogManager.getLogger(FixSessionAgent.class);
+    private static final Duration NEVER = Duration.ofNanos(Long.MAX_VALUE);
+
+    private final FixGateway gateway;
+    private final SessionID sessionID;
+    private final Map<String, FixOrder> byClOrdID;
+    private final Map<Long, FixOrder> byReference;
+    private long nextReference;
+
+    FixSessionAgent(final Long id, final String name, final FixGateway gateway, final SessionID sessionID, final Instrument instrument, final TimeMachine timeMachine, final EventDispatcher dispatcher) {
+        super(id, instrument, null, timeMachine, name, dispatcher, false);
+        this.gateway = gateway;
+        this.sessionID = sessionID;
+        this.byClOrdID = new HashMap<>();
+        this.byReference = new HashMap<>();
+    }
+
+    SessionID getSessionID() {
+        return sessionID;
+    }
+
+    /**
+     * A FIX session's agent only acts when its session sends it something, so it never asks to be woken
+     *
+     * @return the longest wait that can be expressed in nanoseconds
+     */
+    @Override
+    public Duration wakeUp() {
+        return NEVER;
+    }
+
+    /**
+     * The agent is never scheduled, anything that tries to schedule it (e.g. a run of the agent) does nothing
+     */
+    @Override
+    public void schedule() {
+    }
+
+    @Override
+    protected void doActions() {
+    }
+
+    private static char toFix(final OrderSide side) {
+        return side == OrderSide.BUY ? quickfix.field.Side.BUY : quickfix.field.Side.SELL;
+    }
+
+    private static char toFix(final OrderState state) {
+        switch (state) {
+            case NEW:
+                return OrdStatus.NEW;
+            case PARTIALLY_FILLED:
+                return OrdStatus.PARTIALLY_FILLED;
+            case FILLED:
+                return OrdStatus.FILLED;
+            case CANCELLED:
+                return OrdStatus.CANCELED;
+            case PENDING_CANCEL:
+                return OrdStatus.PENDING_CANCEL;
+            case PENDING_REPLACE:
+                return OrdStatus.PENDING_REPLACE;
+            default:
+                return OrdStatus.PENDING_NEW;
+        }
+    }
+
+    private FixReport execution(final FixOrder fixOrder, final char execType, final Order order, final String origClOrdID, final int lastQty, final double lastPx, final String text) {
+        return FixReport.execution(sessionID, execType, fixOrder.getClOrdID(), origClOrdID, fixOrder.getOrderID(), toFix(order.getSide()),
+                instrument.getTicker(), toFix(order.getState()), order.getQuantity(), lastQty, lastPx, order.getFilledQuantity(),
+                OrderState.isTerminal(order.getState()) ? 0 : order.getRemainingQuantity(), fixOrder.getAveragePrice(), text);
+    }
+
+    private FixReport cancelReject(final FixOrder fixOrder, final String clOrdID, final OrderState request, final String text) {
+        final char responseTo = request == OrderState.PENDING_REPLACE ? CxlRejResponseTo.ORDER_CANCEL_REPLACE_REQUEST : CxlRejResponseTo.ORDER_CANCEL_REQUEST;
+        return FixReport.cancelReject(sessionID, clOrdID, fixOrder == null ? "NONE" : fixOrder.getClOrdID(),
+                fixOrder == null ? "NONE" : fixOrder.getOrderID(), fixOrder == null ? OrdStatus.REJECTED : toFix(fixOrder.getLatest().getState()),
+                responseTo, text);
+    }
+
+    private void reject(final String clOrdID, final OrderSide side, final int quantity, final String text) {
+        gateway.report(FixReport.execution(sessionID, ExecType.REJECTED, clOrdID, null, "NONE", toFix(side), instrument.getTicker(),
+                OrdStatus.REJECTED, quantity, 0, 0.0, 0, 0, 0.0, text));
+    }
+
+    /**
+     * A NewOrderSingle
+     */
+    void newOrder(final String clOrdID, final OrderSide side, final Level level, final int quantity) {
+        synchronized (sync) {
+            if (byClOrdID.containsKey(clOrdID)) {
+                reject(clOrdID, side, quantity, "Duplicate ClOrdID");
+                return;
+            }
+            final Order order = new Order(clOrdID, side, instrument, level, quantity, this, timeMachine, false);
+            final FixOrder fixOrder = new FixOrder(nextReference++, clOrdID, order);
+            order.setSenderReference(fixOrder.getReference());
+            byClOrdID.put(clOrdID, fixOrder);
+            byReference.put(fixOrder.getReference(), fixOrder);
+            order.init(timeMachine);
+            newOrderCount++;
+            gateway.submit(order);
+        }
+    }
+
+    /**
+     * An OrderCancelRequest
+     */
+    void cancel(final String clOrdID, final String origClOrdID) {
+        synchronized (sync) {
+            final FixOrder fixOrder = byClOrdID.get(origClOrdID);
+            final String problem = checkRequest(fixOrder, clOrdID);
+            if (problem != null) {
+                gateway.report(cancelReject(fixOrder, clOrdID, OrderState.PENDING_CANCEL, problem));
+                return;
+            }
+            byClOrdID.put(clOrdID, fixOrder);
+            fixOrder.request(OrderState.PENDING_CANCEL, clOrdID);
+            final Order order = fixOrder.getLatest();
+            order.cancel(timeMachine.toSimulationTime());
+            cancelCount++;
+            gateway.submit(order);
+        }
+    }
+
+    /**
+     * An OrderCancelReplaceRequest
+     */
+    void replace(final String clOrdID, final String origClOrdID, final OrderSide side, final Level level, final int quantity) {
+        synchronized (sync) {
+            final FixOrder fixOrder = byClOrdID.get(origClOrdID);
+            String problem = checkRequest(fixOrder, clOrdID);
+            if (problem == null && fixOrder.getLatest().getSide() != side)
+                problem = "Side can't be changed";
+            if (problem != null) {
+                gateway.report(cancelReject(fixOrder, clOrdID, OrderState.PENDING_REPLACE, problem));
+                return;
+            }
+            final Order order = fixOrder.getLatest();
+            byClOrdID.put(clOrdID, fixOrder);
+            fixOrder.request(OrderState.PENDING_REPLACE, clOrdID);
+            if (!order.replace(level, quantity, timeMachine.toSimulationTime())) {
+                fixOrder.clearRequest();
+                gateway.report(cancelReject(fixOrder, clOrdID, OrderState.PENDING_REPLACE, "Nothing to replace"));
+                return;
+            }
+            amendCount++;
+            gateway.submit(order);
+        }
+    }
+
+    private String checkRequest(final FixOrder fixOrder, final String clOrdID) {
+        if (fixOrder == null)
+            return "Unknown order";
+        if (byClOrdID.containsKey(clOrdID))
+            return "Duplicate ClOrdID";
+        if (fixOrder.getPending() != null)
+            return "A cancel or replace is already pending";
+        if (OrderState.isPending(fixOrder.getLatest().getState()))
+            return "Order not yet acknowledged";
+        if (OrderState.isTerminal(fixOrder.getLatest().getState()))
+            return "Too late";
+        return null;
+    }
+
+    @Override
+    public void orderUpdate(final Order orderChanged) {
+        synchronized (sync) {
+            super.orderUpdate(orderChanged);
+            final FixOrder fixOrder = byReference.get(orderChanged.getSenderReference());
+            if (fixOrder == null) {
+                LOG.error(getName() + " received an update for an order it doesn't know: " + orderChanged);
+                return;
+            }
+            fixOrder.setLatest(orderChanged);
+            final OrderState state = orderChanged.getState();
+            if (OrderState.isPending(state))
+                return;
+            if (state == OrderState.CANCELLED) {
+                if (fixOrder.getPending() == OrderState.PENDING_CANCEL) {
+                    final String origClOrdID = fixOrder.getClOrdID();
+                    fixOrder.accepted();
+                    gateway.report(execution(fixOrder, ExecType.CANCELED, orderChanged, origClOrdID, 0, 0.0, null));
+                } else {
+                    // The exchange cancelled the order, e.g. at the start of an auction
+                    fixOrder.clearRequest();
+                    gateway.report(execution(fixOrder, ExecType.CANCELED, orderChanged, null, 0, 0.0, "Cancelled by the exchange"));
+                }
+                forget(fixOrder);
+            } else if (orderChanged.getFilledQuantity() > fixOrder.getReportedFilled()) {
+                // A fill, which is reported when the exchange calls fill() straight after this
+            } else if (fixOrder.getPending() == OrderState.PENDING_REPLACE) {
+                final String origClOrdID = fixOrder.getClOrdID();
+                fixOrder.accepted();
+                gateway.report(execution(fixOrder, ExecType.REPLACED, orderChanged, origClOrdID, 0, 0.0, null));
+                if (OrderState.isTerminal(state))
+                    forget(fixOrder);
+            } else if (!fixOrder.isAcknowledged()) {
+                fixOrder.acknowledge();
+                gateway.report(execution(fixOrder, ExecType.NEW, orderChanged, null, 0, 0.0, null));
+            }
+        }
+    }
+
+    @Override
+    public void fill(final Order order, final int quantity, final Level price) {
+        synchronized (sync) {
+            super.fill(order, quantity, price);
+            final FixOrder fixOrder = byReference.get(order.getSenderReference());
+            if (fixOrder == null)
+                return;
+            fixOrder.acknowledge();
+            final double lastPx = Price.toDouble(price.getFixedPrice());
+            fixOrder.fill(order.getFilledQuantity(), quantity, lastPx);
+            gateway.report(execution(fixOrder, ExecType.TRADE, order, null, quantity, lastPx, null));
+            if (order.getState() == OrderState.FILLED)
+                forget(fixOrder);
+        }
+    }
+
+    @Override
+    public void tooLate(final Order order) {
+        synchronized (sync) {
+            super.tooLate(order);
+            final FixOrder fixOrder = byReference.get(order.getSenderReference());
+            if (fixOrder == null || fixOrder.getPending() == null)
+                return;
+            final FixReport reject = cancelReject(fixOrder, fixOrder.getPendingClOrdID(), fixOrder.getPending(), "Too late");
+            fixOrder.clearRequest();
+            gateway.report(reject);
+        }
+    }
+
+    @Override
+    public void rejected(final Order order, final String reason) {
+        synchronized (sync) {
+            super.rejected(order, reason);
+            final FixOrder fixOrder = byReference.get(order.getSenderReference());
+            if (fixOrder == null)
+                return;
+            if (fixOrder.getPending() != null) {
+                final FixReport reject = cancelReject(fixOrder, fixOrder.getPendingClOrdID(), fixOrder.getPending(), reason);
+                fixOrder.clearRequest();
+                gateway.report(reject);
+            } else {
+                gateway.report(FixReport.execution(sessionID, ExecType.REJECTED, fixOrder.getClOrdID(), null, fixOrder.getOrderID(),
+                        toFix(order.getSide()), instrument.getTicker(), OrdStatus.REJECTED, order.getQuantity(), 0, 0.0, 0, 0, 0.0, reason));
+                forget(fixOrder);
+            }
+        }
+    }
+
+    /**
+     * The order is finished with, its ClOrdIDs are kept so that they can't be reused but its state can go
+     */
+    private void forget(final FixOrder fixOrder) {
+        byReference.remove(fixOrder.getReference());
+    }
+
+    @MBeanAttribute(description = "Open orders")
+    public int getOpenOrderCount() {
+        synchronized (sync) {
+            return byReference.size();
+        }
+    }
+}
@@ -4,12 +4,27 @@ import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.common.serialization.Serializer;
 
+import java.time.Duration;
 import java.util.Properties;
 
 public class KafkaConfigBuilder {
     public final static String BOOTSTRAP_SERVERS = "kafka:9092";
+    public final static Duration DEFAULT_LINGER = Duration.ofMillis(1L);
+    public final static int DEFAULT_BATCH_SIZE = 16384;
+    public final static String DEFAULT_COMPRESSION = "none";
 
     public static Properties makeConfig(final String bootstrapServer) {
+        return makeConfig(bootstrapServer, DEFAULT_LINGER, DEFAULT_BATCH_SIZE, DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param bootstrapServer the broker(s) to connect to
+     * @param linger          how long the producer waits for more records before sending a batch
+     * @param batchSize       the maximum size of a batch (per partition) in bytes
+     * @param compression     the compression type (none, gzip, snappy, lz4 or zstd) applied to each batch
+     * @return the producer configuration
+     */
+    public static Properties makeConfig(final String bootstrapServer, final Duration linger, final int batchSize, final String compression) {
         //Assign topicName to string variable
         // create instance for properties to access producer configs
         Properties props = new Properties();
@@ -20,15 +35,21 @@ public class KafkaConfigBuilder {
         //If the request fails, the producer can automatically retry,
         props.put("retries", 0);
         //Specify buffer size in config
-        props.put("batch.size", 16384);
+        props.put("batch.size", batchSize);
         //Reduce the no of requests less than 0
-        props.put("linger.ms", 1);
+        props.put("linger.ms", (int) linger.toMillis());
+        //Compress whole batches, the larger the batch the better the compression
+        props.put("compression.type", compression);
         //The buffer.memory controls the total amount of memory available to the producer for buffering.
         props.put("buffer.memory", 33554432);
         return props;
     }
 
     public static <K, V> Producer<K, V> makeProducer(final Serializer<K> keySerializer, final Serializer<V> valueSerializer) {
-        return new KafkaProducer<>(makeConfig(BOOTSTRAP_SERVERS), keySerializer, valueSerializer);
+        return makeProducer(makeConfig(BOOTSTRAP_SERVERS), keySerializer, valueSerializer);
+    }
+
+    public static <K, V> Producer<K, V> makeProducer(final Properties config, final Serializer<K> keySerializer, final Serializer<V> valueSerializer) {
+        return new KafkaProducer<>(config, keySerializer, valueSerializer);
     }
 }
@@ -0,0 +1,71 @@
+package com.hackinghat.kafka;
+
+import com.hackinghat.model.serialize.WireCodec;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Kafka serialisation of the messages supported by the {@link WireCodec}, i.e. the compact binary alternative to
+ * {@link KafkaJsonSerializerDeserializer}.  Messages are encoded into a per-thread buffer and only the encoded bytes are
+ * copied out.  A message that the codec can't decode is a {@link SerializationException}, whereas a message of the wrong
+ * type is logged and skipped.
+ *
+ * @param <Entity> the type of message, one of the types supported by {@link WireCodec#encode(Object, ByteBuffer)}
+ */
+public class KafkaWireSerializerDeserializer<Entity> implements Serializer<Entity>, Deserializer<Entity> {
+    private static final Logger LOG = LogManager.getLogger(KafkaWireSerializerDeserializer.class);
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(WireCodec::allocate);
+
+    private final Class<Entity> clazz;
+    private final WireCodec codec;
+
+    public KafkaWireSerializerDeserializer(final Class<Entity> clazz, final WireCodec codec) {
+        Objects.requireNonNull(clazz);
+        Objects.requireNonNull(codec);
+        this.clazz = clazz;
+        this.codec = codec;
+    }
+
+    @Override
+    public void configure(final Map<String, ?> configs, final boolean isKey) {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public byte[] serialize(final String topic, final Entity entity) {
+        if (entity == null)
+            return null;
+        final ByteBuffer buffer = BUFFER.get();
+        buffer.clear();
+        final int length = codec.encode(entity, buffer);
+        return Arrays.copyOf(buffer.array(), length);
+    }
+
+    @Override
+    public Entity deserialize(final String topic, final byte[] bytes) {
+        if (bytes == null)
+            return null;
+        final Object message;
+        try {
+            message = codec.decode(ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN));
+        } catch (final IllegalArgumentException malformed) {
+            throw new SerializationException("Malformed message on topic: " + topic + ", reason: " + malformed.getMessage(), malformed);
+        }
+        if (clazz.isInstance(message))
+            return clazz.cast(message);
+        LOG.error("Expected " + clazz.getSimpleName() + " on topic: " + topic + " but received " + message.getClass().getSimpleName());
+        return null;
+    }
+}
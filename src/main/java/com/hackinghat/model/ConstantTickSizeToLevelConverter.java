@@ -6,6 +6,7 @@ import static com.hackinghat.util.Formatters.PRICE_FORMAT;
 
 public class ConstantTickSizeToLevelConverter implements TickConverter {
     private final float tickSize;
+    private final long fixedTickSize;
 
     /**
      * Creates a constant size tick converter where the tick size is a fraction of q/r.
@@ -23,6 +24,9 @@ public class ConstantTickSizeToLevelConverter implements TickConverter {
             throw new IllegalArgumentException("Illegal tick size");
         }
         this.tickSize = tickSize;
+        this.fixedTickSize = Price.toFixed(tickSize);
+        if (fixedTickSize == 0L)
+            throw new IllegalArgumentException("Tick size is smaller than the smallest price: " + tickSize);
     }
 
     private static float atSameScale(int numerator, int denominator, int dps) {
@@ -47,7 +51,7 @@ public class ConstantTickSizeToLevelConverter implements TickConverter {
 
 
     @Override
-    public float calculatePrice(final Integer levelIndex) {
+    public float calculatePrice(final int levelIndex) {
         if (levelIndex < 0)
             throw new IllegalArgumentException("Attempt to adjust to a level below zero");
         if (levelIndex == 0)
@@ -55,6 +59,18 @@ public class ConstantTickSizeToLevelConverter implements TickConverter {
         return tickSize * levelIndex;
     }
 
+    @Override
+    public long calculateFixedPrice(final int levelIndex) {
+        if (levelIndex < 0)
+            throw new IllegalArgumentException("Attempt to adjust to a level below zero");
+        return fixedTickSize * levelIndex;
+    }
+
+    @Override
+    public int calculateLevelIndex(final long fixedPrice) {
+        return Math.toIntExact(Math.floorDiv(fixedPrice + fixedTickSize / 2, fixedTickSize));
+    }
+
     @Override
     public float roundToTick(float price) {
         if (price == 0.f)
@@ -1,22 +1,25 @@
 package com.hackinghat.model;
 
-import com.hackinghat.util.FloatUtil;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.Objects;
 
+import static com.hackinghat.util.Formatters.PRICE_FORMAT;
 
-//auto valid_range = std::vector<std::tuple<level_t, level_t, level_t>>{
-//        {0.0f, 0.9999f, 0.0001f},
-//        {1.0f, 4.9995f, 0.0005f},
-//        {5.0f, 9.999f, 0.001f},
-//        {10.0f, 49.995f, 0.005f},
-//        {50.0f, 99.99f, 0.01f},
-//        };
-
+/**
+ * A tick regime where the tick size depends on the price band (as under MiFID), the level indexes run continuously
+ * across the bands so that moving a number of levels from one band into the next works as it would for a constant
+ * tick.
+ * <p>
+ * Prices are converted, once, into an integer number of 'units' (the smallest decimal that any band boundary or
+ * tick size needs) and the rest of the arithmetic is exact.  The band for a price, or for a level index, is found by
+ * a binary search over the band boundaries, each band knows the level index at which it starts.
+ * <p>
+ * The last band continues indefinitely above its upper bound.
+ */
 public class DynamicTickToLevelConverter implements TickConverter {
     private final static Logger LOG = LogManager.getLogger(DynamicTickToLevelConverter.class);
 
@@ -27,52 +30,146 @@ public class DynamicTickToLevelConverter implements TickConverter {
             new TickRange(10.f, 49.995f, 0.005f),
             new TickRange(50.f, 99.99f, 0.01f),
     });
-    private final List<Level> ranges;
 
+    // Units in one unit of price
+    private final long scale;
+    // Fixed-point prices in one unit
+    private final long fixedPerUnit;
+    // The lowest price of each band, in units
+    private final long[] lowerUnits;
+    // The tick size of each band, in units
+    private final long[] tickUnits;
+    // The level index of the lowest price of each band
+    private final int[] levelOffsets;
+    private final float[] tickSizes;
+
+    /**
+     * @param _ranges the bands, in ascending order, each band must begin one tick (of the band below) above the upper
+     *                bound of the band below and the first must begin at zero
+     * @throws IllegalArgumentException if the bands aren't contiguous or the bounds aren't a whole number of ticks apart
+     */
     public DynamicTickToLevelConverter(final TickRange[] _ranges) {
         Objects.requireNonNull(_ranges);
         if (_ranges.length == 0)
             throw new IllegalArgumentException("No ranges supplied");
-        this.ranges = new ArrayList<>(_ranges.length);
-        Level last = new Level(0.f, 0, _ranges[0].getTickSize());
-        ranges.add(last);
-        for (final TickRange tr : _ranges) {
-            Level next = new Level(tr.getUpperBound(), last.getLevel() + Math.round((tr.getUpperBound() - tr.getLowerBound()) / tr.getTickSize()), tr.getTickSize());
-            ranges.add(next);
-            last = next;
-            LOG.debug("Added level to tick converter: " + next);
+        int dps = 0;
+        for (final TickRange range : _ranges) {
+            if (range.getTickSize() <= 0.f)
+                throw new IllegalArgumentException("Illegal tick size");
+            dps = Math.max(dps, Math.max(decimalPlaces(range.getTickSize()), Math.max(decimalPlaces(range.getLowerBound()), decimalPlaces(range.getUpperBound()))));
+        }
+        if (dps > Price.DECIMALS)
+            throw new IllegalArgumentException("Tick ranges need more than " + Price.DECIMALS + " decimal places");
+        this.scale = BigDecimal.ONE.scaleByPowerOfTen(dps).longValueExact();
+        this.fixedPerUnit = Price.SCALE / scale;
+        this.lowerUnits = new long[_ranges.length];
+        this.tickUnits = new long[_ranges.length];
+        this.levelOffsets = new int[_ranges.length];
+        this.tickSizes = new float[_ranges.length];
+        for (int i = 0; i < _ranges.length; ++i) {
+            final TickRange range = _ranges[i];
+            lowerUnits[i] = toUnits(range.getLowerBound());
+            tickUnits[i] = toUnits(range.getTickSize());
+            tickSizes[i] = range.getTickSize();
+            final long upperUnits = toUnits(range.getUpperBound());
+            if (upperUnits < lowerUnits[i] || (upperUnits - lowerUnits[i]) % tickUnits[i] != 0)
+                throw new IllegalArgumentException("Range " + i + " isn't a whole number of ticks: " + describe(range));
+            if (i == 0) {
+                if (lowerUnits[i] != 0L)
+                    throw new IllegalArgumentException("The first range must begin at zero: " + describe(range));
+            } else {
+                final TickRange below = _ranges[i - 1];
+                if (lowerUnits[i] != toUnits(below.getUpperBound()) + tickUnits[i - 1])
+                    throw new IllegalArgumentException("Range " + i + " doesn't begin one tick above the range below: " + describe(range));
+                final long levels = (long) levelOffsets[i - 1] + (lowerUnits[i] - lowerUnits[i - 1]) / tickUnits[i - 1];
+                if (levels > Integer.MAX_VALUE)
+                    throw new IllegalArgumentException("Too many levels below range " + i);
+                levelOffsets[i] = (int) levels;
+            }
+            LOG.debug("Added range to tick converter: " + describe(range) + " from level " + levelOffsets[i]);
         }
     }
 
-    @Override
-    public Level calculateLevel(final float px) {
-        Level last = ranges.get(0);
-        for (int i = 1; i < ranges.size(); ++i) {
-            final Level l = ranges.get(i);
-            if (FloatUtil.almost_lt_eps(px, l.getPrice(), l.getTickSize())) {
-                return new Level(px, last.getLevel() + Math.round((px - last.getLevel()) / last.getTickSize()), last.getTickSize());
-            }
+    private static int decimalPlaces(final float value) {
+        return Math.max(0, new BigDecimal(Float.toString(value)).stripTrailingZeros().scale());
+    }
+
+    private static String describe(final TickRange range) {
+        return PRICE_FORMAT.get().format(range.getLowerBound()) + "-" + PRICE_FORMAT.get().format(range.getUpperBound()) + " by " + range.getTickSize();
+    }
+
+    private long toUnits(final float price) {
+        return Math.round((double) price * scale);
+    }
+
+    /**
+     * @return the last band whose lowest price is at or below the price (in units)
+     */
+    private int bandOfUnits(final long units) {
+        final int found = Arrays.binarySearch(lowerUnits, units);
+        return found >= 0 ? found : Math.max(0, -found - 2);
+    }
+
+    /**
+     * @return the last band whose lowest level is at or below the level index
+     */
+    private int bandOfLevel(final int levelIndex) {
+        final int found = Arrays.binarySearch(levelOffsets, levelIndex);
+        if (found >= 0) {
+            // Bands can't be empty so offsets are distinct
+            return found;
         }
-        return new Level(px, last.getLevel() + Math.round((last.getLevel() - px) / last.getTickSize()), last.getTickSize());
+        return Math.max(0, -found - 2);
+    }
+
+    private int levelIndexOfUnits(final long units) {
+        final int band = bandOfUnits(units);
+        final long tick = tickUnits[band];
+        // Rounds half a tick up, which may be into the band above, where the level index is the same
+        return Math.toIntExact(levelOffsets[band] + Math.floorDiv(units - lowerUnits[band] + tick / 2, tick));
+    }
+
+    private long unitsOfLevel(final int levelIndex) {
+        if (levelIndex < 0)
+            throw new IllegalArgumentException("Attempt to adjust to a level below zero");
+        final int band = bandOfLevel(levelIndex);
+        return lowerUnits[band] + (long) (levelIndex - levelOffsets[band]) * tickUnits[band];
     }
 
     @Override
     public int calculateLevelIndex(final float px) {
-        return calculateLevel(px).getLevel();
+        return levelIndexOfUnits(toUnits(px));
+    }
+
+    @Override
+    public int calculateLevelIndex(final long fixedPrice) {
+        return levelIndexOfUnits(Math.floorDiv(fixedPrice + fixedPerUnit / 2, fixedPerUnit));
+    }
+
+    @Override
+    public float calculatePrice(final int levelIndex) {
+        return (float) ((double) unitsOfLevel(levelIndex) / scale);
+    }
+
+    @Override
+    public long calculateFixedPrice(final int levelIndex) {
+        return unitsOfLevel(levelIndex) * fixedPerUnit;
     }
 
     @Override
-    public float calculatePrice(final Integer levelIndex) {
-        return 0.f;
+    public float roundToTick(final float price) {
+        if (price == 0.f)
+            return 0.f;
+        return calculatePrice(calculateLevelIndex(price));
     }
 
     @Override
-    public float roundToTick(float price) {
-        return 0;
+    public float getTickSize(final float price) {
+        return tickSizes[bandOfUnits(toUnits(price))];
     }
 
     @Override
-    public float getTickSize(float price) {
-        return calculateLevel(price).getTickSize();
+    public String toString() {
+        return getClass().getSimpleName() + "(bands=" + lowerUnits.length + ")";
     }
 }
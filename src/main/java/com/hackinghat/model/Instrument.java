@@ -167,4 +167,23 @@ public class Instrument implements CopyableAndIdentifiable<String> {
     public Level getLevel(final float price) {
         return price == 0.f ? LevelMap.makeMarket() : levelMap.makeLimit(price);
     }
+
+    /**
+     * @param fixedPrice a price in millionths, see {@link Price}
+     * @return the nearest level, or the market level if the price is zero
+     */
+    public Level getLevelForFixedPrice(final long fixedPrice) {
+        return fixedPrice == 0L ? LevelMap.makeMarket() : levelMap.makeFixedLimit(fixedPrice);
+    }
+
+    /**
+     * The limit level with the index, without going through its price
+     *
+     * @param levelIndex the index of the level
+     * @return the level
+     * @throws IllegalArgumentException if the index is negative
+     */
+    public Level getLevelAt(final int levelIndex) {
+        return levelMap.levelAt(levelIndex);
+    }
 }
@@ -33,9 +33,14 @@ public class Level {
     private final int level;
     private final boolean market;
     private final float price;
+    private final long fixedPrice;
     private final float tickSize;
 
     Level(final float price, final int level, final float tickSize) {
+        this(price, Price.toFixed(price), level, tickSize);
+    }
+
+    Level(final float price, final long fixedPrice, final int level, final float tickSize) {
         if (level < 0)
             throw new IllegalArgumentException("Level must be greater than or equal to zero");
         if (price < 0)
@@ -43,6 +48,7 @@ public class Level {
         if (tickSize <= 0.)
             throw new IllegalArgumentException("Ticksize should be greater than zero.");
         this.price = price;
+        this.fixedPrice = fixedPrice;
         this.level = level;
         this.market = false;
         this.tickSize = tickSize;
@@ -50,6 +56,7 @@ public class Level {
 
     Level() {
         this.price = 0.f;
+        this.fixedPrice = 0L;
         this.level = 0;
         this.market = true;
         this.tickSize = 0.f;
@@ -96,6 +103,13 @@ public class Level {
         return level;
     }
 
+    /**
+     * @return the price in millionths, see {@link Price}
+     */
+    public long getFixedPrice() {
+        return fixedPrice;
+    }
+
     public float getTickSize() {
         return tickSize;
     }
@@ -2,6 +2,7 @@ package com.hackinghat.model;
 
 import com.hackinghat.order.OrderSide;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -12,17 +13,24 @@ import static com.hackinghat.util.Formatters.PRICE_FORMAT;
  * Defines how level indexes map back to levels, it contains a mapping between a price and a level index which
  * is arrived at by a TickConverter, there will be a level definition per stock.  This definition
  * could be shared with other stocks with the same tick level definition.
+ * <p>
+ * The levels are kept in a ladder, an array indexed by level index, that grows to cover the highest level that has
+ * been asked for (up to {@link #MAXIMUM_LADDER} levels, beyond which a map is used).  Once a level is in the ladder
+ * finding it by index, or moving from it by a number of levels, is a single array read.
  */
 public class LevelMap {
+    final static int MAXIMUM_LADDER = 1 << 20;
+    private final static int MINIMUM_LADDER = 64;
 
     private final Map<Integer, Level> indexToLevelMap;
-    //private final Map<BigDecimal,    Level>     priceToLevelMap;
     private final TickConverter tickConverter;
+    private final Object sync = new Object();
+    private volatile Level[] ladder;
 
     LevelMap(final TickConverter tickConverter) {
         this.indexToLevelMap = new ConcurrentHashMap<>();
-        //this.priceToLevelMap = new ConcurrentHashMap<>();
         this.tickConverter = tickConverter;
+        this.ladder = new Level[0];
     }
 
     static Level makeMarket() {
@@ -34,18 +42,54 @@ public class LevelMap {
     }
 
     Level makeLimit(final float price) {
-        final int i = tickConverter.calculateLevelIndex(price);
-        final float tickSize = tickConverter.getTickSize(price);
-        if (tickConverter.calculateLevelIndex(tickConverter.calculatePrice(i)) != i)
-            throw new IllegalArgumentException("Was expecting the tick converter to behave symmetrically for price: " + PRICE_FORMAT.get().format(price));
+        return levelAt(tickConverter.calculateLevelIndex(price));
+    }
+
+    Level makeFixedLimit(final long fixedPrice) {
+        return levelAt(tickConverter.calculateLevelIndex(fixedPrice));
+    }
+
+    /**
+     * @param levelIndex the index of the level
+     * @return the level with the index
+     * @throws IllegalArgumentException if the index is negative
+     */
+    Level levelAt(final int levelIndex) {
+        final Level[] current = ladder;
+        if (levelIndex >= 0 && levelIndex < current.length) {
+            final Level level = current[levelIndex];
+            if (level != null)
+                return level;
+        }
+        return addLevel(levelIndex);
+    }
 
-        final Level level = indexToLevelMap.get(i);
-        if (level == null) {
-            final Level newLevel = new Level(price, i, tickSize);
-            indexToLevelMap.put(i, newLevel);
-            return newLevel;
+    private Level addLevel(final int levelIndex) {
+        if (levelIndex < 0)
+            throw new IllegalArgumentException("Attempt to adjust to a level below zero");
+        if (levelIndex >= MAXIMUM_LADDER)
+            return indexToLevelMap.computeIfAbsent(levelIndex, this::newLevel);
+        synchronized (sync) {
+            Level[] current = ladder;
+            if (levelIndex >= current.length) {
+                final int length = Math.min(MAXIMUM_LADDER, Math.max(levelIndex + 1, Math.max(MINIMUM_LADDER, current.length * 2)));
+                current = Arrays.copyOf(current, length);
+                ladder = current;
+            }
+            Level level = current[levelIndex];
+            if (level == null) {
+                level = newLevel(levelIndex);
+                current[levelIndex] = level;
+            }
+            return level;
         }
-        return level;
+    }
+
+    private Level newLevel(final int levelIndex) {
+        final float price = tickConverter.calculatePrice(levelIndex);
+        if (tickConverter.calculateLevelIndex(price) != levelIndex)
+            throw new IllegalArgumentException("Was expecting the tick converter to behave symmetrically for price: " + PRICE_FORMAT.get().format(price));
+        return new Level(price, tickConverter.calculateFixedPrice(levelIndex), levelIndex, tickConverter.getTickSize(price));
     }
 
     /**
@@ -60,7 +104,6 @@ public class LevelMap {
      */
     Level adjustBy(Level level, OrderSide queueSide, int nLevels) {
         final int directionInt = Level.sideToDirection(queueSide);
-        final int newLevel = level.getLevel() + (nLevels * directionInt);
-        return makeLimit(tickConverter.calculatePrice(newLevel));
+        return levelAt(level.getLevel() + (nLevels * directionInt));
     }
 }
@@ -0,0 +1,39 @@
+package com.hackinghat.model;
+
+/**
+ * Prices (and values, i.e. price times quantity) held as a whole number of millionths of the currency unit.  Every
+ * tick size in use is a whole number of millionths so the arithmetic of levels, values and cash is exact, floats are
+ * only needed where prices are shown (or come from outside, e.g. from an agent's pricing model).
+ */
+public final class Price {
+    public final static int DECIMALS = 6;
+    public final static long SCALE = 1_000_000L;
+
+    private Price() {
+    }
+
+    /**
+     * @param price a price, or value, in currency units
+     * @return the nearest fixed-point price
+     */
+    public static long toFixed(final double price) {
+        return Math.round(price * SCALE);
+    }
+
+    public static double toDouble(final long fixed) {
+        return (double) fixed / SCALE;
+    }
+
+    public static float toFloat(final long fixed) {
+        return (float) toDouble(fixed);
+    }
+
+    /**
+     * @param fixed    the fixed-point price
+     * @param quantity the quantity
+     * @return the fixed-point value of the quantity at the price
+     */
+    public static long value(final long fixed, final long quantity) {
+        return Math.multiplyExact(fixed, quantity);
+    }
+}
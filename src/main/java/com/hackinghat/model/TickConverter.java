@@ -6,7 +6,7 @@ package com.hackinghat.model;
  * prices and their integer equivalent levels.
  */
 public interface TickConverter {
-    float calculatePrice(final Integer levelIndex);
+    float calculatePrice(final int levelIndex);
 
     float roundToTick(final float price);
 
@@ -14,6 +14,22 @@ public interface TickConverter {
 
     int calculateLevelIndex(final float price);
 
+    /**
+     * @param levelIndex the index of the level
+     * @return the price of the level in millionths, see {@link Price}
+     */
+    default long calculateFixedPrice(final int levelIndex) {
+        return Price.toFixed(calculatePrice(levelIndex));
+    }
+
+    /**
+     * @param fixedPrice a price in millionths, see {@link Price}
+     * @return the index of the nearest level
+     */
+    default int calculateLevelIndex(final long fixedPrice) {
+        return calculateLevelIndex(Price.toFloat(fixedPrice));
+    }
+
     default Level calculateLevel(final float price) {
         final float tickSize = getTickSize(price);
         final float roundPrice = roundToTick(price);
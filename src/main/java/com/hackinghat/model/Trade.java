@@ -1,6 +1,7 @@
 package com.hackinghat.model;
 
 import com.hackinghat.statistic.Statistic;
+import com.hackinghat.util.CsvBuffer;
 import com.hackinghat.util.Event;
 import com.hackinghat.util.Identifiable;
 import com.hackinghat.util.TimeMachine;
@@ -35,6 +36,7 @@ public class Trade extends Event implements Statistic, Identifiable<String> {
         Objects.requireNonNull(level);
         Objects.requireNonNull(level);
         Objects.requireNonNull(quantity);
+        this.tradeId = tradeId;
         this.instrument = instrument;
         this.order1 = order1;
         this.order2 = order2;
@@ -104,15 +106,20 @@ public class Trade extends Event implements Statistic, Identifiable<String> {
     }
 
     public String formatStatistic(final TimeMachine timeMachine) {
-        final StringBuilder builder = new StringBuilder();
-        formatTime(builder, timeMachine, simulationTime, false);
-        format(builder, null, timeMachine.getStartCount(), false);
-        formatString(builder, flags, false);
-        formatString(builder, order1, false);
-        formatString(builder, order2, false);
-        formatPrice(builder, getLevel().getPrice(), false);
-        format(builder, null, getQuantity(), true);
-        return builder.toString();
+        final CsvBuffer buffer = new CsvBuffer(128);
+        formatStatistic(timeMachine, buffer);
+        return buffer.toString();
+    }
+
+    @Override
+    public void formatStatistic(final TimeMachine timeMachine, final CsvBuffer buffer) {
+        formatTime(buffer, simulationTime, false);
+        format(buffer, timeMachine.getStartCount(), false);
+        formatString(buffer, flags, false);
+        formatString(buffer, order1, false);
+        formatString(buffer, order2, false);
+        formatPrice(buffer, getLevel().getPrice(), false);
+        format(buffer, getQuantity(), true);
     }
 
     @Override
@@ -0,0 +1,294 @@
+package com.hackinghat.model.serialize;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.hackinghat.util.Identifiable;
+import com.hackinghat.util.SimulatorObjectMapper;
+import com.hackinghat.util.TimeMachine;
+import com.hackinghat.util.component.AbstractComponent;
+import com.hackinghat.util.mbean.MBeanAttribute;
+import com.hackinghat.util.mbean.MBeanType;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Publishes events to Kafka from a sender thread of its own, so that the caller (normally the matching thread) only
+ * pays for putting the event on a queue.  The sender takes the events in batches, groups them by topic and serialises
+ * each group through a single reused buffer.  Each event's bytes are then copied out into a record of their own,
+ * because a producer may hold on to the value after send returns.  Once a batch has been sent the sender waits for all of it to
+ * be acknowledged (a group commit) before taking the next batch, rather than the producer being flushed per event.
+ * <p>
+ * If the queue is full, because the broker can't keep up, new events are dropped and counted rather than stalling the
+ * caller.
+ *
+ * @param <K> the type of the record key, the identity of the event
+ * @param <V> the type of event
+ */
+@MBeanType(description = "Batching event publisher")
+public class BatchingEventPublisher<K, V extends Identifiable<K>> extends AbstractComponent implements EventPublisher<V>, Runnable {
+    private static final Logger LOG = LogManager.getLogger(BatchingEventPublisher.class);
+    public final static int DEFAULT_CAPACITY = 1 << 16;
+    public final static int DEFAULT_MAX_BATCH = 1024;
+    public final static Duration DEFAULT_LINGER = Duration.ofMillis(5L);
+    private final static long STOP_TIMEOUT_MILLIS = 5000L;
+
+    private final Producer<K, byte[]> producer;
+    private final SimulatorObjectMapper mapper;
+    private final Function<V, String> topicDeriveFn;
+    private final ArrayBlockingQueue<V> pending;
+    private final ArrayList<V> batch;
+    private final Map<String, List<V>> byTopic;
+    private final Buffer buffer;
+    private final JsonGenerator generator;
+    private final int maxBatch;
+    private final long lingerNanos;
+    private final Callback callback;
+    private final AtomicBoolean started;
+    private final AtomicBoolean terminate;
+    private final AtomicLong published;
+    private final AtomicLong dropped;
+    private final AtomicLong sent;
+    private final AtomicLong acknowledged;
+    private final AtomicLong failed;
+    private final AtomicLong batches;
+    private volatile Thread sender;
+
+    public BatchingEventPublisher(final String name, final Producer<K, byte[]> producer, final SimulatorObjectMapper mapper, final Function<V, String> topicDeriveFn) {
+        this(name, producer, mapper, topicDeriveFn, DEFAULT_CAPACITY, DEFAULT_MAX_BATCH, DEFAULT_LINGER);
+    }
+
+    /**
+     * @param name          the component name
+     * @param producer      the producer, which sends pre-serialised values
+     * @param mapper        used to serialise the events
+     * @param topicDeriveFn decides which topic an event is published to
+     * @param capacity      the maximum number of events waiting to be sent
+     * @param maxBatch      the maximum number of events sent in one batch
+     * @param linger        how long the sender waits for an event before checking whether it should stop
+     */
+    public BatchingEventPublisher(final String name, final Producer<K, byte[]> producer, final SimulatorObjectMapper mapper, final Function<V, String> topicDeriveFn,
+                                  final int capacity, final int maxBatch, final Duration linger) {
+        super(name);
+        Objects.requireNonNull(producer);
+        Objects.requireNonNull(mapper);
+        Objects.requireNonNull(topicDeriveFn);
+        Objects.requireNonNull(linger);
+        if (capacity <= 0 || maxBatch <= 0)
+            throw new IllegalArgumentException("Capacity and batch size must be greater than zero");
+        this.producer = producer;
+        this.mapper = mapper;
+        this.topicDeriveFn = topicDeriveFn;
+        this.pending = new ArrayBlockingQueue<>(capacity);
+        this.batch = new ArrayList<>(maxBatch);
+        this.byTopic = new LinkedHashMap<>();
+        this.buffer = new Buffer();
+        try {
+            this.generator = mapper.getFactory().createGenerator(buffer);
+        } catch (final IOException ioex) {
+            throw new UncheckedIOException(ioex);
+        }
+        this.generator.setRootValueSeparator(null);
+        this.maxBatch = maxBatch;
+        this.lingerNanos = linger.toNanos();
+        this.callback = this::onCompletion;
+        this.started = new AtomicBoolean(false);
+        this.terminate = new AtomicBoolean(false);
+        this.published = new AtomicLong();
+        this.dropped = new AtomicLong();
+        this.sent = new AtomicLong();
+        this.acknowledged = new AtomicLong();
+        this.failed = new AtomicLong();
+        this.batches = new AtomicLong();
+    }
+
+    @MBeanAttribute(description = "Events published")
+    public long getPublished() {
+        return published.get();
+    }
+
+    @MBeanAttribute(description = "Events dropped because the queue was full")
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    @MBeanAttribute(description = "Events sent")
+    public long getSent() {
+        return sent.get();
+    }
+
+    @MBeanAttribute(description = "Events acknowledged")
+    public long getAcknowledged() {
+        return acknowledged.get();
+    }
+
+    @MBeanAttribute(description = "Events that failed to send")
+    public long getFailed() {
+        return failed.get();
+    }
+
+    @MBeanAttribute(description = "Batches sent")
+    public long getBatches() {
+        return batches.get();
+    }
+
+    @MBeanAttribute(description = "Events waiting to be sent")
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    @Override
+    public void configure() {
+    }
+
+    @Override
+    public void publish(final TimeMachine time, final V event) {
+        if (event == null || terminate.get())
+            return;
+        if (pending.offer(event))
+            published.incrementAndGet();
+        else
+            dropped.incrementAndGet();
+        if (!started.get() && started.compareAndSet(false, true)) {
+            sender = new Thread(this, getName() + "-sender");
+            sender.setDaemon(true);
+            sender.start();
+        }
+    }
+
+    private void onCompletion(final RecordMetadata metadata, final Exception exception) {
+        if (exception == null) {
+            acknowledged.incrementAndGet();
+        } else {
+            failed.incrementAndGet();
+            if (LOG.isDebugEnabled())
+                LOG.debug(getName() + " failed to send: ", exception);
+        }
+    }
+
+    /**
+     * Send everything that is waiting, normally only the sender thread does this but it's available for callers (and
+     * tests) that need the events to be sent synchronously.
+     *
+     * @return the number of events sent
+     */
+    public int flush() {
+        int total = 0;
+        int sentNow;
+        while ((sentNow = sendBatch()) > 0)
+            total += sentNow;
+        return total;
+    }
+
+    private int sendBatch() {
+        synchronized (batch) {
+            pending.drainTo(batch, maxBatch);
+            if (batch.isEmpty())
+                return 0;
+            for (final V event : batch)
+                byTopic.computeIfAbsent(topicDeriveFn.apply(event), t -> new ArrayList<>()).add(event);
+            int count = 0;
+            for (final Map.Entry<String, List<V>> topic : byTopic.entrySet()) {
+                final List<V> events = topic.getValue();
+                buffer.reset();
+                for (final V event : events) {
+                    final int start = buffer.size();
+                    try {
+                        mapper.writeValue(generator, event);
+                        generator.flush();
+                        producer.send(new ProducerRecord<>(topic.getKey(), event.getId(), buffer.copyFrom(start)), callback);
+                        count++;
+                    } catch (final Exception ex) {
+                        failed.incrementAndGet();
+                        LOG.error(getName() + " couldn't send event: " + event.getId() + ", reason: ", ex);
+                    }
+                }
+                events.clear();
+            }
+            batch.clear();
+            // Wait for the whole batch to be acknowledged in one go
+            producer.flush();
+            sent.addAndGet(count);
+            batches.incrementAndGet();
+            return count;
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!terminate.get()) {
+                final V first = pending.poll(lingerNanos, TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    synchronized (batch) {
+                        batch.add(first);
+                    }
+                    flush();
+                }
+            }
+        } catch (final InterruptedException iex) {
+            if (LOG.isTraceEnabled())
+                LOG.trace(getName() + " interrupted, sending pending events and exiting", iex);
+        } catch (final Throwable t) {
+            LOG.error(getName() + " sender failed: ", t);
+        } finally {
+            flush();
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!terminate.compareAndSet(false, true))
+            return;
+        final Thread current = sender;
+        if (current != null) {
+            try {
+                current.join(STOP_TIMEOUT_MILLIS);
+            } catch (final InterruptedException iex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // If the sender is stuck waiting on the broker then there's no point in us waiting too
+        if (current == null || !current.isAlive())
+            flush();
+        else
+            LOG.warn(getName() + " sender didn't stop, " + pending.size() + " event(s) not sent");
+        try {
+            producer.close(Duration.ofMillis(STOP_TIMEOUT_MILLIS));
+        } catch (final Exception ex) {
+            LOG.error("Couldn't close producer for: " + getName() + ", reason: ", ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+        super.close();
+    }
+
+    /**
+     * Exposes the written bytes so that each event can be copied out of the shared buffer
+     */
+    private static class Buffer extends ByteArrayOutputStream {
+        private Buffer() {
+            super(4096);
+        }
+
+        private byte[] copyFrom(final int start) {
+            return Arrays.copyOfRange(buf, start, count);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.hackinghat.model.serialize;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.hackinghat.model.Currency;
+import com.hackinghat.util.TimeMachine;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+public class CurrencyDeserializer extends StdDeserializer<Currency> {
+
+    private final TimeMachine timeMachine;
+
+    public CurrencyDeserializer(final TimeMachine timeMachine) {
+        super(Currency.class);
+        this.timeMachine = timeMachine;
+    }
+
+    @Override
+    public Currency deserialize(final JsonParser jsonParser, final DeserializationContext deserializationContext) throws IOException {
+        String iso3 = null;
+        int scale = 2;
+        LocalDateTime timestamp = null;
+        JsonToken token = jsonParser.currentToken();
+        if (token == JsonToken.START_OBJECT)
+            token = jsonParser.nextToken();
+        for (; token == JsonToken.FIELD_NAME; token = jsonParser.nextToken()) {
+            final String field = jsonParser.getCurrentName();
+            jsonParser.nextToken();
+            switch (field) {
+                case "currency":
+                    iso3 = jsonParser.getValueAsString();
+                    break;
+                case "scale":
+                    scale = jsonParser.getIntValue();
+                    break;
+                case "timestamp":
+                    timestamp = timeMachine.parseTimeFromUTCISO(jsonParser.getValueAsString());
+                    break;
+                default:
+                    jsonParser.skipChildren();
+            }
+        }
+        return new Currency(iso3, scale, timestamp == null ? LocalDateTime.now() : timestamp);
+    }
+}
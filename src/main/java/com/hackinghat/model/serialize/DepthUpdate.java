@@ -0,0 +1,114 @@
+package com.hackinghat.model.serialize;
+
+import com.hackinghat.model.Instrument;
+import com.hackinghat.model.Level;
+import com.hackinghat.order.OrderSide;
+import com.hackinghat.orderbook.FullDepth;
+import com.hackinghat.orderbook.OrderInterest;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * A change to one level of the depth, the quantity and count are the new totals at the level so a quantity of zero
+ * means the level has gone.  A sequence of these, from {@link #diff(Instrument, FullDepth, FullDepth)}, is much
+ * smaller than repeatedly sending the whole {@link FullDepth}.
+ */
+public final class DepthUpdate {
+    private final Instrument instrument;
+    private final LocalDateTime timestamp;
+    private final OrderSide side;
+    private final Level level;
+    private final long quantity;
+    private final int count;
+
+    public DepthUpdate(final Instrument instrument, final LocalDateTime timestamp, final OrderSide side, final Level level, final long quantity, final int count) {
+        Objects.requireNonNull(instrument);
+        Objects.requireNonNull(timestamp);
+        Objects.requireNonNull(side);
+        Objects.requireNonNull(level);
+        this.instrument = instrument;
+        this.timestamp = timestamp;
+        this.side = side;
+        this.level = level;
+        this.quantity = quantity;
+        this.count = count;
+    }
+
+    /**
+     * The changes needed to turn one depth snapshot into another
+     *
+     * @param instrument the instrument the depth is for
+     * @param previous   the depth the receiver already has, or null if it has nothing
+     * @param current    the latest depth
+     * @return the level changes, bids first then offers, each in the order of the current depth with removed levels last
+     */
+    public static List<DepthUpdate> diff(final Instrument instrument, final FullDepth previous, final FullDepth current) {
+        final List<DepthUpdate> updates = new ArrayList<>();
+        for (final OrderSide side : OrderSide.values()) {
+            final Map<Level, OrderInterest> before = new HashMap<>();
+            if (previous != null) {
+                for (final OrderInterest interest : previous.getDepth(side))
+                    before.put(interest.getLevel(), interest);
+            }
+            for (final OrderInterest interest : current.getDepth(side)) {
+                final OrderInterest old = before.remove(interest.getLevel());
+                if (old == null || old.getQuantity() != interest.getQuantity() || old.getCount() != interest.getCount())
+                    updates.add(new DepthUpdate(instrument, current.getTimestamp(), side, interest.getLevel(), interest.getQuantity(), interest.getCount()));
+            }
+            for (final Level removed : before.keySet())
+                updates.add(new DepthUpdate(instrument, current.getTimestamp(), side, removed, 0L, 0));
+        }
+        return updates;
+    }
+
+    public Instrument getInstrument() {
+        return instrument;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public OrderSide getSide() {
+        return side;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DepthUpdate)) return false;
+        final DepthUpdate that = (DepthUpdate) o;
+        return quantity == that.quantity && count == that.count && instrument.getTicker().equals(that.instrument.getTicker()) &&
+                timestamp.equals(that.timestamp) && side == that.side && level.equals(that.level);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(instrument.getTicker(), timestamp, side, level, quantity);
+    }
+
+    @Override
+    public String toString() {
+        return "DepthUpdate{" +
+                "instrument=" + instrument.getTicker() +
+                ", timestamp=" + timestamp +
+                ", side=" + side +
+                ", level=" + level +
+                ", quantity=" + quantity +
+                ", count=" + count +
+                '}';
+    }
+}
@@ -1,33 +1,95 @@
 package com.hackinghat.model.serialize;
 
-import com.fasterxml.jackson.core.JacksonException;
 import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.hackinghat.model.ConstantTickSizeToLevelConverter;
+import com.hackinghat.model.Currency;
 import com.hackinghat.model.Instrument;
+import com.hackinghat.model.TickConverter;
 import com.hackinghat.util.MemoryCache;
 import com.hackinghat.util.ObjectCache;
+import com.hackinghat.util.TimeMachine;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 
+/**
+ * The reverse of {@link InstrumentSerializer}, the currency is taken from the object cache when it has been cached
+ * already.  Only constant tick converters can be read.
+ */
 public class InstrumentDeserializer extends StdDeserializer<Instrument> {
 
     private final ObjectCache objectCache;
+    private final TimeMachine timeMachine;
 
-    public InstrumentDeserializer(final ObjectCache cache) {
+    public InstrumentDeserializer(final ObjectCache cache, final TimeMachine timeMachine) {
         super(Instrument.class);
         if (!cache.hasCache(Instrument.class))
             throw new IllegalArgumentException("Object cache does not cache instruments and should");
         this.objectCache = cache;
+        this.timeMachine = timeMachine;
+    }
+
+    private Currency currency(final String iso3) {
+        if (iso3 == null)
+            return null;
+        final MemoryCache<String, Currency> currencies = objectCache.getCache(Currency.class);
+        return currencies == null ? new Currency(iso3) : currencies.get(iso3).orElseGet(() -> new Currency(iso3));
+    }
+
+    private TickConverter tickConverter(final JsonParser jsonParser) throws IOException {
+        String type = null;
+        float tickSize = Float.NaN;
+        for (JsonToken token = jsonParser.nextToken(); token == JsonToken.FIELD_NAME; token = jsonParser.nextToken()) {
+            final String field = jsonParser.getCurrentName();
+            jsonParser.nextToken();
+            if ("type".equals(field))
+                type = jsonParser.getValueAsString();
+            else if ("tickSize".equals(field))
+                tickSize = Float.parseFloat(jsonParser.getText());
+            else
+                jsonParser.skipChildren();
+        }
+        if (!"constant".equals(type) || Float.isNaN(tickSize))
+            throw new IllegalArgumentException("Unsupported tick converter: " + type);
+        return new ConstantTickSizeToLevelConverter(tickSize);
     }
 
     @Override
     public Instrument deserialize(final JsonParser jsonParser, final DeserializationContext deserializationContext) throws IOException {
-        final MemoryCache<String, Instrument> cache = objectCache.getCache(Instrument.class);
-        final ObjectCodec codec = jsonParser.getCodec();
-        final JsonNode node = codec.readTree(jsonParser);
-        return new Instrument(node.get("ticker").textValue(), node.get("description").textValue(), null, null);
+        String ticker = null;
+        String description = null;
+        String currency = null;
+        TickConverter tickConverter = null;
+        LocalDateTime timestamp = null;
+        JsonToken token = jsonParser.currentToken();
+        if (token == JsonToken.START_OBJECT)
+            token = jsonParser.nextToken();
+        for (; token == JsonToken.FIELD_NAME; token = jsonParser.nextToken()) {
+            final String field = jsonParser.getCurrentName();
+            jsonParser.nextToken();
+            switch (field) {
+                case "ticker":
+                    ticker = jsonParser.getValueAsString();
+                    break;
+                case "description":
+                    description = jsonParser.getValueAsString();
+                    break;
+                case "currency":
+                    currency = jsonParser.getValueAsString();
+                    break;
+                case "tickConverter":
+                    tickConverter = tickConverter(jsonParser);
+                    break;
+                case "timestamp":
+                    timestamp = timeMachine.parseTimeFromUTCISO(jsonParser.getValueAsString());
+                    break;
+                default:
+                    jsonParser.skipChildren();
+            }
+        }
+        return new Instrument(ticker, description, currency(currency), tickConverter, timestamp == null ? LocalDateTime.now() : timestamp);
     }
 }
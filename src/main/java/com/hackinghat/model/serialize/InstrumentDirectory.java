@@ -0,0 +1,78 @@
+package com.hackinghat.model.serialize;
+
+import com.hackinghat.model.Instrument;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns a small integer id to each instrument so that binary messages can refer to the instrument without carrying
+ * its ticker.  Both ends of a connection must register the same instruments in the same order (or be given the ids
+ * explicitly) for the ids to agree.
+ */
+public class InstrumentDirectory {
+    private final Map<String, Integer> idsByTicker;
+    private volatile Instrument[] instruments;
+
+    public InstrumentDirectory(final Instrument... instruments) {
+        this.idsByTicker = new ConcurrentHashMap<>();
+        this.instruments = new Instrument[0];
+        for (final Instrument instrument : instruments)
+            register(instrument);
+    }
+
+    /**
+     * Register the instrument with the next free id, if the ticker is already registered the existing id is returned
+     *
+     * @param instrument the instrument
+     * @return the id of the instrument
+     */
+    public synchronized int register(final Instrument instrument) {
+        Objects.requireNonNull(instrument);
+        final Integer existing = idsByTicker.get(instrument.getTicker());
+        if (existing != null)
+            return existing;
+        final int id = instruments.length;
+        final Instrument[] grown = Arrays.copyOf(instruments, id + 1);
+        grown[id] = instrument;
+        instruments = grown;
+        idsByTicker.put(instrument.getTicker(), id);
+        return id;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the instrument hasn't been registered
+     */
+    public int getId(final Instrument instrument) {
+        final Integer id = idsByTicker.get(instrument.getTicker());
+        if (id == null)
+            throw new IllegalArgumentException("Instrument not registered: " + instrument.getTicker());
+        return id;
+    }
+
+    /**
+     * @throws IllegalArgumentException if there's no instrument with the id
+     */
+    public Instrument get(final int id) {
+        final Instrument[] current = instruments;
+        if (id < 0 || id >= current.length)
+            throw new IllegalArgumentException("Unknown instrument id: " + id);
+        return current[id];
+    }
+
+    /**
+     * A lock-free lookup by ticker
+     *
+     * @return the instrument or null if the ticker hasn't been registered
+     */
+    public Instrument get(final String ticker) {
+        final Integer id = idsByTicker.get(ticker);
+        return id == null ? null : instruments[id];
+    }
+
+    public int size() {
+        return instruments.length;
+    }
+}
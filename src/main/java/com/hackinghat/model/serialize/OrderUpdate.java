@@ -0,0 +1,126 @@
+package com.hackinghat.model.serialize;
+
+import com.hackinghat.model.Instrument;
+import com.hackinghat.model.Level;
+import com.hackinghat.order.Order;
+import com.hackinghat.order.OrderSide;
+import com.hackinghat.order.OrderState;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * An immutable capture of the state of an {@link Order} at a point in time.  This is what is sent on the wire when an
+ * order changes state, the receiver doesn't have (and doesn't need) the agent that owns the order.
+ */
+public final class OrderUpdate {
+    private final Instrument instrument;
+    private final LocalDateTime timestamp;
+    private final long orderId;
+    private final String clientId;
+    private final int version;
+    private final OrderSide side;
+    private final OrderState state;
+    private final Level level;
+    private final int quantity;
+    private final int filledQuantity;
+
+    public OrderUpdate(final Instrument instrument, final LocalDateTime timestamp, final long orderId, final String clientId, final int version,
+                       final OrderSide side, final OrderState state, final Level level, final int quantity, final int filledQuantity) {
+        Objects.requireNonNull(instrument);
+        Objects.requireNonNull(timestamp);
+        Objects.requireNonNull(side);
+        Objects.requireNonNull(state);
+        Objects.requireNonNull(level);
+        this.instrument = instrument;
+        this.timestamp = timestamp;
+        this.orderId = orderId;
+        this.clientId = clientId;
+        this.version = version;
+        this.side = side;
+        this.state = state;
+        this.level = level;
+        this.quantity = quantity;
+        this.filledQuantity = filledQuantity;
+    }
+
+    /**
+     * @param order the order, an order without an id yet is given the id -1
+     * @return the current state of the order
+     */
+    public static OrderUpdate of(final Order order) {
+        return new OrderUpdate(order.getInstrument(), order.getTimestamp(), order.getId() == null ? -1L : order.getId(), order.getClientId(),
+                order.getVersion(), order.getSide(), order.getState(), order.getLevel(), order.getQuantity(), order.getFilledQuantity());
+    }
+
+    public Instrument getInstrument() {
+        return instrument;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public long getOrderId() {
+        return orderId;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public OrderSide getSide() {
+        return side;
+    }
+
+    public OrderState getState() {
+        return state;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public int getFilledQuantity() {
+        return filledQuantity;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (!(o instanceof OrderUpdate)) return false;
+        final OrderUpdate that = (OrderUpdate) o;
+        return orderId == that.orderId && version == that.version && quantity == that.quantity && filledQuantity == that.filledQuantity &&
+                instrument.getTicker().equals(that.instrument.getTicker()) && timestamp.equals(that.timestamp) && Objects.equals(clientId, that.clientId) &&
+                side == that.side && state == that.state && level.equals(that.level);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(instrument.getTicker(), timestamp, orderId, version, state);
+    }
+
+    @Override
+    public String toString() {
+        return "OrderUpdate{" +
+                "instrument=" + instrument.getTicker() +
+                ", timestamp=" + timestamp +
+                ", orderId=" + orderId +
+                ", clientId='" + clientId + '\'' +
+                ", version=" + version +
+                ", side=" + side +
+                ", state=" + state +
+                ", level=" + level +
+                ", quantity=" + quantity +
+                ", filledQuantity=" + filledQuantity +
+                '}';
+    }
+}
@@ -1,26 +1,23 @@
 package com.hackinghat.model.serialize;
 
-import com.fasterxml.jackson.core.JacksonException;
 import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import com.hackinghat.model.Instrument;
 import com.hackinghat.model.Trade;
-import com.hackinghat.orderbook.OrderManager;
 import com.hackinghat.util.MemoryCache;
 import com.hackinghat.util.SimulatorObjectMapper;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
 import java.util.Objects;
-import java.util.Optional;
 
+/**
+ * Reads trades field by field from the parser, without building a tree.  Instruments are resolved through the
+ * mapper's {@link InstrumentDirectory}, only falling back to the (synchronized) instrument cache the first time a
+ * ticker is seen.
+ */
 public class TradeDeserializer extends StdDeserializer<Trade> {
-    private static final Logger LOG = LogManager.getLogger(TradeDeserializer.class);
-
     private final SimulatorObjectMapper mapper;
 
     public TradeDeserializer(final SimulatorObjectMapper mapper) {
@@ -28,25 +25,59 @@ public class TradeDeserializer extends StdDeserializer<Trade> {
         this.mapper = mapper;
     }
 
+    private Instrument lookup(final String ticker) {
+        Objects.requireNonNull(ticker, "Instrument was not found in message");
+        final InstrumentDirectory directory = mapper.getInstrumentDirectory();
+        final Instrument instrument = directory.get(ticker);
+        if (instrument != null)
+            return instrument;
+        final MemoryCache<String, Instrument> instrumentCache = mapper.getCache(Instrument.class);
+        Objects.requireNonNull(instrumentCache);
+        final Instrument cached = Objects.requireNonNull(instrumentCache.get(ticker).orElse(null), "Unknown instrument: " + ticker);
+        directory.register(cached);
+        return cached;
+    }
+
     @Override
     public Trade deserialize(final JsonParser jsonParser, final DeserializationContext deserializationContext) throws IOException {
         final Trade trade = new Trade();
-        final ObjectCodec codec = jsonParser.getCodec();
-        final JsonNode node = codec.readTree(jsonParser);
-        MemoryCache<String, Instrument> instrumentCache = mapper.getCache(Instrument.class);
-        Objects.requireNonNull(instrumentCache);
-        final Optional<Instrument> optInstrument = instrumentCache.get(node.get("instrument").textValue());
-        if (!optInstrument.isPresent()) {
-            throw new IllegalArgumentException("Instrument was not found in message");
+        String ticker = null;
+        String price = null;
+        JsonToken token = jsonParser.currentToken();
+        if (token == JsonToken.START_OBJECT)
+            token = jsonParser.nextToken();
+        for (; token == JsonToken.FIELD_NAME; token = jsonParser.nextToken()) {
+            final String field = jsonParser.getCurrentName();
+            jsonParser.nextToken();
+            switch (field) {
+                case "order1":
+                    trade.setOrder1(jsonParser.getValueAsString());
+                    break;
+                case "order2":
+                    trade.setOrder2(jsonParser.getValueAsString());
+                    break;
+                case "instrument":
+                    ticker = jsonParser.getValueAsString();
+                    break;
+                case "quantity":
+                    trade.setQuantity(jsonParser.getIntValue());
+                    break;
+                case "price":
+                    price = jsonParser.getText();
+                    break;
+                case "flags":
+                    trade.setFlags(jsonParser.getValueAsString());
+                    break;
+                case "timestamp":
+                    trade.setTimestamp(mapper.getTimeMachine().parseTimeFromUTCISO(jsonParser.getValueAsString()));
+                    break;
+                default:
+                    jsonParser.skipChildren();
+            }
         }
-        final Instrument instrument = optInstrument.get();
-        trade.setTimestamp(mapper.getTimeMachine().parseTimeFromUTCISO(node.get("timestamp").textValue()));
-        trade.setOrder1(node.get("order1").textValue());
-        trade.setOrder1(node.get("order2").textValue());
-        trade.setQuantity(node.get("quantity").intValue());
-        trade.setFlags(node.get("flags").textValue());
+        final Instrument instrument = lookup(ticker);
         trade.setInstrument(instrument);
-        trade.setLevel(instrument.getLevel(Float.parseFloat(node.get("price").toString())));
+        trade.setLevel(instrument.getLevel(Float.parseFloat(price)));
         return trade;
     }
 }
@@ -1,41 +1,68 @@
 package com.hackinghat.model.serialize;
 
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import com.hackinghat.model.Instrument;
 import com.hackinghat.model.Trade;
 import com.hackinghat.util.SimulatorObjectMapper;
 import com.hackinghat.util.SimulatorObjectMapperAudience;
+import com.hackinghat.util.TimeMachine;
 
 import java.io.IOException;
-import java.util.function.Function;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Trades are the most frequently serialised object so the field names and tickers are pre-encoded and the timestamp
+ * is formatted into a per-thread buffer rather than through an intermediate string.
+ */
 public class TradeSerializer extends StdSerializer<Trade> {
+    static final SerializedString ORDER1 = new SerializedString("order1");
+    static final SerializedString ORDER2 = new SerializedString("order2");
+    static final SerializedString INSTRUMENT = new SerializedString("instrument");
+    static final SerializedString QUANTITY = new SerializedString("quantity");
+    static final SerializedString PRICE = new SerializedString("price");
+    static final SerializedString FLAGS = new SerializedString("flags");
+    static final SerializedString TIMESTAMP = new SerializedString("timestamp");
+
+    private static final ThreadLocal<char[]> TIMESTAMP_BUFFER = ThreadLocal.withInitial(() -> new char[TimeMachine.UTC_ISO_MAX_LENGTH]);
+
     private final SimulatorObjectMapper mapper;
+    private final Map<String, SerializableString> tickers;
 
     public TradeSerializer(final SimulatorObjectMapper mapper) {
         super(Trade.class);
         this.mapper = mapper;
-    }
-
-    <T> String defaultValue(final T object, Function<T, String> method, final String defaultValue) {
-        if (object == null) return defaultValue;
-        return method.apply(object);
+        this.tickers = new ConcurrentHashMap<>();
     }
 
     @Override
     public void serialize(final Trade trade, JsonGenerator jsonGenerator, SerializerProvider serializerProvider) throws IOException {
         jsonGenerator.writeStartObject();
         if (SimulatorObjectMapperAudience.isPrivate(mapper.getAudience())) {
-            jsonGenerator.writeStringField("order1", trade.getOrder1());
-            jsonGenerator.writeStringField("order2", trade.getOrder2());
+            jsonGenerator.writeFieldName(ORDER1);
+            jsonGenerator.writeString(trade.getOrder1());
+            jsonGenerator.writeFieldName(ORDER2);
+            jsonGenerator.writeString(trade.getOrder2());
         }
-        jsonGenerator.writeStringField("instrument", defaultValue(trade.getInstrument(), Instrument::getTicker, null));
-        jsonGenerator.writeNumberField("quantity", trade.getQuantity());
-        jsonGenerator.writeNumberField("price", trade.getLevel().getPrice());
-        jsonGenerator.writeStringField("flags", trade.getFlags());
-        jsonGenerator.writeStringField("timestamp", mapper.getTimeMachine().formatTimeAsUTCISO(trade.getTimestamp()));
+        jsonGenerator.writeFieldName(INSTRUMENT);
+        final Instrument instrument = trade.getInstrument();
+        if (instrument == null)
+            jsonGenerator.writeNull();
+        else
+            jsonGenerator.writeString(tickers.computeIfAbsent(instrument.getTicker(), SerializedString::new));
+        jsonGenerator.writeFieldName(QUANTITY);
+        jsonGenerator.writeNumber(trade.getQuantity());
+        jsonGenerator.writeFieldName(PRICE);
+        jsonGenerator.writeNumber(trade.getLevel().getPrice());
+        jsonGenerator.writeFieldName(FLAGS);
+        jsonGenerator.writeString(trade.getFlags());
+        jsonGenerator.writeFieldName(TIMESTAMP);
+        final char[] timestamp = TIMESTAMP_BUFFER.get();
+        jsonGenerator.writeString(timestamp, 0, mapper.getTimeMachine().formatTimeAsUTCISO(trade.getTimestamp(), timestamp));
         jsonGenerator.writeEndObject();
     }
 }
@@ -0,0 +1,316 @@
+package com.hackinghat.model.serialize;
+
+import com.hackinghat.model.Instrument;
+import com.hackinghat.model.Level;
+import com.hackinghat.model.Trade;
+import com.hackinghat.order.MarketState;
+import com.hackinghat.order.OrderSide;
+import com.hackinghat.order.OrderState;
+import com.hackinghat.orderbook.Level1;
+import com.hackinghat.orderbook.Level1Event;
+import com.hackinghat.orderbook.OrderInterest;
+import com.hackinghat.orderbook.Touch;
+import com.hackinghat.util.TimeMachine;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * A fixed layout, little-endian, binary encoding of the events we publish in the style of SBE (Simple Binary Encoding).
+ * Every message starts with an 8 byte header:
+ * <pre>
+ *   blockLength u16 | templateId u16 | schemaId u16 | version u16
+ * </pre>
+ * followed by a fixed length block, whose fields are at fixed offsets, and then any variable length strings, each of
+ * which is a u8 length followed by that many ASCII bytes, a length of 255 is a null string.  Instruments are sent as their id in an
+ * {@link InstrumentDirectory}, times as nanoseconds since the epoch (see {@link TimeMachine#toEpochNanos}) and prices
+ * as the level (tick) index, where -1 is the market level.
+ * <p>
+ * The block length in the header allows a receiver to skip fields added to the end of a block by a later version.
+ * <p>
+ * The codec holds no state other than the directory, so it can be shared between threads.
+ */
+public class WireCodec {
+    public static final int SCHEMA_ID = 1;
+    public static final int SCHEMA_VERSION = 2;
+    public static final int HEADER_LENGTH = 8;
+    public static final int MAX_STRING_LENGTH = 254;
+    /**
+     * The longest encoded message, a trade with three strings of the maximum length
+     */
+    public static final int MAX_MESSAGE_LENGTH = 1024;
+
+    public static final int TRADE_TEMPLATE = 1;
+    public static final int ORDER_TEMPLATE = 2;
+    public static final int LEVEL1_TEMPLATE = 3;
+    public static final int DEPTH_TEMPLATE = 4;
+
+    static final int TRADE_BLOCK = 24;
+    static final int ORDER_BLOCK = 40;
+    static final int LEVEL1_BLOCK = 48;
+    static final int DEPTH_BLOCK = 32;
+
+    private static final int MARKET_TICK = -1;
+    private static final int NULL_STRING = 0xFF;
+    private static final byte FLAG_AUCTION = 1;
+    private static final String AUCTION_FLAG = "A";
+    private static final OrderSide[] SIDES = OrderSide.values();
+    private static final OrderState[] STATES = OrderState.values();
+    private static final MarketState[] MARKET_STATES = MarketState.values();
+
+    private final InstrumentDirectory directory;
+
+    public WireCodec(final InstrumentDirectory directory) {
+        Objects.requireNonNull(directory);
+        this.directory = directory;
+    }
+
+    public InstrumentDirectory getDirectory() {
+        return directory;
+    }
+
+    /**
+     * A buffer suitable for encoding any single message
+     */
+    public static ByteBuffer allocate() {
+        return ByteBuffer.allocate(MAX_MESSAGE_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void header(final ByteBuffer buffer, final int blockLength, final int templateId) {
+        buffer.putShort((short) blockLength);
+        buffer.putShort((short) templateId);
+        buffer.putShort((short) SCHEMA_ID);
+        buffer.putShort((short) SCHEMA_VERSION);
+    }
+
+    private static void putString(final ByteBuffer buffer, final String value) {
+        if (value == null) {
+            buffer.put((byte) NULL_STRING);
+            return;
+        }
+        final int length = value.length();
+        if (length > MAX_STRING_LENGTH)
+            throw new IllegalArgumentException("String is longer than " + MAX_STRING_LENGTH + " characters: " + value);
+        buffer.put((byte) length);
+        for (int i = 0; i < length; ++i) {
+            final char c = value.charAt(i);
+            buffer.put(c < 128 ? (byte) c : (byte) '?');
+        }
+    }
+
+    private static String getString(final ByteBuffer buffer) {
+        final int length = buffer.get() & 0xFF;
+        if (length == NULL_STRING)
+            return null;
+        final char[] chars = new char[length];
+        for (int i = 0; i < length; ++i)
+            chars[i] = (char) buffer.get();
+        return new String(chars);
+    }
+
+    /**
+     * Read a byte that is the ordinal of one of {@code values}
+     *
+     * @throws IllegalArgumentException if the byte isn't an ordinal of {@code values}
+     */
+    private static <E extends Enum<E>> E getEnum(final ByteBuffer buffer, final E[] values) {
+        final int offset = buffer.position();
+        final int ordinal = buffer.get();
+        if (ordinal < 0 || ordinal >= values.length)
+            throw new IllegalArgumentException("Unknown " + values[0].getDeclaringClass().getSimpleName() + " " + ordinal + " at offset " + offset);
+        return values[ordinal];
+    }
+
+    private static int toTick(final Level level) {
+        return level == null || level.isMarket() ? MARKET_TICK : level.getLevel();
+    }
+
+    private static Level fromTick(final Instrument instrument, final int tick) {
+        return tick == MARKET_TICK ? instrument.getMarket() : instrument.getLevelAt(tick);
+    }
+
+    /**
+     * Encode a trade at the buffer's position, advancing the position
+     *
+     * @return the number of bytes written
+     */
+    public int encode(final Trade trade, final ByteBuffer buffer) {
+        final int start = buffer.position();
+        header(buffer, TRADE_BLOCK, TRADE_TEMPLATE);
+        buffer.putInt(directory.getId(trade.getInstrument()));
+        buffer.putLong(TimeMachine.toEpochNanos(trade.getTimestamp()));
+        buffer.putInt(toTick(trade.getLevel()));
+        buffer.putInt(trade.getQuantity());
+        buffer.put(AUCTION_FLAG.equals(trade.getFlags()) ? FLAG_AUCTION : 0);
+        buffer.put((byte) 0).put((byte) 0).put((byte) 0);
+        putString(buffer, trade.getTradeId());
+        putString(buffer, trade.getOrder1());
+        putString(buffer, trade.getOrder2());
+        return buffer.position() - start;
+    }
+
+    public int encode(final OrderUpdate order, final ByteBuffer buffer) {
+        final int start = buffer.position();
+        header(buffer, ORDER_BLOCK, ORDER_TEMPLATE);
+        buffer.putInt(directory.getId(order.getInstrument()));
+        buffer.putLong(TimeMachine.toEpochNanos(order.getTimestamp()));
+        buffer.putLong(order.getOrderId());
+        buffer.putInt(order.getVersion());
+        buffer.putInt(toTick(order.getLevel()));
+        buffer.putInt(order.getQuantity());
+        buffer.putInt(order.getFilledQuantity());
+        buffer.put((byte) order.getSide().ordinal());
+        buffer.put((byte) order.getState().ordinal());
+        buffer.put((byte) 0).put((byte) 0);
+        putString(buffer, order.getClientId());
+        return buffer.position() - start;
+    }
+
+    private static void putInterest(final ByteBuffer buffer, final OrderInterest interest) {
+        buffer.putInt(toTick(interest.getLevel()));
+        buffer.putLong(interest.getQuantity());
+        buffer.putInt(interest.getCount());
+    }
+
+    public int encode(final Level1Event event, final ByteBuffer buffer) {
+        final int start = buffer.position();
+        final Level1 level1 = event.getLevel1();
+        header(buffer, LEVEL1_BLOCK, LEVEL1_TEMPLATE);
+        buffer.putInt(directory.getId(event.getInstrument()));
+        buffer.putLong(TimeMachine.toEpochNanos(level1.getTimestamp()));
+        putInterest(buffer, level1.getBid());
+        putInterest(buffer, level1.getOffer());
+        buffer.put((byte) level1.getMarketState().ordinal());
+        buffer.put((byte) 0).put((byte) 0).put((byte) 0);
+        return buffer.position() - start;
+    }
+
+    public int encode(final DepthUpdate update, final ByteBuffer buffer) {
+        final int start = buffer.position();
+        header(buffer, DEPTH_BLOCK, DEPTH_TEMPLATE);
+        buffer.putInt(directory.getId(update.getInstrument()));
+        buffer.putLong(TimeMachine.toEpochNanos(update.getTimestamp()));
+        buffer.putInt(toTick(update.getLevel()));
+        buffer.putLong(update.getQuantity());
+        buffer.putInt(update.getCount());
+        buffer.put((byte) update.getSide().ordinal());
+        buffer.put((byte) 0).put((byte) 0).put((byte) 0);
+        return buffer.position() - start;
+    }
+
+    /**
+     * Encode any of the supported messages, {@link Trade}, {@link OrderUpdate}, {@link Level1Event} or
+     * {@link DepthUpdate}
+     *
+     * @return the number of bytes written
+     * @throws IllegalArgumentException if the type of message isn't supported
+     */
+    public int encode(final Object message, final ByteBuffer buffer) {
+        if (message instanceof Trade)
+            return encode((Trade) message, buffer);
+        if (message instanceof OrderUpdate)
+            return encode((OrderUpdate) message, buffer);
+        if (message instanceof Level1Event)
+            return encode((Level1Event) message, buffer);
+        if (message instanceof DepthUpdate)
+            return encode((DepthUpdate) message, buffer);
+        throw new IllegalArgumentException("Unsupported message type: " + (message == null ? null : message.getClass().getSimpleName()));
+    }
+
+    /**
+     * Decode the message at the buffer's position, advancing the position past it
+     *
+     * @return a {@link Trade}, {@link OrderUpdate}, {@link Level1Event} or {@link DepthUpdate}
+     * @throws IllegalArgumentException if the message is not from this schema, is truncated or has a field that is out
+     *                                  of range
+     */
+    public Object decode(final ByteBuffer buffer) {
+        try {
+            final int blockLength = buffer.getShort() & 0xFFFF;
+            final int templateId = buffer.getShort() & 0xFFFF;
+            final int schemaId = buffer.getShort() & 0xFFFF;
+            buffer.getShort();
+            if (schemaId != SCHEMA_ID)
+                throw new IllegalArgumentException("Unexpected schema: " + schemaId);
+            final int blockStart = buffer.position();
+            final Object message;
+            switch (templateId) {
+                case TRADE_TEMPLATE:
+                    message = decodeTrade(buffer, blockStart, blockLength);
+                    break;
+                case ORDER_TEMPLATE:
+                    message = decodeOrder(buffer, blockStart, blockLength);
+                    break;
+                case LEVEL1_TEMPLATE:
+                    message = decodeLevel1(buffer);
+                    break;
+                case DEPTH_TEMPLATE:
+                    message = decodeDepth(buffer);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown template: " + templateId);
+            }
+            if (templateId == LEVEL1_TEMPLATE || templateId == DEPTH_TEMPLATE)
+                buffer.position(blockStart + blockLength);
+            return message;
+        } catch (final BufferUnderflowException underflow) {
+            throw new IllegalArgumentException("Truncated message at offset " + buffer.position(), underflow);
+        }
+    }
+
+    private Trade decodeTrade(final ByteBuffer buffer, final int blockStart, final int blockLength) {
+        final Instrument instrument = directory.get(buffer.getInt());
+        final LocalDateTime time = TimeMachine.fromEpochNanos(buffer.getLong());
+        final Level level = fromTick(instrument, buffer.getInt());
+        final int quantity = buffer.getInt();
+        final byte flags = buffer.get();
+        buffer.position(blockStart + blockLength);
+        final String tradeId = getString(buffer);
+        final String order1 = getString(buffer);
+        final String order2 = getString(buffer);
+        return new Trade(this, tradeId, instrument, time, (flags & FLAG_AUCTION) != 0 ? AUCTION_FLAG : null, order1, order2, level, quantity);
+    }
+
+    private OrderUpdate decodeOrder(final ByteBuffer buffer, final int blockStart, final int blockLength) {
+        final Instrument instrument = directory.get(buffer.getInt());
+        final LocalDateTime time = TimeMachine.fromEpochNanos(buffer.getLong());
+        final long orderId = buffer.getLong();
+        final int version = buffer.getInt();
+        final Level level = fromTick(instrument, buffer.getInt());
+        final int quantity = buffer.getInt();
+        final int filled = buffer.getInt();
+        final OrderSide side = getEnum(buffer, SIDES);
+        final OrderState state = getEnum(buffer, STATES);
+        buffer.position(blockStart + blockLength);
+        final String clientId = getString(buffer);
+        return new OrderUpdate(instrument, time, orderId, clientId, version, side, state, level, quantity, filled);
+    }
+
+    private static OrderInterest getInterest(final ByteBuffer buffer, final Instrument instrument, final OrderSide side) {
+        final Level level = fromTick(instrument, buffer.getInt());
+        final long quantity = buffer.getLong();
+        return new OrderInterest(side, level, quantity, buffer.getInt());
+    }
+
+    private Level1Event decodeLevel1(final ByteBuffer buffer) {
+        final Instrument instrument = directory.get(buffer.getInt());
+        final LocalDateTime time = TimeMachine.fromEpochNanos(buffer.getLong());
+        final OrderInterest bid = getInterest(buffer, instrument, OrderSide.BUY);
+        final OrderInterest offer = getInterest(buffer, instrument, OrderSide.SELL);
+        final MarketState marketState = getEnum(buffer, MARKET_STATES);
+        return new Level1Event(this, time, instrument, new Touch(time, marketState, bid, offer));
+    }
+
+    private DepthUpdate decodeDepth(final ByteBuffer buffer) {
+        final Instrument instrument = directory.get(buffer.getInt());
+        final LocalDateTime time = TimeMachine.fromEpochNanos(buffer.getLong());
+        final int tick = buffer.getInt();
+        final long quantity = buffer.getLong();
+        final int count = buffer.getInt();
+        final OrderSide side = getEnum(buffer, SIDES);
+        return new DepthUpdate(instrument, time, side, fromTick(instrument, tick), quantity, count);
+    }
+}
@@ -5,6 +5,7 @@ import com.hackinghat.model.Instrument;
 import com.hackinghat.model.Level;
 import com.hackinghat.orderbook.Level1;
 import com.hackinghat.statistic.Statistic;
+import com.hackinghat.util.CsvBuffer;
 import com.hackinghat.util.Event;
 import com.hackinghat.util.TimeMachine;
 
@@ -29,6 +30,7 @@ public class Order extends Event implements Statistic {
     private Integer filledQuantity;
     private Level1 referencePrice;
     private Agent sender;
+    private long senderReference;
 
     /**
      * @param clientId    this is an identifier assigned by the creator of the order, it's use is primarily for tracing purposes
@@ -123,6 +125,20 @@ public class Order extends Event implements Statistic {
         this.sender = sender;
     }
 
+    /**
+     * An opaque reference that the sender can use to find its own state for the order, it's carried by every copy
+     * of the order (including those passed back to the sender)
+     *
+     * @return the reference
+     */
+    public long getSenderReference() {
+        return senderReference;
+    }
+
+    public void setSenderReference(final long senderReference) {
+        this.senderReference = senderReference;
+    }
+
     public OrderSide getSide() {
         return side;
     }
@@ -324,24 +340,29 @@ public class Order extends Event implements Statistic {
     }
 
     public String formatStatistic(final TimeMachine timeMachine) {
-        final StringBuilder builder = new StringBuilder();
-        formatTime(builder, timeMachine, getTimestamp(), false);
-        format(builder, null, timeMachine.getStartCount(), false);
-        format(builder, null, getId(), false);
-        formatString(builder, getClientId(), false);
+        final CsvBuffer buffer = new CsvBuffer(256);
+        formatStatistic(timeMachine, buffer);
+        return buffer.toString();
+    }
+
+    @Override
+    public void formatStatistic(final TimeMachine timeMachine, final CsvBuffer buffer) {
+        formatTime(buffer, getTimestamp(), false);
+        format(buffer, timeMachine.getStartCount(), false);
+        format(buffer, getId(), false);
+        formatString(buffer, getClientId(), false);
         if (getSender() != null)
-            formatString(builder, getSender().getName(), false);
-        format(builder, null, getState(), false);
-        format(builder, null, getSide(), false);
-        format(builder, null, getQuantity(), false);
-        formatPrice(builder, getLevel().getPrice(), false);
+            formatString(buffer, getSender().getName(), false);
+        formatString(buffer, getState() == null ? null : getState().name(), false);
+        formatString(buffer, getSide().name(), false);
+        format(buffer, getQuantity(), false);
+        formatPrice(buffer, getLevel().getPrice(), false);
 
         final float referenceBid = getReferencePrice() == null ? 0.f : referencePrice.getBid().getLevel().getPrice();
         final float referenceOffer = getReferencePrice() == null ? 0.f : referencePrice.getOffer().getLevel().getPrice();
-        formatPrice(builder, referenceBid, false);
-        formatPrice(builder, referenceOffer, false);
-        formatString(builder, notes.toString(), true);
-        return builder.toString();
+        formatPrice(buffer, referenceBid, false);
+        formatPrice(buffer, referenceOffer, false);
+        formatString(buffer, notes, true);
     }
 
     @Override
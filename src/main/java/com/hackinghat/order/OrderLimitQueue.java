@@ -18,29 +18,54 @@ public class OrderLimitQueue {
     private final static boolean DEBUG = false;
     private final static Logger LOG = LogManager.getLogger(OrderLimitQueue.class);
 
-    @Nonnull
-    private final OrderInterest interest;
     @Nonnull
     private final ArrayDeque<Order> orders;
     @Nonnull
     private final Level level;
     @Nonnull
     private final OrderSide side;
+    private long quantity;
+    private int count;
+    // The last interest handed out, dropped whenever the totals change
+    private OrderInterest interest;
 
     public OrderLimitQueue(final Level level, OrderSide queueSide) {
         Objects.requireNonNull(level);
         Objects.requireNonNull(queueSide);
-        this.interest = new OrderInterest(queueSide, level, 0L);
         this.orders = new ArrayDeque<>();
         this.level = level;
         this.side = queueSide;
     }
 
+    /**
+     * @return an immutable snapshot of the quantity and orders in the queue, the same snapshot is returned until the
+     * queue changes
+     */
     @Nonnull
     public OrderInterest getInterest() {
+        if (interest == null)
+            interest = new OrderInterest(side, level, quantity, count);
         return interest;
     }
 
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    private void change(final long quantityChange, final int countChange) {
+        if (count + countChange < 0)
+            throw new IllegalArgumentException("Order count on interest would be negative");
+        if (quantity + quantityChange < 0)
+            throw new IllegalArgumentException("Order quantity on interest would be negative: quantity = " + -quantityChange + ", prev quantity = " + quantity);
+        quantity += quantityChange;
+        count += countChange;
+        interest = null;
+    }
+
     @Nonnull
     public Level getLevel() {
         return level;
@@ -59,22 +84,24 @@ public class OrderLimitQueue {
         if (DEBUG) {
             if (order.isMarket() != level.isMarket())
                 throw new IllegalArgumentException("Internal error: Order and limit types don't match!");
-            if (!order.isMarket() && !order.getLevel().equals(interest.getLevel()))
+            if (!order.isMarket() && !order.getLevel().equals(level))
                 throw new IllegalArgumentException("Internal error: Order and limit price mismatch");
         }
     }
 
     public void add(Order order) {
         throwIfInvalid(order);
-        interest.add(order.getRemainingQuantity());
+        change(order.getRemainingQuantity(), 1);
         orders.addLast(order);
         verifyInterest();
     }
 
     public void remove(Order order, final int quantity) {
         throwIfInvalid(order);
+        if (quantity <= 0)
+            throw new IllegalArgumentException("can't reduce interest by less or equal zero");
         if (orders.remove(order))
-            interest.remove(quantity);
+            change(-quantity, -1);
         else
             throw new IllegalArgumentException("Unknown order: " + order);
         verifyInterest();
@@ -88,8 +115,7 @@ public class OrderLimitQueue {
                 quantity += order.getRemainingQuantity();
                 count += 1;
             }
-            final OrderInterest interest = getInterest();
-            assert (quantity == interest.getQuantity() && count == interest.getCount());
+            assert (quantity == this.quantity && count == this.count);
         }
     }
 
@@ -111,7 +137,7 @@ public class OrderLimitQueue {
                     verifyInterest();
                     return null;
                 } else {
-                    interest.reduce(quantity);
+                    change(-quantity, 0);
                     verifyInterest();
                     return order;
                 }
@@ -123,8 +149,8 @@ public class OrderLimitQueue {
     @Override
     public String toString() {
         return "OrderLimitQueue{" +
-                "interest=" + interest +
-                ", norders=" + interest.getCount() +
+                "interest=" + getInterest() +
+                ", norders=" + count +
                 '}';
     }
 }
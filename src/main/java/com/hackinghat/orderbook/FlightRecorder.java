@@ -0,0 +1,243 @@
+package com.hackinghat.orderbook;
+
+import com.hackinghat.order.OrderState;
+import com.hackinghat.util.component.AbstractComponent;
+import com.hackinghat.util.mbean.MBeanAttribute;
+import com.hackinghat.util.mbean.MBeanOperation;
+import com.hackinghat.util.mbean.MBeanType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed size ring of the last things the matching thread did, kept so that when the order manager fails (or someone
+ * asks over JMX) there is a record of what led up to it without having to run with trace logging.
+ * <p>
+ * Each entry is a few longs written into a preallocated array by the one thread that owns the recorder, so recording
+ * doesn't allocate, format or lock.  The count of entries written is published with an ordered write after the entry
+ * itself, so a reader on another thread sees whole entries; any that the writer overwrites while they are being copied
+ * are dropped from the copy.
+ */
+@MBeanType(description = "Flight recorder")
+public class FlightRecorder extends AbstractComponent {
+    private static final Logger LOG = LogManager.getLogger(FlightRecorder.class);
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmssSSS");
+    static final int DEFAULT_CAPACITY = 1 << 16;
+    static final int MAGIC = 0x464C5431;
+
+    private static final int FIELDS = 5;
+    private static final int NO_STATE = 0xFF;
+    private static final Kind[] KINDS = Kind.values();
+    private static final OrderState[] STATES = OrderState.values();
+
+    public enum Kind {
+        NEW, CANCEL, REPLACE, REJECT, TOO_LATE, SKIP, FILL, AUCTION, UNCROSS
+    }
+
+    /**
+     * An entry as read back from a dump
+     */
+    public static class Entry {
+        private final long nanoTime;
+        private final long orderId;
+        private final Kind kind;
+        private final OrderState from;
+        private final OrderState to;
+        private final int level;
+        private final long quantity;
+
+        Entry(final long nanoTime, final long orderId, final long kindAndStates, final long level, final long quantity) {
+            this.nanoTime = nanoTime;
+            this.orderId = orderId;
+            this.kind = KINDS[(int) (kindAndStates >>> 16)];
+            this.from = state((int) (kindAndStates >>> 8) & 0xFF);
+            this.to = state((int) kindAndStates & 0xFF);
+            this.level = (int) level;
+            this.quantity = quantity;
+        }
+
+        private static OrderState state(final int ordinal) {
+            return ordinal == NO_STATE ? null : STATES[ordinal];
+        }
+
+        public long getNanoTime() {
+            return nanoTime;
+        }
+
+        public long getOrderId() {
+            return orderId;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public OrderState getFrom() {
+            return from;
+        }
+
+        public OrderState getTo() {
+            return to;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public long getQuantity() {
+            return quantity;
+        }
+
+        @Override
+        public String toString() {
+            return nanoTime + " " + kind + " #" + orderId + " " + from + "->" + to + " " + quantity + "@" + level;
+        }
+    }
+
+    private final long[] entries;
+    private final int mask;
+    private final AtomicLong published;
+    private long written;
+
+    public FlightRecorder(final String name) {
+        this(name, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param name     the name of the recorder
+     * @param capacity the number of entries kept, rounded up to a power of two
+     */
+    public FlightRecorder(final String name, final int capacity) {
+        super(name);
+        final int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.entries = new long[size * FIELDS];
+        this.mask = size - 1;
+        this.published = new AtomicLong();
+    }
+
+    private static long ordinal(final OrderState state) {
+        return state == null ? NO_STATE : state.ordinal();
+    }
+
+    /**
+     * Should only be called by the thread that owns the recorder
+     *
+     * @param kind     what happened
+     * @param orderId  the order it happened to, or -1 if it wasn't to an order
+     * @param from     the state of the order before, if any
+     * @param to       the state of the order after, if any
+     * @param level    the level (in ticks)
+     * @param quantity the quantity
+     */
+    public void record(final Kind kind, final long orderId, final OrderState from, final OrderState to, final int level, final long quantity) {
+        final int base = (int) (written & mask) * FIELDS;
+        entries[base] = System.nanoTime();
+        entries[base + 1] = orderId;
+        entries[base + 2] = ((long) kind.ordinal() << 16) | (ordinal(from) << 8) | ordinal(to);
+        entries[base + 3] = level;
+        entries[base + 4] = quantity;
+        published.lazySet(++written);
+    }
+
+    @MBeanAttribute(description = "Entries recorded")
+    public long getRecorded() {
+        return published.get();
+    }
+
+    @MBeanAttribute(description = "Entries kept")
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Can be called from any thread.  Once the ring has wrapped, the oldest slot may be the one that the writer is
+     * filling, so at most one fewer than the capacity are returned.
+     *
+     * @return the entries that are still in the ring, oldest first
+     */
+    public List<Entry> getEntries() {
+        final long end = published.get();
+        final long start = Math.max(0L, end - getCapacity());
+        final long[] copy = new long[(int) (end - start) * FIELDS];
+        for (long i = start; i < end; ++i)
+            System.arraycopy(entries, (int) (i & mask) * FIELDS, copy, (int) (i - start) * FIELDS, FIELDS);
+        // Keep the copy's reads from moving past the second read of the count
+        VarHandle.acquireFence();
+        // Anything the writer has lapped since the copy started may be torn, including the slot of the entry it may be
+        // writing now, which is one past the count it has published
+        final long valid = Math.min(end, Math.max(start, published.get() - getCapacity() + 1));
+        final List<Entry> result = new ArrayList<>((int) (end - valid));
+        for (long i = valid; i < end; ++i) {
+            final int base = (int) (i - start) * FIELDS;
+            result.add(new Entry(copy[base], copy[base + 1], copy[base + 2], copy[base + 3], copy[base + 4]));
+        }
+        return result;
+    }
+
+    /**
+     * Write the entries still in the ring to a file
+     *
+     * @param path the file
+     * @return the number of entries written
+     * @throws IOException if the file can't be written
+     */
+    public int dump(final Path path) throws IOException {
+        final List<Entry> snapshot = getEntries();
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(snapshot.size());
+            for (final Entry entry : snapshot) {
+                out.writeLong(entry.nanoTime);
+                out.writeLong(entry.orderId);
+                out.writeLong(((long) entry.kind.ordinal() << 16) | (ordinal(entry.from) << 8) | ordinal(entry.to));
+                out.writeLong(entry.level);
+                out.writeLong(entry.quantity);
+            }
+        }
+        return snapshot.size();
+    }
+
+    /**
+     * Dump to a file in the working directory named after the recorder and the time
+     *
+     * @return the file written, or null if it couldn't be
+     */
+    @MBeanOperation(description = "Dump the recorded entries to a file")
+    public String dump() {
+        final Path path = Paths.get(getName() + "." + TIME_FORMATTER.format(LocalDateTime.now()) + ".flight");
+        try {
+            LOG.info("Dumped " + dump(path) + " entries to " + path);
+            return path.toString();
+        } catch (final IOException ioex) {
+            LOG.error("Unable to dump flight recorder to: " + path, ioex);
+            return null;
+        }
+    }
+
+    /**
+     * @param path a file written by {@link #dump(Path)}
+     * @return the entries, oldest first
+     * @throws IOException if the file can't be read or isn't a dump
+     */
+    public static List<Entry> read(final Path path) throws IOException {
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException("Not a flight recorder dump: " + path);
+            final int count = in.readInt();
+            final List<Entry> result = new ArrayList<>(count);
+            for (int i = 0; i < count; ++i)
+                result.add(new Entry(in.readLong(), in.readLong(), in.readLong(), in.readLong(), in.readLong()));
+            return result;
+        }
+    }
+}
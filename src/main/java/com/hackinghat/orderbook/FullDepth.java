@@ -1,27 +1,37 @@
 package com.hackinghat.orderbook;
 
 import com.hackinghat.order.OrderSide;
-import com.hackinghat.util.Copyable;
 import com.hackinghat.util.TimeMachine;
-import com.hackinghat.util.Timestampable;
+import com.hackinghat.util.Timestamped;
 
 import javax.annotation.Nonnull;
 import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.Collections;
 
-public class FullDepth implements Timestampable, Copyable<FullDepth> {
+/**
+ * An immutable snapshot of the executable levels of both books.  The depth collections are unmodifiable and hold
+ * immutable snapshots of the book's order interests, so a single instance can be shared by all readers.
+ */
+public final class FullDepth implements Timestamped {
     @Nonnull
-    final Collection<OrderInterest> bidDepth;
+    private final Collection<OrderInterest> bidDepth;
     @Nonnull
-    final Collection<OrderInterest> offerDepth;
+    private final Collection<OrderInterest> offerDepth;
     @Nonnull
-    private LocalDateTime simulationTime;
+    private final LocalDateTime simulationTime;
 
     public FullDepth(final OrderBook bid, final OrderBook offer, final TimeMachine timeMachine) {
-        // Executable levels clones the underlying order interests
-        bidDepth = bid.getExecutableLevels();
-        offerDepth = offer.getExecutableLevels();
-        simulationTime = timeMachine.toSimulationTime();
+        // Executable levels are immutable snapshots of the underlying queues
+        this(Collections.unmodifiableCollection(bid.getExecutableLevels()),
+                Collections.unmodifiableCollection(offer.getExecutableLevels()),
+                timeMachine.toSimulationTime());
+    }
+
+    private FullDepth(final Collection<OrderInterest> bidDepth, final Collection<OrderInterest> offerDepth, final LocalDateTime simulationTime) {
+        this.bidDepth = bidDepth;
+        this.offerDepth = offerDepth;
+        this.simulationTime = simulationTime;
     }
 
     @Nonnull
@@ -50,13 +60,13 @@ public class FullDepth implements Timestampable, Copyable<FullDepth> {
         return simulationTime;
     }
 
-    @Override
-    public void setTimestamp(LocalDateTime timestamp) {
-        this.simulationTime = timestamp;
-    }
-
-    @Override
-    public FullDepth cloneEx() throws CloneNotSupportedException {
-        return (FullDepth) clone();
+    /**
+     * @param simulationTime the time of the new depth
+     * @return this depth at a different time, or this depth if the time is the same
+     */
+    public FullDepth copy(final LocalDateTime simulationTime) {
+        if (this.simulationTime.equals(simulationTime))
+            return this;
+        return new FullDepth(bidDepth, offerDepth, simulationTime);
     }
 }
@@ -4,14 +4,13 @@ import com.hackinghat.model.Instrument;
 import com.hackinghat.model.Level;
 import com.hackinghat.order.MarketState;
 import com.hackinghat.order.OrderSide;
-import com.hackinghat.util.Copyable;
-import com.hackinghat.util.Timestampable;
+import com.hackinghat.util.Timestamped;
 
 
 /**
  * The top level for each side, and the interest at the level
  */
-public interface Level1 extends Timestampable, Copyable {
+public interface Level1 extends Timestamped {
     OrderInterest getBid();
 
     OrderInterest getOffer();
@@ -0,0 +1,41 @@
+package com.hackinghat.orderbook;
+
+import com.hackinghat.model.Instrument;
+import com.hackinghat.util.Event;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Published by the {@link OrderManager} to the {@link MarketDataFanOut} when a batch of orders has been processed, it
+ * carries the {@link Level1} of the instrument at the end of the batch.
+ */
+public class Level1Event extends Event {
+    private final Instrument instrument;
+    private final Level1 level1;
+
+    public Level1Event(final Object sender, final LocalDateTime simulationTime, final Instrument instrument, final Level1 level1) {
+        super(sender, simulationTime);
+        Objects.requireNonNull(instrument);
+        Objects.requireNonNull(level1);
+        this.instrument = instrument;
+        this.level1 = level1;
+    }
+
+    public Instrument getInstrument() {
+        return instrument;
+    }
+
+    public Level1 getLevel1() {
+        return level1;
+    }
+
+    @Override
+    public String toString() {
+        return "Level1Event{" +
+                "timestamp=" + simulationTime +
+                ", instrument=" + instrument.getTicker() +
+                ", level1=" + level1 +
+                '}';
+    }
+}
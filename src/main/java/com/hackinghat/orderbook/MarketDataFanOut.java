@@ -0,0 +1,190 @@
+package com.hackinghat.orderbook;
+
+import com.hackinghat.model.Instrument;
+import com.hackinghat.util.Event;
+import com.hackinghat.util.EventDispatcher;
+import com.hackinghat.util.Listener;
+import com.hackinghat.util.Pair;
+import com.hackinghat.util.component.AbstractComponent;
+import com.hackinghat.util.mbean.MBeanAttribute;
+import com.hackinghat.util.mbean.MBeanType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Distributes market data (trades and {@link Level1Event}s) to a potentially large population of subscribers.
+ * <p>
+ * The {@link EventDispatcher} copies every event and schedules a task per dispatch, and then asks every listener of the
+ * event's class whether it wants the event.  Here the subscriptions are filtered by instrument and event type when
+ * they are registered, a single instance of the event is shared by all subscribers (so subscribers must treat it as
+ * immutable) and all the events published since the last delivery are delivered in one scheduled batch.
+ * <p>
+ * A slow subscriber can ask to be conflated, in which case it will only receive the latest event of a batch for each
+ * of its subscriptions.
+ */
+@MBeanType(description = "Market data fan-out")
+public class MarketDataFanOut extends AbstractComponent {
+    private static final Logger LOG = LogManager.getLogger(MarketDataFanOut.class);
+
+    private final Object sync = new Object();
+    private final EventDispatcher eventDispatcher;
+    private final Map<Class<? extends Event>, Map<String, List<Subscription>>> subscriptions;
+    private final ConcurrentLinkedQueue<Pair<List<Subscription>, Event>> pending;
+    private final AtomicBoolean scheduled;
+    private final AtomicLong eventsPublished;
+    private final AtomicLong batchesDelivered;
+    private final AtomicLong eventsConflated;
+
+    public MarketDataFanOut(final String name, final EventDispatcher eventDispatcher) {
+        super(name);
+        Objects.requireNonNull(eventDispatcher);
+        this.eventDispatcher = require(eventDispatcher);
+        this.subscriptions = new ConcurrentHashMap<>();
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.scheduled = new AtomicBoolean(false);
+        this.eventsPublished = new AtomicLong();
+        this.batchesDelivered = new AtomicLong();
+        this.eventsConflated = new AtomicLong();
+    }
+
+    @MBeanAttribute(description = "Events published")
+    public long getEventsPublished() {
+        return eventsPublished.get();
+    }
+
+    @MBeanAttribute(description = "Batches delivered")
+    public long getBatchesDelivered() {
+        return batchesDelivered.get();
+    }
+
+    @MBeanAttribute(description = "Events conflated")
+    public long getEventsConflated() {
+        return eventsConflated.get();
+    }
+
+    @MBeanAttribute(description = "Events pending delivery")
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    private List<Subscription> getSubscriptions(final String ticker, final Class<? extends Event> eventType) {
+        final Map<String, List<Subscription>> byInstrument = subscriptions.get(eventType);
+        return byInstrument == null ? null : byInstrument.get(ticker);
+    }
+
+    /**
+     * Subscribe to the events of a given type for an instrument
+     *
+     * @param instrument the instrument of interest
+     * @param eventType  the type of event, normally {@link com.hackinghat.model.Trade} or {@link Level1Event}
+     * @param listener   the subscriber
+     * @param conflate   true if the subscriber only wants the latest event in each delivered batch
+     */
+    public void subscribe(final Instrument instrument, final Class<? extends Event> eventType, final Listener listener, final boolean conflate) {
+        Objects.requireNonNull(instrument);
+        Objects.requireNonNull(eventType);
+        Objects.requireNonNull(listener);
+        final List<Subscription> listeners = subscriptions
+                .computeIfAbsent(eventType, t -> new ConcurrentHashMap<>())
+                .computeIfAbsent(instrument.getTicker(), t -> new CopyOnWriteArrayList<>());
+        synchronized (sync) {
+            for (final Subscription subscription : listeners) {
+                if (subscription.listener == listener)
+                    throw new IllegalArgumentException("Listener already subscribed: " + listener);
+            }
+            listeners.add(new Subscription(listener, conflate));
+        }
+    }
+
+    public boolean unsubscribe(final Instrument instrument, final Class<? extends Event> eventType, final Listener listener) {
+        Objects.requireNonNull(instrument);
+        final List<Subscription> listeners = getSubscriptions(instrument.getTicker(), eventType);
+        if (listeners == null)
+            return false;
+        synchronized (sync) {
+            return listeners.removeIf(s -> s.listener == listener);
+        }
+    }
+
+    public boolean hasSubscribers(final Instrument instrument, final Class<? extends Event> eventType) {
+        final List<Subscription> listeners = getSubscriptions(instrument.getTicker(), eventType);
+        return listeners != null && !listeners.isEmpty();
+    }
+
+    /**
+     * Queue the event for delivery to the subscribers of the instrument, the event is not copied.  If there is no
+     * delivery already scheduled then one will be.
+     *
+     * @param instrument the instrument the event relates to
+     * @param event      the event, which must not be changed after it has been published
+     */
+    public void publish(final Instrument instrument, final Event event) {
+        Objects.requireNonNull(event);
+        final List<Subscription> listeners = getSubscriptions(instrument.getTicker(), event.getClass());
+        if (listeners == null || listeners.isEmpty())
+            return;
+        pending.add(Pair.instanceOf(listeners, event));
+        eventsPublished.incrementAndGet();
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                eventDispatcher.schedule(this::flush, 0L);
+            } catch (final RejectedExecutionException rejected) {
+                scheduled.set(false);
+                if (LOG.isTraceEnabled())
+                    LOG.trace("Executor rejected market data delivery, are we shutting down?", rejected);
+            }
+        }
+    }
+
+    /**
+     * Deliver everything that has been published so far, normally called by the scheduled delivery but is available
+     * for callers (and tests) that need the delivery to happen synchronously.
+     */
+    public void flush() {
+        synchronized (sync) {
+            scheduled.set(false);
+            if (pending.isEmpty())
+                return;
+            final Map<Subscription, Event> conflated = new LinkedHashMap<>();
+            Pair<List<Subscription>, Event> next;
+            while ((next = pending.poll()) != null) {
+                final Event event = next.getSecond();
+                for (final Subscription subscription : next.getFirst()) {
+                    if (!subscription.conflate)
+                        subscription.deliver(event);
+                    else if (conflated.put(subscription, event) != null)
+                        eventsConflated.incrementAndGet();
+                }
+            }
+            conflated.forEach(Subscription::deliver);
+            batchesDelivered.incrementAndGet();
+        }
+    }
+
+    private static class Subscription {
+        private final Listener listener;
+        private final boolean conflate;
+
+        private Subscription(final Listener listener, final boolean conflate) {
+            this.listener = listener;
+            this.conflate = conflate;
+        }
+
+        private void deliver(final Event event) {
+            try {
+                if (listener.shouldNotify(event))
+                    listener.notify(event);
+            } catch (Throwable t) {
+                LOG.error("A badly behaved listener: " + listener + " threw an exception whilst we were attempting to notify", t);
+            }
+        }
+    }
+}
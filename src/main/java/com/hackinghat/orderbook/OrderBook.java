@@ -2,6 +2,7 @@ package com.hackinghat.orderbook;
 
 import com.hackinghat.model.Instrument;
 import com.hackinghat.model.Level;
+import com.hackinghat.model.Price;
 import com.hackinghat.order.*;
 import com.hackinghat.util.component.AbstractComponent;
 import com.hackinghat.util.mbean.MBeanAttribute;
@@ -36,6 +37,9 @@ public class OrderBook extends AbstractComponent {
     private final OrderSide queueSide;
     private final Instrument instrument;
     private final NavigableMap<Level, OrderLimitQueue> limitQueue;
+    // The best non-market level with orders, or null if there isn't one.  Kept by the writers so that readers of the
+    // touch don't have to walk past the empty levels left in the map
+    private Level bestLevel;
 
     // ReadWriteLock's are only strictly 'fair'!
     private final ReadWriteLock lock = new ReentrantReadWriteLock(true);
@@ -63,6 +67,50 @@ public class OrderBook extends AbstractComponent {
         return getExecutableLevels().size();
     }
 
+    @MBeanAttribute(description = "Resting orders")
+    public int getOrderCount() {
+        readLock.lock();
+        try {
+            int count = 0;
+            for (final OrderLimitQueue queue : limitQueue.values())
+                count += queue.getOrders().size();
+            return count;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @MBeanAttribute(description = "Most orders queued at one level")
+    public int getMaxQueueDepth() {
+        readLock.lock();
+        try {
+            int depth = 0;
+            for (final OrderLimitQueue queue : limitQueue.values())
+                depth = Math.max(depth, queue.getOrders().size());
+            return depth;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @MBeanAttribute(description = "Mean orders queued at a level with orders")
+    public double getMeanQueueDepth() {
+        readLock.lock();
+        try {
+            int orders = 0, levels = 0;
+            for (final OrderLimitQueue queue : limitQueue.values()) {
+                final int size = queue.getOrders().size();
+                if (size > 0) {
+                    orders += size;
+                    ++levels;
+                }
+            }
+            return levels == 0 ? 0.0 : (double) orders / levels;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
     public OrderSide getQueueSide() {
         return queueSide;
     }
@@ -110,6 +158,8 @@ public class OrderBook extends AbstractComponent {
             if (limit.getOrders().contains(newOrder))
                 return false;
             limit.add(newOrder);
+            if (!level.isMarket() && (bestLevel == null || limitQueue.comparator().compare(level, bestLevel) < 0))
+                bestLevel = level;
             return true;
 
         } finally {
@@ -135,6 +185,7 @@ public class OrderBook extends AbstractComponent {
             } else {
                 final OrderLimitQueue limitQueue = getLimitQueue(oldOrder.getLevel());
                 limitQueue.remove(oldOrder, oldOrder.getRemainingQuantity());
+                ordersLeft(oldOrder.getLevel());
                 return true;
             }
         } finally {
@@ -165,16 +216,16 @@ public class OrderBook extends AbstractComponent {
      * empty levels (i.e. levels where no orders exist) and that we don't want to expose the inner
      * objects of the {@see OrderBook}.
      *
-     * @return a collection of cloned interests for this side in the marketable order.
+     * @return a collection of interests for this side in the marketable order.
      */
     public Collection<OrderInterest> getExecutableLevels() {
         readLock.lock();
         try {
             final List<OrderInterest> executable = new ArrayList<>();
             for (final Map.Entry<Level, OrderLimitQueue> levelAndQ : limitQueue.entrySet()) {
-                final OrderInterest interest = levelAndQ.getValue().getInterest();
-                if (interest.getCount() > 0)
-                    executable.add(interest.copy());
+                final OrderLimitQueue queue = levelAndQ.getValue();
+                if (queue.getCount() > 0)
+                    executable.add(queue.getInterest());
             }
             return executable;
         } finally {
@@ -198,12 +249,30 @@ public class OrderBook extends AbstractComponent {
         writeLock.lock();
         try {
             OrderLimitQueue limitQueue = getLimitQueue(order.getLevel());
-            return limitQueue.execute(order, quantity, executionPrice, simulationTime) == null ? null : order;
+            final Order remaining = limitQueue.execute(order, quantity, executionPrice, simulationTime) == null ? null : order;
+            ordersLeft(order.getLevel());
+            return remaining;
         } finally {
             writeLock.unlock();
         }
     }
 
+    /**
+     * Should be called with the write lock held after orders have left a level, if that level was the best and is now
+     * empty then the best moves to the next level with orders.
+     */
+    private void ordersLeft(final Level level) {
+        if (bestLevel == null || limitQueue.comparator().compare(level, bestLevel) != 0 || limitQueue.get(bestLevel).getCount() > 0)
+            return;
+        bestLevel = null;
+        for (final OrderLimitQueue queue : limitQueue.tailMap(level, false).values()) {
+            if (queue.getCount() > 0) {
+                bestLevel = queue.getLevel();
+                return;
+            }
+        }
+    }
+
     OrderLimitQueue getMarketQueue() {
         return getOrAddLimitQueue(instrument.getMarket());
     }
@@ -216,25 +285,24 @@ public class OrderBook extends AbstractComponent {
     OrderLimitQueue getBestLimitQueue() {
         readLock.lock();
         try {
-            for (Map.Entry<Level, OrderLimitQueue> limit : limitQueue.entrySet()) {
-                if (limit.getKey().isMarket())
-                    continue;
-
-                final OrderLimitQueue orderLimitQueue = limit.getValue();
-                if (orderLimitQueue.getOrders().size() > 0)
-                    return orderLimitQueue;
-            }
-            return getMarketQueue();
+            return bestLevel == null ? getMarketQueue() : limitQueue.get(bestLevel);
         } finally {
             readLock.unlock();
         }
     }
 
+    /**
+     * The interest at the top of the book combined with any market interest.  Unlike {@link #getBestLimitQueue()} this
+     * will not add a market queue to the book, since it is called by readers that only hold the read lock.
+     *
+     * @return the touch interest for this side of the book
+     */
     OrderInterest getBestInterest() {
         readLock.lock();
         try {
-            OrderInterest bestInterest = getBestLimitQueue().getInterest();
-            return bestInterest.getTouchInterest(getMarketQueue().getInterest());
+            final OrderLimitQueue marketQueue = limitQueue.get(instrument.getMarket());
+            final OrderInterest market = marketQueue == null ? marketInterest : marketQueue.getInterest();
+            return bestLevel == null ? market : limitQueue.get(bestLevel).getInterest().getTouchInterest(market);
         } finally {
             readLock.unlock();
         }
@@ -268,22 +336,22 @@ public class OrderBook extends AbstractComponent {
         readLock.lock();
         try {
             long quantity = 0;
-            double value = 0.d;
+            long value = 0L;
             int vwapCount = 0;
             for (Map.Entry<Level, OrderLimitQueue> item : limitQueue.entrySet()) {
                 if (!item.getKey().isMarket()) {
-                    OrderInterest interest = item.getValue().getInterest();
-                    if (interest.getCount() > 0) {
-                        quantity += interest.getQuantity();
-                        value += interest.getValue(0.f);
-                        vwapCount += interest.getCount();
+                    final OrderLimitQueue queue = item.getValue();
+                    if (queue.getCount() > 0) {
+                        quantity += queue.getQuantity();
+                        value = Math.addExact(value, Price.value(item.getKey().getFixedPrice(), queue.getQuantity()));
+                        vwapCount += queue.getCount();
                     }
                 }
             }
             if (quantity == 0) {
                 return marketInterest;
             } else {
-                final Level vwapLevel = instrument.getLevel((float) (value / quantity));
+                final Level vwapLevel = instrument.getLevelForFixedPrice(Math.round((double) value / quantity));
                 return new OrderInterest(queueSide, vwapLevel, quantity, vwapCount);
             }
         } finally {
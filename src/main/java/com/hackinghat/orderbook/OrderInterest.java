@@ -1,18 +1,22 @@
 package com.hackinghat.orderbook;
 
 import com.hackinghat.model.Level;
+import com.hackinghat.model.Price;
 import com.hackinghat.order.OrderSide;
 
 import static com.hackinghat.util.Formatters.PRICE_FORMAT;
 import static com.hackinghat.util.Formatters.QUANTITY_FORMAT;
 
-public class OrderInterest implements Cloneable, Comparable<OrderInterest> {
-    final static OrderInterest EMPTY = new OrderInterest(null, null, 0L);
-
+/**
+ * The quantity and number of orders at a level of one side of the book.  An interest is immutable, the book keeps its
+ * live totals in each {@link com.hackinghat.order.OrderLimitQueue} and hands out interests as snapshots of them, so an
+ * interest held by a {@link Touch}, {@link FullDepth} or auction state can be shared by all readers.
+ */
+public final class OrderInterest implements Comparable<OrderInterest> {
     private final OrderSide side;
     private final Level level;
-    private long quantity;
-    private int count;
+    private final long quantity;
+    private final int count;
 
     public OrderInterest(OrderSide side, Level level, long quantity) {
         this(side, level, quantity, 0);
@@ -33,6 +37,10 @@ public class OrderInterest implements Cloneable, Comparable<OrderInterest> {
         if (!marketInterest.getLevel().isMarket())
             throw new IllegalArgumentException("Limit interest provided, expected market interest: " + marketInterest);
 
+        // Nothing to add
+        if (marketInterest.getCount() == 0 && marketInterest.getQuantity() == 0)
+            return this;
+
         return new OrderInterest(this.side, this.level, this.quantity + marketInterest.getQuantity(), this.count + marketInterest.getCount());
     }
 
@@ -68,13 +76,11 @@ public class OrderInterest implements Cloneable, Comparable<OrderInterest> {
         return side == that.side;
     }
 
+    /**
+     * @return this interest, since it can't change there is nothing to copy
+     */
     public OrderInterest copy() {
-        try {
-            return (OrderInterest) this.clone();
-        } catch (final CloneNotSupportedException noclone) {
-            // Can't happen throw a fake runtime
-            throw new IllegalArgumentException("Clone not supported");
-        }
+        return this;
     }
 
     @Override
@@ -91,13 +97,23 @@ public class OrderInterest implements Cloneable, Comparable<OrderInterest> {
     }
 
     /**
-     * Get the value of the interest, market orders return zero value
+     * Get the value of the interest, market orders are valued at the market price
      *
      * @param marketPrice the current market price
      * @return the value of the interest
      */
     public double getValue(final float marketPrice) {
-        return level.isMarket() ? marketPrice : (double) level.getPrice() * quantity;
+        return Price.toDouble(getFixedValue(Price.toFixed(marketPrice)));
+    }
+
+    /**
+     * Get the exact value of the interest, market orders are valued at the market price
+     *
+     * @param fixedMarketPrice the current market price in millionths, see {@link Price}
+     * @return the value of the interest in millionths
+     */
+    public long getFixedValue(final long fixedMarketPrice) {
+        return Price.value(level.isMarket() ? fixedMarketPrice : level.getFixedPrice(), quantity);
     }
 
     public Level getLevel() {
@@ -108,38 +124,6 @@ public class OrderInterest implements Cloneable, Comparable<OrderInterest> {
         return count;
     }
 
-    public void add(Integer quantity) {
-        if (this == EMPTY)
-            throw new IllegalArgumentException("can't add to empty interest");
-        this.quantity += quantity;
-        this.count++;
-        check(quantity);
-    }
-
-    public void reduce(Integer quantity) {
-        if (this == EMPTY)
-            throw new IllegalArgumentException("can't remove from empty interest");
-        this.quantity -= quantity;
-        check(quantity);
-    }
-
-    public void remove(Integer quantity) {
-        if (quantity <= 0)
-            throw new IllegalArgumentException("can't reduce interest by less or equal zero");
-        if (this == EMPTY)
-            throw new IllegalArgumentException("can't remove from empty interest");
-        this.quantity -= quantity;
-        this.count--;
-        check(quantity);
-    }
-
-    private void check(Integer _quantity) {
-        if (count < 0)
-            throw new IllegalArgumentException("Order count on interest would be negative");
-        if (quantity < 0)
-            throw new IllegalArgumentException("Order quantity on interest would be negative: quantity = " + _quantity + ", prev quantity = " + (quantity + _quantity));
-    }
-
     @Override
     public int compareTo(final OrderInterest o) {
         if (o.side != side)
@@ -1,10 +1,10 @@
 package com.hackinghat.orderbook;
 
-import com.hackinghat.kafka.KafkaTradeSerializer;
+import com.hackinghat.kafka.KafkaConfigBuilder;
 import com.hackinghat.model.Instrument;
 import com.hackinghat.model.Level;
 import com.hackinghat.model.Trade;
-import com.hackinghat.model.serialize.EventPublisherComponent;
+import com.hackinghat.model.serialize.BatchingEventPublisher;
 import com.hackinghat.order.*;
 import com.hackinghat.orderbook.auction.AuctionException;
 import com.hackinghat.orderbook.auction.AuctionState;
@@ -12,9 +12,15 @@ import com.hackinghat.orderbook.auction.AuctionTriggerEvent;
 import com.hackinghat.orderbook.auction.MarketManager;
 import com.hackinghat.util.*;
 import com.hackinghat.util.component.AbstractComponent;
+import com.hackinghat.util.jfr.AuctionTransitionEvent;
+import com.hackinghat.util.jfr.FillEvent;
+import com.hackinghat.util.jfr.OrderProcessedEvent;
+import com.hackinghat.util.jfr.TradePublishedEvent;
+import com.hackinghat.util.jfr.UncrossEvent;
 import com.hackinghat.util.mbean.MBeanAttribute;
 import com.hackinghat.util.mbean.MBeanOperation;
 import com.hackinghat.util.mbean.MBeanType;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -24,6 +30,7 @@ import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.BlockingQueue;
@@ -48,7 +55,7 @@ public class OrderManager extends AbstractComponent implements Runnable, Listene
     private final Map<Long, Order> orderLatest;
     private final PriorityBlockingQueue<Event> eventQueue;
     private final Instrument instrument;
-    private final CachedValue<FullDepth> fullDepth;
+    private final ConflatedValue<FullDepth> fullDepth;
     private final OrderBook bidBook;
     private final OrderBook offerBook;
     private final EventDispatcher eventDispatcher;
@@ -56,11 +63,16 @@ public class OrderManager extends AbstractComponent implements Runnable, Listene
     private final AbstractStatisticsAppender orderAppender;
     private final TimeMachine timeMachine;
     private final OrderManagerState orderManagerState;
-    private final Duration marketDataDelay;
     private final MarketManager marketManager;
     private final SimulatorObjectMapper mapper;
-    private final EventPublisherComponent<String, Trade> tapePublisher;
-    private CachedValue<Level1> level1;
+    private final BatchingEventPublisher<String, Trade> tapePublisher;
+    private final MarketDataFanOut marketData;
+    private final ConflatedValue<Level1> level1;
+    private final LatencyRecorder queueLatency;
+    private final LatencyRecorder batchLatency;
+    private final LatencyRecorder fillLatency;
+    private final OrderThroughput throughput;
+    private final FlightRecorder flightRecorder;
     private Level referencePrice;
 
     public OrderManager(final MarketManager marketManager, TimeMachine timeMachine, final Level referencePrice, final MarketState initialState, final Instrument instrument, final EventDispatcher eventDispatcher, final AbstractStatisticsAppender tape, final AbstractStatisticsAppender orderAppender, final Duration marketDataDelay) {
@@ -75,22 +87,28 @@ public class OrderManager extends AbstractComponent implements Runnable, Listene
         this.instrument = instrument;
         this.timeMachine = timeMachine;
         this.eventDispatcher = require(eventDispatcher);
+        this.marketData = require(new MarketDataFanOut("MarketData-" + instrument.getTicker(), eventDispatcher));
         this.bidBook = require(new OrderBook(OrderSide.BUY, instrument));
         this.offerBook = require(new OrderBook(OrderSide.SELL, instrument));
+        this.queueLatency = require(new LatencyRecorder(getName() + "-Queue"));
+        this.batchLatency = require(new LatencyRecorder(getName() + "-Batch"));
+        this.fillLatency = require(new LatencyRecorder(getName() + "-Fill"));
+        this.throughput = require(new OrderThroughput(getName() + "-Throughput"));
+        this.flightRecorder = require(new FlightRecorder(getName() + "-FlightRecorder"));
         this.orderLatest = new ConcurrentHashMap<>();
         this.tape = tape;
         this.orderAppender = orderAppender;
         this.eventQueue = new PriorityBlockingQueue<>();
         this.eventDispatcher.addListener(AuctionTriggerEvent.class, this);
         this.orderManagerState = new OrderManagerState(initialState);
-        this.level1 = new CachedValue<>(Level1.class, timeMachine, marketDataDelay, this::calculateLevel1, eventDispatcher, true);
-        this.fullDepth = new CachedValue<>(FullDepth.class, timeMachine, marketDataDelay, this::calculateFullDepth, eventDispatcher, true);
-        this.marketDataDelay = marketDataDelay;
+        this.level1 = new ConflatedValue<>(Level1.class, timeMachine, marketDataDelay, this::calculateLevel1);
+        this.fullDepth = new ConflatedValue<>(FullDepth.class, timeMachine, marketDataDelay, this::calculateFullDepth);
         this.referencePrice = referencePrice;
         this.mapper = new SimulatorObjectMapper(SimulatorObjectMapperAudience.PUBLIC, timeMachine);
         // If we're not appending orders to a log then let's not publish anything  either (because we're in test)
         if (orderAppender != null) {
-            this.tapePublisher = require(new EventPublisherComponent<>("EP-Trade", mapper, new StringSerializer(), new KafkaTradeSerializer(mapper), (t) -> "VOD.TRADE"));
+            // Trades are serialised and sent from the publisher's own thread, not this one
+            this.tapePublisher = require(new BatchingEventPublisher<>("EP-Trade", KafkaConfigBuilder.makeProducer(new StringSerializer(), new ByteArraySerializer()), mapper, (t) -> "VOD.TRADE"));
         } else {
             this.tapePublisher = null;
         }
@@ -127,9 +145,10 @@ public class OrderManager extends AbstractComponent implements Runnable, Listene
     }
 
     /**
-     * This is the weaker guarantee of being no staler than 100ms, but prevents every agent having to build
-     * their own touch record.  This mimics how information is disseminated in the real world, i.e. prices
-     * appear instantaneous but always take some time to be delivered.  Should not really be used
+     * This is the weaker guarantee of being no staler than the market data delay, but prevents every agent having to
+     * build their own touch record.  This mimics how information is disseminated in the real world, i.e. prices
+     * appear instantaneous but always take some time to be delivered.  The value is published by the matching thread
+     * after it processes a batch, so reading it is cheap but the returned value is shared and must not be changed.
      *
      * @return the top of the books
      */
@@ -151,6 +170,37 @@ public class OrderManager extends AbstractComponent implements Runnable, Listene
         return fullDepth.get();
     }
 
+    /**
+     * Trades and {@link Level1Event}s are published here rather than through the event dispatcher
+     *
+     * @return the market data fan-out for this manager's instrument
+     */
+    public MarketDataFanOut getMarketData() {
+        return marketData;
+    }
+
+    /**
+     * @return the recorders of the time events wait to be processed, the time each batch takes and the time each fill
+     * takes to match
+     */
+    public List<LatencyRecorder> getLatencyRecorders() {
+        return List.of(queueLatency, batchLatency, fillLatency);
+    }
+
+    /**
+     * @return the counts (and rates) of the orders, fills, trades and auctions this manager has processed
+     */
+    public OrderThroughput getThroughput() {
+        return throughput;
+    }
+
+    /**
+     * @return the recorder of what the matching thread did last
+     */
+    public FlightRecorder getFlightRecorder() {
+        return flightRecorder;
+    }
+
     public OrderBook getQueue(OrderSide side) {
         return side == OrderSide.BUY ? bidBook : offerBook;
     }
@@ -183,7 +233,9 @@ public class OrderManager extends AbstractComponent implements Runnable, Listene
             }
             // We don't want to put someone else's order into the manager, all orders should be
             // cloned with the current simulation time (to preserve the ordering between event types)
-            eventQueue.add(order.copy(timeMachine.toSimulationTime()));
+            final Event copy = order.copy(timeMachine.toSimulationTime());
+            copy.setQueuedNanos(System.nanoTime());
+            eventQueue.add(copy);
         }
         return orders;
     }
@@ -239,6 +291,9 @@ public class OrderManager extends AbstractComponent implements Runnable, Listene
         PriorityOrders opposingOrders = otherQueue.getPriorityOrders(ourLevel);
         int opposingIndex = 0;
         while (otherQueue.otherLevelAllowsExecution(ourLevel) && opposingOrders.size() > 0 && ourOrder.getRemainingQuantity() > 0) {
+            final long start = System.nanoTime();
+            final FillEvent fill = new FillEvent();
+            fill.begin();
             Order opposing = opposingOrders.get(opposingIndex);
             int executable = Math.min(ourOrder.getRemainingQuantity(), opposing.getRemainingQuantity());
             final LocalDateTime executionTime = timeMachine.toSimulationTime();
@@ -253,6 +308,8 @@ public class OrderManager extends AbstractComponent implements Runnable, Listene
                 }
             }
             print(false, executionTime, ourOrder, opposing, executionLevel, executable);
+            fillLatency.recordSince(start);
+            fill.commit(instrument.getTicker(), ourOrder.getId(), opposing.getId(), executionLevel.getLevel(), executable, false);
         }
     }
 
@@ -269,12 +326,20 @@ public class OrderManager extends AbstractComponent implements Runnable, Listene
                 eventDispatcher.dispatch(trigger);
             }
         }
-        eventDispatcher.dispatch(last);
+        flightRecorder.record(FlightRecorder.Kind.FILL, ourOrder.getId(), null, ourOrder.getState(), executionLevel.getLevel(), executable);
+        flightRecorder.record(FlightRecorder.Kind.FILL, opposing.getId(), null, opposing.getState(), executionLevel.getLevel(), executable);
+        throughput.increment(OrderThroughput.Counter.TRADE);
+        throughput.add(OrderThroughput.Counter.FILL, 2L);
+        throughput.add(OrderThroughput.Counter.VOLUME, executable);
+        final TradePublishedEvent published = new TradePublishedEvent();
+        published.begin();
+        marketData.publish(instrument, last);
         // TODO: If there's no order appender we're testing (ideally should be mocked)
         tape.append(timeMachine, last);
         if (orderAppender != null) {
             tapePublisher.publish(timeMachine, last);
         }
+        published.commit(instrument.getTicker(), tradeId, executionLevel.getLevel(), executable);
         referencePrice = executionLevel;
     }
 
@@ -291,17 +356,19 @@ public class OrderManager extends AbstractComponent implements Runnable, Listene
         // If the order is already in the system you can only suggest a change, the internal state may not allow it
         if (ourOrder != null) {
             // We could have filled this order in the batch of 'orders' of new/replace traes and so this cancellation
-            // may be too late
-            if (newOrder.getState() == OrderState.PENDING_CANCEL && OrderState.isTerminal(ourOrder.getState())) {
+            // (or replacement) may be too late
+            if (OrderState.isAmendPending(newOrder.getState()) && OrderState.isTerminal(ourOrder.getState())) {
                 ourOrder.tooLate();
+                throughput.increment(OrderThroughput.Counter.TOO_LATE);
+                flightRecorder.record(FlightRecorder.Kind.TOO_LATE, ourOrder.getId(), newOrder.getState(), ourOrder.getState(), newOrder.getLevel().getLevel(), newOrder.getQuantity());
                 return null;
             }
 
-            if (!OrderState.isAmendPending(newOrder.getState()))
-                return null;
-
-            if (!ourOrder.getSide().equals(newOrder.getSide()))
+            if (!OrderState.isAmendPending(newOrder.getState()) || !ourOrder.getSide().equals(newOrder.getSide())) {
+                throughput.increment(OrderThroughput.Counter.REJECT);
+                flightRecorder.record(FlightRecorder.Kind.REJECT, ourOrder.getId(), newOrder.getState(), ourOrder.getState(), newOrder.getLevel().getLevel(), newOrder.getQuantity());
                 return null;
+            }
 
             final Order newInstruction = (Order) ourOrder.copy();
             newInstruction.setState(newOrder.getState());
@@ -320,9 +387,19 @@ public class OrderManager extends AbstractComponent implements Runnable, Listene
             orderAppender.append(timeMachine, order);
     }
 
+    private static FlightRecorder.Kind kindOf(final OrderState pending) {
+        switch (pending) {
+            case PENDING_CANCEL:
+                return FlightRecorder.Kind.CANCEL;
+            case PENDING_REPLACE:
+                return FlightRecorder.Kind.REPLACE;
+            default:
+                return FlightRecorder.Kind.NEW;
+        }
+    }
+
     void processOrder(final Order newOrder) {
         try {
-            //orderHistory.append(newOrder.toString()).append(System.lineSeparator());
             Order oldOrder = orderLatest.get(newOrder.getId());
             final Order newInstruction = mergeOrders(oldOrder, newOrder);
             if (newInstruction == null) {
@@ -331,6 +408,8 @@ public class OrderManager extends AbstractComponent implements Runnable, Listene
             }
             if (orderManagerState.getCurrent().isClosed()) {
                 newOrder.rejected("Market closed");
+                throughput.increment(OrderThroughput.Counter.REJECT);
+                flightRecorder.record(FlightRecorder.Kind.REJECT, newOrder.getId(), newOrder.getState(), null, newOrder.getLevel().getLevel(), newOrder.getQuantity());
                 return;
             }
             assert (OrderState.isPending(newInstruction.getState()));
@@ -338,15 +417,18 @@ public class OrderManager extends AbstractComponent implements Runnable, Listene
             final OrderState preProcessState = newInstruction.getState();
             newInstruction.resetState(timeMachine.toSimulationTime());
             registerOrder(newInstruction);
+            flightRecorder.record(kindOf(preProcessState), newInstruction.getId(), preProcessState, newInstruction.getState(), newInstruction.getLevel().getLevel(), newInstruction.getRemainingQuantity());
             switch (preProcessState) {
                 case PENDING_NEW:
+                    throughput.increment(OrderThroughput.Counter.NEW);
                     queue.newOrder(newInstruction);
                     clear(newInstruction);
                     break;
                 case PENDING_CANCEL:
-                    queue.cancelOrder(newInstruction);
+                    throughput.increment(queue.cancelOrder(newInstruction) ? OrderThroughput.Counter.CANCEL : OrderThroughput.Counter.TOO_LATE);
                     break;
                 case PENDING_REPLACE:
+                    throughput.increment(OrderThroughput.Counter.REPLACE);
                     queue.replaceOrder(oldOrder, newInstruction);
                     clear(newInstruction);
                     break;
@@ -361,14 +443,22 @@ public class OrderManager extends AbstractComponent implements Runnable, Listene
 
     <T extends Event> void processEvents(final Collection<T> events) {
         synchronized (sync) {
+            final long start = System.nanoTime();
             boolean enteredAuction = false;
             for (Event event : events) {
                 if (event instanceof Order) {
                     if (enteredAuction) {
+                        final Order skipped = (Order) event;
+                        flightRecorder.record(FlightRecorder.Kind.SKIP, skipped.getId() == null ? -1L : skipped.getId(), skipped.getState(), null, skipped.getLevel().getLevel(), skipped.getQuantity());
                         if (LOG.isTraceEnabled())
                             LOG.trace("Skipping order because an auction was started: " + event);
                     } else {
-                        processOrder((Order) event);
+                        final Order order = (Order) event;
+                        final OrderProcessedEvent processed = new OrderProcessedEvent();
+                        processed.begin();
+                        final OrderState instruction = order.getState();
+                        processOrder(order);
+                        processed.commit(instrument.getTicker(), order.getId() == null ? -1L : order.getId(), instruction.toString(), order.getLevel().getLevel(), order.getQuantity());
                     }
                 } else if (event instanceof AuctionTriggerEvent) {
                     enteredAuction |= processAuctionEvent((AuctionTriggerEvent) event);
@@ -376,6 +466,20 @@ public class OrderManager extends AbstractComponent implements Runnable, Listene
                     throw new IllegalStateException("Unexpected event type: " + event);
                 }
             }
+            if (!events.isEmpty()) {
+                level1.changed();
+                fullDepth.changed();
+                // Every event in the batch counts as processed when the batch is
+                final long end = System.nanoTime();
+                batchLatency.record(end - start);
+                for (final Event event : events)
+                    if (event.getQueuedNanos() != 0L)
+                        queueLatency.record(end - event.getQueuedNanos());
+            }
+            // Changes are conflated, so when they arrive faster than the market data delay only the latest is published
+            fullDepth.publish();
+            if (level1.publish() && marketData.hasSubscribers(instrument, Level1Event.class))
+                marketData.publish(instrument, new Level1Event(this, timeMachine.toSimulationTime(), instrument, level1.get()));
         }
     }
 
@@ -402,6 +506,8 @@ public class OrderManager extends AbstractComponent implements Runnable, Listene
      * @return the uncrossing price reached
      */
     Level uncross() {
+        final UncrossEvent uncross = new UncrossEvent();
+        uncross.begin();
         try {
             final AuctionState auctionState = new AuctionState(timeMachine.toSimulationTime(), referencePrice, instrument, bidBook, offerBook);
             final Pair<Level, Long> interest = auctionState.getUncrossingInterest();
@@ -415,14 +521,22 @@ public class OrderManager extends AbstractComponent implements Runnable, Listene
             LOG.debug("Uncrossing " + instrument.getTicker() + " " + QUANTITY_FORMAT.get().format(remainingVolume) + "@" +
                     PRICE_FORMAT.get().format(auctionPrice.getPrice()));
             while (remainingVolume > 0) {
+                final long start = System.nanoTime();
+                final FillEvent fill = new FillEvent();
+                fill.begin();
                 final Order bidOrder = bidOrders.take();
                 final Order offerOrder = offerOrders.take();
                 final int executableQuantity = Math.min(bidOrder.getRemainingQuantity(), offerOrder.getRemainingQuantity());
                 bidBook.execute(bidOrder, executableQuantity, auctionPrice, auctionState.getTimestamp());
                 offerBook.execute(offerOrder, executableQuantity, auctionPrice, auctionState.getTimestamp());
                 print(true, auctionState.getTimestamp(), bidOrder, offerOrder, auctionPrice, executableQuantity);
+                fillLatency.recordSince(start);
+                fill.commit(instrument.getTicker(), bidOrder.getId(), offerOrder.getId(), auctionPrice.getLevel(), executableQuantity, true);
                 remainingVolume -= executableQuantity;
             }
+            throughput.increment(OrderThroughput.Counter.UNCROSS);
+            flightRecorder.record(FlightRecorder.Kind.UNCROSS, -1L, null, null, auctionPrice.getLevel(), interest.getSecond());
+            uncross.commit(instrument.getTicker(), auctionPrice.getLevel(), interest.getSecond());
             return auctionPrice;
         } catch (final AuctionException auxEx) {
             //TODO: If there is no auction state then the auction needs to be extended, this isn't implemented yet!
@@ -432,14 +546,19 @@ public class OrderManager extends AbstractComponent implements Runnable, Listene
 
     private boolean processAuctionEvent(final AuctionTriggerEvent event) {
         Objects.requireNonNull(event);
+        final AuctionTransitionEvent transition = new AuctionTransitionEvent();
+        transition.begin();
         final MarketState currentState = orderManagerState.getCurrent();
         boolean enteredAuction = false;
         if (!event.getPreconditions().contains(currentState)) {
             LOG.error("Request to trigger auction denied, because market is in: " + currentState + ", " + event);
+            transition.commit(instrument.getTicker(), currentState.toString(), event.getPostcondition().toString(), false);
         } else {
             switch (event.getPostcondition()) {
                 case AUCTION:
                     cancelAllOrders();
+                    throughput.increment(OrderThroughput.Counter.AUCTION);
+                    flightRecorder.record(FlightRecorder.Kind.AUCTION, -1L, null, null, referencePrice == null ? 0 : referencePrice.getLevel(), 0L);
                     enteredAuction = true;
                     break;
                 case CONTINUOUS:
@@ -451,12 +570,14 @@ public class OrderManager extends AbstractComponent implements Runnable, Listene
                     // We now reset the time machine and re-schedule the auction to start the next day
                     timeMachine.start();
                     marketManager.restart();
-                    level1 = new CachedValue<>(Level1.class, timeMachine, marketDataDelay, this::calculateLevel1, eventDispatcher, true);
+                    level1.reset();
+                    fullDepth.reset();
                     break;
                 default:
                     throw new IllegalStateException("Was expecting auction post condition to be AUCTION, CONTINUOUS or CLOSED but was: " + event.getPostcondition());
             }
             orderManagerState.accept(event.getPostcondition());
+            transition.commit(instrument.getTicker(), currentState.toString(), event.getPostcondition().toString(), true);
         }
         return enteredAuction;
     }
@@ -539,8 +660,7 @@ public class OrderManager extends AbstractComponent implements Runnable, Listene
             }
             eventDispatcher.removeListener(AuctionTriggerEvent.class, this);
         } catch (final Exception ex) {
-            LOG.error("Encountered an irrecoverable order manager error: ", ex);
-            //LOG.error("HISTORY: " + System.lineSeparator() + orderHistory);
+            LOG.error("Encountered an irrecoverable order manager error, last events dumped to: " + flightRecorder.dump(), ex);
         } finally {
             terminate.set(true);
         }
@@ -548,6 +668,7 @@ public class OrderManager extends AbstractComponent implements Runnable, Listene
 
     @Override
     public void notify(final Event event) {
+        event.setQueuedNanos(System.nanoTime());
         eventQueue.add(event);
     }
 }
@@ -0,0 +1,161 @@
+package com.hackinghat.orderbook;
+
+import com.hackinghat.util.component.AbstractComponent;
+import com.hackinghat.util.mbean.MBeanAttribute;
+import com.hackinghat.util.mbean.MBeanOperation;
+import com.hackinghat.util.mbean.MBeanType;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts what the order manager does: the orders it accepts, cancels, replaces and rejects, the fills and trades they
+ * result in and the auctions it runs.  The counts are {@link LongAdder}s so they can be incremented by the matching
+ * thread and read by JMX (or any other thread) without either waiting for the other.
+ * <p>
+ * The rates are per (wall-clock) second over the last interval, i.e. between the last two calls of {@link #sample()},
+ * which is what a dashboard polling the MBean wants to plot.
+ */
+@MBeanType(description = "Order throughput")
+public class OrderThroughput extends AbstractComponent {
+
+    public enum Counter {
+        NEW, CANCEL, REPLACE, REJECT, TOO_LATE, FILL, TRADE, VOLUME, AUCTION, UNCROSS
+    }
+
+    private static final Counter[] COUNTERS = Counter.values();
+
+    private final LongAdder[] counts;
+    private final long[] previous;
+    private final double[] rates;
+    private long previousNanos;
+
+    public OrderThroughput(final String name) {
+        super(name);
+        this.counts = new LongAdder[COUNTERS.length];
+        for (int i = 0; i < counts.length; ++i)
+            counts[i] = new LongAdder();
+        this.previous = new long[COUNTERS.length];
+        this.rates = new double[COUNTERS.length];
+        this.previousNanos = System.nanoTime();
+    }
+
+    public void increment(final Counter counter) {
+        counts[counter.ordinal()].increment();
+    }
+
+    public void add(final Counter counter, final long amount) {
+        counts[counter.ordinal()].add(amount);
+    }
+
+    public long getCount(final Counter counter) {
+        return counts[counter.ordinal()].sum();
+    }
+
+    /**
+     * @param counter the counter
+     * @return its increase per second over the last interval
+     */
+    public synchronized double getRate(final Counter counter) {
+        return rates[counter.ordinal()];
+    }
+
+    /**
+     * Ends the current interval, the rates are then of the interval that has just ended
+     */
+    @MBeanOperation(description = "Start a new interval")
+    public synchronized void sample() {
+        final long now = System.nanoTime();
+        final double seconds = Math.max(now - previousNanos, 1L) / 1e9;
+        for (int i = 0; i < counts.length; ++i) {
+            final long total = counts[i].sum();
+            rates[i] = (total - previous[i]) / seconds;
+            previous[i] = total;
+        }
+        previousNanos = now;
+    }
+
+    @MBeanAttribute(description = "New orders")
+    public long getNewCount() {
+        return getCount(Counter.NEW);
+    }
+
+    @MBeanAttribute(description = "Cancels")
+    public long getCancelCount() {
+        return getCount(Counter.CANCEL);
+    }
+
+    @MBeanAttribute(description = "Replaces")
+    public long getReplaceCount() {
+        return getCount(Counter.REPLACE);
+    }
+
+    @MBeanAttribute(description = "Rejects")
+    public long getRejectCount() {
+        return getCount(Counter.REJECT);
+    }
+
+    @MBeanAttribute(description = "Too late to cancel or replace")
+    public long getTooLateCount() {
+        return getCount(Counter.TOO_LATE);
+    }
+
+    @MBeanAttribute(description = "Fills, one for each side of a trade")
+    public long getFillCount() {
+        return getCount(Counter.FILL);
+    }
+
+    @MBeanAttribute(description = "Trades")
+    public long getTradeCount() {
+        return getCount(Counter.TRADE);
+    }
+
+    @MBeanAttribute(description = "Traded volume")
+    public long getTradedVolume() {
+        return getCount(Counter.VOLUME);
+    }
+
+    @MBeanAttribute(description = "Auctions entered")
+    public long getAuctionCount() {
+        return getCount(Counter.AUCTION);
+    }
+
+    @MBeanAttribute(description = "Uncrosses")
+    public long getUncrossCount() {
+        return getCount(Counter.UNCROSS);
+    }
+
+    @MBeanAttribute(description = "New orders per second")
+    public double getNewRate() {
+        return getRate(Counter.NEW);
+    }
+
+    @MBeanAttribute(description = "Cancels per second")
+    public double getCancelRate() {
+        return getRate(Counter.CANCEL);
+    }
+
+    @MBeanAttribute(description = "Replaces per second")
+    public double getReplaceRate() {
+        return getRate(Counter.REPLACE);
+    }
+
+    @MBeanAttribute(description = "Rejects per second")
+    public double getRejectRate() {
+        return getRate(Counter.REJECT);
+    }
+
+    @MBeanAttribute(description = "Fills per second")
+    public double getFillRate() {
+        return getRate(Counter.FILL);
+    }
+
+    @MBeanAttribute(description = "Trades per second")
+    public double getTradeRate() {
+        return getRate(Counter.TRADE);
+    }
+
+    @MBeanAttribute(description = "Traded volume per second")
+    public double getTradedVolumeRate() {
+        return getRate(Counter.VOLUME);
+    }
+}
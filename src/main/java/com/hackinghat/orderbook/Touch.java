@@ -7,7 +7,11 @@ import javax.annotation.Nonnull;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
-public class Touch implements Level1 {
+/**
+ * An immutable snapshot of the top of the books, since it can't change it is shared between all the readers of the
+ * order manager's {@link Level1} rather than being copied for each of them.
+ */
+public final class Touch implements Level1 {
     @Nonnull
     private final OrderInterest bid;
     @Nonnull
@@ -17,8 +21,7 @@ public class Touch implements Level1 {
     @Nonnull
     private final MarketState marketState;
     @Nonnull
-    private LocalDateTime simulationTime;
-
+    private final LocalDateTime simulationTime;
 
     public Touch(@Nonnull final LocalDateTime simulationTime, @Nonnull final MarketState marketState, @Nonnull final OrderInterest bid, @Nonnull final OrderInterest offer) {
         Objects.requireNonNull(bid);
@@ -66,9 +69,14 @@ public class Touch implements Level1 {
         return simulationTime;
     }
 
-    @Override
-    public void setTimestamp(final LocalDateTime simulationTime) {
-        this.simulationTime = simulationTime;
+    /**
+     * @param simulationTime the time of the new touch
+     * @return this touch at a different time, or this touch if the time is the same
+     */
+    public Touch copy(final LocalDateTime simulationTime) {
+        if (this.simulationTime.equals(simulationTime))
+            return this;
+        return new Touch(simulationTime, marketState, bid, offer);
     }
 
     @Override
@@ -80,9 +88,4 @@ public class Touch implements Level1 {
                 ", marketState=" + marketState +
                 '}';
     }
-
-    @Override
-    public Touch cloneEx() throws CloneNotSupportedException {
-        return (Touch) clone();
-    }
 }
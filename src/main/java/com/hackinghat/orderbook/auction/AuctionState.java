@@ -38,26 +38,29 @@ import static com.hackinghat.util.Formatters.QUANTITY_FORMAT;
  * <p>
  * AuctionState implements a the {@link Level1} interface which means it can be seen by all market
  * participants.  Therefore it would suit being cached and re-calculated only when require and only
- * if the auction state could potentially have changed (due to new or cancelled orders).
+ * if the auction state could potentially have changed (due to new or cancelled orders).  The state is immutable once
+ * constructed, the uncrossing interest is calculated once and a single instance can be shared by all readers.
  */
-public class AuctionState implements Level1 {
+public final class AuctionState implements Level1 {
     private static final Logger LOG = LogManager.getLogger(AuctionState.class);
     private final Instrument instrument;
     private final Level referenceLevel;
-    private Map<Level, AuctionRecord> auctionRecords;
-    private long maximumVolume;
-    private LocalDateTime simulationTime;
+    private final Map<Level, AuctionRecord> auctionRecords;
+    private final long maximumVolume;
+    private final LocalDateTime simulationTime;
+    private final Pair<Level, Long> uncrossingInterest;
+    private final AuctionException uncrossingError;
+    private final OrderInterest bid;
+    private final OrderInterest offer;
 
     public AuctionState(final LocalDateTime simulationTime, final Level referenceLevel, final Instrument instrument) {
-        this.instrument = instrument;
-        this.auctionRecords = Collections.emptyMap();
-        this.maximumVolume = 0;
-        this.referenceLevel = referenceLevel;
-        this.simulationTime = simulationTime;
+        this(simulationTime, referenceLevel, instrument, (OrderBook[]) null);
     }
 
     public AuctionState(final LocalDateTime simulationTime, final Level referenceLevel, final Instrument instrument, final OrderBook... bidOfferBooks) {
-        this(simulationTime, referenceLevel, instrument);
+        this.instrument = instrument;
+        this.referenceLevel = referenceLevel;
+        this.simulationTime = simulationTime;
 
         // If we're constructed without books it means that we tried before ??
         if (bidOfferBooks != null && bidOfferBooks.length > 0) {
@@ -69,10 +72,37 @@ public class AuctionState implements Level1 {
             for (final OrderBook book : bidOfferBooks) {
                 calculateAggregateVolumes(book.getQueueSide());
             }
-            maximumVolume = calculateMaximumVolume(auctionRecords.values());
+            this.maximumVolume = calculateMaximumVolume(auctionRecords.values());
+        } else {
+            this.auctionRecords = Collections.emptyMap();
+            this.maximumVolume = 0;
         }
         if (LOG.isTraceEnabled())
             LOG.trace("Maximum executable volume: " + maximumVolume);
+
+        Pair<Level, Long> interest = null;
+        AuctionException error = null;
+        try {
+            interest = calculateUncrossingInterest();
+        } catch (final AuctionException auctionException) {
+            error = auctionException;
+        }
+        this.uncrossingInterest = interest;
+        this.uncrossingError = error;
+        this.bid = makeInterest(OrderSide.BUY);
+        this.offer = makeInterest(OrderSide.SELL);
+    }
+
+    private AuctionState(final AuctionState other, final LocalDateTime simulationTime) {
+        this.instrument = other.instrument;
+        this.referenceLevel = other.referenceLevel;
+        this.auctionRecords = other.auctionRecords;
+        this.maximumVolume = other.maximumVolume;
+        this.simulationTime = simulationTime;
+        this.uncrossingInterest = other.uncrossingInterest;
+        this.uncrossingError = other.uncrossingError;
+        this.bid = other.bid;
+        this.offer = other.offer;
     }
 
     private static long calculateMaximumVolume(final Collection<AuctionRecord> auctionRecords) {
@@ -143,11 +173,6 @@ public class AuctionState implements Level1 {
         return simulationTime;
     }
 
-    @Override
-    public void setTimestamp(final LocalDateTime timestamp) {
-        this.simulationTime = timestamp;
-    }
-
     private List<AuctionRecord> getRecordsAtVolume(final long maximumVolume) {
         return auctionRecords.values().stream()
                 .filter(auctionRecord -> auctionRecord.getUncrossingVolume() == maximumVolume)
@@ -227,6 +252,12 @@ public class AuctionState implements Level1 {
     }
 
     public Pair<Level, Long> getUncrossingInterest() throws AuctionException {
+        if (uncrossingError != null)
+            throw uncrossingError;
+        return uncrossingInterest;
+    }
+
+    private Pair<Level, Long> calculateUncrossingInterest() throws AuctionException {
         final long maximumVolume = getMaximumVolume();
         if (maximumVolume == 0L)
             return Pair.instanceOf(referenceLevel, 0L);
@@ -252,23 +283,20 @@ public class AuctionState implements Level1 {
         return Pair.instanceOf(result.getLevel(), result.getUncrossingVolume());
     }
 
-    public OrderInterest getInterest(OrderSide side) {
-        try {
-            final Pair<Level, Long> interest = getUncrossingInterest();
-            return new OrderInterest(side, interest.getFirst(), interest.getSecond());
-        } catch (final AuctionException aucex) {
+    private OrderInterest makeInterest(final OrderSide side) {
+        if (uncrossingError != null)
             return new OrderInterest(side, Level.MARKET, 0L);
-        }
+        return new OrderInterest(side, uncrossingInterest.getFirst(), uncrossingInterest.getSecond());
     }
 
     @Override
     public OrderInterest getBid() {
-        return getInterest(OrderSide.BUY);
+        return bid;
     }
 
     @Override
     public OrderInterest getOffer() {
-        return getInterest(OrderSide.SELL);
+        return offer;
     }
 
     @Override
@@ -281,9 +309,14 @@ public class AuctionState implements Level1 {
         return MarketState.AUCTION;
     }
 
-    @Override
-    public AuctionState cloneEx() throws CloneNotSupportedException {
-        return (AuctionState) clone();
+    /**
+     * @param simulationTime the time of the new state
+     * @return this state at a different time, or this state if the time is the same
+     */
+    public AuctionState copy(final LocalDateTime simulationTime) {
+        if (Objects.equals(this.simulationTime, simulationTime))
+            return this;
+        return new AuctionState(this, simulationTime);
     }
 
     private static class AuctionRecord implements Comparable<AuctionRecord> {
@@ -2,18 +2,23 @@ package com.hackinghat.simulator;
 
 import com.hackinghat.agent.Agent;
 import com.hackinghat.agent.AgentBuilder;
+import com.hackinghat.agent.AgentGroup;
 import com.hackinghat.agent.ZeroIntelligenceAgent;
 import com.hackinghat.agent.parameter.AgentParameterSet;
 import com.hackinghat.agent.parameter.ConstantAgentParameter;
+import com.hackinghat.fix.FixGateway;
 import com.hackinghat.model.*;
 import com.hackinghat.order.MarketState;
 import com.hackinghat.order.Order;
 import com.hackinghat.orderbook.FullDepth;
 import com.hackinghat.orderbook.Level1;
+import com.hackinghat.orderbook.MarketDataFanOut;
 import com.hackinghat.orderbook.OrderManager;
 import com.hackinghat.orderbook.auction.AuctionSchedule;
 import com.hackinghat.orderbook.auction.MarketManager;
 import com.hackinghat.statistic.AgentStatistic;
+import com.hackinghat.statistic.LatencyStatistic;
+import com.hackinghat.statistic.ThroughputStatistic;
 import com.hackinghat.statistic.OrderBookStatistic;
 import com.hackinghat.util.*;
 import com.hackinghat.util.component.AbstractComponent;
@@ -21,6 +26,8 @@ import com.hackinghat.util.mbean.MBeanHolder;
 import com.hackinghat.util.mbean.MBeanType;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import quickfix.ConfigError;
+import quickfix.SessionSettings;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -31,9 +38,10 @@ import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
-import java.util.Set;
 import java.util.concurrent.*;
+import java.util.stream.Stream;
 
 import static com.hackinghat.agent.parameter.AgentParameterSet.P_INSPREAD;
 
@@ -51,6 +59,10 @@ public class OrderBookSimulatorImpl extends AbstractComponent implements OrderBo
     private static final long MAX_SLEEP_TIME_T2 = 180;
     // The total number of agents in the system
     private static final int N_AGENTS = 100;
+    // The size of the (optional) population of noise traders, a large population makes for a much heavier run
+    public final static String NOISE_TRADERS_PROPERTY = "simulator.noise.traders";
+    private static final int DEFAULT_N_NOISE_TRADERS = 0;
+    private static final Duration NOISE_TRADER_SLICE = Duration.of(1L, ChronoUnit.SECONDS);
     private static final int N_APPENDERS = 1;
     private static final int N_DISPATCHERS = 5;
     // The number of spread levels a market maker will try to maintain between bid & offer
@@ -59,6 +71,8 @@ public class OrderBookSimulatorImpl extends AbstractComponent implements OrderBo
     private static final int MM_QUANTITY = 1000;
     private static final boolean MM_CANCEL_IF_TOP = false;
     private final static Duration DEFAULT_MARKET_DATA_DELAY = Duration.of(100L, ChronoUnit.MILLIS);
+    // The QuickFIX/J settings file of the FIX gateway, if there isn't one the simulator doesn't accept FIX sessions
+    public final static String FIX_SETTINGS_PROPERTY = "simulator.fix.settings";
     // The probability that the next action will be a cancel
     private static double P_CANCEL = 0.5;
     private final Instrument instrument;
@@ -71,12 +85,15 @@ public class OrderBookSimulatorImpl extends AbstractComponent implements OrderBo
     private final Collection<Agent> agentSet;
     private final AbstractStatisticsAppender orderStatsAppender;
     private final AbstractStatisticsAppender tape;
+    private final AppenderPipeline appenderPipeline;
     private final TimeMachine timeMachine;
     private final Instant startTime;
     private final ArrayList<MBeanHolder> mbeans;
     private Future<?> managerFuture;
     private AbstractStatisticsAppender agentStatisticAppender;
     private AbstractStatisticsAppender agentDescription;
+    private AbstractStatisticsAppender latencyAppender;
+    private AbstractStatisticsAppender throughputAppender;
 
     /**
      * Create a new simulator
@@ -97,9 +114,11 @@ public class OrderBookSimulatorImpl extends AbstractComponent implements OrderBo
         this.eventDispatcher = require(eventDispatcher);
         this.marketManager = require(marketManager);
         this.startTime = Instant.now();
-        this.tape = new FileStatisticsAppender<Trade>(Trade::getStatisticNames, startTime, instrument.getTicker() + "-TRADE");
+        this.appenderPipeline = require(new AppenderPipeline("AppenderPipeline-" + instrument.getTicker()));
+        require(new ObjectCacheMonitor("ObjectCache-" + instrument.getTicker(), SimulatorObjectMapper.getObjectCache()));
+        this.tape = appenderPipeline.add(new FileStatisticsAppender<Trade>(Trade::getStatisticNames, startTime, instrument.getTicker() + "-TRADE"));
         if (publish) {
-            this.orderStatsAppender = new FileStatisticsAppender<Order>(Order::getStatisticNames, startTime, instrument.getTicker() + "-ORDER");
+            this.orderStatsAppender = appenderPipeline.add(new FileStatisticsAppender<Order>(Order::getStatisticNames, startTime, instrument.getTicker() + "-ORDER"));
         } else {
             this.orderStatsAppender = null;
         }
@@ -114,7 +133,7 @@ public class OrderBookSimulatorImpl extends AbstractComponent implements OrderBo
 
     public static void main(String[] args) {
         final Instrument VOD = new Instrument("VOD", "Vodafone Plc", new Currency("GBP"), new ConstantTickSizeToLevelConverter(2, 100, 3));
-        final RandomSource randomSource = new RandomSourceImpl(2L);
+        final RandomSource randomSource = new SplittableRandomSource(2L);
         final TimeMachine timeMachine = new TimeMachine(LocalTime.of(7, 54, 0), 60.0);
         final ScheduledExecutorService dispatcherScheduler = Executors.newScheduledThreadPool(N_DISPATCHERS);
         final EventDispatcher dispatcher = new AsyncEventDispatcher(dispatcherScheduler, timeMachine);
@@ -147,15 +166,14 @@ public class OrderBookSimulatorImpl extends AbstractComponent implements OrderBo
             LOG.error("Appender pool terminated", iex);
         }
         LOG.info("Appenders stopped");
-        for (Closeable c : Set.of(tape, orderStatsAppender, agentDescription, agentStatisticAppender)) {
-            if (c != null) {
-                try {
-                    c.close();
-                } catch (final IOException e) {
-                    LOG.error("Couldn't close: " + c.getClass().getSimpleName(), e);
-                }
+        // Some of the appenders are only made when the simulator is started
+        Stream.<Closeable>of(tape, orderStatsAppender, agentDescription, agentStatisticAppender, latencyAppender, throughputAppender).filter(Objects::nonNull).forEach(c -> {
+            try {
+                c.close();
+            } catch (final IOException e) {
+                LOG.error("Couldn't close: " + c.getClass().getSimpleName(), e);
             }
-        }
+        });
         manager.close();
     }
 
@@ -192,6 +210,10 @@ public class OrderBookSimulatorImpl extends AbstractComponent implements OrderBo
         return manager.getFullDepth();
     }
 
+    public MarketDataFanOut getMarketData() {
+        return manager.getMarketData();
+    }
+
     @Override
     public void shutdown() {
         super.shutdown();
@@ -224,6 +246,18 @@ public class OrderBookSimulatorImpl extends AbstractComponent implements OrderBo
         return manager.getReferencePrice();
     }
 
+    /**
+     * Let outside clients trade against the simulation over FIX
+     *
+     * @param settings the acceptor's session settings
+     * @return the gateway, which is closed with the simulator
+     */
+    public FixGateway startFixGateway(final SessionSettings settings) {
+        final FixGateway gateway = require(new FixGateway("FixGateway-" + instrument.getTicker(), settings, manager, instrument, timeMachine, eventDispatcher));
+        gateway.start();
+        return gateway;
+    }
+
     public AgentParameterSet makeParameterSet(final RandomSource randomSource) {
         return new AgentParameterSet(
                 // The next action will be a 'limit' order with probability = 1-(P_CANCEL+P_MARKET), this is the probability that
@@ -243,25 +277,30 @@ public class OrderBookSimulatorImpl extends AbstractComponent implements OrderBo
 
     public void configureAgents(final RandomSource randomSource) {
         final AgentParameterSet agentParameterSet = makeParameterSet(randomSource);
-        for (final Agent za : agentBuilder.makeZeroIntelligenceAgents(timeMachine, agentParameterSet, "ZERO", N_AGENTS, Duration.of(MAX_SLEEP_TIME_T1, ChronoUnit.SECONDS), Duration.of(MAX_SLEEP_TIME_T2, ChronoUnit.SECONDS), this, P_CANCEL, P_MARKET, P_BUY)) {
+        // The agents are reported on (and closed) together by their group
+        final AgentGroup<ZeroIntelligenceAgent> zeroAgents = require(agentBuilder.makeZeroIntelligenceAgentGroup(timeMachine, agentParameterSet, "ZERO", N_AGENTS, Duration.of(MAX_SLEEP_TIME_T1, ChronoUnit.SECONDS), Duration.of(MAX_SLEEP_TIME_T2, ChronoUnit.SECONDS), this, P_CANCEL, P_MARKET, P_BUY));
+        for (final Agent za : zeroAgents.getAgents()) {
             za.run();
             agentSet.add(za);
         }
+        final int nNoiseTraders = Integer.getInteger(NOISE_TRADERS_PROPERTY, DEFAULT_N_NOISE_TRADERS);
+        if (nNoiseTraders > 0) {
+            final Agent noiseTraders = agentBuilder.makeZeroIntelligencePopulation(timeMachine, agentParameterSet, "NOISE", nNoiseTraders, Duration.of(MAX_SLEEP_TIME_T1, ChronoUnit.SECONDS), Duration.of(MAX_SLEEP_TIME_T2, ChronoUnit.SECONDS), NOISE_TRADER_SLICE, this, P_CANCEL, P_MARKET, P_BUY);
+            noiseTraders.run();
+            agentSet.add(noiseTraders);
+        }
         // We only need a single market-maker agent, at least for now
         final Agent mmAgent = agentBuilder.makeMarketMaker(timeMachine, Duration.of(MAX_SLEEP_TIME_T1, ChronoUnit.SECONDS), this, MM_N_SPREAD_LEVELS, MM_SPREAD_TOLERANCE, MM_QUANTITY, MM_QUANTITY, MM_CANCEL_IF_TOP);
         mmAgent.run();
         agentSet.add(mmAgent);
         final AgentStatistic agentStatistic = new AgentStatistic(timeMachine, agentSet);
-        agentStatisticAppender = new SamplingStatisticAppender<>(timeMachine, startTime, agentStatistic, () -> agentSet, agentStatistic::getHeaders, "AGENT");
+        agentStatisticAppender = appenderPipeline.add(new SamplingStatisticAppender<>(timeMachine, startTime, agentStatistic, () -> agentSet, agentStatistic::getHeaders, "AGENT"));
         scheduleWithFixedDelay(agentStatisticAppender, 0, timeMachine.simulationPeriodToWall(Duration.of(1, ChronoUnit.MINUTES), ChronoUnit.NANOS));
-        agentDescription = new FileStatisticsAppender<>(ZeroIntelligenceAgent::getHeaders, startTime, "AGENT-ZERO");
-        scheduleWithFixedDelay(() -> {
-            agentSet.forEach(a -> {
-                if (a instanceof ZeroIntelligenceAgent)
-                    agentDescription.append(timeMachine, a);
-            });
-            agentDescription.run();
-        }, 0, timeMachine.simulationPeriodToWall(Duration.of(1, ChronoUnit.MINUTES), ChronoUnit.NANOS));
+        agentDescription = appenderPipeline.add(new FileStatisticsAppender<>(ZeroIntelligenceAgent::getHeaders, startTime, "AGENT-ZERO"));
+        scheduleWithFixedDelay(() -> agentSet.forEach(a -> {
+            if (a instanceof ZeroIntelligenceAgent)
+                agentDescription.append(timeMachine, a);
+        }), 0, timeMachine.simulationPeriodToWall(Duration.of(1, ChronoUnit.MINUTES), ChronoUnit.NANOS));
     }
 
     private Future<?> start(final RandomSource randomSource) throws InterruptedException {
@@ -278,15 +317,33 @@ public class OrderBookSimulatorImpl extends AbstractComponent implements OrderBo
 
         // Now begin the directly managed threads
         managerFuture = cachedThreadPool.submit(manager);
-        cachedThreadPool.execute(orderStatsAppender);
-        cachedThreadPool.execute(tape);
+        // All the appenders share a single I/O thread
+        cachedThreadPool.execute(appenderPipeline);
 
         final long durationOneSecond = timeMachine.simulationPeriodToWall(Duration.of(1L, ChronoUnit.SECONDS), ChronoUnit.NANOS);
         final OrderBookStatistic orderBookStatistic = new OrderBookStatistic(10, 10);
-        final SamplingStatisticAppender<Pair<Level1, FullDepth>, OrderBookStatistic> samplingStatisticAppender = new SamplingStatisticAppender<>(timeMachine, startTime, orderBookStatistic,
-                () -> Pair.instanceOf(manager.getLevel1(), manager.getFullDepth()), orderBookStatistic::getHeaders, "SAMPLE");
+        final SamplingStatisticAppender<Pair<Level1, FullDepth>, OrderBookStatistic> samplingStatisticAppender = appenderPipeline.add(new SamplingStatisticAppender<>(timeMachine, startTime, orderBookStatistic,
+                () -> Pair.instanceOf(manager.getLevel1(), manager.getFullDepth()), orderBookStatistic::getHeaders, "SAMPLE"));
         scheduleWithFixedDelay(samplingStatisticAppender, durationOneSecond, durationOneSecond);
+        final List<LatencyRecorder> latencyRecorders = new ArrayList<>(manager.getLatencyRecorders());
+        latencyRecorders.addAll(eventDispatcher.getLatencyRecorders());
+        latencyRecorders.add(appenderPipeline.getWriteLatency());
+        final LatencyStatistic latencyStatistic = new LatencyStatistic(timeMachine, latencyRecorders);
+        final long durationOneMinute = timeMachine.simulationPeriodToWall(Duration.of(1L, ChronoUnit.MINUTES), ChronoUnit.NANOS);
+        latencyAppender = appenderPipeline.add(new SamplingStatisticAppender<>(timeMachine, startTime, latencyStatistic, () -> latencyRecorders, latencyStatistic::getHeaders, "LATENCY"));
+        scheduleWithFixedDelay(latencyAppender, durationOneMinute, durationOneMinute);
+        final ThroughputStatistic throughputStatistic = new ThroughputStatistic(timeMachine);
+        throughputAppender = appenderPipeline.add(new SamplingStatisticAppender<>(timeMachine, startTime, throughputStatistic, () -> manager, throughputStatistic::getHeaders, "THROUGHPUT"));
+        scheduleWithFixedDelay(throughputAppender, durationOneMinute, durationOneMinute);
         configureAgents(randomSource);
+        final String fixSettings = System.getProperty(FIX_SETTINGS_PROPERTY);
+        if (fixSettings != null) {
+            try {
+                startFixGateway(new SessionSettings(fixSettings));
+            } catch (final ConfigError configError) {
+                LOG.error("Couldn't read FIX settings from: " + fixSettings, configError);
+            }
+        }
         return managerFuture;
     }
 }
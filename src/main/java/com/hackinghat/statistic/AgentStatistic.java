@@ -1,6 +1,7 @@
 package com.hackinghat.statistic;
 
 import com.hackinghat.agent.Agent;
+import com.hackinghat.util.CsvBuffer;
 import com.hackinghat.util.Pair;
 import com.hackinghat.util.TimeMachine;
 
@@ -13,11 +14,12 @@ public class AgentStatistic implements SampledStatistic<Collection<Agent>> {
 
     private final Collection<Agent> agents;
     private final TimeMachine timeMachine;
-    private String last;
+    private final CsvBuffer last;
 
     public AgentStatistic(final TimeMachine timeMachine, final Collection<Agent> agents) {
         this.timeMachine = timeMachine;
         this.agents = agents;
+        this.last = new CsvBuffer();
     }
 
     public String getHeaders() {
@@ -34,15 +36,20 @@ public class AgentStatistic implements SampledStatistic<Collection<Agent>> {
 
     @Override
     public String formatStatistic(final TimeMachine timeMachine) {
-        return last;
+        return last.isEmpty() ? null : last.toString();
+    }
+
+    @Override
+    public void formatStatistic(final TimeMachine timeMachine, final CsvBuffer buffer) {
+        buffer.append(last);
     }
 
     @Override
     public void update(Collection<Agent> item) {
         assert (item == agents);
 
-        final StringBuilder builder = new StringBuilder();
-        builder.append(timeMachine.formatTime());
+        final CsvBuffer builder = last.reset();
+        builder.appendTime(timeMachine.toSimulationTime());
         builder.append(SEPARATOR);
         builder.append(timeMachine.getStartCount());
         builder.append(SEPARATOR);
@@ -56,6 +63,5 @@ public class AgentStatistic implements SampledStatistic<Collection<Agent>> {
             total += balance.getSecond();
         }
         formatStatistic(builder, total, true);
-        last = builder.toString();
     }
 }
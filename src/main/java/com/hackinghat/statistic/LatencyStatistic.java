@@ -0,0 +1,71 @@
+package com.hackinghat.statistic;
+
+import com.hackinghat.util.CsvBuffer;
+import com.hackinghat.util.LatencyRecorder;
+import com.hackinghat.util.TimeMachine;
+
+import java.util.Collection;
+
+import static com.hackinghat.util.Formatters.SEPARATOR;
+
+/**
+ * Each sample ends the interval of every recorder and writes its count and percentiles
+ */
+public class LatencyStatistic implements SampledStatistic<Collection<LatencyRecorder>> {
+
+    private final Collection<LatencyRecorder> recorders;
+    private final TimeMachine timeMachine;
+    private final CsvBuffer last;
+
+    public LatencyStatistic(final TimeMachine timeMachine, final Collection<LatencyRecorder> recorders) {
+        this.timeMachine = timeMachine;
+        this.recorders = recorders;
+        this.last = new CsvBuffer();
+    }
+
+    public String getHeaders() {
+        final StringBuilder builder = new StringBuilder();
+        formatString(builder, "T", false);
+        formatString(builder, "Day#", recorders.isEmpty());
+        int remaining = recorders.size();
+        for (final LatencyRecorder recorder : recorders) {
+            formatString(builder, recorder.getName() + " Count", false);
+            formatString(builder, recorder.getName() + " P50", false);
+            formatString(builder, recorder.getName() + " P99", false);
+            formatString(builder, recorder.getName() + " P99.9", false);
+            formatString(builder, recorder.getName() + " Max", --remaining == 0);
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String formatStatistic(final TimeMachine timeMachine) {
+        return last.isEmpty() ? null : last.toString();
+    }
+
+    @Override
+    public void formatStatistic(final TimeMachine timeMachine, final CsvBuffer buffer) {
+        buffer.append(last);
+    }
+
+    @Override
+    public void update(final Collection<LatencyRecorder> item) {
+        assert (item == recorders);
+
+        final CsvBuffer builder = last.reset();
+        builder.appendTime(timeMachine.toSimulationTime());
+        builder.append(SEPARATOR);
+        builder.append(timeMachine.getStartCount());
+        int remaining = recorders.size();
+        if (remaining > 0)
+            builder.append(SEPARATOR);
+        for (final LatencyRecorder recorder : recorders) {
+            recorder.sample();
+            format(builder, recorder.getCount(), false);
+            format(builder, recorder.getP50(), false);
+            format(builder, recorder.getP99(), false);
+            format(builder, recorder.getP999(), false);
+            format(builder, recorder.getMax(), --remaining == 0);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.hackinghat.statistic;
 import com.hackinghat.orderbook.FullDepth;
 import com.hackinghat.orderbook.Level1;
 import com.hackinghat.orderbook.OrderInterest;
+import com.hackinghat.util.CsvBuffer;
 import com.hackinghat.util.Pair;
 import com.hackinghat.util.TimeMachine;
 
@@ -124,13 +125,19 @@ public class OrderBookStatistic implements SampledStatistic<Pair<Level1, FullDep
 
     @Override
     public String formatStatistic(final TimeMachine timeMachine) {
-        StringBuilder statistic = new StringBuilder();
+        final CsvBuffer buffer = new CsvBuffer(512);
+        formatStatistic(timeMachine, buffer);
+        return buffer.isEmpty() ? null : buffer.toString();
+    }
+
+    @Override
+    public void formatStatistic(final TimeMachine timeMachine, final CsvBuffer statistic) {
         // A race condition may result in format statistic being called before we have been 'updated'
         // TODO: probably needs some sort of atomic int or bloolean to count the number of updates before
         // producing output
         if (simulationTime != null) {
-            formatTime(statistic, timeMachine, simulationTime, false);
-            format(statistic, null, timeMachine.getStartCount(), false);
+            formatTime(statistic, simulationTime, false);
+            format(statistic, timeMachine.getStartCount(), false);
             formatString(statistic, marketState, false);
             formatPrice(statistic, bidTouchPrice, false);
             formatPrice(statistic, midTouchPrice, false);
@@ -151,8 +158,6 @@ public class OrderBookStatistic implements SampledStatistic<Pair<Level1, FullDep
             formatStatistic(statistic, bidTouchDepthVar.getValue(), false);
             formatStatistic(statistic, offerTouchDepthVar.getValue(), false);
             formatStatistic(statistic, imbalance, true);
-            return statistic.toString();
         }
-        return null;
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.hackinghat.statistic;
 
+import com.hackinghat.util.CsvBuffer;
 import com.hackinghat.util.TimeMachine;
 
 import java.math.BigDecimal;
@@ -9,8 +10,70 @@ import java.util.function.Function;
 import static com.hackinghat.util.Formatters.*;
 
 public interface Statistic {
+    int PRICE_DECIMALS = 4;
+    int STATISTIC_DECIMALS = 12;
+
     String formatStatistic(final TimeMachine timeMachine);
 
+    /**
+     * Write the statistic as a CSV line (without a line separator) directly into the buffer.  Implementations on the
+     * hot path should override this and use the {@link CsvBuffer} helpers below, which do not allocate.  By default
+     * the string version is appended.
+     *
+     * @param timeMachine the time machine
+     * @param buffer      the buffer to append to
+     */
+    default void formatStatistic(final TimeMachine timeMachine, final CsvBuffer buffer) {
+        buffer.append(formatStatistic(timeMachine));
+    }
+
+    default void separator(final CsvBuffer buffer, final boolean last) {
+        if (!last)
+            buffer.append(SEPARATOR);
+    }
+
+    default void format(final CsvBuffer buffer, final long value, final boolean last) {
+        buffer.append('"').append(value).append('"');
+        separator(buffer, last);
+    }
+
+    default void format(final CsvBuffer buffer, final Long value, final boolean last) {
+        if (value != null)
+            buffer.append('"').append(value.longValue()).append('"');
+        separator(buffer, last);
+    }
+
+    default void formatPrice(final CsvBuffer buffer, final double price, final boolean last) {
+        buffer.append('"').append(price, PRICE_DECIMALS).append('"');
+        separator(buffer, last);
+    }
+
+    default void formatStatistic(final CsvBuffer buffer, final double statistic, final boolean last) {
+        buffer.append('"').append(statistic, STATISTIC_DECIMALS).append('"');
+        separator(buffer, last);
+    }
+
+    default void formatStatistic(final CsvBuffer buffer, final long statistic, final boolean last) {
+        format(buffer, statistic, last);
+    }
+
+    default void formatQuantity(final CsvBuffer buffer, final double quantity, final boolean last) {
+        buffer.append('"').append(quantity, 0).append('"');
+        separator(buffer, last);
+    }
+
+    default void formatTime(final CsvBuffer buffer, final LocalDateTime time, final boolean last) {
+        if (time != null)
+            buffer.append('"').appendTime(time).append('"');
+        separator(buffer, last);
+    }
+
+    default void formatString(final CsvBuffer buffer, final CharSequence string, final boolean last) {
+        if (string != null)
+            buffer.append('"').append(string).append('"');
+        separator(buffer, last);
+    }
+
     default <T> void format(final StringBuilder builder, final Function<T, String> formatter, final T value, final boolean last) {
         if (value != null) {
             builder.append("\"");
@@ -0,0 +1,71 @@
+package com.hackinghat.statistic;
+
+import com.hackinghat.order.OrderSide;
+import com.hackinghat.orderbook.OrderBook;
+import com.hackinghat.orderbook.OrderManager;
+import com.hackinghat.orderbook.OrderThroughput;
+import com.hackinghat.util.CsvBuffer;
+import com.hackinghat.util.TimeMachine;
+
+import static com.hackinghat.util.Formatters.SEPARATOR;
+
+/**
+ * Each sample ends the interval of the manager's {@link OrderThroughput} and writes the rates per second of the
+ * interval, followed by the levels and resting orders on each side of the book
+ */
+public class ThroughputStatistic implements SampledStatistic<OrderManager> {
+    private static final OrderThroughput.Counter[] RATES = {OrderThroughput.Counter.NEW, OrderThroughput.Counter.CANCEL,
+            OrderThroughput.Counter.REPLACE, OrderThroughput.Counter.REJECT, OrderThroughput.Counter.FILL,
+            OrderThroughput.Counter.TRADE, OrderThroughput.Counter.VOLUME};
+
+    private final TimeMachine timeMachine;
+    private final CsvBuffer last;
+
+    public ThroughputStatistic(final TimeMachine timeMachine) {
+        this.timeMachine = timeMachine;
+        this.last = new CsvBuffer();
+    }
+
+    public String getHeaders() {
+        final StringBuilder builder = new StringBuilder();
+        formatString(builder, "T", false);
+        formatString(builder, "Day#", false);
+        for (final OrderThroughput.Counter counter : RATES)
+            formatString(builder, counter + "/s", false);
+        formatString(builder, "Bid Levels", false);
+        formatString(builder, "Offer Levels", false);
+        formatString(builder, "Bid Orders", false);
+        formatString(builder, "Offer Orders", true);
+        return builder.toString();
+    }
+
+    @Override
+    public String formatStatistic(final TimeMachine timeMachine) {
+        return last.isEmpty() ? null : last.toString();
+    }
+
+    @Override
+    public void formatStatistic(final TimeMachine timeMachine, final CsvBuffer buffer) {
+        buffer.append(last);
+    }
+
+    @Override
+    public void update(final OrderManager item) {
+        final OrderThroughput throughput = item.getThroughput();
+        final OrderBook bids = item.getQueue(OrderSide.BUY);
+        final OrderBook offers = item.getQueue(OrderSide.SELL);
+        throughput.sample();
+
+        final CsvBuffer builder = last.reset();
+        builder.appendTime(timeMachine.toSimulationTime());
+        builder.append(SEPARATOR);
+        builder.append(timeMachine.getStartCount());
+        builder.append(SEPARATOR);
+        for (final OrderThroughput.Counter counter : RATES)
+            format(builder, Math.round(throughput.getRate(counter)), false);
+        format(builder, bids.getLevelDepth(), false);
+        format(builder, offers.getLevelDepth(), false);
+        format(builder, bids.getOrderCount(), false);
+        format(builder, offers.getOrderCount(), true);
+    }
+}
@@ -0,0 +1,55 @@
+package com.hackinghat.util;
+
+/**
+ * The distributions of a {@link RandomSource} in terms of its uniform and gaussian samples, so that sources only need to
+ * provide those
+ */
+public abstract class AbstractRandomSource implements RandomSource {
+
+    public abstract long nextLong();
+
+    public abstract double nextGaussian();
+
+    public boolean nextUniform(double threshold) {
+        return nextDouble() <= threshold;
+    }
+
+    public int nextPoisson(double lambda) {
+        double L = Math.exp(-lambda);
+        double p = 1.0;
+        int k = 0;
+
+        do {
+            k++;
+            p *= nextDouble();
+        } while (p > L);
+
+        return k - 1;
+    }
+
+    public double nextExponential(double lambda) {
+        return Math.log(1 - nextDouble()) / (-lambda);
+    }
+
+    public int nextBinomial(int n, double p) {
+        int x = 0;
+        for (int i = 0; i < n; i++) {
+            if (nextDouble() < p)
+                x++;
+        }
+        return x;
+    }
+
+    public double nextLogNormal(final double mean, final double stdev) {
+        return Math.exp(nextGaussian() * stdev + mean);
+    }
+
+    public int nextPower(int xmin, double alpha) {
+        // From: https://arxiv.org/pdf/0706.1062.pdf - an approximation to a power law distribution (good enough for now)
+        return (int) Math.floor(((double) xmin - 0.5) * Math.pow(1.0 - nextDouble(), -1. / (alpha - 1)) + 0.5);
+    }
+
+    public int getBernoulli(double p) {
+        return nextBinomial(1, p);
+    }
+}
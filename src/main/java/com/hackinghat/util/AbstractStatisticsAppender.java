@@ -7,20 +7,58 @@ import org.apache.logging.log4j.Logger;
 import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * The base of the statistics appenders.  Lines are queued, up to a fixed capacity, by the producers and written in
+ * batches by a single consumer, which is either an {@link AppenderPipeline} shared with other appenders or a thread
+ * running this appender directly.  What happens when the queue is full is decided by the {@link BackpressurePolicy}, if
+ * the policy is to block but there is no consumer running then the caller writes the pending lines itself.
+ */
 public abstract class AbstractStatisticsAppender implements Runnable, Closeable {
+    public final static int DEFAULT_CAPACITY = 1 << 16;
+    public final static int DEFAULT_SAMPLE_RATE = 10;
     private final static long DEFAULT_POLL_TIME = 10000L;
     protected final Logger LOG;
     private final LinkedBlockingQueue<String> statsQueue;
     private final AtomicBoolean terminate;
+    private final int capacity;
+    private final ArrayList<String> batch;
+    private final LongAdder dropped;
+    private final LongAdder written;
+    private final AtomicLong sampleCounter;
+    private volatile BackpressurePolicy policy;
+    private volatile int sampleRate;
+    private volatile AppenderPipeline pipeline;
+    private volatile boolean running;
+    private boolean configured;
 
     public AbstractStatisticsAppender() {
-        this.statsQueue = new LinkedBlockingQueue<>();
+        this(DEFAULT_CAPACITY, BackpressurePolicy.BLOCK);
+    }
+
+    /**
+     * @param capacity the maximum number of lines that can be waiting to be written
+     * @param policy   what to do when the capacity is reached
+     */
+    public AbstractStatisticsAppender(final int capacity, final BackpressurePolicy policy) {
+        Objects.requireNonNull(policy);
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be greater than zero");
+        this.capacity = capacity;
+        this.policy = policy;
+        this.sampleRate = DEFAULT_SAMPLE_RATE;
+        this.statsQueue = new LinkedBlockingQueue<>(capacity);
         this.terminate = new AtomicBoolean(false);
+        this.batch = new ArrayList<>();
+        this.dropped = new LongAdder();
+        this.written = new LongAdder();
+        this.sampleCounter = new AtomicLong();
         this.LOG = LogManager.getLogger(getClass().getSimpleName());
     }
 
@@ -35,7 +73,7 @@ public abstract class AbstractStatisticsAppender implements Runnable, Closeable
     public void append(final String item) {
         if (item == null)
             return;
-        statsQueue.add(item);
+        enqueue(item);
     }
 
     public void append(final TimeMachine timeMachine, final Statistic... items) {
@@ -45,11 +83,152 @@ public abstract class AbstractStatisticsAppender implements Runnable, Closeable
             if (item != null) {
                 final String stringItem = item.formatStatistic(timeMachine);
                 if (stringItem != null && stringItem.length() > 0)
-                    statsQueue.add(stringItem);
+                    enqueue(stringItem);
+            }
+        }
+    }
+
+    private void enqueue(final String item) {
+        if (!admit(statsQueue.size()))
+            return;
+        if (!statsQueue.offer(item)) {
+            if (policy == BackpressurePolicy.BLOCK && hasConsumer()) {
+                requestFlush();
+                try {
+                    statsQueue.put(item);
+                } catch (final InterruptedException iex) {
+                    Thread.currentThread().interrupt();
+                    dropped.increment();
+                }
+            } else if (policy == BackpressurePolicy.BLOCK) {
+                // Nothing would ever make space, so rather than lose the line the caller writes what's pending itself
+                ensureConfigured();
+                flush(capacity);
+                if (!statsQueue.offer(item))
+                    dropped.increment();
+            } else {
+                dropped.increment();
             }
         }
+        requestFlush(statsQueue.size());
     }
 
+    /**
+     * Decide whether a new line should be accepted given the number of lines already pending, a line that isn't accepted
+     * is counted as dropped.  When the policy is {@link BackpressurePolicy#BLOCK} the line is always accepted, and it
+     * is up to the caller to wait for space.
+     *
+     * @param depth the number of lines currently pending
+     * @return true if the line should be accepted
+     */
+    protected final boolean admit(final long depth) {
+        switch (policy) {
+            case BLOCK:
+                return true;
+            case DROP:
+                if (depth < capacity)
+                    return true;
+                break;
+            case SAMPLE:
+                if (depth < capacity / 2 || (depth < capacity && sampleCounter.incrementAndGet() % sampleRate == 0))
+                    return true;
+                break;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    /**
+     * @return true if there's something actively writing this appender's lines, if there isn't then waiting for space
+     * would never finish
+     */
+    protected final boolean hasConsumer() {
+        final AppenderPipeline current = pipeline;
+        return running || (current != null && current.isRunning());
+    }
+
+    /**
+     * Ask the pipeline (if any) to write the pending lines now rather than waiting for its linger time to elapse
+     */
+    protected final void requestFlush() {
+        final AppenderPipeline current = pipeline;
+        if (current != null)
+            current.wakeUp();
+    }
+
+    /**
+     * Ask the pipeline to write the pending lines if there's at least a batch of them
+     */
+    protected final void requestFlush(final long depth) {
+        final AppenderPipeline current = pipeline;
+        if (current != null && depth >= current.getBatchLines())
+            current.wakeUp();
+    }
+
+    void attach(final AppenderPipeline pipeline) {
+        if (this.pipeline != null && this.pipeline != pipeline)
+            throw new IllegalStateException(getName() + " is already attached to " + this.pipeline.getName());
+        this.pipeline = pipeline;
+    }
+
+    void detach() {
+        this.pipeline = null;
+    }
+
+    public String getName() {
+        return getClass().getSimpleName();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public BackpressurePolicy getPolicy() {
+        return policy;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Change what happens when the queue is full
+     *
+     * @param policy     the new policy
+     * @param sampleRate when sampling, keep one line in this many
+     */
+    public void setBackpressure(final BackpressurePolicy policy, final int sampleRate) {
+        Objects.requireNonNull(policy);
+        if (sampleRate <= 0)
+            throw new IllegalArgumentException("Sample rate must be greater than zero");
+        this.sampleRate = sampleRate;
+        this.policy = policy;
+    }
+
+    /**
+     * Count a line that an appender couldn't write, e.g. because it isn't something the appender knows how to write
+     */
+    protected final void drop() {
+        dropped.increment();
+    }
+
+    /**
+     * @return the number of lines that have been dropped, normally because the writer had fallen behind
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return the number of lines handed to {@link #process(Collection)} (or its equivalent)
+     */
+    public long getWritten() {
+        return written.sum();
+    }
+
+    /**
+     * @return the number of lines waiting to be written
+     */
     public long size() {
         return statsQueue.size();
     }
@@ -63,31 +242,80 @@ public abstract class AbstractStatisticsAppender implements Runnable, Closeable
     @Override
     public void close() {
         terminate();
+        final AppenderPipeline current = pipeline;
+        if (current != null)
+            current.remove(this);
+    }
+
+    /**
+     * Write up to {@code maxLines} pending lines, only ever called by one consumer at a time
+     *
+     * @param maxLines the maximum number of lines to write, implementations that write everything pending in one go
+     *                 are free to ignore it
+     * @return the number of lines written
+     */
+    int writeBatch(final int maxLines) {
+        statsQueue.drainTo(batch, maxLines - batch.size());
+        if (batch.isEmpty())
+            return 0;
+        final int lines = batch.size();
+        try {
+            process(batch);
+        } finally {
+            batch.clear();
+        }
+        return lines;
+    }
+
+    final int flush(final int maxLines) {
+        synchronized (batch) {
+            try {
+                final int lines = writeBatch(maxLines);
+                written.add(lines);
+                return lines;
+            } catch (final Throwable t) {
+                LOG.error("Error writing statistics: ", t);
+                return 0;
+            }
+        }
     }
 
     void writePending() {
         try {
-            List<String> itemsToAppend = new ArrayList<>();
             final String item = statsQueue.poll(DEFAULT_POLL_TIME, TimeUnit.MICROSECONDS);
             if (item != null) {
-                itemsToAppend.add(item);
-                statsQueue.drainTo(itemsToAppend);
-                process(itemsToAppend);
+                synchronized (batch) {
+                    batch.add(item);
+                }
+                flush(Integer.MAX_VALUE);
             }
         } catch (final InterruptedException iex) {
             if (LOG.isTraceEnabled())
                 LOG.trace("Awoke prematurely from poll", iex);
-        } catch (final Throwable t) {
-            LOG.error("Error writing statistics: ", t);
         }
     }
 
     abstract void configure();
 
+    /**
+     * Configure the appender, unless it has been configured already
+     */
+    final synchronized void ensureConfigured() {
+        if (!configured) {
+            configure();
+            configured = true;
+        }
+    }
+
     public void run() {
-        configure();
-        while (!terminate.get()) {
-            writePending();
+        ensureConfigured();
+        running = true;
+        try {
+            while (!terminate.get()) {
+                writePending();
+            }
+        } finally {
+            running = false;
         }
     }
 }
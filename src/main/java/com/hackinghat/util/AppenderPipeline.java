@@ -0,0 +1,229 @@
+package com.hackinghat.util;
+
+import com.hackinghat.util.component.AbstractComponent;
+import com.hackinghat.util.mbean.MBeanAttribute;
+import com.hackinghat.util.mbean.MBeanOperation;
+import com.hackinghat.util.mbean.MBeanType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes the pending lines of any number of {@link AbstractStatisticsAppender}s from a single I/O thread, rather than
+ * each appender occupying (and polling from) a thread of its own.  The thread sleeps until either an appender has a
+ * full batch of lines pending or the linger time elapses, it then writes everything that is pending, a batch at a time.
+ * <p>
+ * The pipeline should be run by exactly one thread, when that thread is terminated it writes whatever is still pending
+ * before it exits.
+ */
+@MBeanType(description = "Statistics appender pipeline")
+public class AppenderPipeline extends AbstractComponent implements Runnable {
+    private static final Logger LOG = LogManager.getLogger(AppenderPipeline.class);
+    public final static int DEFAULT_BATCH_LINES = 512;
+    public final static Duration DEFAULT_LINGER = Duration.ofMillis(10L);
+
+    private final List<AbstractStatisticsAppender> appenders;
+    private final Object signal = new Object();
+    private final int batchLines;
+    private final long lingerNanos;
+    private final AtomicBoolean terminate;
+    private final AtomicLong batchesWritten;
+    private final LatencyRecorder writeLatency;
+    private volatile boolean signalled;
+    private volatile boolean running;
+
+    public AppenderPipeline(final String name) {
+        this(name, DEFAULT_BATCH_LINES, DEFAULT_LINGER);
+    }
+
+    /**
+     * @param name       the component name
+     * @param batchLines the number of lines that are written in one go, an appender with this many lines pending will
+     *                   wake the pipeline
+     * @param linger     the longest time that a line will wait before it is written (when the pipeline is keeping up)
+     */
+    public AppenderPipeline(final String name, final int batchLines, final Duration linger) {
+        super(name);
+        Objects.requireNonNull(linger);
+        if (batchLines <= 0)
+            throw new IllegalArgumentException("Batch lines must be greater than zero");
+        if (linger.isNegative() || linger.isZero())
+            throw new IllegalArgumentException("Linger must be greater than zero");
+        this.appenders = new CopyOnWriteArrayList<>();
+        this.batchLines = batchLines;
+        this.lingerNanos = linger.toNanos();
+        this.terminate = new AtomicBoolean(false);
+        this.batchesWritten = new AtomicLong();
+        this.writeLatency = require(new LatencyRecorder(name + "-Write"));
+    }
+
+    /**
+     * Add an appender so that its lines are written by this pipeline, the appender is configured when the pipeline
+     * starts running (or immediately if it is running already)
+     *
+     * @param appender the appender to add (can be null, in which case nothing happens)
+     * @return the appender
+     */
+    public <A extends AbstractStatisticsAppender> A add(final A appender) {
+        if (appender == null)
+            return null;
+        appender.attach(this);
+        if (!appenders.contains(appender))
+            appenders.add(appender);
+        if (running)
+            appender.ensureConfigured();
+        return appender;
+    }
+
+    /**
+     * Write anything the appender has pending and stop writing for it, this is called when an appender is closed
+     */
+    public boolean remove(final AbstractStatisticsAppender appender) {
+        if (!appenders.remove(appender))
+            return false;
+        drain(appender);
+        appender.detach();
+        return true;
+    }
+
+    public int getBatchLines() {
+        return batchLines;
+    }
+
+    /**
+     * @return the time taken to write each batch
+     */
+    public LatencyRecorder getWriteLatency() {
+        return writeLatency;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    void wakeUp() {
+        if (signalled)
+            return;
+        synchronized (signal) {
+            signalled = true;
+            signal.notify();
+        }
+    }
+
+    private int drain(final AbstractStatisticsAppender appender) {
+        int total = 0;
+        int lines;
+        long start = System.nanoTime();
+        while ((lines = appender.flush(batchLines)) > 0) {
+            final long end = System.nanoTime();
+            writeLatency.record(end - start);
+            start = end;
+            total += lines;
+            batchesWritten.incrementAndGet();
+        }
+        return total;
+    }
+
+    /**
+     * Write everything that's pending for every appender, normally this is only called by the pipeline thread but is
+     * available for callers (and tests) that need the writes to happen synchronously.
+     *
+     * @return the number of lines written
+     */
+    public int flush() {
+        int total = 0;
+        for (final AbstractStatisticsAppender appender : appenders)
+            total += drain(appender);
+        return total;
+    }
+
+    @Override
+    public void run() {
+        running = true;
+        for (final AbstractStatisticsAppender appender : appenders)
+            appender.ensureConfigured();
+        try {
+            while (!terminate.get()) {
+                synchronized (signal) {
+                    if (!signalled)
+                        TimeUnit.NANOSECONDS.timedWait(signal, lingerNanos);
+                    signalled = false;
+                }
+                flush();
+            }
+        } catch (final InterruptedException iex) {
+            if (LOG.isTraceEnabled())
+                LOG.trace(getName() + " interrupted, writing pending lines and exiting", iex);
+        } finally {
+            running = false;
+            flush();
+        }
+    }
+
+    @MBeanOperation(description = "AppenderPipeline:terminate")
+    public void terminate() {
+        terminate.set(true);
+        wakeUp();
+    }
+
+    @Override
+    public void close() {
+        terminate();
+        super.close();
+    }
+
+    @MBeanAttribute(description = "Number of appenders")
+    public int getAppenderCount() {
+        return appenders.size();
+    }
+
+    @MBeanAttribute(description = "Lines waiting to be written")
+    public long getQueueDepth() {
+        long depth = 0L;
+        for (final AbstractStatisticsAppender appender : appenders)
+            depth += appender.size();
+        return depth;
+    }
+
+    @MBeanAttribute(description = "Lines dropped by backpressure")
+    public long getDropped() {
+        long dropped = 0L;
+        for (final AbstractStatisticsAppender appender : appenders)
+            dropped += appender.getDropped();
+        return dropped;
+    }
+
+    @MBeanAttribute(description = "Lines written")
+    public long getLinesWritten() {
+        long written = 0L;
+        for (final AbstractStatisticsAppender appender : appenders)
+            written += appender.getWritten();
+        return written;
+    }
+
+    @MBeanAttribute(description = "Batches written")
+    public long getBatchesWritten() {
+        return batchesWritten.get();
+    }
+
+    @MBeanAttribute(description = "Per appender depth/dropped/written")
+    public String getAppenderSummary() {
+        final StringBuilder summary = new StringBuilder();
+        for (final AbstractStatisticsAppender appender : appenders) {
+            if (summary.length() > 0)
+                summary.append(", ");
+            summary.append(appender.getName()).append("[").append(appender.getPolicy())
+                    .append(" depth=").append(appender.size()).append("/").append(appender.getCapacity())
+                    .append(" dropped=").append(appender.getDropped())
+                    .append(" written=").append(appender.getWritten()).append("]");
+        }
+        return summary.toString();
+    }
+}
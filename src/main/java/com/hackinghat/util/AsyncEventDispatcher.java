@@ -5,6 +5,7 @@ import com.hackinghat.util.mbean.MBeanType;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.*;
@@ -19,6 +20,7 @@ public class AsyncEventDispatcher extends EventDispatcher {
     private final Object sync = new Object();
     private final AtomicBoolean shuttingDown;
     private final TimeMachine timeMachine;
+    private final LatencyRecorder dispatchLatency;
 
     public AsyncEventDispatcher(final ScheduledExecutorService threadPoolExecutor, final TimeMachine timeMachine) {
         super("AsyncEventDispatcher");
@@ -26,11 +28,17 @@ public class AsyncEventDispatcher extends EventDispatcher {
         this.scheduledFutures = new ConcurrentSkipListSet<>();
         this.shuttingDown = new AtomicBoolean(false);
         this.timeMachine = timeMachine;
+        this.dispatchLatency = require(new LatencyRecorder(getName() + "-Dispatch"));
     }
 
     private <T extends Event> ScheduledFuture<?> _dispatch(final T event, final long wallTimeToWait) {
         final Event publicCopy = event.copy();
-        final ScheduledFuture<?> schedule = threadPoolExecutor.schedule(() -> dispatchSync(publicCopy), wallTimeToWait, TimeUnit.NANOSECONDS);
+        // The latency is from when the event was due until every listener has been told
+        final long dueNanos = System.nanoTime() + wallTimeToWait;
+        final ScheduledFuture<?> schedule = threadPoolExecutor.schedule(() -> {
+            dispatchSync(publicCopy);
+            dispatchLatency.recordSince(dueNanos);
+        }, wallTimeToWait, TimeUnit.NANOSECONDS);
         scheduledFutures.add(schedule);
         eventDispatched();
         clearFutures();
@@ -52,6 +60,11 @@ public class AsyncEventDispatcher extends EventDispatcher {
         _dispatch(event, 0L);
     }
 
+    @Override
+    public List<LatencyRecorder> getLatencyRecorders() {
+        return List.of(dispatchLatency);
+    }
+
     @Override
     public ScheduledFuture<?> schedule(final Callable<?> callable, final long nanosToWait) {
         Objects.requireNonNull(callable);
@@ -0,0 +1,20 @@
+package com.hackinghat.util;
+
+/**
+ * What a statistics appender does when its queue of pending lines is full, i.e. the writer has fallen behind
+ */
+public enum BackpressurePolicy {
+    /**
+     * The producer waits for the writer to make space, nothing is lost but a stalled disk will stall the producer
+     */
+    BLOCK,
+    /**
+     * New lines are dropped (and counted) while the queue is full
+     */
+    DROP,
+    /**
+     * Once the queue is more than half full only one in every 'sample rate' lines is kept, the others are dropped (and
+     * counted).  When the queue is full everything is dropped.
+     */
+    SAMPLE
+}
@@ -0,0 +1,142 @@
+package com.hackinghat.util;
+
+import com.hackinghat.statistic.Statistic;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An alternative to the {@link FileStatisticsAppender} for the trade and order tapes.  Rather than formatting each
+ * statistic to a CSV line and queueing it for a writer thread the statistic is written directly, as a fixed width
+ * binary record, into a memory-mapped {@link TapeSegment}.  When a segment is full the appender rolls over to a new
+ * segment file.  The segments can be converted to CSV offline with {@link BinaryTapeReader}.
+ */
+public class BinaryTapeAppender extends AbstractStatisticsAppender {
+    private final static DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmssSSSSSS");
+    private final static int DEFAULT_SEGMENT_RECORDS = 1 << 16;
+
+    private final TapeLayout layout;
+    private final String baseName;
+    private final int segmentRecords;
+    private final List<Path> segmentPaths;
+
+    private TapeSegment segment;
+    private long recordsWritten;
+
+    public BinaryTapeAppender(final TapeLayout layout, final Instant creationTime, final String fileName) {
+        this(layout, creationTime, fileName, DEFAULT_SEGMENT_RECORDS);
+    }
+
+    public BinaryTapeAppender(final TapeLayout layout, final Instant creationTime, final String fileName, final int segmentRecords) {
+        super();
+        Objects.requireNonNull(layout);
+        Objects.requireNonNull(fileName);
+
+        if (fileName.length() == 0)
+            throw new IllegalArgumentException("No filename specified for binary tape");
+        if (segmentRecords <= 0)
+            throw new IllegalArgumentException("Segment records should be greater than zero");
+
+        this.layout = layout;
+        this.baseName = fileName + "." + TIME_FORMATTER.format(creationTime.atZone(ZoneId.systemDefault()));
+        this.segmentRecords = segmentRecords;
+        this.segmentPaths = new ArrayList<>();
+        this.recordsWritten = 0L;
+    }
+
+    /**
+     * The full segment isn't forced, that would stall the appending (matching) thread on the disk, the operating system
+     * writes its pages back in its own time.  Only the last segment is forced, when the appender is closed.
+     */
+    private void roll() {
+        final Path path = Paths.get(String.format("%s.%05d.tape", baseName, segmentPaths.size()));
+        try {
+            segment = TapeSegment.create(path, layout, segmentRecords);
+            segmentPaths.add(path);
+        } catch (final IOException ioex) {
+            segment = null;
+            throw new IllegalArgumentException("Unable to create binary tape segment: " + path, ioex);
+        }
+    }
+
+    @Override
+    public synchronized void configure() {
+        if (segment == null)
+            roll();
+    }
+
+    /**
+     * Only statistics can be written to a binary tape, anything else is counted as dropped rather than failing the
+     * caller (which is normally the matching thread)
+     */
+    @Override
+    public void append(final String item) {
+        if (item != null)
+            dropUnexpected(item);
+    }
+
+    private void dropUnexpected(final Object item) {
+        if (getDropped() == 0L)
+            LOG.error("Binary tape only accepts statistics of layout: " + layout + ", dropping: " + item);
+        drop();
+    }
+
+    @Override
+    public synchronized void append(final TimeMachine timeMachine, final Statistic... items) {
+        if (items == null)
+            return;
+        for (final Statistic item : items) {
+            if (item == null)
+                continue;
+            if (!layout.accepts(item)) {
+                dropUnexpected(item);
+                continue;
+            }
+            if (segment == null || segment.isFull())
+                roll();
+            layout.encode(segment, segment.getCount(), timeMachine, item);
+            segment.commit();
+            recordsWritten++;
+        }
+    }
+
+    public synchronized long getRecordsWritten() {
+        return recordsWritten;
+    }
+
+    /**
+     * @return the segment files written so far, in the order they were written
+     */
+    public synchronized List<Path> getSegmentPaths() {
+        return new ArrayList<>(segmentPaths);
+    }
+
+    @Override
+    protected void process(final Collection<String> lines) {
+        // Nothing is ever queued, records are written as they are appended
+    }
+
+    /**
+     * There is no need for a writer thread, the records are in the mapped segment as soon as they are appended and the
+     * operating system will write them back.  Running the appender only creates the first segment.
+     */
+    @Override
+    public void run() {
+        configure();
+    }
+
+    @Override
+    public synchronized void close() {
+        super.close();
+        if (segment != null)
+            segment.close();
+    }
+}
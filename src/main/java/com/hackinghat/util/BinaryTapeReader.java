@@ -0,0 +1,90 @@
+package com.hackinghat.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static com.hackinghat.util.Formatters.SEPARATOR;
+
+/**
+ * Reads the segments written by a {@link BinaryTapeAppender} and exports them as CSV, in the same quoted style as the
+ * {@link FileStatisticsAppender}.  Usage: {@code BinaryTapeReader <segment>...}, the CSV is written to stdout.
+ */
+public class BinaryTapeReader {
+    private static final Logger LOG = LogManager.getLogger(BinaryTapeReader.class);
+
+    private final List<Path> segmentPaths;
+
+    public BinaryTapeReader(final List<Path> segmentPaths) {
+        Objects.requireNonNull(segmentPaths);
+        if (segmentPaths.isEmpty())
+            throw new IllegalArgumentException("No tape segments to read");
+        this.segmentPaths = new ArrayList<>(segmentPaths);
+    }
+
+    private static void quote(final Appendable out, final String value, final boolean last) throws IOException {
+        out.append('"').append(value).append('"');
+        if (!last)
+            out.append(SEPARATOR);
+    }
+
+    /**
+     * Write every committed record in the segments as a CSV line, preceded by a header line
+     *
+     * @param out where to write the CSV
+     * @return the number of records exported
+     * @throws IOException if a segment could not be read, does not share the layout of the first segment or the output
+     *                     could not be written
+     */
+    public long exportCsv(final Appendable out) throws IOException {
+        TapeLayout layout = null;
+        long records = 0L;
+        for (final Path path : segmentPaths) {
+            final TapeSegment segment = TapeSegment.open(path);
+            final List<TapeColumn> columns = segment.getLayout().getColumns();
+            if (layout == null) {
+                layout = segment.getLayout();
+                for (int column = 0; column < columns.size(); ++column)
+                    quote(out, columns.get(column).getName(), column == columns.size() - 1);
+                out.append(System.lineSeparator());
+            } else if (layout != segment.getLayout()) {
+                throw new IOException("Segment: " + path + " has layout: " + segment.getLayout() + ", expected: " + layout);
+            }
+            for (int row = 0; row < segment.getCount(); ++row) {
+                for (int column = 0; column < columns.size(); ++column)
+                    quote(out, layout.format(segment, column, row), column == columns.size() - 1);
+                out.append(System.lineSeparator());
+                records++;
+            }
+        }
+        return records;
+    }
+
+    public static void main(final String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: BinaryTapeReader <segment>...");
+            return;
+        }
+        final List<Path> paths = new ArrayList<>();
+        for (final String arg : args)
+            paths.add(Paths.get(arg));
+        try {
+            final Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            final long records = new BinaryTapeReader(paths).exportCsv(out);
+            out.flush();
+            LOG.info("Exported " + records + " records from " + paths.size() + " segment(s)");
+        } catch (final IOException ioex) {
+            LOG.error("Unable to export tape: ", ioex);
+        }
+    }
+}
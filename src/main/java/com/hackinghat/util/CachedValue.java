@@ -1,5 +1,6 @@
 package com.hackinghat.util;
 
+import com.hackinghat.util.jfr.CachedValueRefreshEvent;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -11,7 +12,13 @@ import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
-public class CachedValue<CachedType extends Timestampable & Copyable> {
+/**
+ * A value that is refreshed on the event dispatcher when it is found to be older than its maximum age.  The cached
+ * instance is shared between all readers and so must be immutable.
+ *
+ * @param <CachedType> the type of the cached value
+ */
+public class CachedValue<CachedType extends Timestamped> {
     private static final Logger LOG = LogManager.getLogger(CachedValue.class);
     private final Class<CachedType> clazz;
     private final Supplier<CachedType> cachedValueProvider;
@@ -55,6 +62,8 @@ public class CachedValue<CachedType extends Timestampable & Copyable> {
     }
 
     CachedType _get() {
+        final CachedValueRefreshEvent refresh = new CachedValueRefreshEvent();
+        refresh.begin();
         try {
             final CachedType temp = cachedValueProvider.get();
             if (temp == null && !allowNull)
@@ -65,6 +74,7 @@ public class CachedValue<CachedType extends Timestampable & Copyable> {
                 cachedValue = new AtomicReference<>(temp);
             else
                 cachedValue.set(temp);
+            refresh.commit(clazz, temp != null);
             return temp;
         } catch (final Throwable t) {
             LOG.error("Unexptected exception trying to get cached value for type: " +
@@ -94,14 +104,8 @@ public class CachedValue<CachedType extends Timestampable & Copyable> {
         return inProgress;
     }
 
-    @SuppressWarnings("unchecked")
     CachedType peek() {
-        if (cachedValue == null)
-            return null;
-        CachedType returnValue = cachedValue.get();
-        if (returnValue == null)
-            return null;
-        return (CachedType) returnValue.copy();
+        return cachedValue == null ? null : cachedValue.get();
     }
 
     public CachedType get() {
@@ -0,0 +1,119 @@
+package com.hackinghat.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A push-based alternative to {@link CachedValue}.  The owner of the underlying state (normally the matching thread)
+ * marks the value as {@link #changed()} and then calls {@link #publish()}, which will recalculate the value at most
+ * once every {@code minInterval} of simulation time.  Readers only ever perform a single volatile read, they never
+ * copy the value or schedule a refresh, so the published value must not be modified by anyone.
+ *
+ * @param <T> the type of the value, which only exposes its time and can't be re-timed by a reader
+ */
+public class ConflatedValue<T extends Timestamped> {
+    private static final Logger LOG = LogManager.getLogger(ConflatedValue.class);
+    private final Class<T> clazz;
+    private final TimeMachine timeMachine;
+    private final Duration minInterval;
+    private final Supplier<T> valueProvider;
+    private volatile T value;
+    private LocalDateTime lastPublished;
+    private boolean changed;
+
+    /**
+     * @param clazz         the class of the conflated type
+     * @param timeMachine   the source of simulation time
+     * @param minInterval   the minimum simulation time between two publications, zero publishes every change
+     * @param valueProvider a functional interface that calculates a new value of clazz
+     */
+    public ConflatedValue(final Class<T> clazz, final TimeMachine timeMachine, final Duration minInterval, final Supplier<T> valueProvider) {
+        Objects.requireNonNull(clazz);
+        Objects.requireNonNull(timeMachine);
+        Objects.requireNonNull(minInterval);
+        Objects.requireNonNull(valueProvider);
+
+        this.clazz = clazz;
+        this.timeMachine = timeMachine;
+        this.minInterval = minInterval;
+        this.valueProvider = valueProvider;
+        this.value = null;
+        this.lastPublished = null;
+        this.changed = true;
+    }
+
+    /**
+     * The last published value, if nothing has been published yet then a value is published now
+     *
+     * @return the latest published value
+     */
+    public T get() {
+        final T current = value;
+        return current != null ? current : publishNow();
+    }
+
+    /**
+     * Mark the underlying state as having changed, the next {@link #publish()} that is outside the minimum interval
+     * will recalculate the value.
+     */
+    public synchronized void changed() {
+        changed = true;
+    }
+
+    /**
+     * Forget when the value was last published, the time machine may have been restarted and so the next publication
+     * could appear to be in the past.
+     */
+    public synchronized void reset() {
+        lastPublished = null;
+        changed = true;
+    }
+
+    /**
+     * Publish a new value if one is due
+     *
+     * @return true if a new value was published
+     */
+    public synchronized boolean publish() {
+        return changed && publish(timeMachine.toSimulationTime());
+    }
+
+    synchronized boolean publish(final LocalDateTime now) {
+        Objects.requireNonNull(now);
+        if (!changed)
+            return false;
+        if (lastPublished != null && lastPublished.plus(minInterval).isAfter(now))
+            return false;
+        return calculate(now) != null;
+    }
+
+    /**
+     * Publish a new value regardless of whether it has changed or a minimum interval has elapsed
+     *
+     * @return the new value, or null if it could not be calculated
+     */
+    public synchronized T publishNow() {
+        return calculate(timeMachine.toSimulationTime());
+    }
+
+    private T calculate(final LocalDateTime now) {
+        try {
+            final T temp = valueProvider.get();
+            if (temp != null) {
+                value = temp;
+                lastPublished = now;
+                changed = false;
+            }
+            return temp;
+        } catch (final Throwable t) {
+            LOG.error("Unexpected exception trying to calculate conflated value for type: " +
+                    clazz.getSimpleName() + ", value ignored", t);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,214 @@
+package com.hackinghat.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * A reusable, growable byte buffer for writing CSV without allocating.  Numbers are written directly as ASCII digits,
+ * decimals are written in fixed-point (rounded to a number of decimal places with trailing zeros removed) and times are
+ * written as {@code HH:mm:ss.SSSSSS}, the same as {@link TimeMachine#formatTime(LocalDateTime)}.  Characters outside
+ * of ASCII are replaced with '?'.
+ * <p>
+ * The buffer is not thread-safe, it's intended to be reset and reused by a single writer.
+ */
+public class CsvBuffer {
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L
+    };
+    public static final int MAX_DECIMALS = POWERS_OF_TEN.length - 1;
+    private static final byte[] LONG_MIN = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+    private byte[] bytes;
+    private int length;
+    private int lines;
+
+    public CsvBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public CsvBuffer(final int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be greater than zero");
+        this.bytes = new byte[capacity];
+        this.length = 0;
+        this.lines = 0;
+    }
+
+    private void ensure(final int extra) {
+        if (length + extra > bytes.length)
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @return the number of times {@link #newLine()} has been called since the last reset
+     */
+    public int lines() {
+        return lines;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    public CsvBuffer reset() {
+        length = 0;
+        lines = 0;
+        return this;
+    }
+
+    /**
+     * Discard anything written after {@code mark}, a previous value of {@link #length()}
+     */
+    public CsvBuffer truncate(final int mark) {
+        if (mark < 0 || mark > length)
+            throw new IllegalArgumentException("Invalid mark: " + mark + ", length: " + length);
+        length = mark;
+        return this;
+    }
+
+    public CsvBuffer append(final char c) {
+        ensure(1);
+        bytes[length++] = c < 128 ? (byte) c : (byte) '?';
+        return this;
+    }
+
+    public CsvBuffer append(final CharSequence chars) {
+        if (chars == null)
+            return this;
+        final int n = chars.length();
+        ensure(n);
+        for (int i = 0; i < n; ++i) {
+            final char c = chars.charAt(i);
+            bytes[length++] = c < 128 ? (byte) c : (byte) '?';
+        }
+        return this;
+    }
+
+    public CsvBuffer append(final CsvBuffer other) {
+        ensure(other.length);
+        System.arraycopy(other.bytes, 0, bytes, length, other.length);
+        length += other.length;
+        return this;
+    }
+
+    public CsvBuffer newLine() {
+        append('\n');
+        lines++;
+        return this;
+    }
+
+    public CsvBuffer append(final long value) {
+        if (value == Long.MIN_VALUE) {
+            ensure(LONG_MIN.length);
+            System.arraycopy(LONG_MIN, 0, bytes, length, LONG_MIN.length);
+            length += LONG_MIN.length;
+            return this;
+        }
+        long remaining = value;
+        if (remaining < 0) {
+            append('-');
+            remaining = -remaining;
+        }
+        final int digits = digits(remaining);
+        ensure(digits);
+        for (int i = length + digits - 1; i >= length; --i) {
+            bytes[i] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        length += digits;
+        return this;
+    }
+
+    private static int digits(final long positive) {
+        int digits = 1;
+        long limit = 10;
+        while (digits < 19 && positive >= limit) {
+            digits++;
+            limit *= 10;
+        }
+        return digits;
+    }
+
+    private CsvBuffer appendPadded(final long value, final int width) {
+        ensure(width);
+        long remaining = value;
+        for (int i = length + width - 1; i >= length; --i) {
+            bytes[i] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        length += width;
+        return this;
+    }
+
+    /**
+     * Write a decimal rounded to {@code decimals} places with any trailing zeros (and the decimal point if there is no
+     * fraction left) removed.  Values too large to be represented in fixed-point, infinities and NaN fall back to
+     * {@link Double#toString(double)}.
+     *
+     * @param value    the value to write
+     * @param decimals the maximum number of decimal places, up to {@link #MAX_DECIMALS}
+     * @return this buffer
+     */
+    public CsvBuffer append(final double value, final int decimals) {
+        if (decimals < 0 || decimals > MAX_DECIMALS)
+            throw new IllegalArgumentException("Decimals should be between 0 and " + MAX_DECIMALS + ", was: " + decimals);
+        final long scale = POWERS_OF_TEN[decimals];
+        final double scaled = Math.abs(value) * scale;
+        if (Double.isNaN(value) || scaled >= Long.MAX_VALUE)
+            return append(Double.toString(value));
+        final long fixed = Math.round(scaled);
+        if (value < 0 && fixed != 0)
+            append('-');
+        return appendFixed(fixed, decimals);
+    }
+
+    /**
+     * Write a non-negative fixed-point value, i.e. {@code value / 10^decimals}, trimming trailing zeros
+     */
+    public CsvBuffer appendFixed(final long value, final int decimals) {
+        final long scale = POWERS_OF_TEN[decimals];
+        append(value / scale);
+        long fraction = value % scale;
+        if (fraction != 0) {
+            int width = decimals;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                width--;
+            }
+            append('.');
+            appendPadded(fraction, width);
+        }
+        return this;
+    }
+
+    /**
+     * Write the time of day as {@code HH:mm:ss.SSSSSS}
+     */
+    public CsvBuffer appendTime(final LocalDateTime time) {
+        appendPadded(time.getHour(), 2);
+        append(':');
+        appendPadded(time.getMinute(), 2);
+        append(':');
+        appendPadded(time.getSecond(), 2);
+        append('.');
+        return appendPadded(time.getNano() / 1000, 6);
+    }
+
+    public void writeTo(final OutputStream out) throws IOException {
+        out.write(bytes, 0, length);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+    }
+}
@@ -9,6 +9,8 @@ import java.util.Objects;
 public abstract class Event implements Copyable<Event>, Comparable<Event> {
     protected Object sender;
     protected LocalDateTime simulationTime;
+    // When the event was queued for processing, see System#nanoTime, it's only for measuring latency
+    private long queuedNanos;
 
     public Event() {
     }
@@ -37,6 +39,15 @@ public abstract class Event implements Copyable<Event>, Comparable<Event> {
         this.simulationTime = simulationTime;
     }
 
+    @JsonIgnore
+    public long getQueuedNanos() {
+        return queuedNanos;
+    }
+
+    public void setQueuedNanos(final long queuedNanos) {
+        this.queuedNanos = queuedNanos;
+    }
+
     public boolean isSender(final Object querySender) {
         return System.identityHashCode(querySender) == System.identityHashCode(sender);
     }
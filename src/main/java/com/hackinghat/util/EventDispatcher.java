@@ -8,6 +8,7 @@ import org.apache.logging.log4j.Logger;
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Responsible for publication of an {@link Event}. This is centralised and delegated away to prevent both
@@ -19,7 +20,8 @@ public abstract class EventDispatcher extends AbstractComponent {
     private static final Logger LOG = LogManager.getLogger(EventDispatcher.class);
 
     private final Map<Class<? extends Event>, List<Listener>> observerMap;
-    private int eventsDispatched = 0;
+    // Dispatch can happen on any of the scheduler's threads
+    private final LongAdder eventsDispatched = new LongAdder();
 
     EventDispatcher(final String name) {
         super(name);
@@ -27,15 +29,22 @@ public abstract class EventDispatcher extends AbstractComponent {
     }
 
     @MBeanAttribute(description = "Events dispatched")
-    public int getEventsDispatched() {
-        return eventsDispatched;
+    public long getEventsDispatched() {
+        return eventsDispatched.sum();
+    }
+
+    /**
+     * @return the latencies the dispatcher measures, if any
+     */
+    public List<LatencyRecorder> getLatencyRecorders() {
+        return Collections.emptyList();
     }
 
     /**
      * Should be called by dispatchers after completion of dispatch
      */
     void eventDispatched() {
-        eventsDispatched++;
+        eventsDispatched.increment();
     }
 
     /**
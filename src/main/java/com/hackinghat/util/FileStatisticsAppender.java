@@ -2,9 +2,9 @@ package com.hackinghat.util;
 
 import com.hackinghat.statistic.Statistic;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
@@ -12,23 +12,46 @@ import java.util.Collection;
 import java.util.Objects;
 import java.util.function.Supplier;
 
+/**
+ * Appends statistics to a CSV file.  The statistics are formatted by the caller directly into a reusable
+ * {@link CsvBuffer}, and the writer thread swaps that buffer for an empty one before writing it out, so neither side
+ * allocates a string per line or per field.  The number of pending lines is bounded by the capacity, beyond which the
+ * {@link BackpressurePolicy} applies.
+ */
 public class FileStatisticsAppender<T extends Statistic> extends AbstractStatisticsAppender {
     private final static DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmssSSSSSS");
     private final static int DEFAULT_FLUSH_ITEMS = 10;
+    private final static long POLL_MILLIS = 10L;
 
     private final String fileName;
     private final Supplier<String> headerFunction;
     private final int flushLines;
+    private final Object bufferLock;
+    private final Object writeLock;
 
-    private BufferedWriter writer;
-    private int linesWritten;
+    private volatile OutputStream writer;
+    private CsvBuffer front;
+    private CsvBuffer back;
 
     public FileStatisticsAppender(final Supplier<String> headerFunction, final Instant creationTime, final String fileName) {
         this(headerFunction, creationTime, fileName, DEFAULT_FLUSH_ITEMS);
     }
 
     public FileStatisticsAppender(final Supplier<String> headerFunction, final Instant creationTime, final String fileName, int flushLines) {
-        super();
+        this(headerFunction, creationTime, fileName, flushLines, DEFAULT_CAPACITY, BackpressurePolicy.BLOCK);
+    }
+
+    /**
+     * @param headerFunction provides the header line of the file
+     * @param creationTime   the time used to make the file name unique
+     * @param fileName       the prefix of the file name
+     * @param flushLines     the writer thread will write as soon as this many lines are pending, otherwise it writes
+     *                       whatever is pending every poll
+     * @param capacity       the maximum number of lines that can be pending
+     * @param policy         what to do when the capacity is reached
+     */
+    public FileStatisticsAppender(final Supplier<String> headerFunction, final Instant creationTime, final String fileName, int flushLines, int capacity, BackpressurePolicy policy) {
+        super(capacity, policy);
         Objects.requireNonNull(fileName);
         Objects.requireNonNull(headerFunction);
 
@@ -37,45 +60,179 @@ public class FileStatisticsAppender<T extends Statistic> extends AbstractStatist
 
         this.fileName = fileName + "." + TIME_FORMATTER.format(creationTime.atZone(ZoneId.systemDefault())) + ".csv";
         this.headerFunction = headerFunction;
-        this.linesWritten = 0;
         this.flushLines = flushLines;
+        this.bufferLock = new Object();
+        this.writeLock = new Object();
+        this.front = new CsvBuffer();
+        this.back = new CsvBuffer();
     }
 
     @Override
     public void configure() {
+        synchronized (writeLock) {
+            if (writer != null)
+                return;
+            try {
+                writer = new FileOutputStream(this.fileName);
+                final CsvBuffer header = new CsvBuffer();
+                header.append(headerFunction.get()).newLine();
+                header.writeTo(writer);
+            } catch (final IOException ioex) {
+                throw new IllegalArgumentException("Unable to create filewriter tape", ioex);
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return fileName;
+    }
+
+    /**
+     * When blocking without anything to write the pending lines, nothing would ever make space, so rather than let the
+     * pending lines grow without bound the caller writes them itself.  Called without the buffer lock held.
+     */
+    private void makeSpace() {
+        if (getPolicy() == BackpressurePolicy.BLOCK && !hasConsumer() && size() >= getCapacity()) {
+            ensureConfigured();
+            flush(Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Wait for space, when blocking, then decide whether another line can be accepted.  Called with the buffer lock held.
+     */
+    private boolean reserve() {
+        while (getPolicy() == BackpressurePolicy.BLOCK && front.lines() >= getCapacity() && writer != null && hasConsumer()) {
+            requestFlush();
+            try {
+                bufferLock.wait(POLL_MILLIS);
+            } catch (final InterruptedException iex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return admit(front.lines());
+    }
+
+    @Override
+    public void append(final String item) {
+        if (item == null)
+            return;
+        makeSpace();
+        synchronized (bufferLock) {
+            if (reserve())
+                front.append(item).newLine();
+            signal();
+        }
+    }
+
+    @Override
+    public void append(final TimeMachine timeMachine, final Statistic... items) {
+        if (items == null)
+            return;
+        for (final Statistic item : items) {
+            if (item == null)
+                continue;
+            makeSpace();
+            synchronized (bufferLock) {
+                if (reserve()) {
+                    final int mark = front.length();
+                    item.formatStatistic(timeMachine, front);
+                    if (front.length() > mark)
+                        front.newLine();
+                }
+            }
+        }
+        synchronized (bufferLock) {
+            signal();
+        }
+    }
+
+    private void signal() {
+        if (front.lines() >= flushLines)
+            bufferLock.notifyAll();
+        requestFlush(front.lines());
+    }
+
+    @Override
+    public long size() {
+        synchronized (bufferLock) {
+            return front.lines();
+        }
+    }
+
+    @Override
+    void writePending() {
         try {
-            writer = new BufferedWriter(new FileWriter(this.fileName));
-            writer.write(String.join(",", headerFunction.get()));
-            writer.newLine();
-            writer.flush();
-        } catch (final IOException ioex) {
-            throw new IllegalArgumentException("Unable to create filewriter tape", ioex);
+            synchronized (bufferLock) {
+                if (front.lines() < flushLines)
+                    bufferLock.wait(POLL_MILLIS);
+            }
+        } catch (final InterruptedException iex) {
+            if (LOG.isTraceEnabled())
+                LOG.trace("Awoke prematurely from wait", iex);
+        }
+        flush(Integer.MAX_VALUE);
+    }
+
+    @Override
+    int writeBatch(final int maxLines) {
+        return writeBuffered();
+    }
+
+    /**
+     * Swap the pending buffer with the empty one and write it to the file
+     *
+     * @return the number of lines written
+     */
+    int writeBuffered() {
+        synchronized (writeLock) {
+            if (writer == null)
+                return 0;
+            synchronized (bufferLock) {
+                if (front.isEmpty())
+                    return 0;
+                final CsvBuffer pending = front;
+                front = back;
+                back = pending;
+                bufferLock.notifyAll();
+            }
+            try {
+                back.writeTo(writer);
+                return back.lines();
+            } catch (final IOException ioex) {
+                LOG.error("Couldn't log statistics, reason: ", ioex);
+                return 0;
+            } finally {
+                back.reset();
+            }
         }
     }
 
     @Override
     public void close() {
         super.close();
-        try {
-            writer.flush();
-            writer.close();
-        } catch (final IOException ioex) {
-            LOG.error("Couldn't close file: " + fileName + ", reason: ", ioex);
+        writeBuffered();
+        synchronized (writeLock) {
+            if (writer == null)
+                return;
+            try {
+                writer.close();
+            } catch (final IOException ioex) {
+                LOG.error("Couldn't close file: " + fileName + ", reason: ", ioex);
+            } finally {
+                writer = null;
+            }
         }
     }
 
     @Override
     protected void process(final Collection<String> lines) {
-        try {
-            for (final String line : lines) {
-                writer.write(line);
-                writer.newLine();
-                linesWritten++;
-            }
-            if (linesWritten % flushLines == 0)
-                writer.flush();
-        } catch (final IOException ioex) {
-            LOG.error("Couldn't log statistics, reason: ", ioex);
+        synchronized (bufferLock) {
+            for (final String line : lines)
+                front.append(line).newLine();
         }
+        writeBuffered();
     }
 }
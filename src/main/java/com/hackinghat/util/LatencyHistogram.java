@@ -0,0 +1,108 @@
+package com.hackinghat.util;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of latencies (in nanoseconds) with log-linear buckets in the style of HdrHistogram: values below 128 have
+ * a bucket each and above that each power of two is split into 64 buckets, so a value is known to within 1 in 64 (about
+ * two significant figures) whatever its size.  Recording is an index calculation and an increment, and the whole range
+ * of a long fits in a few thousand buckets.
+ * <p>
+ * The histogram isn't thread-safe, see {@link LatencyRecorder} for recording from many threads.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int HALF_SUB_BUCKETS = 1 << (SUB_BUCKET_BITS - 1);
+    static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * HALF_SUB_BUCKETS;
+
+    private final long[] counts;
+    private long totalCount;
+
+    public LatencyHistogram() {
+        this.counts = new long[BUCKETS];
+    }
+
+    /**
+     * @param value a value, negative values are recorded as zero
+     * @return the bucket of the value
+     */
+    static int indexOf(final long value) {
+        if (value < (1L << SUB_BUCKET_BITS))
+            return value < 0L ? 0 : (int) value;
+        final int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * @param index a bucket
+     * @return the largest value that is recorded in the bucket
+     */
+    static long highestValueOf(final int index) {
+        if (index < (1 << SUB_BUCKET_BITS))
+            return index;
+        final int shift = index / HALF_SUB_BUCKETS - 1;
+        final long mantissa = index - shift * HALF_SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    public void record(final long value) {
+        counts[indexOf(value)]++;
+        totalCount++;
+    }
+
+    void add(final int index, final long count) {
+        counts[index] += count;
+        totalCount += count;
+    }
+
+    long getCount(final int index) {
+        return counts[index];
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @param percentile the percentile, from 0 to 100
+     * @return the value that this percentile of the recorded values are no greater than (to the histogram's
+     * precision), or zero if nothing has been recorded
+     */
+    public long getValueAtPercentile(final double percentile) {
+        if (totalCount == 0L)
+            return 0L;
+        final long target = Math.max(1L, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * totalCount));
+        long seen = 0L;
+        for (int i = 0; i < BUCKETS; ++i) {
+            seen += counts[i];
+            if (seen >= target)
+                return highestValueOf(i);
+        }
+        return getMaxValue();
+    }
+
+    /**
+     * @return the largest recorded value (to the histogram's precision), or zero if nothing has been recorded
+     */
+    public long getMaxValue() {
+        for (int i = BUCKETS - 1; i >= 0; --i)
+            if (counts[i] != 0L)
+                return highestValueOf(i);
+        return 0L;
+    }
+
+    public double getMean() {
+        if (totalCount == 0L)
+            return 0.0;
+        double total = 0.0;
+        for (int i = 0; i < BUCKETS; ++i)
+            if (counts[i] != 0L)
+                total += (double) counts[i] * highestValueOf(i);
+        return total / totalCount;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0L);
+        totalCount = 0L;
+    }
+}
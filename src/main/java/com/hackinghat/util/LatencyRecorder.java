@@ -0,0 +1,105 @@
+package com.hackinghat.util;
+
+import com.hackinghat.util.component.AbstractComponent;
+import com.hackinghat.util.mbean.MBeanAttribute;
+import com.hackinghat.util.mbean.MBeanOperation;
+import com.hackinghat.util.mbean.MBeanType;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records latencies from any number of threads into {@link LatencyHistogram} buckets.  Each thread has buckets of its
+ * own that only it writes, so recording is an uncontended ordered write with no locks or compare-and-set.
+ * <p>
+ * The attributes are of the last interval, i.e. the values recorded between the last two calls of {@link #sample()}.
+ * Writers are never reset, an interval is the difference between their totals now and at the previous sample, so
+ * sampling doesn't race with recording.
+ */
+@MBeanType(description = "Latency")
+public class LatencyRecorder extends AbstractComponent {
+    private final ThreadLocal<AtomicLongArray> writer;
+    private final List<AtomicLongArray> writers;
+    private final long[] previous;
+    private final LatencyHistogram interval;
+
+    /**
+     * @param name the name of the recorder, e.g. its owner and what's being timed
+     */
+    public LatencyRecorder(final String name) {
+        super(name);
+        this.writers = new CopyOnWriteArrayList<>();
+        this.writer = ThreadLocal.withInitial(() -> {
+            final AtomicLongArray counts = new AtomicLongArray(LatencyHistogram.BUCKETS);
+            writers.add(counts);
+            return counts;
+        });
+        this.previous = new long[LatencyHistogram.BUCKETS];
+        this.interval = new LatencyHistogram();
+    }
+
+    /**
+     * @param nanos the latency
+     */
+    public void record(final long nanos) {
+        final AtomicLongArray counts = writer.get();
+        final int index = LatencyHistogram.indexOf(nanos);
+        // Only this thread writes these buckets
+        counts.lazySet(index, counts.get(index) + 1L);
+    }
+
+    /**
+     * @param startNanos the start, from {@link System#nanoTime()}
+     */
+    public void recordSince(final long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Ends the current interval, the attributes are then of the interval that has just ended
+     */
+    @MBeanOperation(description = "Start a new interval")
+    public synchronized void sample() {
+        interval.reset();
+        for (int i = 0; i < LatencyHistogram.BUCKETS; ++i) {
+            long total = 0L;
+            for (final AtomicLongArray counts : writers)
+                total += counts.get(i);
+            if (total != previous[i]) {
+                interval.add(i, total - previous[i]);
+                previous[i] = total;
+            }
+        }
+    }
+
+    @MBeanAttribute(description = "Count")
+    public synchronized long getCount() {
+        return interval.getTotalCount();
+    }
+
+    @MBeanAttribute(description = "Mean (ns)")
+    public synchronized double getMean() {
+        return interval.getMean();
+    }
+
+    @MBeanAttribute(description = "Median (ns)")
+    public synchronized long getP50() {
+        return interval.getValueAtPercentile(50.0);
+    }
+
+    @MBeanAttribute(description = "99th percentile (ns)")
+    public synchronized long getP99() {
+        return interval.getValueAtPercentile(99.0);
+    }
+
+    @MBeanAttribute(description = "99.9th percentile (ns)")
+    public synchronized long getP999() {
+        return interval.getValueAtPercentile(99.9);
+    }
+
+    @MBeanAttribute(description = "Maximum (ns)")
+    public synchronized long getMax() {
+        return interval.getMaxValue();
+    }
+}
@@ -1,74 +1,213 @@
 package com.hackinghat.util;
 
-import java.util.HashMap;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
 
+/**
+ * A concurrent cache of identifiable values, reads don't take any locks.  The cache can optionally be bounded by
+ * size, in which case the oldest written values are evicted first, and/or by a time-to-live after which values expire.
+ * Expired values are removed when they are next read or by {@link #evictExpired()}.
+ * <p>
+ * By default values are copied when they are written so that later changes by the writer aren't seen by readers,
+ * immutable values needn't be copied at all (see {@link CopyPolicy}).
+ */
 public class MemoryCache<K, V extends CopyableAndIdentifiable<K>> {
-    private final Object sync = new Object();
-    private final HashMap<K, V> cache;
+    public final static int UNBOUNDED = Integer.MAX_VALUE;
+
+    public enum CopyPolicy {
+        /**
+         * The values are immutable and are stored and returned as they are
+         */
+        NONE,
+        /**
+         * Values are copied before they are stored
+         */
+        ON_WRITE,
+        /**
+         * Values are copied before they are stored and again before they are returned
+         */
+        ON_READ_AND_WRITE
+    }
+
+    private static final class Entry<K, V> {
+        private final K key;
+        private final V value;
+        private final long written;
+
+        private Entry(final K key, final V value, final long written) {
+            this.key = key;
+            this.value = value;
+            this.written = written;
+        }
+    }
+
+    private final ConcurrentHashMap<K, Entry<K, V>> cache;
     private final Class<V> valueClazz;
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+    private final CopyPolicy copyPolicy;
+    private final LongSupplier clock;
+    // The order in which the entries were written, only kept when the cache is bounded
+    private final ConcurrentLinkedQueue<Entry<K, V>> writeOrder;
+    private final AtomicInteger queued;
+    private final AtomicBoolean compacting;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+    private final LongAdder expirations;
 
     public MemoryCache(final Class<V> valueClazz) {
-        this.cache = new HashMap<>();
+        this(valueClazz, UNBOUNDED, null, CopyPolicy.ON_WRITE);
+    }
+
+    /**
+     * @param valueClazz  the type of value in the cache
+     * @param maximumSize the number of values beyond which the oldest written are evicted, or {@link #UNBOUNDED}
+     * @param timeToLive  how long after being written a value expires, or null if values don't expire
+     * @param copyPolicy  when the values are copied
+     */
+    public MemoryCache(final Class<V> valueClazz, final int maximumSize, final Duration timeToLive, final CopyPolicy copyPolicy) {
+        this(valueClazz, maximumSize, timeToLive, copyPolicy, System::nanoTime);
+    }
+
+    MemoryCache(final Class<V> valueClazz, final int maximumSize, final Duration timeToLive, final CopyPolicy copyPolicy, final LongSupplier clock) {
+        Objects.requireNonNull(valueClazz);
+        Objects.requireNonNull(copyPolicy);
+        Objects.requireNonNull(clock);
+        if (maximumSize <= 0)
+            throw new IllegalArgumentException("Maximum size must be greater than zero");
+        if (timeToLive != null && (timeToLive.isNegative() || timeToLive.isZero()))
+            throw new IllegalArgumentException("Time to live must be greater than zero");
+        this.cache = new ConcurrentHashMap<>();
         this.valueClazz = valueClazz;
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = timeToLive == null ? 0L : timeToLive.toNanos();
+        this.copyPolicy = copyPolicy;
+        this.clock = clock;
+        this.writeOrder = maximumSize != UNBOUNDED || timeToLiveNanos > 0L ? new ConcurrentLinkedQueue<>() : null;
+        this.queued = new AtomicInteger();
+        this.compacting = new AtomicBoolean();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+        this.expirations = new LongAdder();
     }
 
     public Class<V> getValueClass() {
         return valueClazz;
     }
 
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * @return the time to live of the values, or null if they don't expire
+     */
+    public Duration getTimeToLive() {
+        return timeToLiveNanos == 0L ? null : Duration.ofNanos(timeToLiveNanos);
+    }
+
+    public CopyPolicy getCopyPolicy() {
+        return copyPolicy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V copy(final V value) {
+        return (V) value.copy();
+    }
+
+    private boolean isExpired(final Entry<K, V> entry, final long now) {
+        return timeToLiveNanos > 0L && now - entry.written >= timeToLiveNanos;
+    }
+
+    private Entry<K, V> toEntry(final V value, final long now) {
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(value.getId());
+        final V val = copyPolicy == CopyPolicy.NONE ? value : copy(value);
+        return new Entry<>(val.getId(), val, now);
+    }
+
     @SuppressWarnings("unchecked")
     public void upsert(final V... values) {
-        synchronized (sync) {
-            for (final V value : values) {
-                Objects.requireNonNull(value);
-                Objects.requireNonNull(value.getId());
-                final V val = (V) value.copy();
-                final K key = val.getId();
-                cache.put(key, val);
-            }
+        upsert(Arrays.asList(values));
+    }
+
+    public void upsert(final Collection<? extends V> values) {
+        for (final V value : values) {
+            final Entry<K, V> entry = toEntry(value, clock.getAsLong());
+            cache.put(entry.key, entry);
+            written(entry);
         }
     }
 
-    @SuppressWarnings("unchecked")
     public void insert(final V value) {
-        synchronized (sync) {
-            Objects.requireNonNull(value);
-            Objects.requireNonNull(value.getId());
-            final V val = (V) value.copy();
-            final K key = val.getId();
-            if (cache.containsKey(key)) {
-                throw new IllegalArgumentException("Key '" + key + "' already present in map");
+        final long now = clock.getAsLong();
+        final Entry<K, V> entry = toEntry(value, now);
+        final Entry<K, V> result = cache.compute(entry.key, (k, existing) -> {
+            if (existing == null)
+                return entry;
+            if (isExpired(existing, now)) {
+                expirations.increment();
+                return entry;
             }
-            cache.put(key, val);
+            return existing;
+        });
+        if (result != entry) {
+            throw new IllegalArgumentException("Key '" + entry.key + "' already present in map");
         }
+        written(entry);
     }
 
+    /**
+     * The number of values in the cache, this may include expired values that haven't yet been removed
+     *
+     * @return the number of values
+     */
     public int size() {
-        synchronized (sync) {
-            return cache.size();
-        }
+        return cache.size();
     }
 
-    @SuppressWarnings("unchecked")
     public void update(final V value) {
-        synchronized (sync) {
-            Objects.requireNonNull(value);
-            Objects.requireNonNull(value.getId());
-            final V val = (V) value.copy();
-            final K key = val.getId();
-            if (!cache.containsKey(key)) {
-                throw new IllegalArgumentException("Key '" + key + "' not present in map");
+        final long now = clock.getAsLong();
+        final Entry<K, V> entry = toEntry(value, now);
+        final Entry<K, V> result = cache.computeIfPresent(entry.key, (k, existing) -> {
+            if (isExpired(existing, now)) {
+                expirations.increment();
+                return null;
             }
-            cache.put(key, val);
+            return entry;
+        });
+        if (result != entry) {
+            throw new IllegalArgumentException("Key '" + entry.key + "' not present in map");
         }
+        written(entry);
     }
 
     public Optional<V> get(final K key) {
-        synchronized (sync) {
-            return Optional.of(cache.get(key));
+        final Entry<K, V> entry = cache.get(key);
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
         }
+        if (isExpired(entry, clock.getAsLong())) {
+            if (cache.remove(key, entry))
+                expirations.increment();
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(copyPolicy == CopyPolicy.ON_READ_AND_WRITE ? copy(entry.value) : entry.value);
     }
 
     /**
@@ -79,14 +218,85 @@ public class MemoryCache<K, V extends CopyableAndIdentifiable<K>> {
      */
     @SuppressWarnings("unchecked")
     public K[] getKeys() {
-        synchronized (sync) {
-            return (K[]) cache.keySet().toArray();
-        }
+        return (K[]) cache.keySet().toArray();
     }
 
     public boolean remove(final K key) {
-        synchronized (sync) {
-            return cache.remove(key) != null;
+        return cache.remove(key) != null;
+    }
+
+    /**
+     * Remove all the values that have expired
+     *
+     * @return the number of values removed
+     */
+    public int evictExpired() {
+        if (writeOrder == null || timeToLiveNanos == 0L)
+            return 0;
+        final long now = clock.getAsLong();
+        int expired = 0;
+        Entry<K, V> head;
+        // The queue is in the order of writing, so the expired entries are all at the head
+        while ((head = writeOrder.peek()) != null && isExpired(head, now) && writeOrder.remove(head)) {
+            queued.decrementAndGet();
+            if (cache.remove(head.key, head)) {
+                expirations.increment();
+                expired++;
+            }
         }
+        return expired;
+    }
+
+    private void written(final Entry<K, V> entry) {
+        if (writeOrder == null)
+            return;
+        writeOrder.add(entry);
+        final int pending = queued.incrementAndGet();
+        while (cache.size() > maximumSize) {
+            final Entry<K, V> oldest = writeOrder.poll();
+            if (oldest == null)
+                break;
+            queued.decrementAndGet();
+            if (cache.remove(oldest.key, oldest))
+                evictions.increment();
+        }
+        evictExpired();
+        // Values that are written repeatedly leave superseded entries in the queue, drop them once they dominate
+        if (pending > 2 * cache.size() + 64 && compacting.compareAndSet(false, true)) {
+            try {
+                final Iterator<Entry<K, V>> it = writeOrder.iterator();
+                while (it.hasNext()) {
+                    final Entry<K, V> queuedEntry = it.next();
+                    if (cache.get(queuedEntry.key) != queuedEntry) {
+                        it.remove();
+                        queued.decrementAndGet();
+                    }
+                }
+            } finally {
+                compacting.set(false);
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of values removed because the cache was full
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the number of values removed because they outlived the time to live
+     */
+    public long getExpirations() {
+        return expirations.sum();
     }
 }
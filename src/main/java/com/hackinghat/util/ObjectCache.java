@@ -1,24 +1,47 @@
 package com.hackinghat.util;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.hackinghat.model.serialize.ObjectCacheSerializer;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * The {@link MemoryCache}s by the type of value that they hold.  The memory caches are themselves thread-safe so no
+ * lock is taken here, caches can be added concurrently with the use of other caches but not removed.
+ */
 public class ObjectCache {
 
-    private final HashMap<Class<?>, MemoryCache<Object, CopyableAndIdentifiable<Object>>> memoryCache;
-    private final Object sync = new Object();
+    private final ConcurrentHashMap<Class<?>, MemoryCache<Object, CopyableAndIdentifiable<Object>>> memoryCache;
 
     public ObjectCache() {
-        memoryCache = new HashMap<>();
+        memoryCache = new ConcurrentHashMap<>();
     }
 
     @SuppressWarnings("unchecked")
     public <K, V extends CopyableAndIdentifiable<K>> void addCache(final MemoryCache<K, V> cache) {
-        if (memoryCache.containsKey(cache.getValueClass()))
+        if (memoryCache.putIfAbsent(cache.getValueClass(), (MemoryCache<Object, CopyableAndIdentifiable<Object>>) cache) != null)
             throw new IllegalArgumentException("Class is already present in cache: " + cache.getValueClass().getSimpleName());
-        memoryCache.put(cache.getValueClass(), (MemoryCache<Object, CopyableAndIdentifiable<Object>>) cache);
+    }
+
+    /**
+     * @return the memory caches, in no particular order
+     */
+    public Collection<MemoryCache<Object, CopyableAndIdentifiable<Object>>> getCaches() {
+        return Collections.unmodifiableCollection(memoryCache.values());
     }
 
     public <K, V extends CopyableAndIdentifiable<K>> boolean hasCache(final Class<V> valueClass) {
@@ -33,88 +56,157 @@ public class ObjectCache {
     @SuppressWarnings("unchecked")
     public <K, V extends CopyableAndIdentifiable<K>> void insert(final V value) {
         Objects.requireNonNull(value);
-        synchronized (sync) {
-            final MemoryCache<K, V> cache = (MemoryCache<K, V>) memoryCache.get(value.getClass());
-            if (cache == null)
-                throw new IllegalArgumentException("Unknown object type: " + value.getClass().getSimpleName());
-            cache.insert(value);
-        }
+        final MemoryCache<K, V> cache = (MemoryCache<K, V>) memoryCache.get(value.getClass());
+        if (cache == null)
+            throw new IllegalArgumentException("Unknown object type: " + value.getClass().getSimpleName());
+        cache.insert(value);
     }
 
     @SuppressWarnings("unchecked")
     public <K, V extends CopyableAndIdentifiable<K>> void update(final V value) {
         Objects.requireNonNull(value);
-        synchronized (sync) {
-            final MemoryCache<K, V> cache = (MemoryCache<K, V>) memoryCache.get(value.getClass());
-            if (cache == null)
-                throw new IllegalArgumentException("Unknown object type: " + value.getClass().getSimpleName());
-            cache.update(value);
-        }
+        final MemoryCache<K, V> cache = (MemoryCache<K, V>) memoryCache.get(value.getClass());
+        if (cache == null)
+            throw new IllegalArgumentException("Unknown object type: " + value.getClass().getSimpleName());
+        cache.update(value);
     }
 
     @SuppressWarnings("unchecked")
     public <K, V extends CopyableAndIdentifiable<K>> boolean remove(final Class<V> valueClass, final K key) {
         Objects.requireNonNull(valueClass);
         Objects.requireNonNull(key);
-        synchronized (sync) {
-            final MemoryCache<K, V> cache = (MemoryCache<K, V>) memoryCache.get(valueClass);
-            if (cache == null)
-                throw new IllegalArgumentException("Unknown object type: " + valueClass.getSimpleName());
-            return cache.remove(key);
-        }
+        final MemoryCache<K, V> cache = (MemoryCache<K, V>) memoryCache.get(valueClass);
+        if (cache == null)
+            throw new IllegalArgumentException("Unknown object type: " + valueClass.getSimpleName());
+        return cache.remove(key);
     }
 
     @SuppressWarnings("unchecked")
     public <K, V extends CopyableAndIdentifiable<K>> boolean remove(final V value) {
         Objects.requireNonNull(value);
-        synchronized (sync) {
-            final MemoryCache<K, V> cache = (MemoryCache<K, V>) memoryCache.get(value.getClass());
-            if (cache == null)
-                throw new IllegalArgumentException("Unknown object type: " + value.getClass().getSimpleName());
-            return cache.remove(value.getId());
-        }
+        final MemoryCache<K, V> cache = (MemoryCache<K, V>) memoryCache.get(value.getClass());
+        if (cache == null)
+            throw new IllegalArgumentException("Unknown object type: " + value.getClass().getSimpleName());
+        return cache.remove(value.getId());
     }
 
     @SuppressWarnings("unchecked")
     public <K, V extends CopyableAndIdentifiable<K>> Optional<V> get(final V value) {
         Objects.requireNonNull(value);
-        synchronized (sync) {
-            final MemoryCache<K, V> cache = (MemoryCache<K, V>) memoryCache.get(value.getClass());
-            if (cache == null)
-                throw new IllegalArgumentException("Unknown object type: " + value.getClass().getSimpleName());
-            return cache.get(value.getId());
-        }
+        final MemoryCache<K, V> cache = (MemoryCache<K, V>) memoryCache.get(value.getClass());
+        if (cache == null)
+            throw new IllegalArgumentException("Unknown object type: " + value.getClass().getSimpleName());
+        return cache.get(value.getId());
     }
 
     @SuppressWarnings("unchecked")
     public <K, V extends CopyableAndIdentifiable<K>> Optional<V> get(final Class<V> valueClass, final K key) {
         Objects.requireNonNull(valueClass);
         Objects.requireNonNull(key);
-        synchronized (sync) {
-            final MemoryCache<K, V> cache = (MemoryCache<K, V>) memoryCache.get(valueClass);
-            if (cache == null)
-                throw new IllegalArgumentException("Unknown object type: " + valueClass.getSimpleName());
-            return cache.get(key);
-        }
+        final MemoryCache<K, V> cache = (MemoryCache<K, V>) memoryCache.get(valueClass);
+        if (cache == null)
+            throw new IllegalArgumentException("Unknown object type: " + valueClass.getSimpleName());
+        return cache.get(key);
     }
 
     public Map<Class<CopyableAndIdentifiable<Object>>, Long> getSizes() {
         final Map<Class<CopyableAndIdentifiable<Object>>, Long> result = new HashMap<>();
-        synchronized (sync) {
-            for (final MemoryCache<Object, CopyableAndIdentifiable<Object>> cache : memoryCache.values()) {
-                result.put(cache.getValueClass(), (long) cache.size());
+        for (final MemoryCache<Object, CopyableAndIdentifiable<Object>> cache : memoryCache.values()) {
+            result.put(cache.getValueClass(), (long) cache.size());
+        }
+        return result;
+    }
+
+    /**
+     * Write the contents of every cache to a file, one value per line in the form <code>{"name":value}</code> where
+     * name is the {@link ObjectCacheSerializer#jsonNameForClass(Class) name} of the cache.  The values are written with
+     * the serialisers of a {@link SimulatorObjectMapper}, caches are written in order of name and values in order of id.
+     *
+     * @param fileName the file to write
+     * @param mapper   the mapper that writes the values
+     * @return the number of values written
+     * @throws IOException if the file couldn't be written
+     */
+    @SuppressWarnings("unchecked")
+    public int write(final String fileName, final ObjectMapper mapper) throws IOException {
+        Objects.requireNonNull(fileName);
+        Objects.requireNonNull(mapper);
+        final List<MemoryCache<Object, CopyableAndIdentifiable<Object>>> caches = new ArrayList<>(memoryCache.values());
+        caches.sort(Comparator.comparing(cache -> ObjectCacheSerializer.jsonNameForClass(cache.getValueClass())));
+        int written = 0;
+        try (final OutputStream out = new BufferedOutputStream(new FileOutputStream(fileName), 1 << 16);
+             final JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            for (final MemoryCache<Object, CopyableAndIdentifiable<Object>> cache : caches) {
+                final SerializedString name = new SerializedString(ObjectCacheSerializer.jsonNameForClass(cache.getValueClass()));
+                final Object[] keys = cache.getKeys();
+                Arrays.sort(keys);
+                for (final Object key : keys) {
+                    final Optional<CopyableAndIdentifiable<Object>> value = cache.get(key);
+                    if (!value.isPresent())
+                        continue;
+                    generator.writeStartObject();
+                    generator.writeFieldName(name);
+                    generator.writeObject(value.get());
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                    written++;
+                }
             }
-            return result;
         }
+        return written;
     }
 
-    public void write(final String fileName) throws IOException {
-        final BufferedWriter writer = new BufferedWriter(new FileWriter(fileName));
-        for (final MemoryCache<?, ?> cache : memoryCache.values()) {
-            cache.getValueClass().getSimpleName().toLowerCase(Locale.ROOT);
+    /**
+     * The reverse of {@link #write(String, ObjectMapper)}, the file is mapped into memory and read in one pass.  Values
+     * are inserted into the caches a cache at a time, replacing any values with the same id.  Lines for caches that
+     * don't exist in this object cache are skipped.
+     *
+     * @param fileName the file to read
+     * @param mapper   the mapper that reads the values, it must have deserialisers for the value types
+     * @return the number of values loaded
+     * @throws IOException if the file couldn't be read, or isn't in the expected format
+     */
+    @SuppressWarnings("unchecked")
+    public int load(final String fileName, final ObjectMapper mapper) throws IOException {
+        Objects.requireNonNull(fileName);
+        Objects.requireNonNull(mapper);
+        final Map<String, MemoryCache<Object, CopyableAndIdentifiable<Object>>> byName = new HashMap<>();
+        for (final MemoryCache<Object, CopyableAndIdentifiable<Object>> cache : memoryCache.values())
+            byName.put(ObjectCacheSerializer.jsonNameForClass(cache.getValueClass()), cache);
+        int loaded = 0;
+        try (final FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+            try (final JsonParser parser = mapper.getFactory().createParser(new ByteBufferBackedInputStream(mapped))) {
+                final List<CopyableAndIdentifiable<Object>> batch = new ArrayList<>();
+                MemoryCache<Object, CopyableAndIdentifiable<Object>> current = null;
+                for (JsonToken token = parser.nextToken(); token != null; token = parser.nextToken()) {
+                    if (token != JsonToken.START_OBJECT || parser.nextToken() != JsonToken.FIELD_NAME)
+                        throw new IOException("Expected an object with a single field at " + parser.getCurrentLocation());
+                    final MemoryCache<Object, CopyableAndIdentifiable<Object>> cache = byName.get(parser.getCurrentName());
+                    parser.nextToken();
+                    if (cache != current) {
+                        loaded += flush(current, batch);
+                        current = cache;
+                    }
+                    if (cache == null)
+                        parser.skipChildren();
+                    else
+                        batch.add(mapper.readValue(parser, cache.getValueClass()));
+                    if (parser.nextToken() != JsonToken.END_OBJECT)
+                        throw new IOException("Expected the end of the object at " + parser.getCurrentLocation());
+                }
+                loaded += flush(current, batch);
+            }
         }
-        writer.newLine();
-        writer.flush();
+        return loaded;
+    }
 
+    private static int flush(final MemoryCache<Object, CopyableAndIdentifiable<Object>> cache, final List<CopyableAndIdentifiable<Object>> batch) {
+        final int size = batch.size();
+        if (cache != null && size > 0)
+            cache.upsert(batch);
+        batch.clear();
+        return size;
     }
 }
@@ -0,0 +1,89 @@
+package com.hackinghat.util;
+
+import com.hackinghat.model.serialize.ObjectCacheSerializer;
+import com.hackinghat.util.component.AbstractComponent;
+import com.hackinghat.util.mbean.MBeanAttribute;
+import com.hackinghat.util.mbean.MBeanOperation;
+import com.hackinghat.util.mbean.MBeanType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+
+/**
+ * Exposes the hit, miss and eviction counts of the {@link MemoryCache}s of an {@link ObjectCache}.  The object cache
+ * can outlive any one component (and usually does, see {@link SimulatorObjectMapper#getObjectCache()}) so it isn't a
+ * component itself, instead any number of monitors can be attached to it.
+ */
+@MBeanType(description = "Object cache")
+public class ObjectCacheMonitor extends AbstractComponent {
+    private final ObjectCache objectCache;
+
+    public ObjectCacheMonitor(final String name, final ObjectCache objectCache) {
+        super(name);
+        Objects.requireNonNull(objectCache);
+        this.objectCache = objectCache;
+    }
+
+    private long sum(final ToLongFunction<MemoryCache<?, ?>> counter) {
+        long total = 0L;
+        for (final MemoryCache<?, ?> cache : objectCache.getCaches())
+            total += counter.applyAsLong(cache);
+        return total;
+    }
+
+    @MBeanAttribute(description = "Number of caches")
+    public int getCacheCount() {
+        return objectCache.getCaches().size();
+    }
+
+    @MBeanAttribute(description = "Values in all caches")
+    public long getSize() {
+        return sum(MemoryCache::size);
+    }
+
+    @MBeanAttribute(description = "Reads that found a value")
+    public long getHits() {
+        return sum(MemoryCache::getHits);
+    }
+
+    @MBeanAttribute(description = "Reads that found no value")
+    public long getMisses() {
+        return sum(MemoryCache::getMisses);
+    }
+
+    @MBeanAttribute(description = "Values evicted because a cache was full")
+    public long getEvictions() {
+        return sum(MemoryCache::getEvictions);
+    }
+
+    @MBeanAttribute(description = "Values removed after their time to live")
+    public long getExpirations() {
+        return sum(MemoryCache::getExpirations);
+    }
+
+    @MBeanAttribute(description = "Per cache size/hits/misses/evictions/expirations")
+    public String getCacheSummary() {
+        final List<MemoryCache<?, ?>> caches = new ArrayList<>(objectCache.getCaches());
+        caches.sort(Comparator.comparing(cache -> ObjectCacheSerializer.jsonNameForClass(cache.getValueClass())));
+        final StringBuilder summary = new StringBuilder();
+        for (final MemoryCache<?, ?> cache : caches) {
+            if (summary.length() > 0)
+                summary.append(", ");
+            summary.append(ObjectCacheSerializer.jsonNameForClass(cache.getValueClass())).append('=')
+                    .append(cache.size()).append('/').append(cache.getHits()).append('/').append(cache.getMisses())
+                    .append('/').append(cache.getEvictions()).append('/').append(cache.getExpirations());
+        }
+        return summary.toString();
+    }
+
+    @MBeanOperation(description = "ObjectCache:evictExpired")
+    public int evictExpired() {
+        int expired = 0;
+        for (final MemoryCache<?, ?> cache : objectCache.getCaches())
+            expired += cache.evictExpired();
+        return expired;
+    }
+}
@@ -0,0 +1,55 @@
+package com.hackinghat.util;
+
+/**
+ * The inverse of the cumulative distribution of the discrete power law of {@link RandomSource#nextPower(int, double)}
+ * as a table, so that a sample is (nearly always) a table lookup rather than a {@link Math#pow(double, double)}.
+ * <p>
+ * The sample for a uniform value u is the same as the closed form gives, i.e. floor(c (1 - u)^(-1 / (alpha - 1)) + 0.5)
+ * where c = xmin - 0.5, which is k exactly when u is below F(k) = 1 - ((k + 0.5) / c)^(1 - alpha).  The table holds
+ * F for the most likely values, a guide table (Chen &amp; Asau) takes the search straight to the right part of it and
+ * the (rare) values beyond the table use the closed form.
+ */
+final class PowerLawTable {
+    private static final int SIZE = 1024;
+
+    private final int xmin;
+    private final double alpha;
+    private final double[] cdf;
+    private final int[] guide;
+
+    PowerLawTable(final int xmin, final double alpha) {
+        if (xmin < 1 || alpha <= 1.0)
+            throw new IllegalArgumentException("Power law needs xmin >= 1 and alpha > 1");
+        this.xmin = xmin;
+        this.alpha = alpha;
+        this.cdf = new double[SIZE];
+        final double c = xmin - 0.5;
+        for (int i = 0; i < SIZE; ++i)
+            cdf[i] = 1.0 - Math.pow((xmin + i + 0.5) / c, 1.0 - alpha);
+        this.guide = new int[SIZE];
+        int k = 0;
+        for (int g = 0; g < SIZE; ++g) {
+            while (k < SIZE - 1 && cdf[k] <= (double) g / SIZE)
+                k++;
+            guide[g] = k;
+        }
+    }
+
+    boolean isFor(final int xmin, final double alpha) {
+        return this.xmin == xmin && this.alpha == alpha;
+    }
+
+    /**
+     * @param u a uniform value in [0, 1)
+     * @return the sample
+     */
+    int sample(final double u) {
+        if (u >= cdf[SIZE - 1])
+            return (int) Math.floor((xmin - 0.5) * Math.pow(1.0 - u, -1. / (alpha - 1)) + 0.5);
+        // The guide is the first value whose F is above the start of u's interval so the answer is never below it
+        int k = guide[(int) (u * SIZE)];
+        while (u >= cdf[k])
+            k++;
+        return xmin + k;
+    }
+}
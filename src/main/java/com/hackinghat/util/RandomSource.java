@@ -19,4 +19,49 @@ public interface RandomSource {
     int getBernoulli(double p);
 
     double nextExponential(double lambda);
+
+    /**
+     * Fills a block with uniform values in [0, 1), sources that can do better than one value at a time should
+     *
+     * @param values the block
+     * @param count  the number of values to fill from the start of the block
+     */
+    default void nextDoubles(final double[] values, final int count) {
+        for (int i = 0; i < count; ++i)
+            values[i] = nextDouble();
+    }
+
+    /**
+     * Fills a block with exponential values, as {@link #nextExponential(double)}
+     */
+    default void nextExponentials(final double[] values, final int count, final double lambda) {
+        for (int i = 0; i < count; ++i)
+            values[i] = nextExponential(lambda);
+    }
+
+    /**
+     * Fills a block with log-normal values, as {@link #nextLogNormal(double, double)}
+     */
+    default void nextLogNormals(final double[] values, final int count, final double mean, final double stdev) {
+        for (int i = 0; i < count; ++i)
+            values[i] = nextLogNormal(mean, stdev);
+    }
+
+    /**
+     * Fills a block with power law values, as {@link #nextPower(int, double)}
+     */
+    default void nextPowers(final int[] values, final int count, final int xmin, final double alpha) {
+        for (int i = 0; i < count; ++i)
+            values[i] = nextPower(xmin, alpha);
+    }
+
+    /**
+     * A source for one consumer, e.g. one agent, sources that can't be split are shared by all their consumers
+     *
+     * @param streamId the id of the consumer
+     * @return the source for the consumer
+     */
+    default RandomSource split(long streamId) {
+        return this;
+    }
 }
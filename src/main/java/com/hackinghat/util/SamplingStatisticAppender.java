@@ -8,9 +8,9 @@ import java.util.function.Supplier;
 
 /**
  * Sampled statistics are meant to be placed in a scheduled executor with a 'scheduleWithFixedInterval', they
- * then place their results into the queue but are flushed immediately (rather than waiting to be batched by a
- * separate thread). Other appenders (such as {@link  FileStatisticsAppender}) are designed to occupy a thread and drain
- * the incoming queue of events as they are added.
+ * then place their results into the queue and ask for them to be flushed immediately, by the {@link AppenderPipeline}
+ * if one is running or from the scheduled thread if not. Other appenders (such as {@link  FileStatisticsAppender}) are
+ * designed to be drained by an {@link AppenderPipeline} (or a thread of their own) as events are added.
  *
  * @param <Source>    the type being sampled
  * @param <Statistic> the statistic(s) being measured
@@ -35,8 +35,12 @@ public class SamplingStatisticAppender<Source, Statistic extends SampledStatisti
     public void run() {
         try {
             sampledStatistic.update(sourceGetter.get());
-            append(sampledStatistic.formatStatistic(timeMachine));
-            writePending();
+            append(timeMachine, sampledStatistic);
+            // When there's a pipeline running it will write the sample, otherwise we write it from here
+            if (hasConsumer())
+                requestFlush();
+            else
+                flush(Integer.MAX_VALUE);
         } catch (final Exception ex) {
             LOG.error("Unable to format statistic: ", ex);
         }
@@ -14,25 +14,29 @@ public class SimulatorObjectMapper extends ObjectMapper {
 
     static {
         OBJECT_CACHE = new ObjectCache();
-        OBJECT_CACHE.addCache(new MemoryCache<>(Instrument.class));
+        // Instruments aren't changed once they're cached so needn't be copied
+        OBJECT_CACHE.addCache(new MemoryCache<>(Instrument.class, MemoryCache.UNBOUNDED, null, MemoryCache.CopyPolicy.NONE));
     }
 
     private final TimeMachine timeMachine;
     private final SimulatorObjectMapperAudience audience;
+    private final InstrumentDirectory instrumentDirectory;
 
     public SimulatorObjectMapper(final SimulatorObjectMapperAudience audience, final TimeMachine timeMachine) {
         super();
         this.audience = audience;
         this.timeMachine = timeMachine;
+        this.instrumentDirectory = new InstrumentDirectory();
         SimpleModule module = new SimpleModule();
         // ConstantTickSizeToLevelConverter
         module.addSerializer(ConstantTickSizeToLevelConverter.class, new ConstantTickSizeToLevelConverterSerializer());
         // Currency
         module.addSerializer(Currency.class, new CurrencySerializer(timeMachine));
+        module.addDeserializer(Currency.class, new CurrencyDeserializer(timeMachine));
         // Instrument
         module.addSerializer(Instrument.class, new InstrumentSerializer(timeMachine));
         module.addSerializer(MemoryCache.class, new MemoryCacheSerializer());
-        module.addDeserializer(Instrument.class, new InstrumentDeserializer(OBJECT_CACHE));
+        module.addDeserializer(Instrument.class, new InstrumentDeserializer(OBJECT_CACHE, timeMachine));
         // Trades
         module.addSerializer(Trade.class, new TradeSerializer(this));
         module.addDeserializer(Trade.class, new TradeDeserializer(this));
@@ -41,6 +45,13 @@ public class SimulatorObjectMapper extends ObjectMapper {
         registerModule(module);
     }
 
+    /**
+     * @return the reference data cache shared by all mappers
+     */
+    public static ObjectCache getObjectCache() {
+        return OBJECT_CACHE;
+    }
+
     public TimeMachine getTimeMachine() {
         return timeMachine;
     }
@@ -49,6 +60,13 @@ public class SimulatorObjectMapper extends ObjectMapper {
         return audience;
     }
 
+    /**
+     * The instruments this mapper has already resolved from the cache, readable without taking any lock
+     */
+    public InstrumentDirectory getInstrumentDirectory() {
+        return instrumentDirectory;
+    }
+
     public <K extends Comparable<K>, V extends CopyableAndIdentifiable<K>> MemoryCache<K, V> getCache(Class<V> valueClazz) {
         return OBJECT_CACHE.getCache(valueClazz);
     }
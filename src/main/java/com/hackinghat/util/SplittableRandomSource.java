@@ -0,0 +1,297 @@
+package com.hackinghat.util;
+
+/**
+ * A random source that can be split into independent streams, one per agent say, each derived only from the master
+ * seed and the id of the stream.  A stream isn't thread-safe, it belongs to one agent, so there's no contention between
+ * agents and the values each agent sees don't depend on how the agents' threads are scheduled, i.e. runs are
+ * reproducible however many threads the agents run on.
+ * <p>
+ * The generator is xoshiro256** (Blackman &amp; Vigna), its state is seeded by SplitMix64 as its authors recommend.
+ * <p>
+ * The distributions take a (nearly) constant number of values whatever their parameters: the ziggurat for the
+ * gaussian and exponential, transformed rejection (Hörmann's PTRS and BTRS) for larger Poisson and binomial means,
+ * inversion for small ones, and a table of the inverse of the cumulative distribution for the power law.
+ */
+public class SplittableRandomSource extends AbstractRandomSource {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+    private static final double HALF_LOG_2PI = 0.5 * Math.log(2.0 * Math.PI);
+    private static final int LOG_FACTORIALS = 256;
+    private static final double[] LOG_FACTORIAL = new double[LOG_FACTORIALS];
+    /** Below this mean inversion takes fewer values than rejection */
+    private static final double INVERSION_LIMIT = 10.0;
+
+    static {
+        for (int k = 1; k < LOG_FACTORIALS; ++k)
+            LOG_FACTORIAL[k] = LOG_FACTORIAL[k - 1] + Math.log(k);
+    }
+
+    private final long seed;
+    private long s0;
+    private long s1;
+    private long s2;
+    private long s3;
+    private PowerLawTable powerLaw;
+    private long[] bits = new long[0];
+
+    /**
+     * @param seed the master seed
+     */
+    public SplittableRandomSource(final long seed) {
+        this.seed = seed;
+        long x = seed;
+        this.s0 = mix64(x += GOLDEN_GAMMA);
+        this.s1 = mix64(x += GOLDEN_GAMMA);
+        this.s2 = mix64(x += GOLDEN_GAMMA);
+        this.s3 = mix64(x + GOLDEN_GAMMA);
+    }
+
+    SplittableRandomSource(final long s0, final long s1, final long s2, final long s3) {
+        this.seed = s0;
+        this.s0 = s0;
+        this.s1 = s1;
+        this.s2 = s2;
+        this.s3 = s3;
+    }
+
+    /**
+     * The finaliser of SplitMix64 (Stafford's variant 13)
+     */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * The stream for an id is always the same for the same master seed, whatever values have already been taken from
+     * this source, and streams for different ids are independent
+     *
+     * @param streamId the id of the stream, e.g. the id of an agent
+     * @return a new source
+     */
+    @Override
+    public SplittableRandomSource split(final long streamId) {
+        return new SplittableRandomSource(mix64(seed + GOLDEN_GAMMA) ^ mix64(streamId * GOLDEN_GAMMA + 1L));
+    }
+
+    @Override
+    public long nextLong() {
+        final long result = Long.rotateLeft(s1 * 5, 7) * 9;
+        final long t = s1 << 17;
+        s2 ^= s0;
+        s3 ^= s1;
+        s1 ^= s2;
+        s0 ^= s3;
+        s2 ^= t;
+        s3 = Long.rotateLeft(s3, 45);
+        return result;
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * The generator with its state in locals for the length of the block
+     */
+    void nextLongs(final long[] values, final int count) {
+        long t0 = s0, t1 = s1, t2 = s2, t3 = s3;
+        for (int i = 0; i < count; ++i) {
+            values[i] = Long.rotateLeft(t1 * 5, 7) * 9;
+            final long t = t1 << 17;
+            t2 ^= t0;
+            t3 ^= t1;
+            t1 ^= t2;
+            t0 ^= t3;
+            t2 ^= t;
+            t3 = Long.rotateLeft(t3, 45);
+        }
+        s0 = t0;
+        s1 = t1;
+        s2 = t2;
+        s3 = t3;
+    }
+
+    private long[] bits(final int count) {
+        if (bits.length < count)
+            bits = new long[count];
+        nextLongs(bits, count);
+        return bits;
+    }
+
+    @Override
+    public void nextDoubles(final double[] values, final int count) {
+        final long[] block = bits(count);
+        for (int i = 0; i < count; ++i)
+            values[i] = (block[i] >>> 11) * DOUBLE_UNIT;
+    }
+
+    @Override
+    public void nextExponentials(final double[] values, final int count, final double lambda) {
+        Ziggurat.nextExponentials(this, bits(count), values, count);
+        for (int i = 0; i < count; ++i)
+            values[i] /= lambda;
+    }
+
+    @Override
+    public void nextLogNormals(final double[] values, final int count, final double mean, final double stdev) {
+        Ziggurat.nextGaussians(this, bits(count), values, count);
+        for (int i = 0; i < count; ++i)
+            values[i] = Math.exp(values[i] * stdev + mean);
+    }
+
+    @Override
+    public void nextPowers(final int[] values, final int count, final int xmin, final double alpha) {
+        if (powerLaw == null || !powerLaw.isFor(xmin, alpha))
+            powerLaw = new PowerLawTable(xmin, alpha);
+        final long[] block = bits(count);
+        for (int i = 0; i < count; ++i)
+            values[i] = powerLaw.sample((block[i] >>> 11) * DOUBLE_UNIT);
+    }
+
+    /**
+     * Lemire's multiply and reject method, i.e. unbiased and (nearly always) without a division
+     */
+    @Override
+    public int nextInt(final int bound) {
+        if (bound <= 0)
+            throw new IllegalArgumentException("bound must be positive");
+        long m = (nextLong() >>> 32) * bound;
+        long l = m & 0xffffffffL;
+        if (l < bound) {
+            final long t = (0x100000000L - bound) % bound;
+            while (l < t) {
+                m = (nextLong() >>> 32) * bound;
+                l = m & 0xffffffffL;
+            }
+        }
+        return (int) (m >>> 32);
+    }
+
+    /**
+     * log(k!), from a table or by Stirling's series which, beyond the table, is exact to double precision
+     */
+    static double logFactorial(final int k) {
+        if (k < LOG_FACTORIALS)
+            return LOG_FACTORIAL[k];
+        final double x = k;
+        final double inverse2 = 1.0 / (x * x);
+        return (x + 0.5) * Math.log(x) - x + HALF_LOG_2PI + (1.0 / 12.0 - inverse2 * (1.0 / 360.0 - inverse2 / 1260.0)) / x;
+    }
+
+    @Override
+    public double nextGaussian() {
+        return Ziggurat.nextGaussian(this);
+    }
+
+    @Override
+    public double nextExponential(final double lambda) {
+        return Ziggurat.nextExponential(this) / lambda;
+    }
+
+    @Override
+    public int getBernoulli(final double p) {
+        return nextDouble() < p ? 1 : 0;
+    }
+
+    @Override
+    public int nextPoisson(final double lambda) {
+        if (lambda <= 0.0)
+            return 0;
+        if (lambda < INVERSION_LIMIT) {
+            double u = nextDouble();
+            double p = Math.exp(-lambda);
+            int k = 0;
+            // The probabilities sum to one so this ends, the bound is for the rounding in the sum
+            while (u > p && k < 1000) {
+                u -= p;
+                k++;
+                p *= lambda / k;
+            }
+            return k;
+        }
+        // PTRS, Hörmann (1993) "The transformed rejection method for generating Poisson random variables"
+        final double logLambda = Math.log(lambda);
+        final double b = 0.931 + 2.53 * Math.sqrt(lambda);
+        final double a = -0.059 + 0.02483 * b;
+        final double logInverseAlpha = Math.log(1.1239 + 1.1328 / (b - 3.4));
+        final double vr = 0.9277 - 3.6224 / (b - 2.0);
+        while (true) {
+            final double u = nextDouble() - 0.5;
+            final double v = nextDouble();
+            final double us = 0.5 - Math.abs(u);
+            final long k = (long) Math.floor((2.0 * a / us + b) * u + lambda + 0.43);
+            if (us >= 0.07 && v <= vr)
+                return (int) k;
+            if (k < 0 || k > Integer.MAX_VALUE || (us < 0.013 && v > us))
+                continue;
+            if (Math.log(v) + logInverseAlpha - Math.log(a / (us * us) + b) <= -lambda + k * logLambda - logFactorial((int) k))
+                return (int) k;
+        }
+    }
+
+    @Override
+    public int nextBinomial(final int n, final double p) {
+        if (n <= 0 || p <= 0.0)
+            return 0;
+        if (p >= 1.0)
+            return n;
+        // Sample the less likely outcome
+        if (p > 0.5)
+            return n - nextBinomial(n, 1.0 - p);
+        final double q = 1.0 - p;
+        if (n * p < INVERSION_LIMIT) {
+            final double s = p / q;
+            final double a = (n + 1) * s;
+            final double r0 = Math.exp(n * Math.log(q));
+            while (true) {
+                double r = r0;
+                double u = nextDouble();
+                int x = 0;
+                while (u > r && x <= n) {
+                    u -= r;
+                    x++;
+                    r *= a / x - s;
+                }
+                // Only rounding in the sum takes x past n, try again rather than bias the tail
+                if (x <= n)
+                    return x;
+            }
+        }
+        // BTRS, Hörmann (1993) "The generation of binomial random variates"
+        final double spq = Math.sqrt(n * p * q);
+        final double b = 1.15 + 2.53 * spq;
+        final double a = -0.0873 + 0.0248 * b + 0.01 * p;
+        final double c = n * p + 0.5;
+        final double vr = 0.92 - 4.2 / b;
+        final double alpha = (2.83 + 5.1 / b) * spq;
+        final double logPq = Math.log(p / q);
+        final int m = (int) Math.floor((n + 1) * p);
+        final double h = logFactorial(m) + logFactorial(n - m);
+        while (true) {
+            final double u = nextDouble() - 0.5;
+            final double v = nextDouble();
+            final double us = 0.5 - Math.abs(u);
+            final long k = (long) Math.floor((2.0 * a / us + b) * u + c);
+            if (k < 0 || k > n)
+                continue;
+            if (us >= 0.07 && v <= vr)
+                return (int) k;
+            if (Math.log(v * alpha / (a / (us * us) + b)) <= h - logFactorial((int) k) - logFactorial(n - (int) k) + (k - m) * logPq)
+                return (int) k;
+        }
+    }
+
+    /**
+     * The same value as {@link AbstractRandomSource#nextPower(int, double)} gives for the same uniform, by a table
+     * that's kept for the last parameters (an agent always asks with the same ones)
+     */
+    @Override
+    public int nextPower(final int xmin, final double alpha) {
+        if (powerLaw == null || !powerLaw.isFor(xmin, alpha))
+            powerLaw = new PowerLawTable(xmin, alpha);
+        return powerLaw.sample(nextDouble());
+    }
+}
@@ -0,0 +1,63 @@
+package com.hackinghat.util;
+
+import java.util.Objects;
+
+/**
+ * A fixed width column of a binary tape segment, see {@link TapeLayout}
+ */
+public final class TapeColumn {
+    public enum Type {
+        BYTE(1),
+        INT(4),
+        FLOAT(4),
+        LONG(8),
+        ASCII(0);
+
+        private final int width;
+
+        Type(final int width) {
+            this.width = width;
+        }
+    }
+
+    private final String name;
+    private final Type type;
+    private final int width;
+
+    private TapeColumn(final String name, final Type type, final int width) {
+        Objects.requireNonNull(name);
+        Objects.requireNonNull(type);
+        if (width <= 0)
+            throw new IllegalArgumentException("Column width must be greater than zero");
+        this.name = name;
+        this.type = type;
+        this.width = width;
+    }
+
+    public static TapeColumn of(final String name, final Type type) {
+        if (type == Type.ASCII)
+            throw new IllegalArgumentException("ASCII columns must specify a width");
+        return new TapeColumn(name, type, type.width);
+    }
+
+    public static TapeColumn ascii(final String name, final int width) {
+        return new TapeColumn(name, Type.ASCII, width);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public String toString() {
+        return "TapeColumn{" + name + ", " + type + "(" + width + ")}";
+    }
+}
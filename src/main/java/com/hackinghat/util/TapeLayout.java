@@ -0,0 +1,170 @@
+package com.hackinghat.util;
+
+import com.hackinghat.model.Level;
+import com.hackinghat.model.Trade;
+import com.hackinghat.order.Order;
+import com.hackinghat.order.OrderSide;
+import com.hackinghat.order.OrderState;
+import com.hackinghat.orderbook.Level1;
+import com.hackinghat.statistic.Statistic;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.hackinghat.util.TapeColumn.Type.*;
+
+/**
+ * The fixed-width binary record layouts that can be written to a {@link TapeSegment}.  Times are stored as
+ * nanoseconds since the epoch (of the simulation time, taken as UTC), prices are stored both as the tick index of the
+ * level (-1 for market) and the price so that the tape can be read without the instrument's tick converter.
+ */
+public enum TapeLayout {
+    TRADE(TapeColumn.of("T", LONG),
+            TapeColumn.of("Day#", INT),
+            TapeColumn.ascii("TradeId", 16),
+            TapeColumn.of("Flags", BYTE),
+            TapeColumn.ascii("Order1", 16),
+            TapeColumn.ascii("Order2", 16),
+            TapeColumn.of("Tick", INT),
+            TapeColumn.of("Price", FLOAT),
+            TapeColumn.of("Quantity", INT)) {
+        @Override
+        void encode(final TapeSegment segment, final int row, final TimeMachine timeMachine, final Statistic statistic) {
+            final Trade trade = (Trade) statistic;
+            segment.putLong(TIME, row, toNanos(trade.getTimestamp()));
+            segment.putInt(DAY, row, timeMachine.getStartCount());
+            segment.putAscii(2, row, trade.getTradeId());
+            segment.putByte(3, row, "A".equals(trade.getFlags()) ? FLAG_AUCTION : 0);
+            segment.putAscii(4, row, trade.getOrder1());
+            segment.putAscii(5, row, trade.getOrder2());
+            segment.putInt(6, row, toTick(trade.getLevel()));
+            segment.putFloat(7, row, trade.getLevel().getPrice());
+            segment.putInt(8, row, trade.getQuantity());
+        }
+
+        @Override
+        String format(final TapeSegment segment, final int column, final int row) {
+            if (column == 3)
+                return (segment.getByte(column, row) & FLAG_AUCTION) != 0 ? "A" : "";
+            return super.format(segment, column, row);
+        }
+
+        @Override
+        public boolean accepts(final Statistic statistic) {
+            return statistic instanceof Trade;
+        }
+    },
+    ORDER(TapeColumn.of("T", LONG),
+            TapeColumn.of("Day#", INT),
+            TapeColumn.of("Id", LONG),
+            TapeColumn.ascii("ClientId", 16),
+            TapeColumn.ascii("Agent", 16),
+            TapeColumn.of("State", BYTE),
+            TapeColumn.of("Side", BYTE),
+            TapeColumn.of("Quantity", INT),
+            TapeColumn.of("Filled", INT),
+            TapeColumn.of("Tick", INT),
+            TapeColumn.of("Price", FLOAT),
+            TapeColumn.of("RefBid", FLOAT),
+            TapeColumn.of("RefOffer", FLOAT)) {
+        @Override
+        void encode(final TapeSegment segment, final int row, final TimeMachine timeMachine, final Statistic statistic) {
+            final Order order = (Order) statistic;
+            final Level1 referencePrice = order.getReferencePrice();
+            segment.putLong(TIME, row, toNanos(order.getTimestamp()));
+            segment.putInt(DAY, row, timeMachine.getStartCount());
+            segment.putLong(2, row, order.getId() == null ? -1L : order.getId());
+            segment.putAscii(3, row, order.getClientId());
+            segment.putAscii(4, row, order.getSender() == null ? null : order.getSender().getName());
+            segment.putByte(5, row, (byte) order.getState().ordinal());
+            segment.putByte(6, row, (byte) order.getSide().ordinal());
+            segment.putInt(7, row, order.getQuantity());
+            segment.putInt(8, row, order.getFilledQuantity());
+            segment.putInt(9, row, toTick(order.getLevel()));
+            segment.putFloat(10, row, order.getLevel().getPrice());
+            segment.putFloat(11, row, referencePrice == null ? 0.f : referencePrice.getBid().getLevel().getPrice());
+            segment.putFloat(12, row, referencePrice == null ? 0.f : referencePrice.getOffer().getLevel().getPrice());
+        }
+
+        @Override
+        String format(final TapeSegment segment, final int column, final int row) {
+            if (column == 5)
+                return OrderState.values()[segment.getByte(column, row)].toString();
+            if (column == 6)
+                return OrderSide.values()[segment.getByte(column, row)].toString();
+            return super.format(segment, column, row);
+        }
+
+        @Override
+        public boolean accepts(final Statistic statistic) {
+            return statistic instanceof Order;
+        }
+    };
+
+    static final byte FLAG_AUCTION = 1;
+    // The first two columns are common to all layouts
+    static final int TIME = 0;
+    static final int DAY = 1;
+
+    private final List<TapeColumn> columns;
+    private final int recordWidth;
+
+    TapeLayout(final TapeColumn... columns) {
+        this.columns = Collections.unmodifiableList(Arrays.asList(columns));
+        this.recordWidth = this.columns.stream().mapToInt(TapeColumn::getWidth).sum();
+    }
+
+    static long toNanos(final LocalDateTime time) {
+        return TimeMachine.toEpochNanos(time);
+    }
+
+    static LocalDateTime fromNanos(final long nanos) {
+        return TimeMachine.fromEpochNanos(nanos);
+    }
+
+    private static int toTick(final Level level) {
+        return level.isMarket() ? -1 : level.getLevel();
+    }
+
+    public List<TapeColumn> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return the number of bytes used by a single record across all the columns
+     */
+    public int getRecordWidth() {
+        return recordWidth;
+    }
+
+    public abstract boolean accepts(final Statistic statistic);
+
+    /**
+     * Write the statistic into the columns of the segment at the given row, the row is not committed
+     */
+    abstract void encode(final TapeSegment segment, final int row, final TimeMachine timeMachine, final Statistic statistic);
+
+    /**
+     * Convert a value back to text, used when exporting the tape (never on the hot path)
+     */
+    String format(final TapeSegment segment, final int column, final int row) {
+        if (column == TIME)
+            return fromNanos(segment.getLong(column, row)).toString();
+        switch (columns.get(column).getType()) {
+            case BYTE:
+                return Byte.toString(segment.getByte(column, row));
+            case INT:
+                return Integer.toString(segment.getInt(column, row));
+            case FLOAT:
+                return Float.toString(segment.getFloat(column, row));
+            case LONG:
+                return Long.toString(segment.getLong(column, row));
+            case ASCII:
+                return segment.getAscii(column, row);
+            default:
+                throw new IllegalArgumentException("Unexpected column type: " + columns.get(column).getType());
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.hackinghat.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A memory-mapped file holding a fixed number of fixed-width records in a columnar layout.  Each column described by
+ * the {@link TapeLayout} occupies a contiguous region of the file, so a record is spread across the columns at the
+ * same row.  The header records the layout, capacity and the number of committed rows, the count is only updated
+ * after all the columns of a row have been written.
+ * <p>
+ * Header: magic (int), version (short), layout (byte), reserved (byte), capacity (int), count (int), padded to
+ * {@link #HEADER_SIZE} bytes.  All values are little-endian.
+ */
+public final class TapeSegment implements Closeable {
+    static final int MAGIC = 0x50415448;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    private static final int VERSION_OFFSET = 4;
+    private static final int LAYOUT_OFFSET = 6;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int COUNT_OFFSET = 12;
+
+    private final Path path;
+    private final TapeLayout layout;
+    private final int capacity;
+    private final int[] columnOffsets;
+    private final int[] columnWidths;
+    private final MappedByteBuffer buffer;
+    private final boolean readOnly;
+    private int count;
+
+    private TapeSegment(final Path path, final TapeLayout layout, final int capacity, final MappedByteBuffer buffer, final boolean readOnly, final int count) {
+        this.path = path;
+        this.layout = layout;
+        this.capacity = capacity;
+        this.buffer = buffer;
+        this.readOnly = readOnly;
+        this.count = count;
+        this.columnOffsets = columnOffsets(layout, capacity);
+        this.columnWidths = layout.getColumns().stream().mapToInt(TapeColumn::getWidth).toArray();
+    }
+
+    private static int[] columnOffsets(final TapeLayout layout, final int capacity) {
+        final List<TapeColumn> columns = layout.getColumns();
+        final int[] offsets = new int[columns.size()];
+        long offset = HEADER_SIZE;
+        for (int i = 0; i < offsets.length; ++i) {
+            offsets[i] = (int) offset;
+            offset += (long) columns.get(i).getWidth() * capacity;
+        }
+        if (offset > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Segment capacity is too large for layout: " + layout + ", capacity: " + capacity);
+        return offsets;
+    }
+
+    static long segmentSize(final TapeLayout layout, final int capacity) {
+        return HEADER_SIZE + (long) layout.getRecordWidth() * capacity;
+    }
+
+    /**
+     * Create (or truncate) a segment file for writing
+     *
+     * @param path     the file to create
+     * @param layout   the layout of the records
+     * @param capacity the number of records the segment will hold
+     * @return the writable segment
+     * @throws IOException if the file could not be created or mapped
+     */
+    public static TapeSegment create(final Path path, final TapeLayout layout, final int capacity) throws IOException {
+        Objects.requireNonNull(path);
+        Objects.requireNonNull(layout);
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Segment capacity must be greater than zero");
+        final long size = segmentSize(layout, capacity);
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0, MAGIC);
+            buffer.putShort(VERSION_OFFSET, VERSION);
+            buffer.put(LAYOUT_OFFSET, (byte) layout.ordinal());
+            buffer.putInt(CAPACITY_OFFSET, capacity);
+            buffer.putInt(COUNT_OFFSET, 0);
+            return new TapeSegment(path, layout, capacity, buffer, false, 0);
+        }
+    }
+
+    /**
+     * Open an existing segment for reading, the number of rows available is fixed when the segment is opened
+     *
+     * @param path the segment file
+     * @return the read-only segment
+     * @throws IOException if the file could not be read or is not a tape segment
+     */
+    public static TapeSegment open(final Path path) throws IOException {
+        Objects.requireNonNull(path);
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.size() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+                throw new IOException("Not a tape segment: " + path);
+            if (buffer.getShort(VERSION_OFFSET) != VERSION)
+                throw new IOException("Unsupported tape segment version: " + buffer.getShort(VERSION_OFFSET) + ", in: " + path);
+            final int layoutOrdinal = buffer.get(LAYOUT_OFFSET);
+            if (layoutOrdinal < 0 || layoutOrdinal >= TapeLayout.values().length)
+                throw new IOException("Unknown tape layout: " + layoutOrdinal + ", in: " + path);
+            final TapeLayout layout = TapeLayout.values()[layoutOrdinal];
+            final int capacity = buffer.getInt(CAPACITY_OFFSET);
+            if (channel.size() < segmentSize(layout, capacity))
+                throw new IOException("Truncated tape segment: " + path);
+            return new TapeSegment(path, layout, capacity, buffer, true, buffer.getInt(COUNT_OFFSET));
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public TapeLayout getLayout() {
+        return layout;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public boolean isFull() {
+        return count >= capacity;
+    }
+
+    /**
+     * Publish the row at {@link #getCount()} after all of its columns have been written
+     */
+    void commit() {
+        if (readOnly)
+            throw new IllegalStateException("Segment is read only: " + path);
+        if (isFull())
+            throw new IllegalStateException("Segment is full: " + path);
+        buffer.putInt(COUNT_OFFSET, ++count);
+    }
+
+    private int offset(final int column, final int row) {
+        return columnOffsets[column] + row * columnWidths[column];
+    }
+
+    void putByte(final int column, final int row, final byte value) {
+        buffer.put(offset(column, row), value);
+    }
+
+    void putInt(final int column, final int row, final int value) {
+        buffer.putInt(offset(column, row), value);
+    }
+
+    void putFloat(final int column, final int row, final float value) {
+        buffer.putFloat(offset(column, row), value);
+    }
+
+    void putLong(final int column, final int row, final long value) {
+        buffer.putLong(offset(column, row), value);
+    }
+
+    /**
+     * Write the string as ASCII, truncated or zero padded to the width of the column
+     */
+    void putAscii(final int column, final int row, final CharSequence value) {
+        final int offset = offset(column, row);
+        final int width = columnWidths[column];
+        final int length = value == null ? 0 : Math.min(width, value.length());
+        for (int i = 0; i < length; ++i) {
+            final char c = value.charAt(i);
+            buffer.put(offset + i, c < 128 ? (byte) c : (byte) '?');
+        }
+        for (int i = length; i < width; ++i)
+            buffer.put(offset + i, (byte) 0);
+    }
+
+    public byte getByte(final int column, final int row) {
+        return buffer.get(offset(column, row));
+    }
+
+    public int getInt(final int column, final int row) {
+        return buffer.getInt(offset(column, row));
+    }
+
+    public float getFloat(final int column, final int row) {
+        return buffer.getFloat(offset(column, row));
+    }
+
+    public long getLong(final int column, final int row) {
+        return buffer.getLong(offset(column, row));
+    }
+
+    public String getAscii(final int column, final int row) {
+        final int offset = offset(column, row);
+        final int width = columnWidths[column];
+        int length = 0;
+        while (length < width && buffer.get(offset + length) != 0)
+            ++length;
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; ++i)
+            bytes[i] = buffer.get(offset + i);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    public void force() {
+        if (!readOnly)
+            buffer.force();
+    }
+
+    @Override
+    public void close() {
+        force();
+    }
+
+    @Override
+    public String toString() {
+        return "TapeSegment{" + path + ", layout=" + layout + ", count=" + count + "/" + capacity + "}";
+    }
+}
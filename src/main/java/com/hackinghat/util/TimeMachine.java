@@ -6,6 +6,9 @@ import org.apache.logging.log4j.Logger;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -21,12 +24,18 @@ public class TimeMachine {
     private static final Logger LOG = LogManager.getLogger(TimeMachine.class);
     private static final double HIGH_DELTA = 120.0d;
     private final static DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss.SSSSSS");
+    /**
+     * Enough characters for any {@link LocalDateTime} formatted by {@link #formatTimeAsUTCISO(LocalDateTime, char[])}
+     */
+    public static final int UTC_ISO_MAX_LENGTH = 40;
 
     final AtomicInteger startCount;
     final ZonedDateTime startTime;
     final ZoneOffset zoneOffset;
     final double delta;
     Instant creationInstant;
+    private volatile UtcOffsetWindow utcOffsetWindow;
+    private volatile UtcOffsetWindow instantOffsetWindow;
 
     /**
      * Create a time machine based on Java 8 style times
@@ -145,9 +154,199 @@ public class TimeMachine {
      * @return string formatted as ISO
      */
     public String formatTimeAsUTCISO(final LocalDateTime localDateTime) {
+        final char[] buffer = new char[UTC_ISO_MAX_LENGTH];
+        return new String(buffer, 0, formatTimeAsUTCISO(localDateTime, buffer));
+    }
+
+    /**
+     * As {@link #formatTimeAsUTCISO(LocalDateTime)} but written into the buffer, so that streaming serialisers can emit
+     * the timestamp without creating any objects.  The zone offset is cached for the period between two transitions of
+     * the time machine's zone so that the zone rules are only consulted when the offset changes.
+     *
+     * @param localDateTime implicitly in the zone of the time machine
+     * @param buffer        the characters of the timestamp, at least {@link #UTC_ISO_MAX_LENGTH} long
+     * @return the number of characters written
+     */
+    public int formatTimeAsUTCISO(final LocalDateTime localDateTime, final char[] buffer) {
         Objects.requireNonNull(localDateTime);
+        final int year = localDateTime.getYear();
+        if (year > 0 && year < 9999) {
+            final long localSeconds = localDateTime.toEpochSecond(ZoneOffset.UTC);
+            UtcOffsetWindow window = utcOffsetWindow;
+            if (window == null || !window.contains(localSeconds)) {
+                window = UtcOffsetWindow.of(startTime.getZone().getRules(), localDateTime);
+                if (window != null)
+                    utcOffsetWindow = window;
+            }
+            if (window != null)
+                return formatISO(localSeconds - window.offsetSeconds, localDateTime.getNano(), buffer);
+        }
+        // Ambiguous local times and far-off dates are left to the zone rules
         final ZonedDateTime zonedDateTime = ZonedDateTime.of(localDateTime, startTime.getZone());
-        return LocalDateTime.ofInstant(zonedDateTime.toInstant(), ZoneOffset.UTC).toString();
+        final String formatted = LocalDateTime.ofInstant(zonedDateTime.toInstant(), ZoneOffset.UTC).toString();
+        formatted.getChars(0, formatted.length(), buffer, 0);
+        return formatted.length();
+    }
+
+    /**
+     * Identical to {@link LocalDateTime#toString()} for years 0000-9999
+     */
+    private static int formatISO(final long epochSeconds, final int nano, final char[] buffer) {
+        final long epochDay = Math.floorDiv(epochSeconds, 86400L);
+        final int secondOfDay = (int) Math.floorMod(epochSeconds, 86400L);
+        // Civil date from the days since the epoch, in 400-year eras that begin on 1st March
+        final long z = epochDay + 719468L;
+        final long era = Math.floorDiv(z, 146097L);
+        final long dayOfEra = z - era * 146097L;
+        final long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        final long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        final long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        final int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+        final int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+        final int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+        int i = digits(year, 4, buffer, 0);
+        buffer[i++] = '-';
+        i = digits(month, 2, buffer, i);
+        buffer[i++] = '-';
+        i = digits(day, 2, buffer, i);
+        buffer[i++] = 'T';
+        i = digits(secondOfDay / 3600, 2, buffer, i);
+        buffer[i++] = ':';
+        i = digits((secondOfDay / 60) % 60, 2, buffer, i);
+        final int second = secondOfDay % 60;
+        if (second > 0 || nano > 0) {
+            buffer[i++] = ':';
+            i = digits(second, 2, buffer, i);
+            if (nano > 0) {
+                buffer[i++] = '.';
+                if (nano % 1_000_000 == 0)
+                    i = digits(nano / 1_000_000, 3, buffer, i);
+                else if (nano % 1000 == 0)
+                    i = digits(nano / 1000, 6, buffer, i);
+                else
+                    i = digits(nano, 9, buffer, i);
+            }
+        }
+        return i;
+    }
+
+    /**
+     * The reverse of {@link #formatISO(long, int, char[])}
+     *
+     * @return the time, or null if the text isn't a four-digit year time in the form written by formatISO
+     */
+    private static LocalDateTime parseISO(final String text) {
+        final int length = text.length();
+        if (length < 16 || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != 'T' || text.charAt(13) != ':')
+            return null;
+        final int year = parseDigits(text, 0, 4);
+        final int month = parseDigits(text, 5, 7);
+        final int day = parseDigits(text, 8, 10);
+        final int hour = parseDigits(text, 11, 13);
+        final int minute = parseDigits(text, 14, 16);
+        int second = 0;
+        int nano = 0;
+        if (length > 16) {
+            if (length < 19 || text.charAt(16) != ':')
+                return null;
+            second = parseDigits(text, 17, 19);
+            if (length > 19) {
+                if (length < 21 || length > 29 || text.charAt(19) != '.')
+                    return null;
+                nano = parseDigits(text, 20, length);
+                for (int i = length; i < 29; ++i)
+                    nano *= 10;
+            }
+        }
+        if ((year | month | day | hour | minute | second | nano) < 0)
+            return null;
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+        } catch (final DateTimeException invalid) {
+            return null;
+        }
+    }
+
+    private static int parseDigits(final String text, final int from, final int to) {
+        int value = 0;
+        for (int i = from; i < to; ++i) {
+            final int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9)
+                return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int digits(int value, final int width, final char[] buffer, final int offset) {
+        for (int i = offset + width - 1; i >= offset; --i) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return offset + width;
+    }
+
+    /**
+     * The times, as seconds since the epoch, between two transitions of a zone over which the offset is constant.  The
+     * times are either local times or instants depending on how the window was made.
+     */
+    private static final class UtcOffsetWindow {
+        private final long from;
+        private final long until;
+        private final int offsetSeconds;
+
+        private UtcOffsetWindow(final long from, final long until, final int offsetSeconds) {
+            this.from = from;
+            this.until = until;
+            this.offsetSeconds = offsetSeconds;
+        }
+
+        boolean contains(final long localSeconds) {
+            return localSeconds >= from && localSeconds < until;
+        }
+
+        /**
+         * @return the window of instants containing the instant
+         */
+        static UtcOffsetWindow ofInstant(final ZoneRules rules, final long epochSecond) {
+            final Instant instant = Instant.ofEpochSecond(epochSecond);
+            final ZoneOffset offset = rules.getOffset(instant);
+            final ZoneOffsetTransition previous = rules.previousTransition(instant);
+            final ZoneOffsetTransition next = rules.nextTransition(instant);
+            final boolean constant = (previous == null || previous.getOffsetAfter().equals(offset) && previous.toEpochSecond() <= epochSecond) &&
+                    (next == null || next.getOffsetBefore().equals(offset) && next.toEpochSecond() > epochSecond);
+            if (!constant)
+                return new UtcOffsetWindow(epochSecond, epochSecond + 1, offset.getTotalSeconds());
+            return new UtcOffsetWindow(previous == null ? Long.MIN_VALUE : previous.toEpochSecond(), next == null ? Long.MAX_VALUE : next.toEpochSecond(), offset.getTotalSeconds());
+        }
+
+        /**
+         * @return the window of local times containing the local time or null if it falls in a gap or an overlap
+         */
+        static UtcOffsetWindow of(final ZoneRules rules, final LocalDateTime localDateTime) {
+            final List<ZoneOffset> offsets = rules.getValidOffsets(localDateTime);
+            if (offsets.size() != 1)
+                return null;
+            final ZoneOffset offset = offsets.get(0);
+            final Instant instant = localDateTime.toInstant(offset);
+            final ZoneOffsetTransition previous = rules.previousTransition(instant);
+            final ZoneOffsetTransition next = rules.nextTransition(instant);
+            if ((previous != null && !previous.getOffsetAfter().equals(offset)) || (next != null && !next.getOffsetBefore().equals(offset)))
+                return null;
+            final long from = previous == null ? Long.MIN_VALUE : latest(previous).toEpochSecond(ZoneOffset.UTC);
+            final long until = next == null ? Long.MAX_VALUE : earliest(next).toEpochSecond(ZoneOffset.UTC);
+            final UtcOffsetWindow window = new UtcOffsetWindow(from, until, offset.getTotalSeconds());
+            return window.contains(localDateTime.toEpochSecond(ZoneOffset.UTC)) ? window : null;
+        }
+
+        private static LocalDateTime latest(final ZoneOffsetTransition transition) {
+            return transition.isGap() ? transition.getDateTimeAfter() : transition.getDateTimeBefore();
+        }
+
+        private static LocalDateTime earliest(final ZoneOffsetTransition transition) {
+            return transition.isGap() ? transition.getDateTimeBefore() : transition.getDateTimeAfter();
+        }
     }
 
     /**
@@ -158,10 +357,47 @@ public class TimeMachine {
      */
     public LocalDateTime parseTimeFromUTCISO(final String stringTime) {
         Objects.requireNonNull(stringTime);
+        final LocalDateTime utc = parseISO(stringTime);
+        if (utc != null) {
+            final long utcSeconds = utc.toEpochSecond(ZoneOffset.UTC);
+            UtcOffsetWindow window = instantOffsetWindow;
+            if (window == null || !window.contains(utcSeconds)) {
+                window = UtcOffsetWindow.ofInstant(startTime.getZone().getRules(), utcSeconds);
+                instantOffsetWindow = window;
+            }
+            return LocalDateTime.ofEpochSecond(utcSeconds + window.offsetSeconds, utc.getNano(), ZoneOffset.UTC);
+        }
         ZonedDateTime utcDateTime = ZonedDateTime.of(LocalDateTime.parse(stringTime), ZoneOffset.UTC);
         return LocalDateTime.ofInstant(utcDateTime.toInstant(), startTime.getZone());
     }
 
+    /**
+     * A compact, exactly reversible, representation of a simulation time for binary formats.  The local time is treated
+     * as if it were UTC, i.e. no zone conversion takes place.  A long only covers the years 1677 to 2262, times outside
+     * that (such as the {@link LocalDateTime#MIN} and {@link LocalDateTime#MAX} sentinels) can't be represented.
+     *
+     * @param localDateTime the simulation time
+     * @return nanoseconds since the epoch
+     * @throws ArithmeticException if the time is outside the range a long can hold
+     */
+    public static long toEpochNanos(final LocalDateTime localDateTime) {
+        final long seconds = localDateTime.toEpochSecond(ZoneOffset.UTC);
+        // Before the epoch borrow a second so the most negative time doesn't overflow ahead of adding the nanoseconds back
+        if (seconds < 0 && localDateTime.getNano() > 0)
+            return Math.addExact(Math.multiplyExact(seconds + 1, 1_000_000_000L), localDateTime.getNano() - 1_000_000_000L);
+        return Math.addExact(Math.multiplyExact(seconds, 1_000_000_000L), localDateTime.getNano());
+    }
+
+    /**
+     * The reverse of {@link #toEpochNanos(LocalDateTime)}
+     *
+     * @param nanos nanoseconds since the epoch
+     * @return the simulation time
+     */
+    public static LocalDateTime fromEpochNanos(final long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L), (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
     /**
      * The number of milliseconds that the period represents in the {@linkplain ChronoUnit}
      *
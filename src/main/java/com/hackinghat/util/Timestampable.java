@@ -2,8 +2,6 @@ package com.hackinghat.util;
 
 import java.time.LocalDateTime;
 
-public interface Timestampable {
-    LocalDateTime getTimestamp();
-
+public interface Timestampable extends Timestamped {
     void setTimestamp(final LocalDateTime timestamp);
 }
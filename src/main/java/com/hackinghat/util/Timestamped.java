@@ -0,0 +1,10 @@
+package com.hackinghat.util;
+
+import java.time.LocalDateTime;
+
+/**
+ * Something that happened, or was calculated, at a simulation time that can't be changed afterwards
+ */
+public interface Timestamped {
+    LocalDateTime getTimestamp();
+}
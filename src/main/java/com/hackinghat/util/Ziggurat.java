@@ -0,0 +1,148 @@
+package com.hackinghat.util;
+
+/**
+ * Gaussian and exponential variates by the ziggurat method (Marsaglia &amp; Tsang, 2000) with 256 layers.  The layer and
+ * the position within it come from separate bits of one 64-bit value (Doornik, 2005) and nearly every sample needs
+ * only that one value, a multiply and a compare.
+ * <p>
+ * Layer 0 is the base strip, including the tail beyond r, its width is v / f(r).  Layer i (from 1) lies between
+ * f(x[i]) and f(x[i + 1]) and is x[i] wide, each layer has area v.
+ */
+final class Ziggurat {
+    private static final int LAYERS = 256;
+    private static final double SIGNED_UNIT = 0x1.0p-52;
+    private static final double UNSIGNED_UNIT = 0x1.0p-53;
+
+    private static final double NORMAL_R = 3.6541528853610088;
+    private static final double NORMAL_V = 0.00492867323399;
+    private static final double[] NORMAL_X = new double[LAYERS + 1];
+    private static final double[] NORMAL_F = new double[LAYERS + 1];
+    private static final double[] NORMAL_RATIO = new double[LAYERS];
+
+    private static final double EXPONENTIAL_R = 7.697117470131487;
+    private static final double EXPONENTIAL_V = 0.0039496598225815571993;
+    private static final double[] EXPONENTIAL_X = new double[LAYERS + 1];
+    private static final double[] EXPONENTIAL_F = new double[LAYERS + 1];
+    private static final double[] EXPONENTIAL_RATIO = new double[LAYERS];
+
+    static {
+        NORMAL_X[0] = NORMAL_V / normal(NORMAL_R);
+        NORMAL_X[1] = NORMAL_R;
+        for (int i = 1; i < LAYERS - 1; ++i)
+            NORMAL_X[i + 1] = Math.sqrt(-2.0 * Math.log(NORMAL_V / NORMAL_X[i] + normal(NORMAL_X[i])));
+        EXPONENTIAL_X[0] = EXPONENTIAL_V / exponential(EXPONENTIAL_R);
+        EXPONENTIAL_X[1] = EXPONENTIAL_R;
+        for (int i = 1; i < LAYERS - 1; ++i)
+            EXPONENTIAL_X[i + 1] = -Math.log(EXPONENTIAL_V / EXPONENTIAL_X[i] + exponential(EXPONENTIAL_X[i]));
+        for (int i = 0; i <= LAYERS; ++i) {
+            NORMAL_F[i] = normal(NORMAL_X[i]);
+            EXPONENTIAL_F[i] = exponential(EXPONENTIAL_X[i]);
+        }
+        for (int i = 0; i < LAYERS; ++i) {
+            NORMAL_RATIO[i] = NORMAL_X[i + 1] / NORMAL_X[i];
+            EXPONENTIAL_RATIO[i] = EXPONENTIAL_X[i + 1] / EXPONENTIAL_X[i];
+        }
+    }
+
+    private Ziggurat() {
+    }
+
+    private static double normal(final double x) {
+        return Math.exp(-0.5 * x * x);
+    }
+
+    private static double exponential(final double x) {
+        return Math.exp(-x);
+    }
+
+    /**
+     * @return a standard normal variate
+     */
+    static double nextGaussian(final AbstractRandomSource source) {
+        return gaussian(source.nextLong(), source);
+    }
+
+    /**
+     * Fills a block with standard normal variates.  The first pass takes every candidate as if it's inside its layer,
+     * which nearly all are, with no branches, the second corrects the few that aren't.  The variates have the same
+     * distribution as {@link #nextGaussian} but not the same sequence: the corrections draw more random values from the
+     * source after the block has been taken, where one at a time they'd be drawn in between.
+     *
+     * @param bits a block of random values, one per variate, it's overwritten
+     */
+    static void nextGaussians(final AbstractRandomSource source, final long[] bits, final double[] values, final int count) {
+        for (int j = 0; j < count; ++j) {
+            final int i = (int) bits[j] & (LAYERS - 1);
+            values[j] = (bits[j] >> 11) * SIGNED_UNIT * NORMAL_X[i];
+        }
+        for (int j = 0; j < count; ++j) {
+            final int i = (int) bits[j] & (LAYERS - 1);
+            if (Math.abs((bits[j] >> 11) * SIGNED_UNIT) >= NORMAL_RATIO[i])
+                values[j] = gaussian(bits[j], source);
+        }
+    }
+
+    private static double gaussian(long bits, final AbstractRandomSource source) {
+        while (true) {
+            final int i = (int) bits & (LAYERS - 1);
+            // The top 53 bits as a signed value in [-1, 1)
+            final double u = (bits >> 11) * SIGNED_UNIT;
+            final double x = u * NORMAL_X[i];
+            if (Math.abs(u) < NORMAL_RATIO[i])
+                return x;
+            if (i == 0) {
+                // The tail beyond r
+                double a, b;
+                do {
+                    a = -Math.log(1.0 - source.nextDouble()) / NORMAL_R;
+                    b = -Math.log(1.0 - source.nextDouble());
+                } while (2.0 * b < a * a);
+                return u > 0 ? NORMAL_R + a : -(NORMAL_R + a);
+            }
+            if (NORMAL_F[i] + source.nextDouble() * (NORMAL_F[i + 1] - NORMAL_F[i]) < normal(x))
+                return x;
+            bits = source.nextLong();
+        }
+    }
+
+    /**
+     * @return an exponential variate with a rate of one
+     */
+    static double nextExponential(final AbstractRandomSource source) {
+        return exponential(source.nextLong(), source);
+    }
+
+    /**
+     * Fills a block with exponential variates with a rate of one, as {@link #nextGaussians}.  So these have the same
+     * distribution as {@link #nextExponential} but not the same sequence.
+     */
+    static void nextExponentials(final AbstractRandomSource source, final long[] bits, final double[] values, final int count) {
+        for (int j = 0; j < count; ++j) {
+            final int i = (int) bits[j] & (LAYERS - 1);
+            values[j] = (bits[j] >>> 11) * UNSIGNED_UNIT * EXPONENTIAL_X[i];
+        }
+        for (int j = 0; j < count; ++j) {
+            final int i = (int) bits[j] & (LAYERS - 1);
+            if ((bits[j] >>> 11) * UNSIGNED_UNIT >= EXPONENTIAL_RATIO[i])
+                values[j] = exponential(bits[j], source);
+        }
+    }
+
+    private static double exponential(long bits, final AbstractRandomSource source) {
+        double tail = 0.0;
+        while (true) {
+            final int i = (int) bits & (LAYERS - 1);
+            final double u = (bits >>> 11) * UNSIGNED_UNIT;
+            final double x = u * EXPONENTIAL_X[i];
+            if (u < EXPONENTIAL_RATIO[i])
+                return tail + x;
+            if (i == 0) {
+                // The distribution is memoryless so beyond r it's r plus another exponential
+                tail += EXPONENTIAL_R;
+            } else if (EXPONENTIAL_F[i] + source.nextDouble() * (EXPONENTIAL_F[i + 1] - EXPONENTIAL_F[i]) < exponential(x)) {
+                return tail + x;
+            }
+            bits = source.nextLong();
+        }
+    }
+}
@@ -48,17 +48,30 @@ public class AbstractComponent implements Component {
     private boolean closed = false;
 
     public AbstractComponent(final String name) {
+        this(name, true);
+    }
+
+    /**
+     * @param name    the name of the component
+     * @param managed false for a component that's too numerous (and too cheap) to be an MBean of its own, e.g. one agent
+     *                of many, something that holds it should report on it instead
+     */
+    protected AbstractComponent(final String name, final boolean managed) {
         Objects.requireNonNull(name);
         this.name = name;
         this.state = STOPPED;
         this.requires = new ArrayList<>();
         this.references = new ArrayList<>();
-        try {
-            holder = new MBeanHolder(this, name);
-            holder.registerMBean();
-        } catch (final InstanceAlreadyExistsException | NotCompliantMBeanException | MBeanRegistrationException ex) {
-            LOG.error("Unable to register component", ex);
-            throw new RuntimeException(ex);
+        if (managed) {
+            try {
+                holder = new MBeanHolder(this, name);
+                holder.registerMBean();
+            } catch (final InstanceAlreadyExistsException | NotCompliantMBeanException | MBeanRegistrationException ex) {
+                LOG.error("Unable to register component", ex);
+                throw new RuntimeException(ex);
+            }
+        } else {
+            holder = null;
         }
     }
 
@@ -72,7 +85,8 @@ public class AbstractComponent implements Component {
                 for (final Component d : getRequirementsOf()) {
                     unrequire(d);
                 }
-                holder.unreigsterMBean();
+                if (holder != null)
+                    holder.unreigsterMBean();
                 closed = true;
             }
         }
@@ -216,6 +230,9 @@ public class AbstractComponent implements Component {
         }
     }
 
+    /**
+     * @return the MBean of this component, or null if it isn't managed
+     */
     public MBeanHolder getHolder() {
         return holder;
     }
@@ -0,0 +1,35 @@
+package com.hackinghat.util.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * An agent (or a population of agents) waking up and deciding what to do
+ */
+@Name("com.hackinghat.AgentWakeUp")
+@Label("Agent Wake Up")
+@Category({"Exchange Simulator", "Agents"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class AgentWakeUpEvent extends Event {
+    @Label("Agent")
+    private String agent;
+
+    @Label("Agents Due")
+    private int agentsDue;
+
+    @Label("Orders")
+    private int orders;
+
+    /**
+     * Ends the event and, if it's recorded, sets its fields and commits it
+     */
+    public void commit(final String agent, final int agentsDue, final int orders) {
+        end();
+        if (shouldCommit()) {
+            this.agent = agent;
+            this.agentsDue = agentsDue;
+            this.orders = orders;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.hackinghat.util.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * The order manager acting on an auction trigger, i.e. moving the market into or out of an auction or closing it.
+ * These are rare so all of them are recorded by default.
+ */
+@Name("com.hackinghat.AuctionTransition")
+@Label("Auction Transition")
+@Category({"Exchange Simulator", "Auction"})
+@StackTrace(false)
+public class AuctionTransitionEvent extends Event {
+    @Label("Instrument")
+    private String instrument;
+
+    @Label("From")
+    private String from;
+
+    @Label("To")
+    private String to;
+
+    @Label("Accepted")
+    private boolean accepted;
+
+    /**
+     * Ends the event and, if it's recorded, sets its fields and commits it
+     */
+    public void commit(final String instrument, final String from, final String to, final boolean accepted) {
+        end();
+        if (shouldCommit()) {
+            this.instrument = instrument;
+            this.from = from;
+            this.to = to;
+            this.accepted = accepted;
+            commit();
+        }
+    }
+}
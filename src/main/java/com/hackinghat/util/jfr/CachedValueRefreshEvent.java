@@ -0,0 +1,31 @@
+package com.hackinghat.util.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * A {@link com.hackinghat.util.CachedValue} calling its provider for a new value
+ */
+@Name("com.hackinghat.CachedValueRefresh")
+@Label("Cached Value Refresh")
+@Category({"Exchange Simulator", "Market Data"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class CachedValueRefreshEvent extends Event {
+    @Label("Value Type")
+    private Class<?> valueType;
+
+    @Label("Refreshed")
+    private boolean refreshed;
+
+    /**
+     * Ends the event and, if it's recorded, sets its fields and commits it
+     */
+    public void commit(final Class<?> valueType, final boolean refreshed) {
+        end();
+        if (shouldCommit()) {
+            this.valueType = valueType;
+            this.refreshed = refreshed;
+            commit();
+        }
+    }
+}
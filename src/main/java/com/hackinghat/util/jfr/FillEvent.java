@@ -0,0 +1,47 @@
+package com.hackinghat.util.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * The order manager executing a quantity between two orders, in continuous trading or in an uncross
+ */
+@Name("com.hackinghat.Fill")
+@Label("Fill")
+@Category({"Exchange Simulator", "Matching"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class FillEvent extends Event {
+    @Label("Instrument")
+    private String instrument;
+
+    @Label("Order Id")
+    private long orderId;
+
+    @Label("Opposing Order Id")
+    private long opposingOrderId;
+
+    @Label("Level")
+    private int level;
+
+    @Label("Quantity")
+    private int quantity;
+
+    @Label("Auction")
+    private boolean auction;
+
+    /**
+     * Ends the event and, if it's recorded, sets its fields and commits it
+     */
+    public void commit(final String instrument, final long orderId, final long opposingOrderId, final int level, final int quantity, final boolean auction) {
+        end();
+        if (shouldCommit()) {
+            this.instrument = instrument;
+            this.orderId = orderId;
+            this.opposingOrderId = opposingOrderId;
+            this.level = level;
+            this.quantity = quantity;
+            this.auction = auction;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.hackinghat.util.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * The order manager applying one new, cancel or replace instruction to its books, including any matching it causes.
+ * Only instructions slower than the threshold are recorded unless a recording's settings lower it.
+ */
+@Name("com.hackinghat.OrderProcessed")
+@Label("Order Processed")
+@Category({"Exchange Simulator", "Matching"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class OrderProcessedEvent extends Event {
+    @Label("Instrument")
+    private String instrument;
+
+    @Label("Order Id")
+    private long orderId;
+
+    @Label("Instruction")
+    private String instruction;
+
+    @Label("Level")
+    private int level;
+
+    @Label("Quantity")
+    private int quantity;
+
+    /**
+     * Ends the event and, if it's recorded, sets its fields and commits it
+     */
+    public void commit(final String instrument, final long orderId, final String instruction, final int level, final int quantity) {
+        end();
+        if (shouldCommit()) {
+            this.instrument = instrument;
+            this.orderId = orderId;
+            this.instruction = instruction;
+            this.level = level;
+            this.quantity = quantity;
+            commit();
+        }
+    }
+}
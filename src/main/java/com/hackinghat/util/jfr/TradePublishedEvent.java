@@ -0,0 +1,39 @@
+package com.hackinghat.util.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * A trade being published to market data subscribers, the tape and (when there is one) the trade publisher
+ */
+@Name("com.hackinghat.TradePublished")
+@Label("Trade Published")
+@Category({"Exchange Simulator", "Market Data"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class TradePublishedEvent extends Event {
+    @Label("Instrument")
+    private String instrument;
+
+    @Label("Trade Id")
+    private String tradeId;
+
+    @Label("Level")
+    private int level;
+
+    @Label("Quantity")
+    private int quantity;
+
+    /**
+     * Ends the event and, if it's recorded, sets its fields and commits it
+     */
+    public void commit(final String instrument, final String tradeId, final int level, final int quantity) {
+        end();
+        if (shouldCommit()) {
+            this.instrument = instrument;
+            this.tradeId = tradeId;
+            this.level = level;
+            this.quantity = quantity;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.hackinghat.util.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * The order manager executing the crossed interest at the end of an auction
+ */
+@Name("com.hackinghat.Uncross")
+@Label("Uncross")
+@Category({"Exchange Simulator", "Auction"})
+@StackTrace(false)
+public class UncrossEvent extends Event {
+    @Label("Instrument")
+    private String instrument;
+
+    @Label("Level")
+    private int level;
+
+    @Label("Volume")
+    private long volume;
+
+    /**
+     * Ends the event and, if it's recorded, sets its fields and commits it
+     */
+    public void commit(final String instrument, final int level, final long volume) {
+        end();
+        if (shouldCommit()) {
+            this.instrument = instrument;
+            this.level = level;
+            this.volume = volume;
+            commit();
+        }
+    }
+}
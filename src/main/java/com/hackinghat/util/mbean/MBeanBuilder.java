@@ -7,6 +7,8 @@ import javax.management.IntrospectionException;
 import javax.management.MBeanAttributeInfo;
 import javax.management.MBeanInfo;
 import javax.management.MBeanOperationInfo;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -15,6 +17,32 @@ import java.util.Map;
 
 public class MBeanBuilder {
     private static final Logger LOG = LogManager.getLogger(MBeanBuilder.class);
+    private static final ClassValue<MBeanClass> MBEAN_CLASSES = new ClassValue<MBeanClass>() {
+        @Override
+        protected MBeanClass computeValue(final Class<?> type) {
+            return new MBeanClass(type);
+        }
+    };
+
+    /**
+     * @param mbeanType the type
+     * @return the attributes, operations and info of the type, they're found the first time they're asked for
+     */
+    static MBeanClass getMBeanClass(final Class<?> mbeanType) {
+        return MBEAN_CLASSES.get(mbeanType);
+    }
+
+    /**
+     * A handle for a method, MBean types needn't be public so access is checked once here rather than on every call
+     */
+    static MethodHandle unreflect(final Method method) {
+        try {
+            method.trySetAccessible();
+            return MethodHandles.lookup().unreflect(method);
+        } catch (final IllegalAccessException ex) {
+            throw new IllegalArgumentException("Can't access MBean method: " + method, ex);
+        }
+    }
 
     static String getAttributeName(final String methodName) {
         if (methodName == null)
@@ -0,0 +1,44 @@
+package com.hackinghat.util.mbean;
+
+import javax.management.MBeanInfo;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * What introspection finds for an {@link MBeanType}, it's the same for every instance so it's found once per class
+ * (see {@link MBeanBuilder#getMBeanClass(Class)})
+ */
+class MBeanClass {
+    private final MBeanHolderAttribute[] attributes;
+    private final MBeanHolderOperation[] operations;
+    private final Map<String, MBeanHolderAttribute> attributesByName;
+    private final MBeanInfo mbeanInfo;
+
+    MBeanClass(final Class<?> mbeanType) {
+        this.attributes = MBeanBuilder.getAttributes(mbeanType);
+        this.operations = MBeanBuilder.getOperations(mbeanType);
+        this.mbeanInfo = MBeanBuilder.getMBeanInfo(mbeanType, attributes, operations);
+        this.attributesByName = new HashMap<>();
+        for (final MBeanHolderAttribute attribute : attributes)
+            attributesByName.put(attribute.getName(), attribute);
+    }
+
+    MBeanHolderAttribute[] getAttributes() {
+        return attributes;
+    }
+
+    MBeanHolderOperation[] getOperations() {
+        return operations;
+    }
+
+    MBeanInfo getMBeanInfo() {
+        return mbeanInfo;
+    }
+
+    MBeanHolderAttribute getAttribute(final String name) {
+        final MBeanHolderAttribute attribute = attributesByName.get(name);
+        if (attribute == null)
+            throw new IllegalArgumentException("Unknown attribute: " + name);
+        return attribute;
+    }
+}
@@ -7,7 +7,6 @@ import org.apache.logging.log4j.Logger;
 import javax.annotation.Nonnull;
 import javax.management.*;
 import java.lang.management.ManagementFactory;
-import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -19,9 +18,7 @@ public class MBeanHolder implements DynamicMBean {
     private final static Map<String, MBeanHolder> MBEAN_REGISTRY = new HashMap<>();
 
     private final Object sync = new Object();
-    private final MBeanHolderAttribute[] attributes;
-    private final MBeanHolderOperation[] operations;
-    private final MBeanInfo mbeanInfo;
+    private final MBeanClass mbeanClass;
     private final AbstractComponent instance;
     private final String objectPrefix;
     private ObjectName name;
@@ -34,10 +31,7 @@ public class MBeanHolder implements DynamicMBean {
 
     public MBeanHolder(@Nonnull final AbstractComponent instance, final String prefix) {
         Objects.requireNonNull(instance);
-        Class<?> instanceType = instance.getClass();
-        this.attributes = MBeanBuilder.getAttributes(instanceType);
-        this.operations = MBeanBuilder.getOperations(instanceType);
-        this.mbeanInfo = MBeanBuilder.getMBeanInfo(instanceType, attributes, operations);
+        this.mbeanClass = MBeanBuilder.getMBeanClass(instance.getClass());
         this.instance = instance;
         this.objectPrefix = prefix;
         this.name = null;
@@ -89,63 +83,62 @@ public class MBeanHolder implements DynamicMBean {
     }
 
 
-    private MBeanHolderAttribute getMBeanHolderAttribute(final String name) {
-        for (final MBeanHolderAttribute attr : attributes) {
-            if (attr.getName().equals(name)) {
-                return attr;
-            }
-        }
-        throw new IllegalArgumentException("Unknown attribute: " + name);
-    }
-
     public AbstractComponent getInstance() {
         return instance;
     }
 
     @Override
     public Object getAttribute(String s)  {
-        MBeanHolderAttribute holderAttribute = getMBeanHolderAttribute(s);
-        return holderAttribute.invokeGetter(instance);
+        return mbeanClass.getAttribute(s).invokeGetter(instance);
     }
 
     @Override
     public void setAttribute(Attribute attribute)  {
-        MBeanHolderAttribute holderAttribute = getMBeanHolderAttribute(attribute.getName());
-        holderAttribute.invokeSetter(instance, attribute.getValue());
+        mbeanClass.getAttribute(attribute.getName()).invokeSetter(instance, attribute.getValue());
     }
 
+    /**
+     * Reads many attributes in one call, as monitoring tools polling a component do, attributes that are unknown are
+     * left out (as the interface asks)
+     */
     @Override
     public AttributeList getAttributes(String[] strings) {
-        return null;
+        final AttributeList values = new AttributeList(strings.length);
+        for (final String name : strings) {
+            try {
+                values.add(new Attribute(name, getAttribute(name)));
+            } catch (final IllegalArgumentException ex) {
+                LOG.debug("Attribute not read: " + name, ex);
+            }
+        }
+        return values;
     }
 
     @Override
     public AttributeList setAttributes(AttributeList attributeList) {
-        return null;
+        final AttributeList values = new AttributeList(attributeList.size());
+        for (final Attribute attribute : attributeList.asList()) {
+            try {
+                setAttribute(attribute);
+                values.add(attribute);
+            } catch (final IllegalArgumentException ex) {
+                LOG.debug("Attribute not set: " + attribute.getName(), ex);
+            }
+        }
+        return values;
     }
 
     @Override
     public Object invoke(String s, Object[] objects, String[] strings) throws MBeanException {
-        for (final MBeanHolderOperation operation : operations) {
-            final Method method = operation.getMethod();
-            if (method.getName().equals(s)) {
+        for (final MBeanHolderOperation operation : mbeanClass.getOperations()) {
+            // The signature picks between overloads
+            if (operation.matches(s, strings)) {
                 try {
-                    // We do a parameter type check just in-case there are overloads
-                    Class<?>[] paramTypes = method.getParameterTypes();
-                    if (objects.length != paramTypes.length)
-                        continue;
-                    boolean match = true;
-                    for (int i = 0; i < objects.length; ++i) {
-                        if (objects.getClass().equals(paramTypes[i])) {
-                            match = false;
-                            break;
-                        }
-                    }
-                    if (match) {
-                        return method.invoke(instance, objects);
-                    }
+                    return operation.invoke(instance, objects);
                 } catch (final Exception ex) {
-                    return new MBeanException(ex, "Couldn't invoke method");
+                    throw new MBeanException(ex, "Couldn't invoke method");
+                } catch (final Throwable t) {
+                    throw new MBeanException(new RuntimeException(t), "Couldn't invoke method");
                 }
             }
         }
@@ -154,6 +147,6 @@ public class MBeanHolder implements DynamicMBean {
 
     @Override
     public MBeanInfo getMBeanInfo() {
-        return mbeanInfo;
+        return mbeanClass.getMBeanInfo();
     }
 }
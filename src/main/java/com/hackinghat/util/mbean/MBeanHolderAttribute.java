@@ -5,7 +5,8 @@ import org.apache.logging.log4j.Logger;
 
 import javax.management.IntrospectionException;
 import javax.management.MBeanAttributeInfo;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 
 class MBeanHolderAttribute {
@@ -15,6 +16,9 @@ class MBeanHolderAttribute {
     private final String description;
     private Method getter;
     private Method setter;
+    // The getter and setter as (Object)Object and (Object, Object)void
+    private MethodHandle getterHandle;
+    private MethodHandle setterHandle;
 
     MBeanHolderAttribute(final String name, final String description) {
         this.name = name;
@@ -35,6 +39,7 @@ class MBeanHolderAttribute {
 
     public void setGetter(final Method getter) {
         this.getter = getter;
+        this.getterHandle = MBeanBuilder.unreflect(getter).asType(MethodType.methodType(Object.class, Object.class));
     }
 
     public Method getSetter() {
@@ -43,13 +48,14 @@ class MBeanHolderAttribute {
 
     public void setSetter(final Method setter) {
         this.setter = setter;
+        this.setterHandle = MBeanBuilder.unreflect(setter).asType(MethodType.methodType(void.class, Object.class, Object.class));
     }
 
     public Object invokeGetter(final Object obj) {
         try {
-            final Object result = getter.invoke(obj);
+            final Object result = (Object) getterHandle.invokeExact(obj);
             return result == null ? "" : result.toString();
-        } catch (IllegalAccessException | InvocationTargetException ex) {
+        } catch (final Throwable ex) {
             LOG.error("Error getting value: " + name + ", because: ", ex);
             return ex.getMessage();
         }
@@ -57,8 +63,8 @@ class MBeanHolderAttribute {
 
     public void invokeSetter(final Object obj, final Object arg1) {
         try {
-            setter.invoke(obj, arg1);
-        } catch (IllegalAccessException | InvocationTargetException ex) {
+            setterHandle.invokeExact(obj, arg1);
+        } catch (final Throwable ex) {
             LOG.error("Error setting value: " + name + ", because: ", ex);
         }
     }
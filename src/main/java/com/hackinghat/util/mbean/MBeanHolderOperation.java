@@ -4,7 +4,10 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.management.MBeanOperationInfo;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.Objects;
 
 public class MBeanHolderOperation {
@@ -12,11 +15,22 @@ public class MBeanHolderOperation {
 
     private final String description;
     private final Method method;
+    private final String[] signature;
+    // The operation as (Object, Object[])Object
+    private final MethodHandle handle;
 
     MBeanHolderOperation(final String description, final Method method) {
         Objects.requireNonNull(method);
         this.description = description;
         this.method = method;
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+        this.signature = new String[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; ++i)
+            signature[i] = parameterTypes[i].getName();
+        this.handle = MBeanBuilder.unreflect(method)
+                .asType(MethodType.genericMethodType(parameterTypes.length + 1))
+                .asSpreader(Object[].class, parameterTypes.length)
+                .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
     }
 
     public String getDescription() {
@@ -27,6 +41,20 @@ public class MBeanHolderOperation {
         return method;
     }
 
+    /**
+     * @param name      the name of the operation
+     * @param signature the names of the parameter types, as JMX gives them, may be null if the call has no parameters
+     * @return true if this is the operation
+     */
+    boolean matches(final String name, final String[] signature) {
+        return method.getName().equals(name) && Arrays.equals(this.signature, signature == null ? new String[0] : signature);
+    }
+
+    Object invoke(final Object instance, final Object[] params) throws Throwable {
+        final Object[] arguments = params == null ? new Object[0] : params;
+        return (Object) handle.invokeExact(instance, arguments);
+    }
+
     MBeanOperationInfo getOperation() {
         return new MBeanOperationInfo(description, method);
     }
@@ -0,0 +1,73 @@
+package com.hackinghat.agent;
+
+import com.hackinghat.agent.parameter.AgentParameterSet;
+import com.hackinghat.agent.parameter.ConstantAgentParameter;
+import com.hackinghat.simulator.OrderBookSimulatorHelper;
+import com.hackinghat.util.SplittableRandomSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static com.hackinghat.agent.parameter.AgentParameterSet.P_INSPREAD;
+import static com.hackinghat.simulator.OrderBookSimulatorHelper.ONE_SECOND;
+import static org.junit.Assert.*;
+
+public class AgentGroupTest {
+    private OrderBookSimulatorHelper simulatorHelper;
+
+    @Before
+    public void setup() {
+        simulatorHelper = new OrderBookSimulatorHelper();
+    }
+
+    @After
+    public void teardown() {
+        if (simulatorHelper != null) simulatorHelper.shutdown();
+    }
+
+    private static int countMBeans() throws Exception {
+        return ManagementFactory.getPlatformMBeanServer().queryNames(new ObjectName("com.hacking*:*"), null).size();
+    }
+
+    @Test
+    public void testOneMBeanForTheGroup() throws Exception {
+        final AgentBuilder builder = new AgentBuilder(simulatorHelper.getInst(), new SplittableRandomSource(1L), 1000.0, 10, 1.4, 4.5, 0.8);
+        final int before = countMBeans();
+        final int dependents = simulatorHelper.getSimulator().getEventDispatcher().getReferences().length;
+        try (final AgentGroup<ZeroIntelligenceAgent> group = builder.makeZeroIntelligenceAgentGroup(simulatorHelper.getTimeMachine(), new AgentParameterSet(ConstantAgentParameter.of(P_INSPREAD, 0.2)),
+                "GROUP", 1_000, ONE_SECOND, ONE_SECOND, simulatorHelper.getSimulator(), 0.1, 0.1, 0.5)) {
+            assertEquals(before + 1, countMBeans());
+            assertEquals(dependents + 1, simulatorHelper.getSimulator().getEventDispatcher().getReferences().length);
+            assertNull(group.getAgents().get(0).getHolder());
+            assertEquals(1_000, group.getAgentCount());
+            assertEquals(1_000 * 1000.0, group.getCash(), 1e-6);
+            assertEquals(1_000 * 10, group.getShares());
+            assertEquals(0, group.getOutstandingOrderCount());
+        }
+        assertEquals(before, countMBeans());
+        assertEquals(dependents, simulatorHelper.getSimulator().getEventDispatcher().getReferences().length);
+    }
+
+    private AgentGroup<ZeroIntelligenceAgent> makeGroup(final AgentBuilder builder, final String name) {
+        return builder.makeZeroIntelligenceAgentGroup(simulatorHelper.getTimeMachine(), new AgentParameterSet(ConstantAgentParameter.of(P_INSPREAD, 0.2)),
+                name, 10, ONE_SECOND, ONE_SECOND, simulatorHelper.getSimulator(), 0.1, 0.1, 0.5);
+    }
+
+    @Test
+    public void testSameSeedSameStreams() {
+        final AgentBuilder first = new AgentBuilder(simulatorHelper.getInst(), new SplittableRandomSource(1L), 1000.0, 10, 1.4, 4.5, 0.8);
+        final AgentBuilder second = new AgentBuilder(simulatorHelper.getInst(), new SplittableRandomSource(1L), 1000.0, 10, 1.4, 4.5, 0.8);
+        try (final AgentGroup<ZeroIntelligenceAgent> a = makeGroup(first, "FIRST"); final AgentGroup<ZeroIntelligenceAgent> b = makeGroup(second, "SECOND")) {
+            for (int i = 0; i < a.getAgentCount(); ++i) {
+                final ZeroIntelligenceAgent x = a.getAgents().get(i);
+                final ZeroIntelligenceAgent y = b.getAgents().get(i);
+                assertNotEquals(x.getId(), y.getId());
+                for (int j = 0; j < 10; ++j)
+                    assertEquals(x.randomSource.nextDouble(), y.randomSource.nextDouble(), 0.0);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.hackinghat.agent;
+
+import com.hackinghat.order.Order;
+import com.hackinghat.order.OrderState;
+import com.hackinghat.simulator.OrderBookSimulatorHelper;
+import com.hackinghat.util.SplittableRandomSource;
+import com.hackinghat.util.TimeMachine;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.hackinghat.simulator.OrderBookSimulatorHelper.ONE_SECOND;
+import static org.junit.Assert.*;
+
+public class ZeroIntelligencePopulationTest {
+    private static final long ONE_MINUTE_NANOS = Duration.ofMinutes(1L).toNanos();
+    private OrderBookSimulatorHelper simulatorHelper;
+    private ZeroIntelligencePopulation population;
+
+    @Before
+    public void setup() throws Exception {
+        simulatorHelper = new OrderBookSimulatorHelper();
+        simulatorHelper.setDoubleSource(new double[]{0.0});
+        simulatorHelper.transitionClosedToAuction();
+        final double[] pInSpread = new double[1_000];
+        Arrays.fill(pInSpread, 0.2);
+        population = new ZeroIntelligencePopulation(1L, simulatorHelper.getInst(), new SplittableRandomSource(2L), simulatorHelper.getTimeMachine(), ONE_SECOND, Duration.ofSeconds(3L), ONE_SECOND, "NOISE", simulatorHelper.getSimulator(), 0.1, 0.1, 0.5, pInSpread);
+        population.setBalances(100000.0, 1000);
+        // A thinner tail than the simulator uses keeps the auction (which visits every level between the orders) quick
+        population.setAlpha(3.0);
+        population.setSizeMean(4.5);
+        population.setSizeSigma(0.8);
+    }
+
+    @After
+    public void teardown() {
+        if (population != null) population.close();
+        if (simulatorHelper != null) simulatorHelper.shutdown();
+    }
+
+    private int submit(final List<Order> batch) {
+        int newOrders = 0;
+        for (final Order order : batch)
+            if (order.getState() == OrderState.PENDING_NEW)
+                newOrders++;
+        if (!batch.isEmpty())
+            simulatorHelper.getSimulator().add(batch.toArray(new Order[0]));
+        simulatorHelper.getSimulator().process();
+        return newOrders;
+    }
+
+    private int sumOfOutstanding() {
+        int total = 0;
+        for (int agent = 0; agent < population.getAgentCount(); ++agent)
+            total += population.getOutstandingOrderCount(agent);
+        return total;
+    }
+
+    @Test
+    public void testTimeSlices() {
+        final long start = TimeMachine.toEpochNanos(simulatorHelper.getTimeMachine().toSimulationTime());
+        // The first evaluation schedules the agents
+        assertTrue(population.evaluate(start).isEmpty());
+        // Agents sleep for a few seconds on average, so after a minute every agent is due (and acts once)
+        final List<Order> first = population.evaluate(start + ONE_MINUTE_NANOS);
+        final int newOrders = submit(first);
+        assertTrue(newOrders > 500);
+        assertEquals(newOrders, population.getOutstandingOrderCount());
+        assertEquals(newOrders, sumOfOutstanding());
+        // Only the few agents that chose to sleep for less than a millisecond are due again in the same slice
+        final List<Order> again = population.evaluate(start + ONE_MINUTE_NANOS);
+        assertTrue(again.size() < 10);
+        submit(again);
+        // In the next slices some agents cancel their (only) order
+        int cancels = 0;
+        for (int slice = 1; slice <= 60; ++slice) {
+            final List<Order> batch = population.evaluate(start + ONE_MINUTE_NANOS + slice * ONE_SECOND.toNanos());
+            for (final Order order : batch)
+                if (order.getState() == OrderState.PENDING_CANCEL)
+                    cancels++;
+            submit(batch);
+        }
+        assertTrue(cancels > 0);
+        assertEquals(population.getOutstandingOrderCount(), sumOfOutstanding());
+    }
+
+    @Test
+    public void testTradingWithinThePopulationConservesCashAndShares() throws Exception {
+        final long start = TimeMachine.toEpochNanos(simulatorHelper.getTimeMachine().toSimulationTime());
+        population.evaluate(start);
+        submit(population.evaluate(start + ONE_MINUTE_NANOS));
+        simulatorHelper.transitionAuctionToContinuous();
+        for (int slice = 1; slice <= 60; ++slice)
+            submit(population.evaluate(start + ONE_MINUTE_NANOS + slice * ONE_SECOND.toNanos()));
+        assertTrue(population.getFillCount() > 0);
+        // The agents only trade with each other, so no cash or shares are made or lost (exactly, as cash is fixed-point)
+        assertEquals(0, population.sharesChange());
+        assertEquals(0.0, population.cashChange(), 0.0);
+        assertEquals(1_000 * 1000, population.getShares());
+    }
+}
@@ -0,0 +1,301 @@
+package com.hackinghat.fix;
+
+import com.hackinghat.model.ConstantTickSizeToLevelConverter;
+import com.hackinghat.model.Currency;
+import com.hackinghat.model.Instrument;
+import com.hackinghat.model.Level;
+import com.hackinghat.order.MarketState;
+import com.hackinghat.orderbook.OrderManager;
+import com.hackinghat.orderbook.auction.AuctionSchedule;
+import com.hackinghat.orderbook.auction.MarketManager;
+import com.hackinghat.util.StatisticsAppenderTestHelper;
+import com.hackinghat.util.SyncEventDispatcher;
+import com.hackinghat.util.TimeMachine;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import quickfix.*;
+import quickfix.field.*;
+import quickfix.fix44.NewOrderSingle;
+import quickfix.fix44.OrderCancelReplaceRequest;
+import quickfix.fix44.OrderCancelRequest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.hackinghat.util.component.AbstractComponentTest.checkNumberOfMBeans;
+import static org.junit.Assert.*;
+
+public class FixGatewayTest {
+    private static final Logger LOG = LogManager.getLogger(FixGatewayTest.class);
+    private static final long TIMEOUT_SECONDS = 10L;
+
+    private static final SessionID BUYER = new SessionID(FixVersions.BEGINSTRING_FIX44, "BUYER", "EXCHANGE");
+    private static final SessionID SELLER = new SessionID(FixVersions.BEGINSTRING_FIX44, "SELLER", "EXCHANGE");
+
+    private Instrument VOD;
+    private TimeMachine timeMachine;
+    private SyncEventDispatcher dispatcher;
+    private MarketManager marketManager;
+    private OrderManager manager;
+    private Thread managerThread;
+    private FixGateway gateway;
+    private Client client;
+    private SocketInitiator initiator;
+
+    /**
+     * The other end of the sessions, it keeps whatever the gateway sends it
+     */
+    private static class Client implements Application {
+        private final CountDownLatch loggedOn = new CountDownLatch(2);
+        private final LinkedBlockingQueue<Message> buyerMessages = new LinkedBlockingQueue<>();
+        private final LinkedBlockingQueue<Message> sellerMessages = new LinkedBlockingQueue<>();
+        private final AtomicInteger acknowledged = new AtomicInteger();
+        private volatile CountDownLatch countdown = new CountDownLatch(0);
+        private volatile boolean counting;
+
+        @Override
+        public void onCreate(final SessionID sessionID) {
+        }
+
+        @Override
+        public void onLogon(final SessionID sessionID) {
+            loggedOn.countDown();
+        }
+
+        @Override
+        public void onLogout(final SessionID sessionID) {
+        }
+
+        @Override
+        public void toAdmin(final Message message, final SessionID sessionID) {
+        }
+
+        @Override
+        public void fromAdmin(final Message message, final SessionID sessionID) throws FieldNotFound {
+            if (MsgType.REJECT.equals(message.getHeader().getString(MsgType.FIELD)))
+                (sessionID.equals(BUYER) ? buyerMessages : sellerMessages).add(message);
+        }
+
+        @Override
+        public void toApp(final Message message, final SessionID sessionID) {
+        }
+
+        @Override
+        public void fromApp(final Message message, final SessionID sessionID) throws FieldNotFound {
+            if (counting) {
+                if (message.getChar(ExecType.FIELD) == ExecType.NEW) {
+                    acknowledged.incrementAndGet();
+                    countdown.countDown();
+                }
+                return;
+            }
+            (sessionID.equals(BUYER) ? buyerMessages : sellerMessages).add(message);
+        }
+
+        Message next(final SessionID sessionID) throws InterruptedException {
+            final Message message = (sessionID.equals(BUYER) ? buyerMessages : sellerMessages).poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            assertNotNull("Nothing received by " + sessionID, message);
+            return message;
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (final ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static SessionSettings settings(final String connectionType, final int port) {
+        final SessionSettings settings = new SessionSettings();
+        settings.setString("ConnectionType", connectionType);
+        settings.setString("StartTime", "00:00:00");
+        settings.setString("EndTime", "00:00:00");
+        settings.setString("HeartBtInt", "30");
+        settings.setString("ReconnectInterval", "1");
+        settings.setString("SocketAcceptPort", Integer.toString(port));
+        settings.setString("SocketConnectHost", "localhost");
+        settings.setString("SocketConnectPort", Integer.toString(port));
+        settings.setString("UseDataDictionary", "Y");
+        return settings;
+    }
+
+    private static SessionID reverse(final SessionID sessionID) {
+        return new SessionID(sessionID.getBeginString(), sessionID.getTargetCompID(), sessionID.getSenderCompID());
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        checkNumberOfMBeans(0, "FixGatewayTest.setup");
+        VOD = new Instrument("VOD.L", new Currency("GBP"), new ConstantTickSizeToLevelConverter(1, 100, 2));
+        timeMachine = new TimeMachine();
+        dispatcher = new SyncEventDispatcher(timeMachine);
+        final Level referencePrice = VOD.getLevel(100.0f);
+        marketManager = new MarketManager(referencePrice, 0.1, Duration.of(5L, ChronoUnit.MINUTES), timeMachine, dispatcher, new AuctionSchedule());
+        marketManager.setPriceMonitoring(false);
+        manager = new OrderManager(marketManager, timeMachine, null, MarketState.CONTINUOUS, VOD, dispatcher, new StatisticsAppenderTestHelper(), null, Duration.ZERO);
+        managerThread = new Thread(manager);
+        managerThread.start();
+
+        final int port = freePort();
+        final SessionSettings acceptorSettings = settings("acceptor", port);
+        acceptorSettings.setString(reverse(BUYER), "BeginString", FixVersions.BEGINSTRING_FIX44);
+        acceptorSettings.setString(reverse(SELLER), "BeginString", FixVersions.BEGINSTRING_FIX44);
+        gateway = new FixGateway("FixGatewayTest", acceptorSettings, manager, VOD, timeMachine, dispatcher);
+        gateway.start();
+
+        final SessionSettings initiatorSettings = settings("initiator", port);
+        initiatorSettings.setString(BUYER, "BeginString", FixVersions.BEGINSTRING_FIX44);
+        initiatorSettings.setString(SELLER, "BeginString", FixVersions.BEGINSTRING_FIX44);
+        client = new Client();
+        initiator = new SocketInitiator(client, new MemoryStoreFactory(), initiatorSettings, new DefaultMessageFactory());
+        initiator.start();
+        assertTrue("Sessions didn't log on", client.loggedOn.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @After
+    public void teardown() throws InterruptedException {
+        if (initiator != null)
+            initiator.stop(true);
+        gateway.close();
+        manager.terminate();
+        managerThread.join();
+        marketManager.shutdown();
+        manager.shutdown();
+        checkNumberOfMBeans(0, "FixGatewayTest.teardown");
+    }
+
+    private static NewOrderSingle newOrder(final String clOrdID, final char side, final int quantity, final double price) {
+        final NewOrderSingle order = new NewOrderSingle(new ClOrdID(clOrdID), new Side(side), new TransactTime(), new OrdType(OrdType.LIMIT));
+        order.set(new Symbol("VOD.L"));
+        order.set(new OrderQty(quantity));
+        order.set(new Price(price));
+        return order;
+    }
+
+    private static void send(final Message message, final SessionID sessionID) throws SessionNotFound {
+        assertTrue(Session.sendToTarget(message, sessionID));
+    }
+
+    private static void checkReport(final Message message, final char execType, final char ordStatus, final String clOrdID, final int cumQty, final int leavesQty) throws FieldNotFound {
+        assertEquals(MsgType.EXECUTION_REPORT, message.getHeader().getString(MsgType.FIELD));
+        assertEquals(execType, message.getChar(ExecType.FIELD));
+        assertEquals(ordStatus, message.getChar(OrdStatus.FIELD));
+        assertEquals(clOrdID, message.getString(ClOrdID.FIELD));
+        assertEquals(cumQty, message.getDouble(CumQty.FIELD), 0.0);
+        assertEquals(leavesQty, message.getDouble(LeavesQty.FIELD), 0.0);
+    }
+
+    @Test
+    public void testSessionsTradeWithEachOther() throws Exception {
+        assertEquals(2, gateway.getSessionCount());
+        send(newOrder("B1", Side.BUY, 100, 100.0), BUYER);
+        final Message buyerNew = client.next(BUYER);
+        checkReport(buyerNew, ExecType.NEW, OrdStatus.NEW, "B1", 0, 100);
+        final String orderID = buyerNew.getString(OrderID.FIELD);
+
+        send(newOrder("S1", Side.SELL, 60, 100.0), SELLER);
+        checkReport(client.next(SELLER), ExecType.NEW, OrdStatus.NEW, "S1", 0, 60);
+        final Message sellerFill = client.next(SELLER);
+        checkReport(sellerFill, ExecType.TRADE, OrdStatus.FILLED, "S1", 60, 0);
+        assertEquals(100.0, sellerFill.getDouble(LastPx.FIELD), 1E-9);
+        final Message buyerFill = client.next(BUYER);
+        checkReport(buyerFill, ExecType.TRADE, OrdStatus.PARTIALLY_FILLED, "B1", 60, 40);
+        assertEquals(orderID, buyerFill.getString(OrderID.FIELD));
+        assertEquals(60.0, buyerFill.getDouble(LastQty.FIELD), 0.0);
+        assertEquals(100.0, buyerFill.getDouble(AvgPx.FIELD), 1E-9);
+
+        // Each session's fills land on its own agent
+        assertEquals(60, gateway.getAgent(reverse(BUYER)).sharesChange());
+        assertEquals(-60, gateway.getAgent(reverse(SELLER)).sharesChange());
+    }
+
+    @Test
+    public void testReplaceAndCancel() throws Exception {
+        send(newOrder("B1", Side.BUY, 100, 99.0), BUYER);
+        checkReport(client.next(BUYER), ExecType.NEW, OrdStatus.NEW, "B1", 0, 100);
+
+        final OrderCancelReplaceRequest replace = new OrderCancelReplaceRequest(new OrigClOrdID("B1"), new ClOrdID("B2"), new Side(Side.BUY), new TransactTime(), new OrdType(OrdType.LIMIT));
+        replace.set(new Symbol("VOD.L"));
+        replace.set(new OrderQty(50));
+        replace.set(new Price(98.0));
+        send(replace, BUYER);
+        final Message replaced = client.next(BUYER);
+        checkReport(replaced, ExecType.REPLACED, OrdStatus.NEW, "B2", 0, 50);
+        assertEquals("B1", replaced.getString(OrigClOrdID.FIELD));
+
+        final OrderCancelRequest cancel = new OrderCancelRequest(new OrigClOrdID("B2"), new ClOrdID("B3"), new Side(Side.BUY), new TransactTime());
+        cancel.set(new Symbol("VOD.L"));
+        cancel.set(new OrderQty(50));
+        send(cancel, BUYER);
+        final Message cancelled = client.next(BUYER);
+        checkReport(cancelled, ExecType.CANCELED, OrdStatus.CANCELED, "B3", 0, 0);
+        assertEquals("B2", cancelled.getString(OrigClOrdID.FIELD));
+
+        // It's gone, so cancelling it again is too late
+        final OrderCancelRequest again = new OrderCancelRequest(new OrigClOrdID("B3"), new ClOrdID("B4"), new Side(Side.BUY), new TransactTime());
+        again.set(new Symbol("VOD.L"));
+        again.set(new OrderQty(50));
+        send(again, BUYER);
+        final Message reject = client.next(BUYER);
+        assertEquals(MsgType.ORDER_CANCEL_REJECT, reject.getHeader().getString(MsgType.FIELD));
+        assertEquals("B4", reject.getString(ClOrdID.FIELD));
+        assertEquals(CxlRejResponseTo.ORDER_CANCEL_REQUEST, reject.getChar(CxlRejResponseTo.FIELD));
+
+        // And a ClOrdID can't be used twice
+        send(newOrder("B1", Side.BUY, 10, 99.0), BUYER);
+        checkReport(client.next(BUYER), ExecType.REJECTED, OrdStatus.REJECTED, "B1", 0, 0);
+    }
+
+    @Test
+    public void testMalformedRequestsAreRejected() throws Exception {
+        send(newOrder("B1", Side.BUY, 100, 99.005), BUYER);
+        final Message offTick = client.next(BUYER);
+        assertEquals(MsgType.REJECT, offTick.getHeader().getString(MsgType.FIELD));
+        assertEquals(quickfix.field.Price.FIELD, offTick.getInt(RefTagID.FIELD));
+
+        final NewOrderSingle wrongSymbol = newOrder("B2", Side.BUY, 100, 99.0);
+        wrongSymbol.set(new Symbol("BARC.L"));
+        send(wrongSymbol, BUYER);
+        assertEquals(Symbol.FIELD, client.next(BUYER).getInt(RefTagID.FIELD));
+        assertEquals(2L, gateway.getRejected());
+    }
+
+    @Test
+    public void testSessionAgentIsNeverScheduled() throws Exception {
+        send(newOrder("B1", Side.BUY, 100, 99.0), BUYER);
+        checkReport(client.next(BUYER), ExecType.NEW, OrdStatus.NEW, "B1", 0, 100);
+        final FixSessionAgent agent = gateway.getAgent(reverse(BUYER));
+        assertTrue(agent.wakeUp().compareTo(Duration.ofDays(365L)) > 0);
+        // Running the agent tries to schedule it again, which does nothing
+        agent.run();
+        agent.schedule();
+        assertEquals(1, agent.getOutstandingOrderCount());
+    }
+
+    @Test
+    public void testThroughput() throws Exception {
+        final int n = 5000;
+        client.countdown = new CountDownLatch(n);
+        client.counting = true;
+        final long start = System.nanoTime();
+        for (int i = 0; i < n; ++i)
+            send(newOrder("T" + i, i % 2 == 0 ? Side.BUY : Side.SELL, 10, i % 2 == 0 ? 99.0 : 101.0), i % 2 == 0 ? BUYER : SELLER);
+        assertTrue("Only " + client.acknowledged.get() + " of " + n + " orders acknowledged",
+                client.countdown.await(TIMEOUT_SECONDS * 6, TimeUnit.SECONDS));
+        final double seconds = (System.nanoTime() - start) / 1E9;
+        LOG.info(String.format("%d orders acknowledged in %.3fs, %.0f/s", n, seconds, n / seconds));
+        assertEquals(n, gateway.getReceived());
+        assertEquals(n, gateway.getSent());
+        assertEquals(n / 2, gateway.getAgent(reverse(BUYER)).getOutstandingOrderCount());
+        assertEquals(n / 2, gateway.getAgent(reverse(SELLER)).getOutstandingOrderCount());
+    }
+}
@@ -1,14 +1,77 @@
 package com.hackinghat.model;
 
+import com.hackinghat.order.OrderSide;
 import org.junit.Test;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class DynamicTickToLevelConverterTest {
+    private final DynamicTickToLevelConverter defaultConverter = DynamicTickToLevelConverter.DEFAULT_DYNAMIC_TICK_TO_LEVEL_CONVERTER;
+
     @Test
     public void testZero() {
         DynamicTickToLevelConverter defaultConverter = DynamicTickToLevelConverter.DEFAULT_DYNAMIC_TICK_TO_LEVEL_CONVERTER;
         assertEquals(0, defaultConverter.calculateLevelIndex(0.f));
         assertEquals(1, defaultConverter.calculateLevelIndex(defaultConverter.getTickSize(0.f)));
     }
+
+    @Test
+    public void testBands() {
+        // 10000 levels of 0.0001, 8000 of 0.0005, 5000 of 0.001 and 8000 of 0.005 below 50
+        assertEquals(10000, defaultConverter.calculateLevelIndex(1.0f));
+        assertEquals(9999, defaultConverter.calculateLevelIndex(0.9999f));
+        assertEquals(18000, defaultConverter.calculateLevelIndex(5.0f));
+        assertEquals(23000, defaultConverter.calculateLevelIndex(10.0f));
+        assertEquals(31000, defaultConverter.calculateLevelIndex(50.0f));
+        assertEquals(31001, defaultConverter.calculateLevelIndex(50.01f));
+        // The last band carries on above its upper bound
+        assertEquals(36000, defaultConverter.calculateLevelIndex(100.0f));
+        assertEquals(0.0005f, defaultConverter.getTickSize(1.0f), 1E-9f);
+        assertEquals(0.0001f, defaultConverter.getTickSize(0.9999f), 1E-9f);
+        assertEquals(0.01f, defaultConverter.getTickSize(150.0f), 1E-9f);
+        assertEquals(10.0f, defaultConverter.calculatePrice(23000), 1E-6f);
+        assertEquals(9.999f, defaultConverter.calculatePrice(22999), 1E-6f);
+        assertThrows(IllegalArgumentException.class, () -> defaultConverter.calculatePrice(-1));
+    }
+
+    @Test
+    public void testRounding() {
+        assertEquals(1.0005f, defaultConverter.roundToTick(1.00026f), 1E-7f);
+        assertEquals(1.0f, defaultConverter.roundToTick(1.00024f), 1E-7f);
+        assertEquals(12.345f, defaultConverter.roundToTick(12.3474f), 1E-6f);
+        assertEquals(12.35f, defaultConverter.roundToTick(12.3476f), 1E-6f);
+        // Half a tick below a band rounds up into it
+        assertEquals(10.0f, defaultConverter.roundToTick(9.9995f), 1E-6f);
+        assertEquals(0.f, defaultConverter.roundToTick(0.f), 0.f);
+    }
+
+    @Test
+    public void testSymmetric() {
+        for (int i = 0; i < 60000; ++i)
+            assertEquals(i, defaultConverter.calculateLevelIndex(defaultConverter.calculatePrice(i)));
+    }
+
+    @Test
+    public void testAcrossBands() {
+        final Instrument instrument = new Instrument("BANDED", new Currency("GBP"), defaultConverter);
+        final Level level = instrument.getLevel(9.998f);
+        final Level worse = instrument.worsenOnBook(level, OrderSide.SELL, 4);
+        assertEquals(10.010f, worse.getPrice(), 1E-6f);
+        assertEquals(0.005f, worse.getTickSize(), 1E-9f);
+        assertSame(level, instrument.betterOnBook(worse, OrderSide.SELL, 4));
+    }
+
+    @Test
+    public void testInvalidRanges() {
+        // Gap between the bands
+        assertThrows(IllegalArgumentException.class, () -> new DynamicTickToLevelConverter(new TickRange[]{
+                new TickRange(0.f, 0.99f, 0.01f), new TickRange(1.5f, 2.0f, 0.05f)}));
+        // Not a whole number of ticks
+        assertThrows(IllegalArgumentException.class, () -> new DynamicTickToLevelConverter(new TickRange[]{
+                new TickRange(0.f, 0.995f, 0.01f)}));
+        // Doesn't begin at zero
+        assertThrows(IllegalArgumentException.class, () -> new DynamicTickToLevelConverter(new TickRange[]{
+                new TickRange(1.f, 2.f, 0.01f)}));
+        assertThrows(IllegalArgumentException.class, () -> new DynamicTickToLevelConverter(new TickRange[0]));
+    }
 }
@@ -4,7 +4,7 @@ import com.hackinghat.order.OrderSide;
 import org.junit.Before;
 import org.junit.Test;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class InstrumentTest  {
 
@@ -32,5 +32,37 @@ public class InstrumentTest  {
         assertEquals(levelForLimitPrice.getLevel() - 1, VOD.adjustBy(levelForLimitPrice, OrderSide.SELL, -1).getLevel());
     }
 
+    @Test
+    public void testLadder() {
+        // Levels come from the ladder, whether found by price, by index or by adjustment
+        assertSame(levelForLimitPrice, VOD.getLevel(limitPrice + 0.001f));
+        assertSame(levelForLimitPrice, VOD.getLevelAt(levelForLimitPrice.getLevel()));
+        assertSame(VOD.getLevelAt(levelForLimitPrice.getLevel() + 3), VOD.worsenOnBook(levelForLimitPrice, OrderSide.SELL, 3));
+        // The price of a level is the price of its index, not the price first asked for
+        assertEquals(150.0f, VOD.getLevel(150.004f).getPrice(), 1E-4f);
+        assertEquals(0, VOD.getLevelAt(0).getLevel());
+        assertThrows(IllegalArgumentException.class, () -> VOD.worsenOnBook(VOD.getLevelAt(1), OrderSide.BUY, 2));
+        // Beyond the ladder levels are still found
+        final Level high = VOD.getLevelAt(LevelMap.MAXIMUM_LADDER + 5);
+        assertSame(high, VOD.getLevel(high.getPrice()));
+        assertEquals(LevelMap.MAXIMUM_LADDER + 4, VOD.betterOnBook(high, OrderSide.SELL, 1).getLevel());
+    }
 
+    @Test
+    public void testFixedPrice() {
+        // A tick of less than a millionth can't be held exactly
+        assertThrows(IllegalArgumentException.class, () -> new ConstantTickSizeToLevelConverter(0.0000001f));
+        final Instrument GSK = new Instrument("GSK.L", new Currency("GBP"), new ConstantTickSizeToLevelConverter(1, 100, 2));
+        final Level level = GSK.getLevel(101.37f);
+        assertEquals(101_370_000L, level.getFixedPrice());
+        assertSame(level, GSK.getLevelForFixedPrice(101_370_000L));
+        assertSame(level, GSK.getLevelForFixedPrice(101_374_999L));
+        assertSame(GSK.getLevelAt(level.getLevel() + 1), GSK.getLevelForFixedPrice(101_375_000L));
+        assertTrue(GSK.getLevelForFixedPrice(0L).isMarket());
+        // Values are exact where the float arithmetic isn't
+        assertEquals(1_013_700_000_000L, Price.value(level.getFixedPrice(), 10_000));
+        final Level dynamic = DynamicTickToLevelConverter.DEFAULT_DYNAMIC_TICK_TO_LEVEL_CONVERTER.calculateLevel(4.9995f);
+        assertEquals(4_999_500L, DynamicTickToLevelConverter.DEFAULT_DYNAMIC_TICK_TO_LEVEL_CONVERTER.calculateFixedPrice(dynamic.getLevel()));
+        assertEquals(dynamic.getLevel(), DynamicTickToLevelConverter.DEFAULT_DYNAMIC_TICK_TO_LEVEL_CONVERTER.calculateLevelIndex(4_999_500L));
+    }
 }
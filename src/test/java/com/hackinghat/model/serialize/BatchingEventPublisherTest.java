@@ -0,0 +1,90 @@
+package com.hackinghat.model.serialize;
+
+import com.hackinghat.model.ConstantTickSizeToLevelConverter;
+import com.hackinghat.model.Currency;
+import com.hackinghat.model.Instrument;
+import com.hackinghat.model.Trade;
+import com.hackinghat.util.SimulatorObjectMapper;
+import com.hackinghat.util.SimulatorObjectMapperAudience;
+import com.hackinghat.util.TimeMachine;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.hackinghat.util.component.AbstractComponentTest.checkNumberOfMBeans;
+import static org.junit.Assert.assertEquals;
+
+public class BatchingEventPublisherTest {
+    private TimeMachine timeMachine;
+    private SimulatorObjectMapper mapper;
+    private Instrument VOD;
+    private Instrument LLOY;
+
+    @Before
+    public void setUp() {
+        checkNumberOfMBeans(0, "BatchingEventPublisherTest.setUp");
+        timeMachine = new TimeMachine();
+        mapper = new SimulatorObjectMapper(SimulatorObjectMapperAudience.PUBLIC, timeMachine);
+        VOD = new Instrument("VOD", new Currency("GBP"), new ConstantTickSizeToLevelConverter(1, 100, 2));
+        LLOY = new Instrument("LLOY", new Currency("GBP"), new ConstantTickSizeToLevelConverter(1, 100, 2));
+    }
+
+    /**
+     * An in-process stand-in for a broker that acknowledges every send immediately.  It keeps every record it is sent,
+     * so it's only for tests.
+     */
+    private static MockProducer<String, byte[]> makeBroker() {
+        return new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer());
+    }
+
+    private Trade makeTrade(final Instrument instrument, final int i) {
+        return new Trade(this, "T" + i, instrument, LocalDateTime.of(2020, 1, 2, 8, 0, 0).plusSeconds(i), null, "C" + i, "C" + (i + 1), instrument.getLevel(100.0f + i), 100 + i);
+    }
+
+    @Test
+    public void testGroupedByTopic() throws Exception {
+        final MockProducer<String, byte[]> broker = makeBroker();
+        final BatchingEventPublisher<String, Trade> publisher = new BatchingEventPublisher<>("EP-Test", broker, mapper, t -> t.getInstrument().getTicker() + ".TRADE");
+        try (publisher) {
+            for (int i = 0; i < 6; ++i)
+                publisher.publish(timeMachine, makeTrade(i % 2 == 0 ? VOD : LLOY, i));
+        }
+        // Closing drains the queue, so everything has been sent and acknowledged by here
+        assertEquals(6L, publisher.getPublished());
+        assertEquals(6L, publisher.getSent());
+        assertEquals(6L, publisher.getAcknowledged());
+        assertEquals(0L, publisher.getDropped());
+        final List<ProducerRecord<String, byte[]>> history = broker.history();
+        assertEquals(6, history.size());
+        for (final ProducerRecord<String, byte[]> record : history) {
+            final int i = Integer.parseInt(record.key().substring(1));
+            final Trade expected = makeTrade(i % 2 == 0 ? VOD : LLOY, i);
+            assertEquals(expected.getInstrument().getTicker() + ".TRADE", record.topic());
+            assertEquals(mapper.writeValueAsString(expected), new String(record.value(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testDropWhenFull() {
+        final MockProducer<String, byte[]> broker = makeBroker();
+        final BatchingEventPublisher<String, Trade> publisher = new BatchingEventPublisher<>("EP-Test", broker, mapper, t -> "VOD.TRADE", 2, 10, Duration.ofMillis(1L));
+        for (int i = 0; i < 100; ++i)
+            publisher.publish(timeMachine, makeTrade(VOD, i));
+        publisher.close();
+        // However quickly the sender kept up, nothing is lost without being counted
+        assertEquals(100L, publisher.getPublished() + publisher.getDropped());
+        assertEquals(publisher.getPublished(), publisher.getSent());
+        assertEquals(publisher.getSent(), broker.history().size());
+        // Once closed nothing more is accepted
+        publisher.publish(timeMachine, makeTrade(VOD, 100));
+        assertEquals(100L, publisher.getPublished() + publisher.getDropped());
+    }
+}
@@ -0,0 +1,34 @@
+package com.hackinghat.model.serialize;
+
+import com.hackinghat.model.Trade;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Test;
+
+import java.io.IOException;
+
+/**
+ * Compares the time the streaming trade serialisers take with the ones they replaced, it's only logged.  Not part of
+ * the unit tests, run with <code>mvn test -Pbenchmark</code>.
+ */
+public class TradeJsonBenchmark extends TradeJsonTest {
+    private static final Logger LOG = LogManager.getLogger(TradeJsonBenchmark.class);
+    private static final int ROUNDS = 20;
+
+    @Test
+    public void testTimings() throws IOException {
+        final byte[][] json = new byte[TRADES][];
+        final byte[][] legacyJson = new byte[TRADES][];
+        final Trade[] decoded = new Trade[TRADES];
+        final Trade[] legacyDecoded = new Trade[TRADES];
+        long fastWrite = Long.MAX_VALUE, legacyWrite = Long.MAX_VALUE, fastRead = Long.MAX_VALUE, legacyRead = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; ++round) {
+            legacyWrite = Math.min(legacyWrite, serialise(legacyMapper, legacyJson));
+            fastWrite = Math.min(fastWrite, serialise(mapper, json));
+            legacyRead = Math.min(legacyRead, deserialise(legacyMapper, legacyJson, legacyDecoded));
+            fastRead = Math.min(fastRead, deserialise(mapper, json, decoded));
+        }
+        LOG.info(String.format("Trade JSON ns/op, write: %d (legacy %d), read: %d (legacy %d)",
+                fastWrite / TRADES, legacyWrite / TRADES, fastRead / TRADES, legacyRead / TRADES));
+    }
+}
@@ -0,0 +1,149 @@
+package com.hackinghat.model.serialize;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.hackinghat.model.ConstantTickSizeToLevelConverter;
+import com.hackinghat.model.Currency;
+import com.hackinghat.model.Instrument;
+import com.hackinghat.model.Trade;
+import com.hackinghat.util.SimulatorObjectMapper;
+import com.hackinghat.util.SimulatorObjectMapperAudience;
+import com.hackinghat.util.TimeMachine;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the streaming trade serialisers produce the same as the tree/string based ones they replaced
+ */
+public class TradeJsonTest {
+    static final int TRADES = 1024;
+
+    SimulatorObjectMapper mapper;
+    SimulatorObjectMapper legacyMapper;
+    Trade[] trades;
+
+    /**
+     * The serialiser as it was, a string per timestamp (via a {@link ZonedDateTime}) and field names encoded per trade
+     */
+    static class LegacyTradeSerializer extends StdSerializer<Trade> {
+        private final SimulatorObjectMapper mapper;
+
+        LegacyTradeSerializer(final SimulatorObjectMapper mapper) {
+            super(Trade.class);
+            this.mapper = mapper;
+        }
+
+        @Override
+        public void serialize(final Trade trade, final JsonGenerator jsonGenerator, final SerializerProvider serializerProvider) throws IOException {
+            jsonGenerator.writeStartObject();
+            if (SimulatorObjectMapperAudience.isPrivate(mapper.getAudience())) {
+                jsonGenerator.writeStringField("order1", trade.getOrder1());
+                jsonGenerator.writeStringField("order2", trade.getOrder2());
+            }
+            jsonGenerator.writeStringField("instrument", trade.getInstrument() == null ? null : trade.getInstrument().getTicker());
+            jsonGenerator.writeNumberField("quantity", trade.getQuantity());
+            jsonGenerator.writeNumberField("price", trade.getLevel().getPrice());
+            jsonGenerator.writeStringField("flags", trade.getFlags());
+            final ZonedDateTime zoned = ZonedDateTime.of(trade.getTimestamp(), ZoneId.systemDefault());
+            jsonGenerator.writeStringField("timestamp", LocalDateTime.ofInstant(zoned.toInstant(), ZoneOffset.UTC).toString());
+            jsonGenerator.writeEndObject();
+        }
+    }
+
+    /**
+     * The deserialiser as it was, a tree per trade and every instrument looked up in the synchronized cache
+     */
+    static class LegacyTradeDeserializer extends StdDeserializer<Trade> {
+        private final SimulatorObjectMapper mapper;
+
+        LegacyTradeDeserializer(final SimulatorObjectMapper mapper) {
+            super(Trade.class);
+            this.mapper = mapper;
+        }
+
+        @Override
+        public Trade deserialize(final JsonParser jsonParser, final DeserializationContext deserializationContext) throws IOException {
+            final Trade trade = new Trade();
+            final JsonNode node = jsonParser.getCodec().readTree(jsonParser);
+            final Instrument instrument = mapper.getCache(Instrument.class).get(node.get("instrument").textValue()).get();
+            trade.setTimestamp(mapper.getTimeMachine().parseTimeFromUTCISO(node.get("timestamp").textValue()));
+            trade.setOrder1(node.get("order1").textValue());
+            trade.setOrder2(node.get("order2").textValue());
+            trade.setQuantity(node.get("quantity").intValue());
+            trade.setFlags(node.get("flags").textValue());
+            trade.setInstrument(instrument);
+            trade.setLevel(instrument.getLevel(Float.parseFloat(node.get("price").toString())));
+            return trade;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        final TimeMachine timeMachine = new TimeMachine();
+        mapper = new SimulatorObjectMapper(SimulatorObjectMapperAudience.PRIVATE, timeMachine);
+        legacyMapper = new SimulatorObjectMapper(SimulatorObjectMapperAudience.PRIVATE, timeMachine);
+        final SimpleModule legacy = new SimpleModule("LegacyTrade");
+        legacy.addSerializer(Trade.class, new LegacyTradeSerializer(legacyMapper));
+        legacy.addDeserializer(Trade.class, new LegacyTradeDeserializer(legacyMapper));
+        legacyMapper.registerModule(legacy);
+
+        final Instrument BENCH = new Instrument("BENCH.L", new Currency("GBP"), new ConstantTickSizeToLevelConverter(1, 100, 2));
+        mapper.getCache(Instrument.class).upsert(BENCH);
+        trades = new Trade[TRADES];
+        final LocalDateTime start = LocalDateTime.of(2020, 3, 27, 8, 0);
+        for (int i = 0; i < TRADES; ++i) {
+            // Cross the clock change to check the offset is followed
+            trades[i] = new Trade(this, "T" + i, BENCH, start.plusMinutes(7L * i).plusNanos(i * 1_001L), i % 2 == 0 ? "A" : null,
+                    "C" + i, "C" + (i + 1), BENCH.getLevel(90.0f + (i % 200) * 0.05f), 100 + i);
+        }
+    }
+
+    long serialise(final SimulatorObjectMapper mapper, final byte[][] out) throws IOException {
+        final long start = System.nanoTime();
+        for (int i = 0; i < TRADES; ++i)
+            out[i] = mapper.writeValueAsBytes(trades[i]);
+        return System.nanoTime() - start;
+    }
+
+    long deserialise(final SimulatorObjectMapper mapper, final byte[][] in, final Trade[] out) throws IOException {
+        final long start = System.nanoTime();
+        for (int i = 0; i < TRADES; ++i)
+            out[i] = mapper.readValue(in[i], Trade.class);
+        return System.nanoTime() - start;
+    }
+
+    @Test
+    public void testStreamingAgainstLegacy() throws IOException {
+        final byte[][] json = new byte[TRADES][];
+        final byte[][] legacyJson = new byte[TRADES][];
+        final Trade[] decoded = new Trade[TRADES];
+        final Trade[] legacyDecoded = new Trade[TRADES];
+        serialise(legacyMapper, legacyJson);
+        serialise(mapper, json);
+        deserialise(legacyMapper, legacyJson, legacyDecoded);
+        deserialise(mapper, json, decoded);
+        for (int i = 0; i < TRADES; ++i) {
+            assertEquals(new String(legacyJson[i]), new String(json[i]));
+            // Times in the spring gap don't survive the round trip in either, so compare with the legacy reading
+            assertEquals(legacyDecoded[i].getTimestamp(), decoded[i].getTimestamp());
+            assertEquals(trades[i].getLevel(), decoded[i].getLevel());
+            assertEquals(trades[i].getOrder2(), decoded[i].getOrder2());
+            assertEquals(legacyDecoded[i].getFlags(), decoded[i].getFlags());
+            assertEquals(legacyDecoded[i].getQuantity(), decoded[i].getQuantity());
+        }
+    }
+}
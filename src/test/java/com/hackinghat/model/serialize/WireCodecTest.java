@@ -0,0 +1,212 @@
+package com.hackinghat.model.serialize;
+
+import com.hackinghat.agent.NullAgent;
+import com.hackinghat.kafka.KafkaWireSerializerDeserializer;
+import com.hackinghat.model.ConstantTickSizeToLevelConverter;
+import com.hackinghat.model.Currency;
+import com.hackinghat.model.Instrument;
+import com.hackinghat.model.Trade;
+import com.hackinghat.order.MarketState;
+import com.hackinghat.order.Order;
+import com.hackinghat.order.OrderSide;
+import com.hackinghat.order.OrderState;
+import com.hackinghat.orderbook.*;
+import com.hackinghat.util.NotSoRandomSource;
+import com.hackinghat.util.SimulatorObjectMapper;
+import com.hackinghat.util.SimulatorObjectMapperAudience;
+import com.hackinghat.util.TimeMachine;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class WireCodecTest {
+    private TimeMachine timeMachine;
+    private Instrument VOD;
+    private Instrument LLOY;
+    private WireCodec codec;
+
+    @Before
+    public void setUp() {
+        timeMachine = new TimeMachine(LocalTime.of(8, 0, 0), 0.0);
+        timeMachine.start();
+        VOD = new Instrument("VOD.L", new Currency("GBP"), new ConstantTickSizeToLevelConverter(1, 100, 2));
+        LLOY = new Instrument("LLOY.L", new Currency("GBP"), new ConstantTickSizeToLevelConverter(1, 100, 2));
+        codec = new WireCodec(new InstrumentDirectory(VOD, LLOY));
+    }
+
+    @Test
+    public void testTrade() throws Exception {
+        final LocalDateTime time = LocalDateTime.of(2020, 1, 2, 8, 0, 1, 123_456_789);
+        final Trade trade = new Trade(this, "T1", LLOY, time, "A", "C1", "C2", LLOY.getLevel(101.25f), 1000);
+        final ByteBuffer buffer = WireCodec.allocate();
+        final int length = codec.encode((Object) trade, buffer);
+        assertEquals(WireCodec.HEADER_LENGTH + WireCodec.TRADE_BLOCK + 9, length);
+        final int jsonLength = new SimulatorObjectMapper(SimulatorObjectMapperAudience.PRIVATE, timeMachine).writeValueAsBytes(trade).length;
+        assertTrue("Binary: " + length + ", JSON: " + jsonLength, length * 3 < jsonLength);
+
+        buffer.flip();
+        final Trade decoded = (Trade) codec.decode(buffer);
+        assertEquals(length, buffer.position());
+        assertEquals("T1", decoded.getTradeId());
+        assertSame(LLOY, decoded.getInstrument());
+        assertEquals(time, decoded.getTimestamp());
+        assertEquals("A", decoded.getFlags());
+        assertEquals("C1", decoded.getOrder1());
+        assertEquals("C2", decoded.getOrder2());
+        assertEquals(trade.getLevel(), decoded.getLevel());
+        assertEquals(101.25f, decoded.getLevel().getPrice(), 1E-6);
+        assertEquals(1000, (int) decoded.getQuantity());
+    }
+
+    @Test
+    public void testOrderUpdate() {
+        try (final NullAgent agent = new NullAgent(0L, VOD, new NotSoRandomSource(), timeMachine, "AGENT-0", null)) {
+            final Order order = new Order("C1", OrderSide.SELL, VOD, 0.0f, 500, agent, timeMachine);
+            order.setId(42L);
+            final OrderUpdate update = OrderUpdate.of(order);
+            final ByteBuffer buffer = WireCodec.allocate();
+            codec.encode(update, buffer);
+            buffer.flip();
+            final OrderUpdate decoded = (OrderUpdate) codec.decode(buffer);
+            assertEquals(update, decoded);
+            assertTrue(decoded.getLevel().isMarket());
+        }
+    }
+
+    @Test
+    public void testLevel1AndDepth() {
+        final LocalDateTime time = LocalDateTime.of(2020, 1, 2, 8, 0, 2);
+        final OrderInterest bid = new OrderInterest(OrderSide.BUY, VOD.getLevel(99.0f), 300L, 2);
+        final OrderInterest offer = new OrderInterest(OrderSide.SELL, VOD.getMarket(), 0L, 0);
+        final Level1Event event = new Level1Event(this, time, VOD, new Touch(time, MarketState.CONTINUOUS, bid, offer));
+        final ByteBuffer buffer = WireCodec.allocate();
+        assertEquals(WireCodec.HEADER_LENGTH + WireCodec.LEVEL1_BLOCK, codec.encode(event, buffer));
+        final DepthUpdate depth = new DepthUpdate(VOD, time, OrderSide.SELL, VOD.getLevel(101.0f), 0L, 0);
+        assertEquals(WireCodec.HEADER_LENGTH + WireCodec.DEPTH_BLOCK, codec.encode(depth, buffer));
+        buffer.flip();
+
+        final Level1Event decoded = (Level1Event) codec.decode(buffer);
+        assertSame(VOD, decoded.getInstrument());
+        assertEquals(time, decoded.getLevel1().getTimestamp());
+        assertEquals(bid, decoded.getLevel1().getBid());
+        assertEquals(offer, decoded.getLevel1().getOffer());
+        assertEquals(MarketState.CONTINUOUS, decoded.getLevel1().getMarketState());
+        assertEquals(depth, codec.decode(buffer));
+        assertFalse(buffer.hasRemaining());
+    }
+
+    private Order accepted(final long id, final OrderSide side, final float price, final int quantity, final NullAgent agent) {
+        final Order order = new Order(side.toString() + id, side, VOD, price, quantity, agent, timeMachine);
+        order.setId(id);
+        order.resetState(timeMachine.toSimulationTime());
+        return order;
+    }
+
+    @Test
+    public void testDepthDiff() {
+        final OrderBook bids = new OrderBook(OrderSide.BUY, VOD);
+        final OrderBook offers = new OrderBook(OrderSide.SELL, VOD);
+        try (final NullAgent agent = new NullAgent(0L, VOD, new NotSoRandomSource(), timeMachine, "AGENT-0", null)) {
+            assertTrue(DepthUpdate.diff(VOD, null, new FullDepth(bids, offers, timeMachine)).isEmpty());
+            bids.newOrder(accepted(1L, OrderSide.BUY, 99.0f, 100, agent));
+            offers.newOrder(accepted(2L, OrderSide.SELL, 101.0f, 200, agent));
+            final FullDepth first = new FullDepth(bids, offers, timeMachine);
+            assertEquals(2, DepthUpdate.diff(VOD, null, first).size());
+
+            bids.newOrder(accepted(3L, OrderSide.BUY, 99.0f, 50, agent));
+            final Order removed = accepted(4L, OrderSide.SELL, 102.0f, 10, agent);
+            offers.newOrder(removed);
+            final FullDepth second = new FullDepth(bids, offers, timeMachine);
+            final List<DepthUpdate> updates = DepthUpdate.diff(VOD, first, second);
+            assertEquals(2, updates.size());
+            assertEquals(new DepthUpdate(VOD, second.getTimestamp(), OrderSide.BUY, VOD.getLevel(99.0f), 150L, 2), updates.get(0));
+            assertEquals(new DepthUpdate(VOD, second.getTimestamp(), OrderSide.SELL, VOD.getLevel(102.0f), 10L, 1), updates.get(1));
+
+            // Going back to the first depth removes the level that was added
+            final List<DepthUpdate> reverse = DepthUpdate.diff(VOD, second, first);
+            assertEquals(0L, reverse.get(1).getQuantity());
+            assertEquals(VOD.getLevel(102.0f), reverse.get(1).getLevel());
+        } finally {
+            bids.close();
+            offers.close();
+        }
+    }
+
+    @Test
+    public void testKafkaSerde() {
+        final KafkaWireSerializerDeserializer<Trade> serde = new KafkaWireSerializerDeserializer<>(Trade.class, codec);
+        final Trade trade = new Trade(this, "T2", VOD, LocalDateTime.of(2020, 1, 2, 8, 0, 3), null, "C3", "C4", VOD.getLevel(100.5f), 10);
+        final byte[] bytes = serde.serialize("VOD.TRADE", trade);
+        final Trade decoded = serde.deserialize("VOD.TRADE", bytes);
+        assertEquals("T2", decoded.getTradeId());
+        assertNull(decoded.getFlags());
+        assertEquals(trade.getLevel(), decoded.getLevel());
+        // The wrong type of message isn't returned
+        assertNull(new KafkaWireSerializerDeserializer<>(DepthUpdate.class, codec).deserialize("VOD.TRADE", bytes));
+    }
+
+    @Test(expected = SerializationException.class)
+    public void testKafkaSerdeTruncated() {
+        final KafkaWireSerializerDeserializer<Trade> serde = new KafkaWireSerializerDeserializer<>(Trade.class, codec);
+        final Trade trade = new Trade(this, "T2", VOD, LocalDateTime.of(2020, 1, 2, 8, 0, 3), null, "C3", "C4", VOD.getLevel(100.5f), 10);
+        serde.deserialize("VOD.TRADE", Arrays.copyOf(serde.serialize("VOD.TRADE", trade), 12));
+    }
+
+    @Test
+    public void testBadEnum() {
+        try (final NullAgent agent = new NullAgent(0L, VOD, new NotSoRandomSource(), timeMachine, "AGENT-0", null)) {
+            final Order order = new Order("C1", OrderSide.SELL, VOD, 100.0f, 500, agent, timeMachine);
+            order.setId(42L);
+            final KafkaWireSerializerDeserializer<OrderUpdate> serde = new KafkaWireSerializerDeserializer<>(OrderUpdate.class, codec);
+            final byte[] bytes = serde.serialize("VOD.ORDER", OrderUpdate.of(order));
+            // The side follows the instrument, time, id, version, level, quantity and filled quantity
+            final int sideOffset = WireCodec.HEADER_LENGTH + 36;
+            for (final byte bad : new byte[]{(byte) OrderSide.values().length, (byte) -1}) {
+                bytes[sideOffset] = bad;
+                try {
+                    codec.decode(ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN));
+                    fail("Decoded a bad side: " + bad);
+                } catch (final IllegalArgumentException expected) {
+                    assertTrue(expected.getMessage(), expected.getMessage().endsWith("at offset " + sideOffset));
+                }
+                try {
+                    serde.deserialize("VOD.ORDER", bytes);
+                    fail("Deserialized a bad side: " + bad);
+                } catch (final SerializationException expected) {
+                    assertTrue(expected.getCause() instanceof IllegalArgumentException);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNullAndEmptyStrings() {
+        final Trade trade = new Trade(this, "", VOD, LocalDateTime.of(2020, 1, 2, 8, 0, 3), null, "", "C4", VOD.getLevel(100.5f), 10);
+        final OrderUpdate update = new OrderUpdate(VOD, LocalDateTime.of(2020, 1, 2, 8, 0, 3), 42L, null, 1, OrderSide.BUY,
+                OrderState.NEW, VOD.getLevel(100.0f), 10, 0);
+        final ByteBuffer buffer = WireCodec.allocate();
+        codec.encode(trade, buffer);
+        codec.encode(update, buffer);
+        buffer.flip();
+        final Trade decoded = (Trade) codec.decode(buffer);
+        assertEquals("", decoded.getTradeId());
+        assertEquals("", decoded.getOrder1());
+        assertEquals("C4", decoded.getOrder2());
+        assertNull(((OrderUpdate) codec.decode(buffer)).getClientId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownInstrument() {
+        final Instrument BARC = new Instrument("BARC.L", new Currency("GBP"), new ConstantTickSizeToLevelConverter(1, 100, 2));
+        codec.encode(new Trade(this, "T3", BARC, LocalDateTime.of(2020, 1, 2, 8, 0, 3), null, "C1", "C2", BARC.getLevel(100.0f), 1), WireCodec.allocate());
+    }
+}
@@ -0,0 +1,91 @@
+package com.hackinghat.orderbook;
+
+import com.hackinghat.order.OrderState;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FlightRecorderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRingKeepsTheLast() {
+        try (final FlightRecorder recorder = new FlightRecorder("FR-Ring", 8)) {
+            assertTrue(recorder.getEntries().isEmpty());
+            for (int i = 0; i < 20; ++i)
+                recorder.record(FlightRecorder.Kind.NEW, i, OrderState.PENDING_NEW, OrderState.NEW, 100 + i, 10L * i);
+            assertEquals(20L, recorder.getRecorded());
+            // The oldest slot is the next to be written so it isn't returned
+            final List<FlightRecorder.Entry> entries = recorder.getEntries();
+            assertEquals(7, entries.size());
+            for (int i = 0; i < 7; ++i) {
+                assertEquals(13L + i, entries.get(i).getOrderId());
+                assertEquals(113 + i, entries.get(i).getLevel());
+                assertEquals(10L * (13 + i), entries.get(i).getQuantity());
+            }
+            assertTrue(entries.get(0).getNanoTime() <= entries.get(6).getNanoTime());
+        }
+    }
+
+    @Test
+    public void testDumpAndRead() throws IOException {
+        try (final FlightRecorder recorder = new FlightRecorder("FR-Dump", 4)) {
+            recorder.record(FlightRecorder.Kind.CANCEL, 7L, OrderState.PENDING_CANCEL, OrderState.CANCELLED, 99, 50L);
+            recorder.record(FlightRecorder.Kind.UNCROSS, -1L, null, null, 101, 1000L);
+            final Path path = folder.getRoot().toPath().resolve("dump.flight");
+            assertEquals(2, recorder.dump(path));
+            final List<FlightRecorder.Entry> entries = FlightRecorder.read(path);
+            assertEquals(2, entries.size());
+            assertEquals(FlightRecorder.Kind.CANCEL, entries.get(0).getKind());
+            assertEquals(7L, entries.get(0).getOrderId());
+            assertEquals(OrderState.PENDING_CANCEL, entries.get(0).getFrom());
+            assertEquals(OrderState.CANCELLED, entries.get(0).getTo());
+            assertEquals(FlightRecorder.Kind.UNCROSS, entries.get(1).getKind());
+            assertNull(entries.get(1).getFrom());
+            assertNull(entries.get(1).getTo());
+            assertEquals(-1L, entries.get(1).getOrderId());
+        }
+    }
+
+    @Test
+    public void testReadWhileRecording() throws InterruptedException {
+        final int total = 2_000_000;
+        try (final FlightRecorder recorder = new FlightRecorder("FR-Concurrent", 8)) {
+            final Thread writer = new Thread(() -> {
+                for (int i = 0; i < total; ++i)
+                    recorder.record(FlightRecorder.Kind.FILL, i, OrderState.NEW, OrderState.PARTIALLY_FILLED, i, 10L * i);
+            }, "FR-Writer");
+            writer.start();
+            long reads = 0;
+            while (writer.isAlive() || reads == 0) {
+                final List<FlightRecorder.Entry> entries = recorder.getEntries();
+                for (int i = 0; i < entries.size(); ++i) {
+                    final FlightRecorder.Entry entry = entries.get(i);
+                    // Every field of an entry was written together and the entries follow on from each other
+                    assertEquals(FlightRecorder.Kind.FILL, entry.getKind());
+                    assertEquals(entry.getOrderId(), entry.getLevel());
+                    assertEquals(10L * entry.getOrderId(), entry.getQuantity());
+                    if (i > 0)
+                        assertEquals(entries.get(i - 1).getOrderId() + 1, entry.getOrderId());
+                }
+                ++reads;
+            }
+            writer.join();
+            assertEquals(total, recorder.getRecorded());
+        }
+    }
+
+    @Test
+    public void testCapacityIsAPowerOfTwo() {
+        try (final FlightRecorder recorder = new FlightRecorder("FR-Capacity", 6)) {
+            assertEquals(8, recorder.getCapacity());
+        }
+    }
+}
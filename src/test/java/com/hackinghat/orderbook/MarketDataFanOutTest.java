@@ -0,0 +1,107 @@
+package com.hackinghat.orderbook;
+
+import com.hackinghat.model.ConstantTickSizeToLevelConverter;
+import com.hackinghat.model.Currency;
+import com.hackinghat.model.Instrument;
+import com.hackinghat.model.Trade;
+import com.hackinghat.util.Event;
+import com.hackinghat.util.Listener;
+import com.hackinghat.util.SyncEventDispatcher;
+import com.hackinghat.util.TimeMachine;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hackinghat.util.component.AbstractComponentTest.checkNumberOfMBeans;
+import static org.junit.Assert.*;
+
+public class MarketDataFanOutTest {
+    private TimeMachine timeMachine;
+    private Instrument VOD;
+    private Instrument BT;
+    private MarketDataFanOut fanOut;
+
+    @Before
+    public void setUp() {
+        checkNumberOfMBeans(0, "MarketDataFanOutTest.setup");
+        timeMachine = new TimeMachine();
+        VOD = new Instrument("VOD.L", new Currency("GBP"), new ConstantTickSizeToLevelConverter(1, 100, 2));
+        BT = new Instrument("BT.L", new Currency("GBP"), new ConstantTickSizeToLevelConverter(1, 100, 2));
+        fanOut = new MarketDataFanOut("MarketData-Test", new SyncEventDispatcher(timeMachine));
+    }
+
+    @After
+    public void teardown() {
+        fanOut.shutdown();
+        checkNumberOfMBeans(0, "MarketDataFanOutTest.teardown");
+    }
+
+    private Trade makeTrade(final Instrument instrument, final String id, final int quantity) {
+        return new Trade(this, id, instrument, timeMachine.toSimulationTime(), null, "O1", "O2", instrument.getLevel(100.0f), quantity);
+    }
+
+    @Test
+    public void testSharedInstanceByInstrument() {
+        final RecordingListener vodListener1 = new RecordingListener();
+        final RecordingListener vodListener2 = new RecordingListener();
+        final RecordingListener btListener = new RecordingListener();
+        fanOut.subscribe(VOD, Trade.class, vodListener1, false);
+        fanOut.subscribe(VOD, Trade.class, vodListener2, false);
+        fanOut.subscribe(BT, Trade.class, btListener, false);
+
+        final Trade trade = makeTrade(VOD, "T1", 100);
+        fanOut.publish(VOD, trade);
+        assertEquals(0, vodListener1.received.size());
+        fanOut.flush();
+        assertEquals(1, vodListener1.received.size());
+        assertSame(trade, vodListener1.received.get(0));
+        assertSame(trade, vodListener2.received.get(0));
+        assertEquals(0, btListener.received.size());
+        assertEquals(1, fanOut.getBatchesDelivered());
+    }
+
+    @Test
+    public void testConflation() {
+        final RecordingListener fast = new RecordingListener();
+        final RecordingListener slow = new RecordingListener();
+        fanOut.subscribe(VOD, Trade.class, fast, false);
+        fanOut.subscribe(VOD, Trade.class, slow, true);
+        for (int i = 0; i < 3; ++i)
+            fanOut.publish(VOD, makeTrade(VOD, "T" + i, 100 + i));
+        fanOut.flush();
+        assertEquals(3, fast.received.size());
+        assertEquals(1, slow.received.size());
+        assertEquals(102, (int) ((Trade) slow.received.get(0)).getQuantity());
+        assertEquals(2, fanOut.getEventsConflated());
+    }
+
+    @Test
+    public void testNoSubscribers() {
+        final RecordingListener listener = new RecordingListener();
+        fanOut.subscribe(VOD, Level1Event.class, listener, false);
+        assertFalse(fanOut.hasSubscribers(VOD, Trade.class));
+        fanOut.publish(VOD, makeTrade(VOD, "T1", 100));
+        assertEquals(0, fanOut.getPendingCount());
+        assertTrue(fanOut.unsubscribe(VOD, Level1Event.class, listener));
+        assertFalse(fanOut.hasSubscribers(VOD, Level1Event.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateSubscription() {
+        final RecordingListener listener = new RecordingListener();
+        fanOut.subscribe(VOD, Trade.class, listener, false);
+        fanOut.subscribe(VOD, Trade.class, listener, true);
+    }
+
+    private static class RecordingListener implements Listener {
+        final List<Event> received = new ArrayList<>();
+
+        @Override
+        public void notify(final Event event) {
+            received.add(event);
+        }
+    }
+}
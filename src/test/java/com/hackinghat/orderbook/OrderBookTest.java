@@ -207,6 +207,39 @@ public class OrderBookTest {
         checkOrderInterests(bidQueue);
     }
 
+    @Test
+    public void testBestInterestSkipsEmptyLevels() {
+        final Level level1 = VOD.getLevel(limitPrice);
+        final Level level2 = VOD.betterOnBook(level1, OrderSide.BUY, 2);
+        final Level level3 = VOD.betterOnBook(level1, OrderSide.BUY, 4);
+        final Order order1 = limitOrder(1L, OrderSide.BUY, VOD, level1.getPrice(), 100, nullAgent, timeMachine, true);
+        final Order order2 = limitOrder(2L, OrderSide.BUY, VOD, level2.getPrice(), 200, nullAgent, timeMachine, true);
+        final Order order3 = limitOrder(3L, OrderSide.BUY, VOD, level3.getPrice(), 300, nullAgent, timeMachine, true);
+        Assert.assertTrue(bidQueue.getBestInterest().getLevel().isMarket());
+        bidQueue.newOrder(order1);
+        bidQueue.newOrder(order3);
+        bidQueue.newOrder(order2);
+        OrderInterestTest.checkInterest(BUY, bidQueue.getBestInterest(), level3.getPrice(), 1, 300);
+        // With no market orders the touch is the level's own interest
+        Assert.assertSame(bidQueue.getInterest(level3), bidQueue.getBestInterest());
+
+        // Emptying the top level by execution or cancel moves the touch down past the empty levels
+        Assert.assertNull(bidQueue.execute(order3, 300, level3, timeMachine.toSimulationTime()));
+        OrderInterestTest.checkInterest(BUY, bidQueue.getBestInterest(), level2.getPrice(), 1, 200);
+        Assert.assertTrue(bidQueue.cancelOrder(order2));
+        Assert.assertEquals(level1, bidQueue.getBestLimitQueue().getLevel());
+        OrderInterestTest.checkInterest(BUY, bidQueue.getBestInterest(), level1.getPrice(), 1, 100);
+
+        // A market order is added to the touch
+        final Order market = marketOrder(4L, OrderSide.BUY, VOD, 50, nullAgent, timeMachine, true);
+        bidQueue.newOrder(market);
+        OrderInterestTest.checkInterest(BUY, bidQueue.getBestInterest(), level1.getPrice(), 2, 150);
+        Assert.assertTrue(bidQueue.cancelOrder(order1));
+        Assert.assertTrue(bidQueue.getBestInterest().getLevel().isMarket());
+        Assert.assertTrue(bidQueue.getBestLimitQueue().getLevel().isMarket());
+        bidQueue.cancelOrder(market);
+    }
+
     @Test
     public void testGetBestQueueBid() {
         testGetBestQueue(bidQueue, marketOrder(1L, OrderSide.BUY, VOD, 500, nullAgent, timeMachine, true),
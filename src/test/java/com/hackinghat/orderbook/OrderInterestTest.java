@@ -1,9 +1,19 @@
 package com.hackinghat.orderbook;
 
+import com.hackinghat.agent.NullAgent;
+import com.hackinghat.model.ConstantTickSizeToLevelConverter;
+import com.hackinghat.model.Currency;
+import com.hackinghat.model.Instrument;
+import com.hackinghat.order.OrderLimitQueue;
 import com.hackinghat.order.OrderSide;
+import com.hackinghat.util.NotSoRandomSource;
+import com.hackinghat.util.TimeMachine;
 import org.junit.Test;
 
+import static com.hackinghat.orderbook.OrderTest.limitOrder;
 import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 public class OrderInterestTest {
 
@@ -14,18 +24,39 @@ public class OrderInterestTest {
         assertEquals("volume break on " + side, expectedVolume, interest.getQuantity());
     }
 
-    @Test(expected = IllegalArgumentException.class)
-    public void testNoAddEmpty() {
-        OrderInterest.EMPTY.add(10);
-    }
-
-    @Test(expected = IllegalArgumentException.class)
-    public void testNoReduceEmpty() {
-        OrderInterest.EMPTY.reduce(10);
+    @Test
+    public void testQueueInterestIsASnapshot() {
+        final Instrument vod = new Instrument("VOD.L", new Currency("GBP"), new ConstantTickSizeToLevelConverter(1, 100, 3));
+        final TimeMachine timeMachine = new TimeMachine();
+        final NullAgent nullAgent = new NullAgent(0L, vod, new NotSoRandomSource(), timeMachine, "AGENT-0", null);
+        try {
+            final OrderLimitQueue queue = new OrderLimitQueue(vod.getLevel(100.0f), OrderSide.BUY);
+            queue.add(limitOrder(1L, OrderSide.BUY, vod, 100.0f, 1000, nullAgent, timeMachine, true));
+            final OrderInterest before = queue.getInterest();
+            // Nothing has changed so the same snapshot is handed out again
+            assertSame(before, queue.getInterest());
+            assertSame(before, before.copy());
+
+            queue.add(limitOrder(2L, OrderSide.BUY, vod, 100.0f, 500, nullAgent, timeMachine, true));
+            checkInterest(OrderSide.BUY, before, 100.0f, 1, 1000);
+            final OrderInterest after = queue.getInterest();
+            assertNotSame(before, after);
+            checkInterest(OrderSide.BUY, after, 100.0f, 2, 1500);
+        } finally {
+            nullAgent.shutdown();
+        }
     }
 
     @Test(expected = IllegalArgumentException.class)
-    public void testNoRemoveEmpty() {
-        OrderInterest.EMPTY.remove(10);
+    public void testNoRemoveNothing() {
+        final Instrument vod = new Instrument("VOD.L", new Currency("GBP"), new ConstantTickSizeToLevelConverter(1, 100, 3));
+        final TimeMachine timeMachine = new TimeMachine();
+        final NullAgent nullAgent = new NullAgent(0L, vod, new NotSoRandomSource(), timeMachine, "AGENT-0", null);
+        try {
+            final OrderLimitQueue queue = new OrderLimitQueue(vod.getLevel(100.0f), OrderSide.BUY);
+            queue.remove(limitOrder(1L, OrderSide.BUY, vod, 100.0f, 1000, nullAgent, timeMachine, true), 0);
+        } finally {
+            nullAgent.shutdown();
+        }
     }
 }
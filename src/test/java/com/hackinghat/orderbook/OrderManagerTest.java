@@ -20,6 +20,7 @@ import java.util.EnumSet;
 import static com.hackinghat.util.component.AbstractComponentTest.checkNumberOfMBeans;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
 public class OrderManagerTest {
     private Instrument VOD;
@@ -144,6 +145,28 @@ public class OrderManagerTest {
         Assert.assertEquals(2, manager.sizePending());
     }
 
+    @Test
+    public void testPublishedSnapshotsAreShared() {
+        setupTop(99.0f, 101.0f, 100);
+        final Level1 level1 = manager.getLevel1();
+        final FullDepth fullDepth = manager.getFullDepth();
+        // Readers are all given the published instance, not a copy of it
+        Assert.assertSame(level1, manager.getLevel1());
+        Assert.assertSame(fullDepth, manager.getFullDepth());
+
+        submitLimit(buyer, OrderSide.BUY, 99.0f, manager, 200);
+        // The book has moved on but what was published before hasn't
+        OrderInterestTest.checkInterest(OrderSide.BUY, level1.getBid(), 99.0f, 1, 100);
+        OrderInterestTest.checkInterest(OrderSide.BUY, fullDepth.getBidDepth().iterator().next(), 99.0f, 1, 100);
+        checkTouch(99.0f, 2, 300, 101.0f, 1, 100, MarketState.CONTINUOUS);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testFullDepthCantBeChanged() {
+        setupTop(99.0f, 101.0f, 100);
+        manager.getFullDepth().getBidDepth().clear();
+    }
+
     @Test
     public void testCancelInProcess() {
         Order b = new Order(nextId(), OrderSide.BUY, VOD, 100.0f, 500, nullAgent, timeMachine);
@@ -160,6 +183,36 @@ public class OrderManagerTest {
         assertEquals(0, nullAgent.getOutstandingOrderCount());
     }
 
+    @Test
+    public void testThroughput() {
+        // The market order would otherwise start an auction
+        marketManager.setPriceMonitoring(false);
+        final OrderThroughput throughput = manager.getThroughput();
+        makeBook(3, OrderSide.BUY, OrderSide.SELL, VOD.getLevel(150.0f), 100);
+        assertEquals(3, manager.getQueue(OrderSide.BUY).getLevelDepth());
+        assertEquals(3, manager.getQueue(OrderSide.SELL).getOrderCount());
+        assertEquals(1, manager.getQueue(OrderSide.SELL).getMaxQueueDepth());
+        submitMarket(seller, OrderSide.SELL, manager, 150);
+        final Order b = submitLimit(buyer, OrderSide.BUY, VOD.getLevel(140.0f), manager, 100, 100);
+        assertEquals(2, manager.getQueue(OrderSide.BUY).getMaxQueueDepth());
+        assertEquals(4.0 / 3.0, manager.getQueue(OrderSide.BUY).getMeanQueueDepth(), 1E-9);
+        b.cancel(timeMachine.toSimulationTime());
+        manager.add(b);
+        manager.process();
+
+        assertEquals(9, throughput.getNewCount());
+        assertEquals(2, throughput.getTradeCount());
+        assertEquals(4, throughput.getFillCount());
+        assertEquals(150, throughput.getTradedVolume());
+        assertEquals(1, throughput.getCancelCount());
+        assertEquals(0.0, throughput.getNewRate(), 0.0);
+        throughput.sample();
+        assertTrue(throughput.getNewRate() > 0.0);
+        assertTrue(throughput.getTradeRate() > 0.0);
+        throughput.sample();
+        assertEquals(0.0, throughput.getNewRate(), 0.0);
+    }
+
     @Test
     public void testClearTwoMarkets() {
 
@@ -0,0 +1,144 @@
+package com.hackinghat.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.hackinghat.util.component.AbstractComponentTest.checkNumberOfMBeans;
+import static org.junit.Assert.*;
+
+public class AppenderPipelineTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private AppenderPipeline pipeline;
+
+    @Before
+    public void setUp() {
+        checkNumberOfMBeans(0, "AppenderPipelineTest.setUp");
+        pipeline = new AppenderPipeline("AppenderPipeline-TEST", 4, Duration.ofMillis(5L));
+    }
+
+    @After
+    public void tearDown() {
+        pipeline.close();
+        checkNumberOfMBeans(0, "AppenderPipelineTest.tearDown");
+    }
+
+    @Test
+    public void testBatchedFlush() {
+        final StatisticsAppenderTestHelper first = pipeline.add(new StatisticsAppenderTestHelper());
+        final StatisticsAppenderTestHelper second = pipeline.add(new StatisticsAppenderTestHelper());
+        for (int i = 0; i < 10; ++i)
+            first.append("A" + i);
+        second.append("B0");
+        assertEquals(11L, pipeline.getQueueDepth());
+        assertEquals(11, pipeline.flush());
+        assertEquals(0L, pipeline.getQueueDepth());
+        assertEquals(11L, pipeline.getLinesWritten());
+        // 10 lines in batches of 4 then 1 line
+        assertEquals(4L, pipeline.getBatchesWritten());
+        assertEquals("A9", first.getLines().toArray()[9]);
+        assertEquals(1, second.getLines().size());
+    }
+
+    @Test
+    public void testDrop() {
+        final StatisticsAppenderTestHelper appender = pipeline.add(new StatisticsAppenderTestHelper(5, BackpressurePolicy.DROP));
+        for (int i = 0; i < 8; ++i)
+            appender.append("L" + i);
+        assertEquals(5L, appender.size());
+        assertEquals(3L, pipeline.getDropped());
+        pipeline.flush();
+        appender.append("L8");
+        assertEquals(1L, appender.size());
+        assertEquals(3L, appender.getDropped());
+    }
+
+    @Test
+    public void testSample() {
+        final StatisticsAppenderTestHelper appender = pipeline.add(new StatisticsAppenderTestHelper(10, BackpressurePolicy.SAMPLE));
+        appender.setBackpressure(BackpressurePolicy.SAMPLE, 2);
+        for (int i = 0; i < 20; ++i)
+            appender.append("L" + i);
+        // The first half is kept, then one in two until full, then everything is dropped
+        assertEquals(10L, appender.size());
+        assertEquals(10L, appender.getDropped());
+    }
+
+    @Test
+    public void testBlockWithRunningPipeline() throws Exception {
+        final StatisticsAppenderTestHelper appender = pipeline.add(new StatisticsAppenderTestHelper(2, BackpressurePolicy.BLOCK));
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<?> running = executor.submit(pipeline);
+            while (!pipeline.isRunning())
+                Thread.yield();
+            for (int i = 0; i < 100; ++i)
+                appender.append("L" + i);
+            pipeline.terminate();
+            running.get(5L, TimeUnit.SECONDS);
+            assertEquals(0L, appender.getDropped());
+            assertEquals(100, appender.getLines().size());
+            assertEquals(100L, pipeline.getLinesWritten());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBlockWithoutConsumerWritesOnCaller() {
+        final StatisticsAppenderTestHelper appender = pipeline.add(new StatisticsAppenderTestHelper(2, BackpressurePolicy.BLOCK));
+        for (int i = 0; i < 5; ++i)
+            appender.append("L" + i);
+        assertEquals(0L, appender.getDropped());
+        assertEquals(4, appender.getLines().size());
+        assertEquals("L3", appender.getLines().toArray()[3]);
+        assertEquals(1L, appender.size());
+    }
+
+    @Test
+    public void testFileBlockWithoutConsumerWritesOnCaller() throws IOException {
+        final String prefix = folder.getRoot().toPath().resolve("block").toString();
+        final FileStatisticsAppender<?> appender = pipeline.add(new FileStatisticsAppender<>(() -> "H", Instant.now(), prefix, 10, 2, BackpressurePolicy.BLOCK));
+        for (int i = 0; i < 5; ++i) {
+            appender.append("L" + i);
+            assertTrue(appender.size() <= 2);
+        }
+        assertEquals(0L, appender.getDropped());
+        assertEquals(4L, appender.getWritten());
+        assertTrue(pipeline.remove(appender));
+        final List<Path> files;
+        try (final Stream<Path> listing = Files.list(folder.getRoot().toPath())) {
+            files = listing.collect(Collectors.toList());
+        }
+        assertEquals(1, files.size());
+        assertEquals(List.of("H", "L0", "L1", "L2", "L3", "L4"), Files.readAllLines(files.get(0)));
+    }
+
+    @Test
+    public void testCloseWritesPending() {
+        final StatisticsAppenderTestHelper appender = pipeline.add(new StatisticsAppenderTestHelper());
+        appender.append("L0");
+        appender.append("L1");
+        assertTrue(pipeline.remove(appender));
+        assertEquals(2, appender.getLines().size());
+        assertEquals(0, pipeline.getAppenderCount());
+        assertFalse(pipeline.remove(appender));
+    }
+}
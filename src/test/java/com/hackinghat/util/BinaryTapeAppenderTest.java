@@ -0,0 +1,98 @@
+package com.hackinghat.util;
+
+import com.hackinghat.agent.NullAgent;
+import com.hackinghat.model.ConstantTickSizeToLevelConverter;
+import com.hackinghat.model.Currency;
+import com.hackinghat.model.Instrument;
+import com.hackinghat.model.Trade;
+import com.hackinghat.order.Order;
+import com.hackinghat.order.OrderSide;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BinaryTapeAppenderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TimeMachine timeMachine;
+    private Instrument VOD;
+
+    @Before
+    public void setUp() {
+        timeMachine = new TimeMachine(LocalTime.of(8, 0, 0), 0.0);
+        timeMachine.start();
+        VOD = new Instrument("VOD.L", new Currency("GBP"), new ConstantTickSizeToLevelConverter(1, 100, 2));
+    }
+
+    private Trade makeTrade(final int i, final String flags) {
+        return new Trade(this, "T" + i, VOD, timeMachine.toSimulationTime(), flags, "C" + i, "C" + (i + 1), VOD.getLevel(100.0f + i * 0.01f), 100 + i);
+    }
+
+    @Test
+    public void testRollAndExportTrades() throws Exception {
+        final String base = folder.getRoot().toPath().resolve("VOD-TRADE").toString();
+        final List<Path> segments;
+        try (final BinaryTapeAppender appender = new BinaryTapeAppender(TapeLayout.TRADE, Instant.now(), base, 2)) {
+            appender.configure();
+            for (int i = 0; i < 5; ++i)
+                appender.append(timeMachine, makeTrade(i, i == 0 ? "A" : null));
+            assertEquals(5L, appender.getRecordsWritten());
+            segments = appender.getSegmentPaths();
+        }
+        assertEquals(3, segments.size());
+        final TapeSegment last = TapeSegment.open(segments.get(2));
+        assertEquals(TapeLayout.TRADE, last.getLayout());
+        assertEquals(1, last.getCount());
+        assertEquals(104, last.getInt(8, 0));
+        assertEquals("C4", last.getAscii(4, 0));
+
+        final StringBuilder csv = new StringBuilder();
+        assertEquals(5L, new BinaryTapeReader(segments).exportCsv(csv));
+        final String[] lines = csv.toString().split(System.lineSeparator());
+        assertEquals(6, lines.length);
+        assertEquals("\"T\",\"Day#\",\"TradeId\",\"Flags\",\"Order1\",\"Order2\",\"Tick\",\"Price\",\"Quantity\"", lines[0]);
+        assertEquals("\"" + timeMachine.toSimulationTime() + "\",\"1\",\"T0\",\"A\",\"C0\",\"C1\",\"" + VOD.getLevel(100.0f).getLevel() + "\",\"100.0\",\"100\"", lines[1]);
+        assertTrue(lines[2].contains("\"T1\",\"\",\"C1\""));
+    }
+
+    @Test
+    public void testOrderLayout() throws Exception {
+        final String base = folder.getRoot().toPath().resolve("VOD-ORDER").toString();
+        try (final NullAgent agent = new NullAgent(0L, VOD, new NotSoRandomSource(), timeMachine, "AGENT-0", null);
+             final BinaryTapeAppender appender = new BinaryTapeAppender(TapeLayout.ORDER, Instant.now(), base)) {
+            final Order order = new Order("C1", OrderSide.SELL, VOD, 101.0f, 500, agent, timeMachine);
+            order.setId(42L);
+            // The wrong type of statistic is ignored
+            appender.append(timeMachine, makeTrade(0, null), order);
+            assertEquals(1L, appender.getRecordsWritten());
+            assertEquals(1L, appender.getDropped());
+            final TapeSegment segment = TapeSegment.open(appender.getSegmentPaths().get(0));
+            assertEquals(1, segment.getCount());
+            assertEquals(42L, segment.getLong(2, 0));
+            assertEquals("C1", segment.getAscii(3, 0));
+            assertEquals("AGENT-0", segment.getAscii(4, 0));
+            assertEquals(timeMachine.toSimulationTime(), TapeLayout.fromNanos(segment.getLong(TapeLayout.TIME, 0)));
+            assertEquals("SELL", TapeLayout.ORDER.format(segment, 6, 0));
+            assertEquals("PENDING_NEW", TapeLayout.ORDER.format(segment, 5, 0));
+        }
+    }
+
+    @Test
+    public void testStringsAreDropped() {
+        try (final BinaryTapeAppender appender = new BinaryTapeAppender(TapeLayout.TRADE, Instant.now(), folder.getRoot().toPath().resolve("X").toString())) {
+            appender.append("line");
+            appender.append("another");
+            assertEquals(2L, appender.getDropped());
+            assertEquals(0L, appender.getRecordsWritten());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.hackinghat.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.Assert.*;
+
+public class ConflatedValueTest {
+    private TimeMachine timeMachine;
+    private NotSoRandomSource randomSource;
+
+    private static class Stamped implements Timestamped {
+        private final int value;
+        private final LocalDateTime timestamp;
+
+        private Stamped(final int value, final LocalDateTime timestamp) {
+            this.value = value;
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public LocalDateTime getTimestamp() {
+            return timestamp;
+        }
+    }
+
+    private Stamped supplyOne() {
+        return new Stamped(randomSource.nextInt(10), timeMachine.toSimulationTime());
+    }
+
+    @Before
+    public void before() {
+        timeMachine = new TimeMachine();
+        timeMachine.start();
+        randomSource = new NotSoRandomSource();
+        randomSource.setIntSource(new int[]{1, 2, 3});
+    }
+
+    @Test
+    public void testFirstGetPublishes() {
+        final ConflatedValue<Stamped> value = new ConflatedValue<>(Stamped.class, timeMachine, Duration.of(1L, ChronoUnit.MINUTES), this::supplyOne);
+        assertEquals(1, value.get().value);
+        // Reading again does not recalculate
+        assertEquals(1, value.get().value);
+    }
+
+    @Test
+    public void testConflation() {
+        final ConflatedValue<Stamped> value = new ConflatedValue<>(Stamped.class, timeMachine, Duration.of(1L, ChronoUnit.MINUTES), this::supplyOne);
+        final LocalDateTime now = timeMachine.toSimulationTime();
+        assertTrue(value.publish(now));
+        assertEquals(1, value.get().value);
+        // Nothing changed
+        assertFalse(value.publish(now.plus(Duration.of(2L, ChronoUnit.MINUTES))));
+        // Changes inside the interval are held back
+        value.changed();
+        value.changed();
+        assertFalse(value.publish(now.plus(Duration.of(30L, ChronoUnit.SECONDS))));
+        assertEquals(1, value.get().value);
+        // ... and published once the interval has elapsed
+        assertTrue(value.publish(now.plus(Duration.of(1L, ChronoUnit.MINUTES))));
+        assertEquals(2, value.get().value);
+    }
+
+    @Test
+    public void testResetAllowsEarlierPublication() {
+        final ConflatedValue<Stamped> value = new ConflatedValue<>(Stamped.class, timeMachine, Duration.of(1L, ChronoUnit.MINUTES), this::supplyOne);
+        final LocalDateTime now = timeMachine.toSimulationTime();
+        assertTrue(value.publish(now));
+        value.reset();
+        assertTrue(value.publish(now.minus(Duration.of(1L, ChronoUnit.HOURS))));
+        assertEquals(2, value.get().value);
+    }
+
+    @Test
+    public void testNullValueIgnored() {
+        final ConflatedValue<Stamped> value = new ConflatedValue<>(Stamped.class, timeMachine, Duration.ZERO, () -> null);
+        assertFalse(value.publish());
+        assertNull(value.get());
+    }
+}
@@ -0,0 +1,68 @@
+package com.hackinghat.util;
+
+import com.hackinghat.model.ConstantTickSizeToLevelConverter;
+import com.hackinghat.model.Currency;
+import com.hackinghat.model.Instrument;
+import com.hackinghat.model.Trade;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.assertEquals;
+
+public class CsvBufferTest {
+
+    @Test
+    public void testLongs() {
+        final CsvBuffer buffer = new CsvBuffer(1);
+        buffer.append(0L).append(',').append(-12L).append(',').append(Long.MAX_VALUE).append(',').append(Long.MIN_VALUE);
+        assertEquals("0,-12," + Long.MAX_VALUE + "," + Long.MIN_VALUE, buffer.toString());
+    }
+
+    @Test
+    public void testDecimals() {
+        final CsvBuffer buffer = new CsvBuffer();
+        assertEquals("100.25", buffer.append(100.25, 4).toString());
+        assertEquals("100", buffer.reset().append(100.0f, 4).toString());
+        assertEquals("0.0001", buffer.reset().append(0.00005, 4).toString());
+        assertEquals("-1.5", buffer.reset().append(-1.5, 12).toString());
+        assertEquals("0", buffer.reset().append(-0.00001, 2).toString());
+        assertEquals("3", buffer.reset().append(2.5, 0).toString());
+        assertEquals("0.000000000001", buffer.reset().append(1E-12, 12).toString());
+        assertEquals("1.0E30", buffer.reset().append(1E30, 12).toString());
+        assertEquals("NaN", buffer.reset().append(Double.NaN, 4).toString());
+    }
+
+    @Test
+    public void testTime() {
+        final CsvBuffer buffer = new CsvBuffer();
+        final LocalDateTime time = LocalDateTime.of(2020, 1, 2, 7, 5, 9, 123_456_789);
+        final TimeMachine timeMachine = new TimeMachine();
+        assertEquals(timeMachine.formatTime(time), buffer.appendTime(time).toString());
+    }
+
+    @Test
+    public void testReuseAndLines() {
+        final CsvBuffer buffer = new CsvBuffer(4);
+        buffer.append("a,b").newLine().append("c").newLine();
+        assertEquals(2, buffer.lines());
+        assertEquals("a,b\nc\n", buffer.toString());
+        final CsvBuffer other = new CsvBuffer();
+        other.append(buffer).truncate(3);
+        assertEquals("a,b", other.toString());
+        buffer.reset();
+        assertEquals(0, buffer.lines());
+        assertEquals("", buffer.toString());
+    }
+
+    @Test
+    public void testTrade() {
+        final TimeMachine timeMachine = new TimeMachine();
+        final Instrument VOD = new Instrument("VOD.L", new Currency("GBP"), new ConstantTickSizeToLevelConverter(1, 100, 2));
+        final Trade trade = new Trade(this, "T1", VOD, LocalDateTime.of(2020, 1, 2, 8, 0, 1), "A", "C1", "C2", VOD.getLevel(1234.5f), 1000);
+        final CsvBuffer buffer = new CsvBuffer();
+        trade.formatStatistic(timeMachine, buffer);
+        assertEquals("\"08:00:01.000000\",\"1\",\"A\",\"C1\",\"C2\",\"1234.5\",\"1000\"", buffer.toString());
+        assertEquals(buffer.toString(), trade.formatStatistic(timeMachine));
+    }
+}
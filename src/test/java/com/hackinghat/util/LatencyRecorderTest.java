@@ -0,0 +1,66 @@
+package com.hackinghat.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LatencyRecorderTest {
+
+    @Test
+    public void testBuckets() {
+        // Every value falls in a bucket whose range includes it, and that's no wider than 1 in 64 of the value
+        long previousHighest = -1L;
+        for (int index = 0; index < LatencyHistogram.BUCKETS; ++index) {
+            final long highest = LatencyHistogram.highestValueOf(index);
+            assertEquals(index, LatencyHistogram.indexOf(previousHighest + 1));
+            assertEquals(index, LatencyHistogram.indexOf(highest));
+            assertTrue(highest - previousHighest <= Math.max(1L, highest / 64L));
+            previousHighest = highest;
+        }
+        assertEquals(Long.MAX_VALUE, previousHighest);
+    }
+
+    @Test
+    public void testPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0L, histogram.getValueAtPercentile(99.0));
+        for (long value = 1L; value <= 100_000L; ++value)
+            histogram.record(value * 1000L);
+        assertEquals(100_000L, histogram.getTotalCount());
+        assertEquals(50_000_000L, histogram.getValueAtPercentile(50.0), 50_000_000L / 64.0);
+        assertEquals(99_000_000L, histogram.getValueAtPercentile(99.0), 99_000_000L / 64.0);
+        assertEquals(99_900_000L, histogram.getValueAtPercentile(99.9), 99_900_000L / 64.0);
+        assertEquals(100_000_000L, histogram.getMaxValue(), 100_000_000L / 64.0);
+        assertEquals(50_000_500.0, histogram.getMean(), 50_000_500.0 / 64.0);
+    }
+
+    @Test
+    public void testIntervalsFromManyThreads() throws Exception {
+        try (final LatencyRecorder recorder = new LatencyRecorder("LatencyRecorderTest")) {
+            final List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; ++t) {
+                final long latency = (t + 1) * 1_000L;
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < 10_000; ++i)
+                        recorder.record(latency);
+                }));
+            }
+            for (final Thread thread : threads)
+                thread.start();
+            for (final Thread thread : threads)
+                thread.join();
+            recorder.sample();
+            assertEquals(40_000L, recorder.getCount());
+            assertEquals(2_000L, recorder.getP50(), 2_000L / 64.0);
+            assertEquals(4_000L, recorder.getMax(), 4_000L / 64.0);
+            // The next interval only has what's recorded after the sample
+            recorder.record(10L);
+            recorder.sample();
+            assertEquals(1L, recorder.getCount());
+            assertEquals(10L, recorder.getP999());
+        }
+    }
+}
@@ -3,8 +3,10 @@ package com.hackinghat.util;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.Assert.assertTrue;
 
@@ -55,4 +57,68 @@ public class MemoryCacheTest {
         assertTrue(instrumentCache.remove(ro1.getId()));
         Assert.assertEquals(0, instrumentCache.size());
     }
+
+    @Test
+    public void testCounters() {
+        final MemoryCache<String, RandomObject> cache = new MemoryCache<>(RandomObject.class);
+        cache.insert(new RandomObject("A", 1L));
+        assertTrue(cache.get("A").isPresent());
+        Assert.assertFalse(cache.get("B").isPresent());
+        Assert.assertEquals(1L, cache.getHits());
+        Assert.assertEquals(1L, cache.getMisses());
+    }
+
+    @Test
+    public void testSizeEviction() {
+        final MemoryCache<String, RandomObject> cache = new MemoryCache<>(RandomObject.class, 2, null, MemoryCache.CopyPolicy.ON_WRITE);
+        cache.insert(new RandomObject("A", 1L));
+        cache.insert(new RandomObject("B", 1L));
+        // Rewriting A makes B the oldest
+        cache.upsert(new RandomObject("A", 2L));
+        cache.insert(new RandomObject("C", 1L));
+        Assert.assertEquals(2, cache.size());
+        Assert.assertFalse(cache.get("B").isPresent());
+        Assert.assertEquals(2L, cache.get("A").get().random);
+        Assert.assertEquals(1L, cache.getEvictions());
+        // Repeated writes of the same values don't evict anything
+        for (int i = 0; i < 1000; ++i)
+            cache.upsert(new RandomObject("A", (long) i), new RandomObject("C", (long) i));
+        Assert.assertEquals(1L, cache.getEvictions());
+        assertTrue(cache.get("C").isPresent());
+    }
+
+    @Test
+    public void testTimeToLive() {
+        final AtomicLong now = new AtomicLong();
+        final MemoryCache<String, RandomObject> cache = new MemoryCache<>(RandomObject.class, MemoryCache.UNBOUNDED, Duration.ofNanos(100L), MemoryCache.CopyPolicy.ON_WRITE, now::get);
+        cache.insert(new RandomObject("A", 1L));
+        now.set(50L);
+        cache.insert(new RandomObject("B", 1L));
+        assertTrue(cache.get("A").isPresent());
+        now.set(100L);
+        Assert.assertFalse(cache.get("A").isPresent());
+        Assert.assertThrows(IllegalArgumentException.class, () -> cache.update(new RandomObject("A", 2L)));
+        // An expired value can be inserted again
+        cache.insert(new RandomObject("A", 3L));
+        now.set(150L);
+        Assert.assertEquals(1, cache.evictExpired());
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(3L, cache.get("A").get().random);
+        Assert.assertEquals(2L, cache.getExpirations());
+    }
+
+    @Test
+    public void testCopyPolicy() {
+        final RandomObject ro1 = new RandomObject("A", 1L);
+        final MemoryCache<String, RandomObject> none = new MemoryCache<>(RandomObject.class, MemoryCache.UNBOUNDED, null, MemoryCache.CopyPolicy.NONE);
+        none.insert(ro1);
+        Assert.assertSame(ro1, none.get("A").get());
+        final MemoryCache<String, RandomObject> onWrite = new MemoryCache<>(RandomObject.class);
+        onWrite.insert(ro1);
+        Assert.assertSame(onWrite.get("A").get(), onWrite.get("A").get());
+        final MemoryCache<String, RandomObject> onRead = new MemoryCache<>(RandomObject.class, MemoryCache.UNBOUNDED, null, MemoryCache.CopyPolicy.ON_READ_AND_WRITE);
+        onRead.insert(ro1);
+        Assert.assertNotSame(onRead.get("A").get(), onRead.get("A").get());
+        Assert.assertEquals(ro1, onRead.get("A").get());
+    }
 }
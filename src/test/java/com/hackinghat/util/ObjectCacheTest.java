@@ -1,11 +1,24 @@
 package com.hackinghat.util;
 
+import com.hackinghat.model.ConstantTickSizeToLevelConverter;
+import com.hackinghat.model.Currency;
+import com.hackinghat.model.Instrument;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
 import java.util.Optional;
 
+import static com.hackinghat.util.component.AbstractComponentTest.checkNumberOfMBeans;
+
 public class ObjectCacheTest {
+    private static final Logger LOG = LogManager.getLogger(ObjectCacheTest.class);
+
     @Test
     public void testInsert() {
         final ObjectCache oc = new ObjectCache();
@@ -49,4 +62,68 @@ public class ObjectCacheTest {
         Assert.assertEquals(1L, (long) oc.getSizes().get(RandomObject.class));
         Assert.assertTrue(oc.remove(RandomObject.class, "A"));
     }
+
+    @Test
+    public void testMonitor() {
+        checkNumberOfMBeans(0, "ObjectCacheTest.testMonitor");
+        final ObjectCache oc = new ObjectCache();
+        oc.addCache(new MemoryCache<>(RandomObject.class, 1, null, MemoryCache.CopyPolicy.NONE));
+        try (final ObjectCacheMonitor monitor = new ObjectCacheMonitor("ObjectCache-TEST", oc)) {
+            oc.insert(new RandomObject("A", 1L));
+            oc.insert(new RandomObject("B", 1L));
+            Assert.assertFalse(oc.get(RandomObject.class, "A").isPresent());
+            Assert.assertTrue(oc.get(RandomObject.class, "B").isPresent());
+            Assert.assertEquals(1, monitor.getCacheCount());
+            Assert.assertEquals(1L, monitor.getSize());
+            Assert.assertEquals(1L, monitor.getHits());
+            Assert.assertEquals(1L, monitor.getMisses());
+            Assert.assertEquals(1L, monitor.getEvictions());
+            Assert.assertEquals("randomobject=1/1/1/1/0", monitor.getCacheSummary());
+        }
+        checkNumberOfMBeans(0, "ObjectCacheTest.testMonitor");
+    }
+
+    @Test
+    public void testWriteAndLoad() throws IOException {
+        final SimulatorObjectMapper mapper = new SimulatorObjectMapper(SimulatorObjectMapperAudience.PUBLIC, new TimeMachine());
+        final ObjectCache oc = new ObjectCache();
+        final MemoryCache<String, Currency> currencies = new MemoryCache<>(Currency.class);
+        final MemoryCache<String, Instrument> instruments = new MemoryCache<>(Instrument.class);
+        oc.addCache(currencies);
+        oc.addCache(instruments);
+        final Currency gbp = new Currency("GBP", LocalDateTime.of(2020, 1, 2, 8, 0));
+        currencies.upsert(gbp, new Currency("JPY", 0, LocalDateTime.of(2020, 1, 2, 8, 0)));
+        final int N = 5000;
+        for (int i = 0; i < N; ++i)
+            instruments.upsert(new Instrument("I" + i + ".L", i % 2 == 0 ? "Instrument " + i : null, gbp, new ConstantTickSizeToLevelConverter(1, new int[]{1, 2, 4, 5}[i % 4], 2), LocalDateTime.of(2020, 6, 1, 8, 0).plusSeconds(i)));
+
+        final File file = File.createTempFile("ObjectCacheTest", ".jsonl");
+        file.deleteOnExit();
+        Assert.assertEquals(N + 2, oc.write(file.getPath(), mapper));
+        Assert.assertEquals(N + 2, Files.readAllLines(file.toPath()).size());
+
+        final ObjectCache loaded = new ObjectCache();
+        loaded.addCache(new MemoryCache<>(Currency.class));
+        loaded.addCache(new MemoryCache<>(Instrument.class));
+        Assert.assertEquals(N + 2, loaded.load(file.getPath(), mapper));
+        // A second load, replacing everything, once the classes are loaded and warm
+        final long start = System.nanoTime();
+        Assert.assertEquals(N + 2, loaded.load(file.getPath(), mapper));
+        LOG.info("Loaded " + (N + 2) + " values in " + (System.nanoTime() - start) / 1_000_000L + "ms");
+        Assert.assertEquals(oc.getSizes(), loaded.getSizes());
+        Assert.assertEquals(0, loaded.get(Currency.class, "JPY").get().getScale());
+        for (int i = 0; i < N; i += 499) {
+            final Instrument expected = instruments.get("I" + i + ".L").get();
+            final Instrument actual = loaded.get(Instrument.class, "I" + i + ".L").get();
+            Assert.assertEquals(expected.getDescription(), actual.getDescription());
+            Assert.assertEquals(expected.getCurrency(), actual.getCurrency());
+            Assert.assertEquals(expected.getTimestamp(), actual.getTimestamp());
+            Assert.assertEquals(expected.getTickConverter().getTickSize(1.0f), actual.getTickConverter().getTickSize(1.0f), 1E-6);
+        }
+
+        // Caches that aren't present are skipped
+        final ObjectCache currenciesOnly = new ObjectCache();
+        currenciesOnly.addCache(new MemoryCache<>(Currency.class));
+        Assert.assertEquals(2, currenciesOnly.load(file.getPath(), mapper));
+    }
 }
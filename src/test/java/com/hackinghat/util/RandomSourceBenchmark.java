@@ -0,0 +1,58 @@
+package com.hackinghat.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Test;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Compares the draws per second of the samplers of {@link SplittableRandomSource} with the simple ones of
+ * {@link RandomSourceImpl}, they're only logged.  Not part of the unit tests, run with <code>mvn test -Pbenchmark</code>;
+ * that the samplers are right is checked by {@link SplittableRandomSourceTest}.
+ */
+public class RandomSourceBenchmark {
+    private static final Logger LOG = LogManager.getLogger(RandomSourceBenchmark.class);
+    private static final int DRAWS = 400_000;
+    private static final int ROUNDS = 3;
+
+    private static long bestNanos(final RandomSource source, final ToDoubleFunction<RandomSource> draw) {
+        final double[] values = new double[DRAWS];
+        long bestNanos = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; ++round) {
+            final long start = System.nanoTime();
+            for (int i = 0; i < DRAWS; ++i)
+                values[i] = draw.applyAsDouble(source);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        return bestNanos;
+    }
+
+    private static void compare(final String name, final ToDoubleFunction<RandomSource> draw) {
+        final long simple = bestNanos(new RandomSourceImpl(0L), draw);
+        final long fast = bestNanos(new SplittableRandomSource(0L), draw);
+        LOG.info(String.format("%s draws/sec: %,d (simple %,d)", name, DRAWS * 1_000_000_000L / fast, DRAWS * 1_000_000_000L / simple));
+    }
+
+    @Test
+    public void testPoisson() {
+        compare("Poisson(3)", s -> s.nextPoisson(3.0));
+        compare("Poisson(50)", s -> s.nextPoisson(50.0));
+        compare("Poisson(100)", s -> s.nextPoisson(100.0));
+    }
+
+    @Test
+    public void testBinomial() {
+        compare("Binomial(20, 0.2)", s -> s.nextBinomial(20, 0.2));
+        compare("Binomial(200, 0.3)", s -> s.nextBinomial(200, 0.3));
+        compare("Binomial(200, 0.9)", s -> s.nextBinomial(200, 0.9));
+        compare("Bernoulli(0.3)", s -> s.getBernoulli(0.3));
+    }
+
+    @Test
+    public void testContinuous() {
+        compare("Exponential(5)", s -> s.nextExponential(5.0));
+        compare("LogNormal(4.5, 0.8)", s -> s.nextLogNormal(4.5, 0.8));
+        compare("Power(1, 1.4)", s -> s.nextPower(1, 1.4));
+    }
+}
@@ -0,0 +1,188 @@
+package com.hackinghat.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+import static org.junit.Assert.*;
+
+public class SplittableRandomSourceTest {
+
+    @Test
+    public void testKnownValues() {
+        // The first outputs of SplitMix64 from zero and of xoshiro256** from {1, 2, 3, 4}
+        assertEquals(0xe220a8397b1dcdafL, SplittableRandomSource.mix64(0x9e3779b97f4a7c15L));
+        final SplittableRandomSource xoshiro = new SplittableRandomSource(1L, 2L, 3L, 4L);
+        assertEquals(11520L, xoshiro.nextLong());
+        assertEquals(0L, xoshiro.nextLong());
+        assertEquals(1509978240L, xoshiro.nextLong());
+    }
+
+    private static long[] take(final SplittableRandomSource source, final int n) {
+        final long[] values = new long[n];
+        for (int i = 0; i < n; ++i)
+            values[i] = source.nextLong();
+        return values;
+    }
+
+    @Test
+    public void testStreams() {
+        final SplittableRandomSource master = new SplittableRandomSource(2L);
+        final long[] first = take(master.split(7L), 100);
+        // Taking values from the master, or from other streams, doesn't change a stream
+        take(master, 100);
+        take(master.split(8L), 100);
+        assertArrayEquals(first, take(new SplittableRandomSource(2L).split(7L), 100));
+        assertFalse(first[0] == take(master.split(8L), 1)[0]);
+        assertFalse(first[0] == take(new SplittableRandomSource(3L).split(7L), 1)[0]);
+    }
+
+    @Test
+    public void testReproducibleAcrossThreads() throws Exception {
+        final SplittableRandomSource master = new SplittableRandomSource(42L);
+        final int agents = 16;
+        final double[] sequential = new double[agents];
+        for (int agent = 0; agent < agents; ++agent)
+            sequential[agent] = sum(master.split(agent));
+        final ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Double>> results = new ArrayList<>();
+            for (int agent = agents - 1; agent >= 0; --agent) {
+                final RandomSource stream = master.split(agent);
+                results.add(0, pool.submit(() -> sum(stream)));
+            }
+            for (int agent = 0; agent < agents; ++agent)
+                assertEquals(sequential[agent], results.get(agent).get(), 0.0);
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10L, TimeUnit.SECONDS));
+        }
+    }
+
+    private static double sum(final RandomSource source) {
+        double total = 0.0;
+        for (int i = 0; i < 100_000; ++i)
+            total += source.nextDouble() + source.nextInt(10) + source.nextLogNormal(4.5, 0.8);
+        return total;
+    }
+
+    @Test
+    public void testDistributions() {
+        final RandomSource source = new SplittableRandomSource(0L);
+        final int n = 200_000;
+        final int[] counts = new int[7];
+        double mean = 0.0;
+        double gaussian = 0.0;
+        double gaussianSquares = 0.0;
+        for (int i = 0; i < n; ++i) {
+            final double u = source.nextDouble();
+            assertTrue(u >= 0.0 && u < 1.0);
+            mean += u / n;
+            counts[source.nextInt(7)]++;
+            final double g = Math.log(source.nextLogNormal(0.0, 1.0));
+            gaussian += g / n;
+            gaussianSquares += g * g / n;
+        }
+        assertEquals(0.5, mean, 0.005);
+        for (final int count : counts)
+            assertEquals(n / 7.0, count, n / 7.0 * 0.05);
+        assertEquals(0.0, gaussian, 0.01);
+        assertEquals(1.0, gaussianSquares, 0.02);
+    }
+
+    @Test
+    public void testBlocks() {
+        final int n = 100_000;
+        final SplittableRandomSource block = new SplittableRandomSource(5L);
+        final SplittableRandomSource single = new SplittableRandomSource(5L);
+        final double[] doubles = new double[n];
+        block.nextDoubles(doubles, n);
+        for (int i = 0; i < n; ++i)
+            assertEquals(single.nextDouble(), doubles[i], 0.0);
+        final int[] powers = new int[n];
+        block.nextPowers(powers, n, 1, 1.4);
+        for (int i = 0; i < n; ++i)
+            assertEquals(single.nextPower(1, 1.4), powers[i]);
+        // The corrections come after the block, so only the moments are the same
+        final double[] exponentials = new double[n];
+        block.nextExponentials(exponentials, n, 5.0);
+        final double[] gaussians = new double[n];
+        block.nextLogNormals(gaussians, n, 0.0, 1.0);
+        double exponentialMean = 0.0, gaussianMean = 0.0, gaussianSquares = 0.0;
+        for (int i = 0; i < n; ++i) {
+            exponentialMean += exponentials[i] / n;
+            final double g = Math.log(gaussians[i]);
+            gaussianMean += g / n;
+            gaussianSquares += g * g / n;
+        }
+        assertEquals(0.2, exponentialMean, 0.002);
+        assertEquals(0.0, gaussianMean, 0.015);
+        assertEquals(1.0, gaussianSquares, 0.03);
+    }
+
+    private static final int DRAWS = 400_000;
+
+    /**
+     * Checks the mean and variance of the samplers, both these and the simple ones of {@link RandomSourceImpl}, are
+     * within five standard errors of what they should be
+     */
+    private static void assertMoments(final String name, final ToDoubleFunction<RandomSource> draw, final double mean, final double variance, final double kurtosis) {
+        final double meanTolerance = 5.0 * Math.sqrt(variance / DRAWS);
+        final double varianceTolerance = 5.0 * variance * Math.sqrt((kurtosis - 1.0) / DRAWS);
+        for (final RandomSource source : new RandomSource[]{new RandomSourceImpl(0L), new SplittableRandomSource(0L)}) {
+            double sum = 0.0, squares = 0.0;
+            for (int i = 0; i < DRAWS; ++i) {
+                final double value = draw.applyAsDouble(source);
+                sum += value;
+                squares += value * value;
+            }
+            final double sampleMean = sum / DRAWS;
+            assertEquals(name, mean, sampleMean, meanTolerance);
+            assertEquals(name, variance, squares / DRAWS - sampleMean * sampleMean, varianceTolerance);
+        }
+    }
+
+    @Test
+    public void testPoisson() {
+        assertMoments("Poisson(3)", s -> s.nextPoisson(3.0), 3.0, 3.0, 3.0 + 1.0 / 3.0);
+        assertMoments("Poisson(50)", s -> s.nextPoisson(50.0), 50.0, 50.0, 3.0 + 1.0 / 50.0);
+        assertMoments("Poisson(100)", s -> s.nextPoisson(100.0), 100.0, 100.0, 3.0 + 1.0 / 100.0);
+    }
+
+    @Test
+    public void testBinomial() {
+        assertMoments("Binomial(20, 0.2)", s -> s.nextBinomial(20, 0.2), 4.0, 3.2, 3.0 + (1.0 - 6.0 * 0.16) / 3.2);
+        assertMoments("Binomial(200, 0.3)", s -> s.nextBinomial(200, 0.3), 60.0, 42.0, 3.0 + (1.0 - 6.0 * 0.21) / 42.0);
+        assertMoments("Binomial(200, 0.9)", s -> s.nextBinomial(200, 0.9), 180.0, 18.0, 3.0 + (1.0 - 6.0 * 0.09) / 18.0);
+        assertMoments("Bernoulli(0.3)", s -> s.getBernoulli(0.3), 0.3, 0.21, 3.0 + (1.0 - 6.0 * 0.21) / 0.21);
+    }
+
+    @Test
+    public void testContinuous() {
+        assertMoments("Exponential(5)", s -> s.nextExponential(5.0), 0.2, 0.04, 9.0);
+        assertMoments("Gaussian", s -> Math.log(s.nextLogNormal(0.0, 1.0)), 0.0, 1.0, 3.0);
+        final double sigma2 = 0.8 * 0.8;
+        assertMoments("LogNormal(4.5, 0.8)", s -> s.nextLogNormal(4.5, 0.8), Math.exp(4.5 + sigma2 / 2.0),
+                (Math.exp(sigma2) - 1.0) * Math.exp(9.0 + sigma2),
+                Math.exp(4.0 * sigma2) + 2.0 * Math.exp(3.0 * sigma2) + 3.0 * Math.exp(2.0 * sigma2) - 3.0);
+    }
+
+    @Test
+    public void testPowerIsTheClosedFormForTheSameUniforms() {
+        final SplittableRandomSource table = new SplittableRandomSource(1L);
+        final SplittableRandomSource uniforms = new SplittableRandomSource(1L);
+        for (final double alpha : new double[]{1.4, 2.3, 3.0}) {
+            for (int i = 0; i < DRAWS; ++i) {
+                final double u = uniforms.nextDouble();
+                final int expected = (int) Math.floor(0.5 * Math.pow(1.0 - u, -1. / (alpha - 1)) + 0.5);
+                assertEquals(expected, table.nextPower(1, alpha));
+            }
+        }
+    }
+}
@@ -11,6 +11,11 @@ public class StatisticsAppenderTestHelper extends AbstractStatisticsAppender {
     private final ArrayList<Statistic> sourceData;
 
     public StatisticsAppenderTestHelper() {
+        this(DEFAULT_CAPACITY, BackpressurePolicy.BLOCK);
+    }
+
+    public StatisticsAppenderTestHelper(final int capacity, final BackpressurePolicy policy) {
+        super(capacity, policy);
         lines = new ArrayList<>();
         sourceData = new ArrayList<>();
     }
@@ -30,6 +35,10 @@ public class StatisticsAppenderTestHelper extends AbstractStatisticsAppender {
         sourceData.addAll(Arrays.asList(statistics));
     }
 
+    public Collection<String> getLines() {
+        return lines;
+    }
+
     public Collection<Statistic> getStatistics() {
         return sourceData;
     }
@@ -3,10 +3,13 @@ package com.hackinghat.util;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.time.DateTimeException;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 
 import static org.junit.Assert.assertEquals;
@@ -99,6 +102,23 @@ public class TimeMachineTest {
         Assert.assertEquals("2020-08-09T08:08:07.000050001", doubleSpeed.formatTimeAsUTCISO(random2));
     }
 
+    @Test
+    public void testFormatTimeAsUtcIsoMatchesZoneRules() {
+        // Step through a year, including both clock changes, in a zone with daylight saving
+        final TimeMachine london = new TimeMachine(LocalDateTime.of(2020, 1, 1, 8, 0).atZone(ZoneId.of("Europe/London")), 1.0);
+        final char[] buffer = new char[TimeMachine.UTC_ISO_MAX_LENGTH];
+        for (LocalDateTime time = LocalDateTime.of(2019, 12, 31, 22, 0); time.getYear() < 2021; time = time.plusMinutes(517).plusNanos(1_250_000)) {
+            final String expected = LocalDateTime.ofInstant(time.atZone(ZoneId.of("Europe/London")).toInstant(), ZoneOffset.UTC).toString();
+            assertEquals(expected, new String(buffer, 0, london.formatTimeAsUTCISO(time, buffer)));
+        }
+        // The gap and the overlap themselves, whole minutes and far-off dates
+        for (final LocalDateTime time : new LocalDateTime[]{LocalDateTime.of(2020, 3, 29, 1, 30), LocalDateTime.of(2020, 10, 25, 1, 30, 1),
+                LocalDateTime.of(2020, 10, 25, 2, 0), LocalDateTime.of(2020, 12, 31, 23, 59, 59, 999_000_000), LocalDateTime.MAX, LocalDateTime.MIN.plusDays(1)}) {
+            final String expected = LocalDateTime.ofInstant(time.atZone(ZoneId.of("Europe/London")).toInstant(), ZoneOffset.UTC).toString();
+            assertEquals(expected, london.formatTimeAsUTCISO(time));
+        }
+    }
+
     @Test
     public void testParseTimeFromUtcIso() {
         final TimeMachine doubleSpeed = new TimeMachine(LocalTime.of(8, 0, 0), 2.0);
@@ -107,4 +127,32 @@ public class TimeMachineTest {
         final LocalDateTime random2 = LocalDateTime.of(2020, 8, 9, 9, 8, 7, 50001);
         Assert.assertEquals(random2, doubleSpeed.parseTimeFromUTCISO("2020-08-09T08:08:07.000050001"));
     }
+
+    @Test
+    public void testParseTimeFromUtcIsoMatchesZoneRules() {
+        final TimeMachine london = new TimeMachine(LocalDateTime.of(2020, 1, 1, 8, 0).atZone(ZoneId.of("Europe/London")), 1.0);
+        for (LocalDateTime utc = LocalDateTime.of(2019, 12, 31, 22, 0); utc.getYear() < 2021; utc = utc.plusMinutes(517).plusNanos(1_250_000)) {
+            final LocalDateTime expected = LocalDateTime.ofInstant(utc.toInstant(ZoneOffset.UTC), ZoneId.of("Europe/London"));
+            assertEquals(expected, london.parseTimeFromUTCISO(utc.toString()));
+        }
+        // Either side of the clock changes and text that only the slow path understands
+        assertEquals(LocalDateTime.of(2020, 3, 29, 0, 59, 59), london.parseTimeFromUTCISO("2020-03-29T00:59:59"));
+        assertEquals(LocalDateTime.of(2020, 3, 29, 2, 0), london.parseTimeFromUTCISO("2020-03-29T01:00"));
+        assertEquals(LocalDateTime.of(2020, 10, 25, 1, 59, 59), london.parseTimeFromUTCISO("2020-10-25T00:59:59"));
+        assertEquals(LocalDateTime.of(2020, 10, 25, 1, 0), london.parseTimeFromUTCISO("2020-10-25T01:00"));
+        assertEquals(LocalDateTime.MAX, london.parseTimeFromUTCISO("+999999999-12-31T23:59:59.999999999"));
+        assertEquals(LocalDateTime.of(2020, 6, 1, 9, 0, 0, 100_000_000), london.parseTimeFromUTCISO("2020-06-01T08:00:00.1"));
+        Assert.assertThrows(DateTimeException.class, () -> london.parseTimeFromUTCISO("2020-02-30T08:00"));
+    }
+
+    @Test
+    public void testEpochNanos() {
+        for (final LocalDateTime time : new LocalDateTime[]{LocalDateTime.of(2020, 6, 1, 8, 0, 0, 1), LocalDateTime.of(1970, 1, 1, 0, 0), LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_999),
+                TimeMachine.fromEpochNanos(Long.MAX_VALUE), TimeMachine.fromEpochNanos(Long.MIN_VALUE)})
+            assertEquals(time, TimeMachine.fromEpochNanos(TimeMachine.toEpochNanos(time)));
+        Assert.assertThrows(ArithmeticException.class, () -> TimeMachine.toEpochNanos(LocalDateTime.MIN));
+        Assert.assertThrows(ArithmeticException.class, () -> TimeMachine.toEpochNanos(LocalDateTime.MAX));
+        Assert.assertThrows(ArithmeticException.class, () -> TimeMachine.toEpochNanos(TimeMachine.fromEpochNanos(Long.MAX_VALUE).plusNanos(1)));
+        Assert.assertThrows(ArithmeticException.class, () -> TimeMachine.toEpochNanos(TimeMachine.fromEpochNanos(Long.MIN_VALUE).minusNanos(1)));
+    }
 }
@@ -0,0 +1,95 @@
+package com.hackinghat.util.jfr;
+
+import com.hackinghat.util.CachedValue;
+import com.hackinghat.util.EventDispatcher;
+import com.hackinghat.util.SyncEventDispatcher;
+import com.hackinghat.util.TimeMachine;
+import com.hackinghat.util.Timestampable;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class JfrEventsTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static class Stamped implements Timestampable {
+        private LocalDateTime timestamp = LocalDateTime.now();
+
+        @Override
+        public LocalDateTime getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public void setTimestamp(final LocalDateTime timestamp) {
+            this.timestamp = timestamp;
+        }
+    }
+
+    private List<RecordedEvent> record(final Duration threshold, final Runnable activity) throws IOException {
+        final Path path = folder.newFile().toPath();
+        try (final Recording recording = new Recording()) {
+            recording.enable("com.hackinghat.OrderProcessed").withThreshold(threshold);
+            recording.enable("com.hackinghat.CachedValueRefresh").withThreshold(threshold);
+            recording.enable("com.hackinghat.Uncross");
+            recording.start();
+            activity.run();
+            recording.stop();
+            recording.dump(path);
+        }
+        return RecordingFile.readAllEvents(path).stream()
+                .filter(e -> e.getEventType().getName().startsWith("com.hackinghat."))
+                .collect(Collectors.toList());
+    }
+
+    private static void activity() {
+        final TimeMachine timeMachine = new TimeMachine();
+        final EventDispatcher dispatcher = new SyncEventDispatcher(timeMachine);
+        try {
+            final CachedValue<Stamped> value = new CachedValue<>(Stamped.class, timeMachine, Duration.ZERO, Stamped::new, dispatcher, true);
+            assertNotNull(value.get());
+        } finally {
+            dispatcher.shutdown();
+        }
+        final OrderProcessedEvent processed = new OrderProcessedEvent();
+        processed.begin();
+        processed.commit("VOD.L", 42L, "PENDING_NEW", 10000, 100);
+        final UncrossEvent uncross = new UncrossEvent();
+        uncross.begin();
+        uncross.commit("VOD.L", 10000, 500L);
+    }
+
+    @Test
+    public void testEventsAreRecorded() throws IOException {
+        final List<RecordedEvent> events = record(Duration.ZERO, JfrEventsTest::activity);
+        final RecordedEvent refresh = events.stream().filter(e -> e.getEventType().getName().equals("com.hackinghat.CachedValueRefresh")).findFirst().get();
+        assertTrue(refresh.getBoolean("refreshed"));
+        assertEquals(Stamped.class.getName(), refresh.getClass("valueType").getName());
+        final RecordedEvent processed = events.stream().filter(e -> e.getEventType().getName().equals("com.hackinghat.OrderProcessed")).findFirst().get();
+        assertEquals("VOD.L", processed.getString("instrument"));
+        assertEquals(42L, processed.getLong("orderId"));
+        assertEquals("PENDING_NEW", processed.getString("instruction"));
+        assertEquals(100, processed.getInt("quantity"));
+        assertEquals(1L, events.stream().filter(e -> e.getEventType().getName().equals("com.hackinghat.Uncross")).count());
+    }
+
+    @Test
+    public void testFastEventsAreBelowTheThreshold() throws IOException {
+        final List<RecordedEvent> events = record(Duration.ofSeconds(10L), JfrEventsTest::activity);
+        assertEquals(1, events.size());
+        assertEquals("com.hackinghat.Uncross", events.get(0).getEventType().getName());
+    }
+}
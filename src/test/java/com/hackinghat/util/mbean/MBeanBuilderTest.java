@@ -3,6 +3,11 @@ package com.hackinghat.util.mbean;
 import org.junit.Assert;
 import org.junit.Test;
 
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.MBeanServer;
+import java.lang.management.ManagementFactory;
+
 public class MBeanBuilderTest {
     @Test(expected = IllegalArgumentException.class)
     public void testNullAttributeName() {
@@ -29,6 +34,34 @@ public class MBeanBuilderTest {
         MBeanBuilder.getAttributes(IllegalMBeanTestService2.class);
     }
 
+    @Test
+    public void testMetadataIsFoundOncePerClass() {
+        Assert.assertSame(MBeanBuilder.getMBeanClass(MBeanTestService.class), MBeanBuilder.getMBeanClass(MBeanTestService.class));
+        try (final MBeanTestService service = new MBeanTestService("ABC", 1, 2.0f)) {
+            Assert.assertSame(MBeanBuilder.getMBeanClass(MBeanTestService.class).getMBeanInfo(), service.getHolder().getMBeanInfo());
+        }
+    }
+
+    @Test
+    public void testAttributesAndOperations() throws Exception {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try (final MBeanTestService service = new MBeanTestService("ABC", 1, 2.0f)) {
+            final AttributeList read = server.getAttributes(service.getHolder().getName(), new String[]{"Test Int", "Test String", "Unknown"});
+            Assert.assertEquals(2, read.size());
+            Assert.assertEquals(new Attribute("Test Int", "1"), read.asList().get(0));
+            Assert.assertEquals(new Attribute("Test String", "ABC"), read.asList().get(1));
+            server.setAttribute(service.getHolder().getName(), new Attribute("Test Int", 5));
+            Assert.assertEquals(5, service.getTestInt());
+            // The signature picks the overload
+            server.invoke(service.getHolder().getName(), "reset", new Object[]{7, "XYZ", 3.0f}, new String[]{"int", String.class.getName(), "float"});
+            Assert.assertEquals(7, service.getTestInt());
+            Assert.assertEquals("XYZ", service.getTestString());
+            server.invoke(service.getHolder().getName(), "reset", new Object[0], new String[0]);
+            Assert.assertEquals(0, service.getTestInt());
+            Assert.assertEquals("ABC", service.getTestString());
+        }
+    }
+
 //    @Test
 //    public void TestMBeanBuilder() throws Exception {
 //        final MBeanTestService test = new MBeanTestService("ABC", 1,  2.0f);